@@ -770,6 +770,25 @@ public class RequestContext {
             return result;
         }
 
+        /**
+         * 复制上下文，参数集合和原上下文相互独立，不复制异步调用的Future
+         *
+         * @return 新上下文
+         */
+        public RequestContext copy() {
+            RequestContext result = new RequestContext();
+            result.localAddress = context.localAddress;
+            result.remoteAddress = context.remoteAddress;
+            result.provider = context.provider;
+            result.alias = context.alias;
+            result.requests = context.requests == null ? null : new HashMap<>(context.requests);
+            result.sessions = context.sessions == null ? null : new HashMap<>(context.sessions);
+            result.traces = context.traces == null ? null : new HashMap<>(context.traces);
+            result.callers = context.callers == null ? null : new HashMap<>(context.callers);
+            result.dirty = true;
+            return result;
+        }
+
         /**
          * 清理扩展属性
          *
@@ -0,0 +1,162 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.Invoker;
+import io.joyrpc.Result;
+import io.joyrpc.cache.Cache;
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.config.InterfaceOption.CachePolicy;
+import io.joyrpc.config.InterfaceOption.Concurrency;
+import io.joyrpc.config.InterfaceOption.MethodOption;
+import io.joyrpc.filter.consumer.CacheFilter;
+import io.joyrpc.invoker.CallbackMethod;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.validation.Validator;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.CACHE;
+
+/**
+ * 结果缓存过滤器命中缓存时的性能，所有键都已经预先加载
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class CacheFilterBenchmark {
+
+    protected static final int KEYS = 1000;
+
+    @Param({"map", "caffeine"})
+    protected String type;
+
+    protected CacheFilter filter;
+
+    protected MethodOption option;
+
+    protected Invoker invoker;
+
+    @Setup
+    public void setup() throws Exception {
+        CacheConfig<Object, Object> config = CacheConfig.builder().capacity(KEYS * 2).expireAfterWrite(600000).build();
+        Cache<Object, Object> cache = CACHE.get(type).build(type, config);
+        option = new BenchmarkMethodOption(new CachePolicy(cache, invocation -> invocation.getArgs()[0]));
+        filter = new CacheFilter();
+        invoker = request -> CompletableFuture.completedFuture(new Result(request.getContext(), request.getPayLoad().getArgs()[0]));
+        for (int i = 0; i < KEYS; i++) {
+            filter.invoke(invoker, buildRequest(i)).get();
+        }
+    }
+
+    protected RequestMessage<Invocation> buildRequest(final int key) {
+        Invocation invocation = new Invocation("io.joyrpc.DemoService", "", "sayHello");
+        invocation.setArgs(new Object[]{key});
+        RequestMessage<Invocation> request = RequestMessage.build(invocation);
+        request.setOption(option);
+        return request;
+    }
+
+    @Benchmark
+    public Object hit() throws Exception {
+        return filter.invoke(invoker, buildRequest(ThreadLocalRandom.current().nextInt(KEYS))).get().getValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CacheFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * 方法选项，只提供缓存策略
+     */
+    protected static class BenchmarkMethodOption implements MethodOption {
+
+        protected CachePolicy policy;
+
+        public BenchmarkMethodOption(CachePolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public Method getMethod() {
+            return null;
+        }
+
+        @Override
+        public Map<String, ?> getImplicits() {
+            return null;
+        }
+
+        @Override
+        public int getTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Concurrency getConcurrency() {
+            return null;
+        }
+
+        @Override
+        public CachePolicy getCachePolicy() {
+            return policy;
+        }
+
+        @Override
+        public Validator getValidator() {
+            return null;
+        }
+
+        @Override
+        public String getToken() {
+            return null;
+        }
+
+        @Override
+        public CallbackMethod getCallback() {
+            return null;
+        }
+
+        @Override
+        public boolean isAsync() {
+            return false;
+        }
+    }
+}
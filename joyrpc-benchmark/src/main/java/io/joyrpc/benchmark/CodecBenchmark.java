@@ -0,0 +1,153 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.joy.JoyClientProtocol;
+import io.joyrpc.protocol.joy.JoyServerProtocol;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.EncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * joy协议业务应答的编解码性能，覆盖序列化、压缩和消息体大小的组合
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class CodecBenchmark {
+
+    protected static final String WORDS = "joyrpc codec benchmark serialization compression payload ";
+
+    @Param({"hessian", "protostuff", "fst", "kryo", "json", "java"})
+    protected String serialization;
+
+    @Param({"none", "lz4", "zlib"})
+    protected String compression;
+
+    @Param({"256", "8192"})
+    protected int size;
+
+    protected Codec encoder;
+
+    protected Codec decoder;
+
+    protected EncodeContext encodeContext = () -> null;
+
+    protected DecodeContext decodeContext = () -> null;
+
+    protected ResponseMessage<ResponsePayload> message;
+
+    /**
+     * 编码后的数据，不包括魔法位
+     */
+    protected byte[] data;
+
+    protected int offset;
+
+    @Setup
+    public void setup() throws Exception {
+        JoyServerProtocol server = new JoyServerProtocol();
+        encoder = server.getCodec();
+        decoder = new JoyClientProtocol().getCodec();
+        Compression compress = COMPRESSION.get(compression);
+        MessageHeader header = new MessageHeader(MsgType.BizResp.getType(), SERIALIZATION.get(serialization).getTypeId());
+        header.setMsgId(1);
+        header.setCompression(compress == null ? Compression.NONE : compress.getTypeId());
+        message = new ResponseMessage<>(header, new ResponsePayload(text(size)));
+
+        ChannelBuffer buffer = new NettyChannelBuffer(PooledByteBufAllocator.DEFAULT.buffer(size + 128));
+        encoder.encode(encodeContext, buffer, message);
+        data = new byte[buffer.readableBytes()];
+        buffer.readBytes(data);
+        buffer.release();
+        //解码器从长度字段开始读取，魔法位由帧解码器处理
+        offset = server.getMagicCode().length;
+    }
+
+    /**
+     * 生成可压缩的文本
+     *
+     * @param size 大小
+     * @return 文本
+     */
+    protected static String text(final int size) {
+        Random random = new Random(size);
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append(random.nextInt(10) == 0 ? (char) (random.nextInt(26) + 'a') : WORDS.charAt(i % WORDS.length()));
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        ChannelBuffer buffer = new NettyChannelBuffer(PooledByteBufAllocator.DEFAULT.buffer(size + 128));
+        try {
+            encoder.encode(encodeContext, buffer, message);
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        ChannelBuffer buffer = new NettyChannelBuffer(Unpooled.wrappedBuffer(data, offset, data.length - offset));
+        try {
+            return decoder.decode(decodeContext, buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
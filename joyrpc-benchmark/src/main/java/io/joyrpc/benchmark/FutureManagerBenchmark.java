@@ -0,0 +1,82 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.transport.channel.EnhanceCompletableFuture;
+import io.joyrpc.transport.channel.FutureManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求Future的创建和应答完成性能，模拟连接上已经有一批未应答的请求
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class FutureManagerBenchmark {
+
+    @Param({"0", "1000", "200000"})
+    protected int pending;
+
+    protected FutureManager<Object> manager;
+
+    @Setup
+    public void setup() {
+        manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        for (int i = 0; i < pending; i++) {
+            manager.create(manager.generateId(), 60000);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 1; i <= pending; i++) {
+            manager.remove(i);
+        }
+    }
+
+    @Benchmark
+    public boolean complete() {
+        int id = manager.generateId();
+        EnhanceCompletableFuture<Object> future = manager.create(id, 5000);
+        future = manager.remove(id);
+        return future != null && future.complete(id);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FutureManagerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,111 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.benchmark.service.OrderService;
+import io.joyrpc.benchmark.service.OrderService.Address;
+import io.joyrpc.benchmark.service.OrderService.Item;
+import io.joyrpc.benchmark.service.OrderService.Order;
+import io.joyrpc.benchmark.service.OrderService.Status;
+import io.joyrpc.codec.serialization.GenericSerializer;
+import io.joyrpc.protocol.message.Invocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.GENERIC_SERIALIZER;
+
+/**
+ * 泛化调用的参数反序列化和结果标准化性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericSerializerBenchmark {
+
+    @Param({"1", "20"})
+    protected int items;
+
+    protected GenericSerializer serializer;
+
+    protected Order order;
+
+    protected Invocation invocation;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        serializer = GENERIC_SERIALIZER.get("standard");
+        Address address = new Address();
+        address.setCity("Beijing");
+        address.setStreet("Chaoyang Road");
+        address.setZip(100000);
+        List<Item> list = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Item item = new Item();
+            item.setSku("sku-" + i);
+            item.setCount(i + 1);
+            item.setPrice(9.9 * i);
+            list.add(item);
+        }
+        Map<String, String> tags = new HashMap<>();
+        tags.put("channel", "app");
+        order = new Order();
+        order.setId(1L);
+        order.setCustomer("joyrpc");
+        order.setStatus(Status.PAID);
+        order.setCreated(new Date());
+        order.setAddress(address);
+        order.setItems(list);
+        order.setTags(tags);
+
+        Method method = OrderService.class.getMethod("save", Order.class);
+        //反序列化会移除class属性，之后按照声明类型转换，每次转换的工作量相同
+        Object[] args = new Object[]{"save", new String[]{Order.class.getName()}, new Object[]{serializer.serialize(order)}};
+        invocation = new Invocation(OrderService.class, method, args);
+    }
+
+    @Benchmark
+    public Object normalize() {
+        return serializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object[] realize() {
+        return serializer.deserialize(invocation);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(GenericSerializerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,135 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.discovery.registry.memory.MemoryRegistry;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptiveConfig;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptivePolicy;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptiveScorer;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.Judge;
+import io.joyrpc.config.InterfaceOption.ConsumerMethodOption;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard.DashboardType;
+import io.joyrpc.metric.DashboardFactory;
+import io.joyrpc.metric.mc.McDashboardFactory;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.ENDPOINT_FACTORY;
+import static io.joyrpc.Plugin.JUDGE;
+import static io.joyrpc.Plugin.LOADBALANCE;
+
+/**
+ * 负载均衡选择节点的性能，节点权重在1到10之间分布，一致性哈希以第一个参数作为哈希键。<br/>
+ * 候选者采用集群的全量节点，使按照集群节点列表缓存的负载均衡命中缓存，自适应负载均衡采用自动计算的评分。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LoadBalanceBenchmark {
+
+    @Param({"randomWeight", "roundRobin", "consistentHash", "p2c", "adaptive"})
+    protected String type;
+
+    @Param({"10", "100", "1000"})
+    protected int size;
+
+    protected LoadBalance loadBalance;
+
+    protected Candidate candidate;
+
+    protected RequestMessage<Invocation> request;
+
+    @Setup
+    public void setup() {
+        String name = "benchmark";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+        DashboardFactory dashboardFactory = new McDashboardFactory();
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String host = "10.0." + (i / 250) + "." + (i % 250 + 1);
+            nodes.add(new Node(name, url, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), i % 10 + 1, ShardState.CONNECTED),
+                    ENDPOINT_FACTORY.get(), null, null, dashboardFactory.create(url, DashboardType.Node), null));
+        }
+        Cluster cluster = new Cluster(name, url, new MemoryRegistry(url), null, null, null,
+                dashboardFactory, Collections.emptyList(), null) {
+            @Override
+            public List<Node> getNodes() {
+                return nodes;
+            }
+        };
+        candidate = new Candidate(cluster, null, nodes, size);
+        loadBalance = LOADBALANCE.get(type);
+        loadBalance.setUrl(url);
+        loadBalance.setup();
+        Invocation invocation = new Invocation("io.joyrpc.DemoService", "", "sayHello");
+        invocation.setArgs(new Object[]{"user-10086"});
+        request = RequestMessage.build(invocation);
+        //自适应负载均衡采用自动计算的评分和全部裁判
+        AdaptiveConfig config = new AdaptiveConfig();
+        if (loadBalance instanceof AdaptiveScorer) {
+            config.merge(((AdaptiveScorer) loadBalance).score(cluster, invocation.getMethodName(), config));
+        }
+        List<Judge> judges = new LinkedList<>();
+        JUDGE.extensions().forEach(judges::add);
+        AdaptivePolicy policy = new AdaptivePolicy(config, judges);
+        request.setOption((ConsumerMethodOption) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ConsumerMethodOption.class},
+                (proxy, method, args) -> "getAdaptivePolicy".equals(method.getName()) ? policy : null));
+    }
+
+    @Benchmark
+    public Node select() {
+        return loadBalance.select(candidate, request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LoadBalanceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,136 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.benchmark.service.AsyncEchoService;
+import io.joyrpc.benchmark.service.EchoService;
+import io.joyrpc.benchmark.service.EchoServiceImpl;
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.RegistryConfig;
+import io.joyrpc.config.ServerConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.constants.Constants.IN_JVM_OPTION;
+
+/**
+ * 基于netty4的本机端到端调用性能，包括代理、过滤链、编解码和网络收发
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LoopbackRpcBenchmark {
+
+    protected static final String ALIAS = "benchmark";
+
+    @Param({"hessian", "protostuff"})
+    protected String serialization;
+
+    @Param({"16", "4096"})
+    protected int size;
+
+    @Param({"22800"})
+    protected int port;
+
+    protected ProviderConfig<EchoService> providerConfig;
+
+    protected ConsumerConfig<EchoService> consumerConfig;
+
+    protected ConsumerConfig<AsyncEchoService> asyncConsumerConfig;
+
+    protected EchoService service;
+
+    protected AsyncEchoService asyncService;
+
+    protected String value;
+
+    @Setup
+    public void setup() throws Exception {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setPort(port);
+        providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setInterfaceClazz(EchoService.class.getName());
+        providerConfig.setRef(new EchoServiceImpl());
+        providerConfig.setAlias(ALIAS);
+        providerConfig.setRegistry(new RegistryConfig("memory"));
+        providerConfig.exportAndOpen().get();
+
+        consumerConfig = buildConsumer(EchoService.class);
+        service = consumerConfig.refer().get();
+        asyncConsumerConfig = buildConsumer(AsyncEchoService.class);
+        asyncService = asyncConsumerConfig.refer().get();
+
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        value = builder.toString();
+    }
+
+    protected <T> ConsumerConfig<T> buildConsumer(final Class<T> clazz) {
+        ConsumerConfig<T> config = new ConsumerConfig<>();
+        config.setInterfaceClazz(clazz.getName());
+        config.setAlias(ALIAS);
+        config.setSerialization(serialization);
+        config.setUrl("joy://127.0.0.1:" + port);
+        //不走本地调用
+        config.setParameter(IN_JVM_OPTION.getName(), "false");
+        config.setTimeout(5000);
+        return config;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        consumerConfig.unrefer().get();
+        asyncConsumerConfig.unrefer().get();
+        providerConfig.unexport().get();
+    }
+
+    @Benchmark
+    public String sync() {
+        return service.echo(value);
+    }
+
+    @Benchmark
+    public String async() throws Exception {
+        return asyncService.echo(value).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LoopbackRpcBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,96 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.benchmark.service.StartupService;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.METHOD_CALLER_FACTORY;
+
+/**
+ * 服务导出时生成方法调用的冷启动耗时，每次在新的JVM中测量，javac串行对应原有的预编译方式。
+ * javac需要把类输出到类路径目录，需要以目录形式的类路径运行，不能使用打包后的benchmarks.jar
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class MethodCallerBenchmark {
+
+    @Param({"javac", "javassist", "bytebuddy"})
+    protected String factory;
+
+    protected MethodCallerFactory callerFactory;
+
+    protected Method[] methods;
+
+    protected Object ref;
+
+    @Setup
+    public void setup() {
+        callerFactory = METHOD_CALLER_FACTORY.get(factory);
+        methods = StartupService.class.getMethods();
+        ref = new StartupService.StartupServiceImpl();
+    }
+
+    @Benchmark
+    public MethodCaller[] serial() {
+        MethodCaller[] callers = new MethodCaller[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            callers[i] = callerFactory.generate(StartupService.class, methods[i], ref);
+        }
+        return callers;
+    }
+
+    @Benchmark
+    public MethodCaller[] parallel() {
+        CompletableFuture<MethodCaller>[] futures = new CompletableFuture[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            futures[i] = CompletableFuture.supplyAsync(() -> callerFactory.generate(StartupService.class, method, ref));
+        }
+        MethodCaller[] callers = new MethodCaller[methods.length];
+        for (int i = 0; i < futures.length; i++) {
+            callers[i] = futures[i].join();
+        }
+        return callers;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MethodCallerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
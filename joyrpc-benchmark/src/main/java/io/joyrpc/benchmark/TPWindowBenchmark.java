@@ -0,0 +1,92 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPMetric;
+import io.joyrpc.metric.mc.McTPWindow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 性能指标窗口的记录和快照性能，快照线程与记录线程并发模拟仪表盘的定时汇总
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class TPWindowBenchmark {
+
+    protected McTPWindow window;
+
+    @Setup
+    public void setup() {
+        //1毫秒的窗口，让快照线程每次都能汇总
+        window = new McTPWindow(1, Clock.MILLI);
+    }
+
+    /**
+     * 只记录
+     */
+    @Benchmark
+    public void success() {
+        window.success(ThreadLocalRandom.current().nextInt(1, 200));
+    }
+
+    /**
+     * 记录线程
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void record() {
+        window.success(ThreadLocalRandom.current().nextInt(1, 200));
+    }
+
+    /**
+     * 快照线程
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public TPMetric snapshot() {
+        window.snapshot();
+        return window.getSnapshot();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TPWindowBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
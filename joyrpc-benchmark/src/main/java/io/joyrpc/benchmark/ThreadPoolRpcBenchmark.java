@@ -0,0 +1,124 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.benchmark.service.DispatchService;
+import io.joyrpc.benchmark.service.DispatchServiceImpl;
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.RegistryConfig;
+import io.joyrpc.config.ServerConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.constants.Constants.IN_JVM_OPTION;
+
+/**
+ * 服务端业务线程池的本机端到端调用性能，对比自适应线程池、虚拟线程和直接执行模式下的同步和异步服务。<br/>
+ * 虚拟线程需要JDK21及以上版本运行，否则退化为自适应线程池
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ThreadPoolRpcBenchmark {
+
+    protected static final String ALIAS = "dispatch";
+
+    @Param({"adaptive", "virtual", "direct"})
+    protected String threadPool;
+
+    @Param({"256"})
+    protected int size;
+
+    @Param({"22810"})
+    protected int port;
+
+    protected ProviderConfig<DispatchService> providerConfig;
+
+    protected ConsumerConfig<DispatchService> consumerConfig;
+
+    protected DispatchService service;
+
+    protected String value;
+
+    @Setup
+    public void setup() throws Exception {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setPort(port);
+        serverConfig.setThreadPool(threadPool);
+        providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setInterfaceClazz(DispatchService.class.getName());
+        providerConfig.setRef(new DispatchServiceImpl());
+        providerConfig.setAlias(ALIAS);
+        providerConfig.setRegistry(new RegistryConfig("memory"));
+        providerConfig.exportAndOpen().get();
+
+        consumerConfig = new ConsumerConfig<>();
+        consumerConfig.setInterfaceClazz(DispatchService.class.getName());
+        consumerConfig.setAlias(ALIAS);
+        consumerConfig.setUrl("joy://127.0.0.1:" + port);
+        //不走本地调用
+        consumerConfig.setParameter(IN_JVM_OPTION.getName(), "false");
+        consumerConfig.setTimeout(5000);
+        service = consumerConfig.refer().get();
+
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        value = builder.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        consumerConfig.unrefer().get();
+        providerConfig.unexport().get();
+    }
+
+    @Benchmark
+    public String sync() {
+        return service.echo(value);
+    }
+
+    @Benchmark
+    public String async() throws Exception {
+        return service.echoAsync(value).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ThreadPoolRpcBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,70 @@
+package io.joyrpc.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮定时器的添加和取消性能，延迟时间决定任务落在哪一层时间轮
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class TimerBenchmark {
+
+    @Param({"100", "5000", "120000"})
+    protected long delay;
+
+    protected Timer timer;
+
+    @Setup
+    public void setup() {
+        timer = new Timer("benchmark", 200, 300, 4);
+    }
+
+    @Benchmark
+    public boolean addAndCancel() {
+        Timer.Timeout timeout = timer.add("benchmark", SystemClock.now() + delay, () -> {
+        });
+        return timeout.cancel();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TimerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
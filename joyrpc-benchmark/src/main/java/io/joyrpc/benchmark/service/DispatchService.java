@@ -0,0 +1,47 @@
+package io.joyrpc.benchmark.service;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 业务线程派发服务，分别提供同步和异步的方法
+ */
+public interface DispatchService {
+
+    /**
+     * 同步回显
+     *
+     * @param value 值
+     * @return 值
+     */
+    String echo(String value);
+
+    /**
+     * 异步回显，服务端方法返回CompletableFuture
+     *
+     * @param value 值
+     * @return 值
+     */
+    CompletableFuture<String> echoAsync(String value);
+}
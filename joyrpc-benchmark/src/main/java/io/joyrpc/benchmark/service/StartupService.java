@@ -0,0 +1,117 @@
+package io.joyrpc.benchmark.service;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * 启动耗时测试服务，方法数量接近常见的业务接口
+ */
+public interface StartupService {
+
+    String getName(long id);
+
+    int count(String type, int status);
+
+    long sum(long[] values);
+
+    boolean exists(String key);
+
+    void remove(String key);
+
+    double ratio(int a, int b);
+
+    String[] split(String value, char separator);
+
+    byte[] read(String path, int offset, int length);
+
+    void write(String path, byte[] data);
+
+    short version();
+
+    float score(String user, float base);
+
+    Object query(String sql, Object[] params);
+
+    class StartupServiceImpl implements StartupService {
+
+        @Override
+        public String getName(final long id) {
+            return String.valueOf(id);
+        }
+
+        @Override
+        public int count(final String type, final int status) {
+            return status;
+        }
+
+        @Override
+        public long sum(final long[] values) {
+            long result = 0;
+            for (long value : values) {
+                result += value;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean exists(final String key) {
+            return key != null;
+        }
+
+        @Override
+        public void remove(final String key) {
+        }
+
+        @Override
+        public double ratio(final int a, final int b) {
+            return b == 0 ? 0 : (double) a / b;
+        }
+
+        @Override
+        public String[] split(final String value, final char separator) {
+            return value.split(String.valueOf(separator));
+        }
+
+        @Override
+        public byte[] read(final String path, final int offset, final int length) {
+            return new byte[length];
+        }
+
+        @Override
+        public void write(final String path, final byte[] data) {
+        }
+
+        @Override
+        public short version() {
+            return 1;
+        }
+
+        @Override
+        public float score(final String user, final float base) {
+            return base;
+        }
+
+        @Override
+        public Object query(final String sql, final Object[] params) {
+            return sql;
+        }
+    }
+}
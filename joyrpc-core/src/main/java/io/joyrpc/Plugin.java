@@ -66,6 +66,7 @@ import io.joyrpc.protocol.MessageHandler;
 import io.joyrpc.protocol.Protocol.ProtocolVersion;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.proxy.GrpcFactory;
+import io.joyrpc.proxy.MethodCallerFactory;
 import io.joyrpc.proxy.ProxyFactory;
 import io.joyrpc.thread.ThreadPool;
 import io.joyrpc.transport.EndpointFactory;
@@ -303,6 +304,11 @@ public interface Plugin {
      */
     ExtensionPoint<GrpcFactory, String> GRPC_FACTORY = new ExtensionPointLazy<>(GrpcFactory.class);
 
+    /**
+     * 方法调用工厂插件
+     */
+    ExtensionPoint<MethodCallerFactory, String> METHOD_CALLER_FACTORY = new ExtensionPointLazy<>(MethodCallerFactory.class);
+
     /**
      * 医生插件
      */
@@ -20,6 +20,8 @@ package io.joyrpc.cache;
  * #L%
  */
 
+import java.util.function.BiFunction;
+
 /**
  * 缓存配置
  */
@@ -34,6 +36,8 @@ public class CacheConfig<K, V> {
     protected long expireAfterWrite = -1;
     //是否缓存空值
     protected boolean nullable;
+    //权重计算函数，设置后容量按照权重计算
+    protected BiFunction<K, V, Integer> weigher;
 
     public CacheConfig() {
     }
@@ -46,6 +50,12 @@ public class CacheConfig<K, V> {
         this.nullable = nullable;
     }
 
+    public CacheConfig(Class<K> keyClass, Class<V> valueClass, int capacity, long expireAfterWrite, boolean nullable,
+                       BiFunction<K, V, Integer> weigher) {
+        this(keyClass, valueClass, capacity, expireAfterWrite, nullable);
+        this.weigher = weigher;
+    }
+
     public Class<K> getKeyClass() {
         return keyClass;
     }
@@ -86,6 +96,14 @@ public class CacheConfig<K, V> {
         this.nullable = nullable;
     }
 
+    public BiFunction<K, V, Integer> getWeigher() {
+        return weigher;
+    }
+
+    public void setWeigher(BiFunction<K, V, Integer> weigher) {
+        this.weigher = weigher;
+    }
+
     public static <K, V> Builder<K, V> builder() {
         return new Builder<>();
     }
@@ -108,6 +126,8 @@ public class CacheConfig<K, V> {
         protected long expireAfterWrite = -1;
         //是否缓存空值
         protected boolean nullable;
+        //权重计算函数
+        protected BiFunction<K, V, Integer> weigher;
 
         public Builder<K, V> keyClass(final Class<K> keyClass) {
             this.keyClass = keyClass;
@@ -134,13 +154,18 @@ public class CacheConfig<K, V> {
             return this;
         }
 
+        public Builder<K, V> weigher(BiFunction<K, V, Integer> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
         /**
          * 构建
          *
          * @return
          */
         public CacheConfig<K, V> build() {
-            return new CacheConfig<>(keyClass, valueClass, capacity, expireAfterWrite, nullable);
+            return new CacheConfig<>(keyClass, valueClass, capacity, expireAfterWrite, nullable, weigher);
         }
 
     }
@@ -34,6 +34,8 @@ public interface CacheFactory {
 
     int GUAVA_ORDER = CACHE2K_ORDER + 1;
 
+    int OFFHEAP_ORDER = GUAVA_ORDER + 1;
+
     int MAP_ORDER = Short.MAX_VALUE;
 
     /**
@@ -0,0 +1,43 @@
+package io.joyrpc.cache;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.serialization.Serialization;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 序列化缓存，值按照请求的序列化方式存储，命中后可以把序列化好的字节直接写入应答
+ */
+public interface SerializedCache<K, V> extends Cache<K, V> {
+
+    /**
+     * 按照指定的序列化方式放入缓存
+     *
+     * @param key           键
+     * @param value         缓存数据
+     * @param serialization 序列化
+     */
+    CompletableFuture<Void> put(K key, V value, Serialization serialization);
+
+}
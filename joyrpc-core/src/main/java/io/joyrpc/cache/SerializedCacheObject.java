@@ -0,0 +1,51 @@
+package io.joyrpc.cache;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.protocol.message.SerializedPayload;
+
+/**
+ * 序列化的缓存对象，结果在第一次获取的时候才反序列化
+ *
+ * @param <V>
+ */
+public class SerializedCacheObject<V> extends CacheObject<V> {
+    /**
+     * 序列化的应答消息体
+     */
+    protected SerializedPayload payload;
+
+    public SerializedCacheObject(final SerializedPayload payload) {
+        super(null);
+        this.payload = payload;
+    }
+
+    public SerializedPayload getPayload() {
+        return payload;
+    }
+
+    @Override
+    public V getResult() {
+        return (V) payload.getResponse();
+    }
+}
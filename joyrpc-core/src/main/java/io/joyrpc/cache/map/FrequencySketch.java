@@ -0,0 +1,166 @@
+package io.joyrpc.cache.map;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * 频率统计，4位计数的Count-Min Sketch，每个long存放16个计数器，计数总数达到采样大小后所有计数减半，实现频率老化。<br/>
+ * 非线程安全，由缓存在维护锁中调用
+ */
+public class FrequencySketch {
+    /**
+     * 减半的掩码
+     */
+    protected static final long RESET_MASK = 0x7777777777777777L;
+    /**
+     * 每个计数器最低位的掩码
+     */
+    protected static final long ONE_MASK = 0x1111111111111111L;
+    /**
+     * 哈希种子
+     */
+    protected static final long[] SEEDS = new long[]{
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * 计数器
+     */
+    protected final long[] table;
+    /**
+     * 掩码
+     */
+    protected final int mask;
+    /**
+     * 采样大小
+     */
+    protected final int sampleSize;
+    /**
+     * 当前计数总数
+     */
+    protected int size;
+
+    /**
+     * 构造函数
+     *
+     * @param maximum 最大元素数量
+     */
+    public FrequencySketch(final long maximum) {
+        int capacity = (int) Math.min(Math.max(maximum, 8), 1 << 20);
+        int length = 1;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    /**
+     * 获取频率
+     *
+     * @param item 元素
+     * @return 频率，最大15
+     */
+    public int frequency(final Object item) {
+        int hash = spread(item.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        int index;
+        int count;
+        for (int i = 0; i < 4; i++) {
+            index = indexOf(hash, i);
+            count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 增加频率
+     *
+     * @param item 元素
+     */
+    public void increment(final Object item) {
+        int hash = spread(item.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 计数器加1，已经最大则忽略
+     *
+     * @param i 数组位置
+     * @param j 计数器位置
+     * @return 成功标识
+     */
+    protected boolean incrementAt(final int i, final int j) {
+        int offset = j << 2;
+        long m = 0xfL << offset;
+        if ((table[i] & m) != m) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    protected void reset() {
+        int odds = 0;
+        for (int i = 0; i < table.length; i++) {
+            odds += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odds >>> 2);
+    }
+
+    /**
+     * 计算第i个哈希函数的数组位置
+     *
+     * @param hash 哈希值
+     * @param i    第几个哈希函数
+     * @return 数组位置
+     */
+    protected int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & mask;
+    }
+
+    /**
+     * 打散哈希值
+     *
+     * @param h 哈希值
+     * @return 打散后的哈希值
+     */
+    protected int spread(final int h) {
+        int x = ((h >>> 16) ^ h) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -32,6 +32,7 @@ public class MapCacheFactory implements CacheFactory {
 
     @Override
     public <K, V> Cache<K, V> build(final String name, final CacheConfig<K, V> config) {
-        return new MapCache<>(name, config);
+        //有容量限制采用W-TinyLFU缓存，避免同步的LRU成为热点
+        return config != null && config.getCapacity() > 0 ? new TinyLfuCache<>(name, config) : new MapCache<>(name, config);
     }
 }
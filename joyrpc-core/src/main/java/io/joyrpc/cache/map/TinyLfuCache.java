@@ -0,0 +1,775 @@
+package io.joyrpc.cache.map;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cache.AbstractCache;
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.cache.CacheObject;
+import io.joyrpc.util.SystemClock;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * 有容量的高并发缓存，不依赖第三方类库。<br/>
+ * 数据存放在ConcurrentHashMap中，读操作不加锁，只把访问记录到按线程分散的有损读缓冲区中；
+ * 写操作放入写缓冲区，由获取到维护锁的线程批量回放，维护访问顺序、过期和淘汰。<br/>
+ * 淘汰采用W-TinyLFU策略：新数据先进入窗口区(1%)，溢出后进入主区的试用区，和试用区最老的数据比较访问频率决定去留，
+ * 试用区再次访问的数据晋升到保护区(80%)。容量可以按照权重计算。<br/>
+ * 写入后过期的时间对所有数据一样，写入顺序就是过期顺序，维护的时候从写入队列头部批量移除过期数据。
+ */
+public class TinyLfuCache<K, V> extends AbstractCache<K, V> {
+
+    /**
+     * 窗口区比例
+     */
+    protected static final double WINDOW_RATIO = 0.01d;
+    /**
+     * 保护区占主区的比例
+     */
+    protected static final double PROTECTED_RATIO = 0.8d;
+    /**
+     * 读缓冲区条带数
+     */
+    protected static final int STRIPES = stripes();
+    /**
+     * 每个读缓冲区大小
+     */
+    protected static final int BUFFER_SIZE = 16;
+    /**
+     * 积压的写操作超过该阈值，则阻塞等待维护锁
+     */
+    protected static final int WRITE_THRESHOLD = 1024;
+    /**
+     * 窗口区
+     */
+    protected static final byte WINDOW = 0;
+    /**
+     * 试用区
+     */
+    protected static final byte PROBATION = 1;
+    /**
+     * 保护区
+     */
+    protected static final byte PROTECTED = 2;
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 数据
+     */
+    protected final ConcurrentHashMap<K, Node<K, V>> data;
+    /**
+     * 最大权重
+     */
+    protected final long maximum;
+    /**
+     * 窗口区最大权重
+     */
+    protected final long windowMaximum;
+    /**
+     * 保护区最大权重
+     */
+    protected final long protectedMaximum;
+    /**
+     * 写入后过期时间
+     */
+    protected final long expireAfterWrite;
+    /**
+     * 权重计算函数
+     */
+    protected final BiFunction<K, V, Integer> weigher;
+    /**
+     * 窗口区
+     */
+    protected final AccessDeque<K, V> window = new AccessDeque<>();
+    /**
+     * 试用区
+     */
+    protected final AccessDeque<K, V> probation = new AccessDeque<>();
+    /**
+     * 保护区
+     */
+    protected final AccessDeque<K, V> protect = new AccessDeque<>();
+    /**
+     * 写入顺序队列，用于过期
+     */
+    protected final WriteDeque<K, V> writeOrder = new WriteDeque<>();
+    /**
+     * 频率统计
+     */
+    protected final FrequencySketch sketch;
+    /**
+     * 读缓冲区
+     */
+    protected final ReadBuffer<K, V>[] readBuffers;
+    /**
+     * 写缓冲区
+     */
+    protected final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    /**
+     * 积压的写操作数量
+     */
+    protected final AtomicInteger writes = new AtomicInteger();
+    /**
+     * 维护锁
+     */
+    protected final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 淘汰数
+     */
+    protected final LongAdder evictions = new LongAdder();
+    /**
+     * 过期数
+     */
+    protected final LongAdder expirations = new LongAdder();
+    /**
+     * 当前总权重，只在维护锁中修改
+     */
+    protected volatile long weight;
+    /**
+     * 窗口区权重
+     */
+    protected long windowWeight;
+    /**
+     * 保护区权重
+     */
+    protected long protectedWeight;
+
+    /**
+     * 构造函数
+     *
+     * @param name   名称
+     * @param config 配置
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(final String name, final CacheConfig<K, V> config) {
+        this.name = name;
+        this.config = config == null ? new CacheConfig<>() : config;
+        this.maximum = this.config.getCapacity() > 0 ? this.config.getCapacity() : Long.MAX_VALUE;
+        this.windowMaximum = Math.max(1, (long) (maximum * WINDOW_RATIO));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_RATIO);
+        this.expireAfterWrite = this.config.getExpireAfterWrite();
+        this.weigher = this.config.getWeigher();
+        this.data = new ConcurrentHashMap<>(this.config.getCapacity() > 0 ? Math.min(this.config.getCapacity(), 1024) : 1024);
+        this.sketch = new FrequencySketch(this.config.getCapacity() > 0 ? this.config.getCapacity() : 1024);
+        this.readBuffers = new ReadBuffer[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> doPut(final K key, final V value) {
+        int w = weigher == null ? 1 : Math.max(0, weigher.apply(key, value));
+        Node<K, V> node = new Node<>(key, value, w, expireAfterWrite > 0 ? SystemClock.now() + expireAfterWrite : -1);
+        Node<K, V> old = data.put(key, node);
+        if (old != null) {
+            afterWrite(new RemoveTask(old));
+        }
+        afterWrite(new AddTask(node));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    protected CompletableFuture<CacheObject<V>> doGet(final K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return CompletableFuture.completedFuture(null);
+        } else if (node.isExpire()) {
+            //过期数据由维护线程移除
+            tryMaintain();
+            return CompletableFuture.completedFuture(null);
+        }
+        //记录访问，读缓冲区满了则尝试维护后再记录一次，仍然失败则丢弃该访问记录
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        if (!buffer.offer(node)) {
+            tryMaintain();
+            buffer.offer(node);
+        }
+        return CompletableFuture.completedFuture(node);
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemove(final K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            afterWrite(new RemoveTask(node));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 数据条数
+     *
+     * @return 数据条数
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 当前总权重
+     *
+     * @return 总权重
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * 淘汰数
+     *
+     * @return 淘汰数
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 过期数
+     *
+     * @return 过期数
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * 执行维护，用于测试或者空闲的时候主动清理
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            maintain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写操作放入缓冲区，积压太多则同步等待维护
+     *
+     * @param task 任务
+     */
+    protected void afterWrite(final Runnable task) {
+        writeBuffer.offer(task);
+        if (writes.incrementAndGet() > WRITE_THRESHOLD) {
+            cleanUp();
+        } else {
+            tryMaintain();
+        }
+    }
+
+    /**
+     * 尝试维护，获取不到锁说明有其它线程在维护
+     */
+    protected void tryMaintain() {
+        if (lock.tryLock()) {
+            try {
+                maintain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 维护，需要在锁中调用
+     */
+    protected void maintain() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this);
+        }
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            writes.decrementAndGet();
+            task.run();
+        }
+        expire();
+        evict();
+    }
+
+    /**
+     * 访问数据，调整顺序
+     *
+     * @param node 节点
+     */
+    protected void onAccess(final Node<K, V> node) {
+        if (!node.alive) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                //晋升到保护区
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protect.addLast(node);
+                protectedWeight += node.weight;
+                demote();
+                break;
+            default:
+                protect.moveToLast(node);
+        }
+    }
+
+    /**
+     * 保护区溢出的数据降级到试用区
+     */
+    protected void demote() {
+        Node<K, V> node;
+        while (protectedWeight > protectedMaximum && (node = protect.pollFirst()) != null) {
+            protectedWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+    }
+
+    /**
+     * 移除过期的数据
+     */
+    protected void expire() {
+        if (expireAfterWrite <= 0) {
+            return;
+        }
+        long now = SystemClock.now();
+        Node<K, V> node;
+        while ((node = writeOrder.first) != null && node.isExpire(now)) {
+            data.remove(node.key, node);
+            unlink(node);
+            expirations.increment();
+        }
+    }
+
+    /**
+     * 按照W-TinyLFU淘汰数据
+     */
+    protected void evict() {
+        Node<K, V> node;
+        //窗口区溢出的数据进入试用区，作为候选者
+        while (windowWeight > windowMaximum && (node = window.pollFirst()) != null) {
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+        Node<K, V> victim;
+        Node<K, V> candidate;
+        while (weight > maximum) {
+            victim = probation.first;
+            candidate = probation.last;
+            if (victim == null) {
+                victim = protect.first != null ? protect.first : window.first;
+                if (victim == null) {
+                    break;
+                }
+                evict(victim);
+            } else if (victim == candidate || candidate.weight > maximum) {
+                evict(candidate);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                //候选者更热，淘汰最老的
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * 淘汰节点
+     *
+     * @param node 节点
+     */
+    protected void evict(final Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictions.increment();
+    }
+
+    /**
+     * 从队列中移除节点
+     *
+     * @param node 节点
+     */
+    protected void unlink(final Node<K, V> node) {
+        if (!node.alive) {
+            return;
+        }
+        node.alive = false;
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protect.remove(node);
+                protectedWeight -= node.weight;
+        }
+        if (expireAfterWrite > 0) {
+            writeOrder.remove(node);
+        }
+        weight -= node.weight;
+    }
+
+    /**
+     * 计算读缓冲区条带数
+     *
+     * @return 条带数
+     */
+    protected static int stripes() {
+        int cpus = Math.min(64, Runtime.getRuntime().availableProcessors() * 4);
+        int result = 1;
+        while (result < cpus) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    /**
+     * 增加节点
+     */
+    protected class AddTask implements Runnable {
+        /**
+         * 节点
+         */
+        protected final Node<K, V> node;
+
+        public AddTask(final Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            if (node.retired) {
+                //在添加之前已经被删除
+                return;
+            }
+            node.alive = true;
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowWeight += node.weight;
+            weight += node.weight;
+            if (expireAfterWrite > 0) {
+                writeOrder.addLast(node);
+            }
+            sketch.increment(node.key);
+        }
+    }
+
+    /**
+     * 删除节点
+     */
+    protected class RemoveTask implements Runnable {
+        /**
+         * 节点
+         */
+        protected final Node<K, V> node;
+
+        public RemoveTask(final Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            node.retired = true;
+            unlink(node);
+        }
+    }
+
+    /**
+     * 缓存节点，直接作为缓存对象返回，减少对象创建
+     */
+    protected static class Node<K, V> extends CacheObject<V> {
+
+        private static final long serialVersionUID = -3311462180262542366L;
+        /**
+         * 键
+         */
+        protected final transient K key;
+        /**
+         * 权重
+         */
+        protected final transient int weight;
+        /**
+         * 过期时间
+         */
+        protected final transient long expireTime;
+        /**
+         * 所在队列
+         */
+        protected transient byte queue;
+        /**
+         * 是否在队列中，只在维护锁中修改
+         */
+        protected transient boolean alive;
+        /**
+         * 是否已经删除，只在维护锁中修改
+         */
+        protected transient boolean retired;
+        /**
+         * 访问队列的前一个节点
+         */
+        protected transient Node<K, V> prev;
+        /**
+         * 访问队列的后一个节点
+         */
+        protected transient Node<K, V> next;
+        /**
+         * 写入队列的前一个节点
+         */
+        protected transient Node<K, V> writePrev;
+        /**
+         * 写入队列的后一个节点
+         */
+        protected transient Node<K, V> writeNext;
+
+        public Node(final K key, final V value, final int weight, final long expireTime) {
+            super(value);
+            this.key = key;
+            this.weight = weight;
+            this.expireTime = expireTime;
+        }
+
+        /**
+         * 是否过期
+         *
+         * @return 过期标识
+         */
+        public boolean isExpire() {
+            return expireTime > 0 && SystemClock.now() > expireTime;
+        }
+
+        /**
+         * 是否过期
+         *
+         * @param now 当前毫秒数
+         * @return 过期标识
+         */
+        public boolean isExpire(final long now) {
+            return expireTime > 0 && now > expireTime;
+        }
+    }
+
+    /**
+     * 访问顺序的双向链表
+     */
+    protected static class AccessDeque<K, V> {
+        /**
+         * 头节点，最老的数据
+         */
+        protected Node<K, V> first;
+        /**
+         * 尾节点，最新的数据
+         */
+        protected Node<K, V> last;
+
+        /**
+         * 添加到尾部
+         *
+         * @param node 节点
+         */
+        public void addLast(final Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        /**
+         * 移除节点
+         *
+         * @param node 节点
+         */
+        public void remove(final Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        /**
+         * 移动到尾部
+         *
+         * @param node 节点
+         */
+        public void moveToLast(final Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        /**
+         * 移除头节点
+         *
+         * @return 头节点
+         */
+        public Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 写入顺序的双向链表
+     */
+    protected static class WriteDeque<K, V> {
+        /**
+         * 头节点，最早写入的数据
+         */
+        protected Node<K, V> first;
+        /**
+         * 尾节点，最新写入的数据
+         */
+        protected Node<K, V> last;
+
+        /**
+         * 添加到尾部
+         *
+         * @param node 节点
+         */
+        public void addLast(final Node<K, V> node) {
+            node.writePrev = last;
+            node.writeNext = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.writeNext = node;
+            }
+            last = node;
+        }
+
+        /**
+         * 移除节点
+         *
+         * @param node 节点
+         */
+        public void remove(final Node<K, V> node) {
+            if (node.writePrev == null) {
+                first = node.writeNext;
+            } else {
+                node.writePrev.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                last = node.writePrev;
+            } else {
+                node.writeNext.writePrev = node.writePrev;
+            }
+            node.writePrev = null;
+            node.writeNext = null;
+        }
+    }
+
+    /**
+     * 有损的读缓冲区，多生产者，在维护锁中消费，满了直接丢弃访问记录
+     */
+    protected static class ReadBuffer<K, V> {
+        /**
+         * 掩码
+         */
+        protected static final int MASK = BUFFER_SIZE - 1;
+        /**
+         * 缓冲区
+         */
+        protected final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        /**
+         * 写入位置
+         */
+        protected final AtomicLong writeCounter = new AtomicLong();
+        /**
+         * 读取位置
+         */
+        protected volatile long readCounter;
+
+        /**
+         * 记录访问
+         *
+         * @param node 节点
+         * @return 缓冲区满了返回false
+         */
+        public boolean offer(final Node<K, V> node) {
+            long tail = writeCounter.get();
+            if (tail - readCounter >= BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) tail & MASK, node);
+            }
+            return true;
+        }
+
+        /**
+         * 消费访问记录
+         *
+         * @param cache 缓存
+         */
+        public void drain(final TinyLfuCache<K, V> cache) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            int index;
+            Node<K, V> node;
+            while (head < tail) {
+                index = (int) head & MASK;
+                node = buffer.get(index);
+                if (node == null) {
+                    //还没有写入完成
+                    break;
+                }
+                buffer.lazySet(index, null);
+                cache.onAccess(node);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import io.joyrpc.cluster.discovery.naming.Registar;
 import io.joyrpc.cluster.event.ClusterEvent;
 import io.joyrpc.cluster.event.ClusterEvent.ShardEvent;
 import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.cluster.event.MetricPublisher;
 import io.joyrpc.cluster.event.NodeEvent;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.event.AsyncResult;
@@ -61,6 +62,7 @@ import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.CANDIDATURE_OPTION;
+import static io.joyrpc.constants.Constants.METRIC_RING_SIZE_OPTION;
 import static io.joyrpc.util.Status.CLOSED;
 import static io.joyrpc.util.StringUtils.toSimpleString;
 import static io.joyrpc.util.Timer.timer;
@@ -215,7 +217,9 @@ public class Cluster {
         if (dashboard != null || metricHandlers != null) {
             Iterator<? extends MetricHandler> it = metricHandlers.iterator();
             if (it.hasNext() || dashboard != null) {
-                this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
+                //每次调用都会产生指标，采用预分配的环形队列，避免事件对象的创建和阻塞队列的竞争
+                this.metricPublisher = new MetricPublisher(EVENT_PUBLISHER_METRIC + "." + idCounter.incrementAndGet(),
+                        url.getPositiveInt(METRIC_RING_SIZE_OPTION));
                 this.metricPublisher.addHandler(dashboard);
                 this.metricPublisher.addHandler(metricHandlers);
             }
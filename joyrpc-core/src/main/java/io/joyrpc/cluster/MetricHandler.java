@@ -25,10 +25,21 @@ import io.joyrpc.event.EventHandler;
 import io.joyrpc.extension.Extensible;
 
 /**
- * 指标处理器，用于插件加载
+ * 指标处理器，用于插件加载。<br/>
+ * 集群的指标事件由环形队列复用，handle方法返回后事件会被清理，处理器不能持有事件或者异步处理；
+ * 需要持有的处理器实现{@link #retain()}返回true，会收到事件的副本。
  */
 @FunctionalInterface
 @Extensible("metricHandler")
 public interface MetricHandler extends EventHandler<MetricEvent> {
 
+    /**
+     * 是否在handle方法之外持有事件
+     *
+     * @return 持有标识
+     */
+    default boolean retain() {
+        return false;
+    }
+
 }
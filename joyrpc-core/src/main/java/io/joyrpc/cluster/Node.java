@@ -21,11 +21,13 @@ package io.joyrpc.cluster;
  */
 
 import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.cluster.event.MetricPublisher;
 import io.joyrpc.cluster.event.NodeEvent;
 import io.joyrpc.cluster.event.OfflineEvent;
 import io.joyrpc.cluster.event.SessionLostEvent;
 import io.joyrpc.codec.checksum.Checksum;
 import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.zlib.ZlibDictionary;
 import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.event.AsyncResult;
@@ -40,6 +42,7 @@ import io.joyrpc.metric.Dashboard;
 import io.joyrpc.protocol.ClientProtocol;
 import io.joyrpc.protocol.Protocol.ProtocolVersion;
 import io.joyrpc.protocol.message.HeartbeatAware;
+import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.Response;
 import io.joyrpc.protocol.message.SuccessResponse;
 import io.joyrpc.protocol.message.heartbeat.HeartbeatResponse;
@@ -62,6 +65,7 @@ import io.joyrpc.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Base64;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -794,6 +798,10 @@ public class Node implements Shard {
             successiveHeartbeatFails.set(0);
             Message response = event.getResponse();
             if (response != null) {
+                //协商之后训练好的压缩预置字典通过心跳下发
+                if (response.getHeader() instanceof MessageHeader) {
+                    dictionary(client.session(), (String) ((MessageHeader) response.getHeader()).getAttribute(HEAD_COMPRESS_DICTIONARY));
+                }
                 Object payload = response.getPayLoad();
                 if (payload instanceof HeartbeatResponse) {
                     switch (((HeartbeatResponse) payload).getHealthState()) {
@@ -817,6 +825,25 @@ public class Node implements Shard {
         }
     }
 
+    /**
+     * 注册服务端下发的压缩预置字典并绑定到会话，字典标识冲突则不使用字典
+     *
+     * @param session    会话
+     * @param dictionary Base64编码的字典
+     */
+    protected void dictionary(final Session session, final String dictionary) {
+        if (session == null || dictionary == null || dictionary.isEmpty() || session.getDictionary() != null) {
+            return;
+        }
+        ZlibDictionary zd = ZlibDictionary.register(Base64.getDecoder().decode(dictionary));
+        if (zd != null) {
+            session.setDictionary(zd.getData());
+        } else {
+            logger.warn(String.format("Compression dictionary of node(%s) conflicts with a registered one, ignore it.",
+                    client == null ? null : client.getUrl().getAddress()));
+        }
+    }
+
     /**
      * 发送握手信息
      *
@@ -906,6 +933,8 @@ public class Node implements Shard {
                     session.setCompressions(response.getCompressions());
                     session.setChecksums(response.getChecksums());
                     session.putAll(response.getAttributes());
+                    //服务端下发的压缩预置字典
+                    dictionary(session, session.remove(COMPRESS_DICTIONARY_DATA));
                     client.session(session);
                     //认证
                     authenticate(client, consumer);
@@ -1053,11 +1082,12 @@ public class Node implements Shard {
         public CompletableFuture<Message> async(final Message message, final int timeoutMillis) {
             //判空,验证是否需要统计
             final long startTime = SystemClock.now();
+            final long startNanos = System.nanoTime();
             try {
                 return transport.async(message, timeoutMillis).whenComplete((r, t) ->
-                        publish(message, r, startTime, SystemClock.now(), t));
+                        publish(message, r, startTime, SystemClock.now(), System.nanoTime() - startNanos, t));
             } catch (Exception e) {
-                publish(message, null, startTime, SystemClock.now(), e);
+                publish(message, null, startTime, SystemClock.now(), System.nanoTime() - startNanos, e);
                 throw e;
             }
         }
@@ -1069,13 +1099,20 @@ public class Node implements Shard {
          * @param response
          * @param startTime
          * @param endTime
+         * @param elapsedNanos
          * @param throwable
          */
         protected void publish(final Message request, final Message response,
-                               final long startTime, final long endTime, Throwable throwable) {
-            publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
-                    request, response, throwable, getRequests(),
-                    startTime, endTime));
+                               final long startTime, final long endTime, final long elapsedNanos, Throwable throwable) {
+            if (publisher instanceof MetricPublisher) {
+                //直接填充环形队列的槽位，不创建事件对象
+                ((MetricPublisher) publisher).offer(node, null, clusterUrl, clusterName, url,
+                        request, response, throwable, getRequests(), startTime, endTime, elapsedNanos);
+            } else {
+                publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
+                        request, response, throwable, getRequests(),
+                        startTime, endTime, elapsedNanos));
+            }
         }
     }
 
@@ -1241,6 +1278,11 @@ public class Node implements Shard {
                     if (message.getHeader().getSerialization() <= 0) {
                         message.getHeader().setSerialization(session.getSerializationType());
                     }
+                    //确认已经注册了预置字典，服务端收到后才使用该字典压缩
+                    byte[] dictionary = session.getDictionary();
+                    if (dictionary != null && message.getHeader() instanceof MessageHeader) {
+                        ((MessageHeader) message.getHeader()).addAttribute(HEAD_COMPRESS_DICTIONARY_ID, ZlibDictionary.getId(dictionary));
+                    }
                     return message;
                 }
             }
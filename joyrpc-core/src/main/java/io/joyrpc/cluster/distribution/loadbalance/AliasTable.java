@@ -0,0 +1,139 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Weighter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机的别名表，构建后不可变，每次选择只需要一次随机
+ */
+public class AliasTable<T extends Weighter> {
+
+    /**
+     * 节点
+     */
+    protected final Object[] nodes;
+    /**
+     * 保留自身的概率
+     */
+    protected final double[] probs;
+    /**
+     * 别名
+     */
+    protected final int[] aliases;
+
+    /**
+     * 构造函数
+     *
+     * @param nodes 节点
+     */
+    public AliasTable(final List<T> nodes) {
+        int size = nodes == null ? 0 : nodes.size();
+        this.nodes = size == 0 ? new Object[0] : nodes.toArray();
+        this.probs = new double[size];
+        this.aliases = new int[size];
+        long totalWeight = 0;
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = Math.max(((Weighter) this.nodes[i]).getWeight(), 0);
+            totalWeight += weights[i];
+        }
+        //权重和不大于零,直接退化为随机
+        if (totalWeight <= 0) {
+            for (int i = 0; i < size; i++) {
+                probs[i] = 1.0;
+                aliases[i] = i;
+            }
+            return;
+        }
+        //Vose算法，按照平均权重把节点分为小于和不小于平均值两组
+        double[] scaled = new double[size];
+        int[] smalls = new int[size];
+        int[] larges = new int[size];
+        int small = 0;
+        int large = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (double) weights[i] * size / totalWeight;
+            if (scaled[i] < 1.0) {
+                smalls[small++] = i;
+            } else {
+                larges[large++] = i;
+            }
+        }
+        int s;
+        int l;
+        while (small > 0 && large > 0) {
+            s = smalls[--small];
+            l = larges[--large];
+            probs[s] = scaled[s];
+            aliases[s] = l;
+            //大的补齐小的
+            scaled[l] = scaled[l] + scaled[s] - 1.0;
+            if (scaled[l] < 1.0) {
+                smalls[small++] = l;
+            } else {
+                larges[large++] = l;
+            }
+        }
+        //剩余的由于精度问题，概率都为1
+        while (large > 0) {
+            l = larges[--large];
+            probs[l] = 1.0;
+            aliases[l] = l;
+        }
+        while (small > 0) {
+            s = smalls[--small];
+            probs[s] = 1.0;
+            aliases[s] = s;
+        }
+    }
+
+    /**
+     * 节点数量
+     *
+     * @return 节点数量
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * 随机选择
+     *
+     * @return 节点
+     */
+    @SuppressWarnings("unchecked")
+    public T select() {
+        switch (nodes.length) {
+            case 0:
+                return null;
+            case 1:
+                return (T) nodes[0];
+            default:
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int index = random.nextInt(nodes.length);
+                return (T) nodes[random.nextDouble() < probs[index] ? index : aliases[index]];
+        }
+    }
+}
@@ -61,7 +61,7 @@ public class AdaptiveConfig implements Serializable, Cloneable {
     /**
      * TP评分基线
      */
-    protected RankScore<Integer> tpScore;
+    protected RankScore<Double> tpScore;
     /**
      * 可用率评分基线
      */
@@ -104,7 +104,7 @@ public class AdaptiveConfig implements Serializable, Cloneable {
                           final Integer enoughGoods,
                           final RankScore<Long> concurrencyScore,
                           final RankScore<Long> qpsScore,
-                          final RankScore<Integer> tpScore,
+                          final RankScore<Double> tpScore,
                           final RankScore<Double> availabilityScore,
                           final Long decubation,
                           final Set<String> exclusionRooms,
@@ -213,11 +213,11 @@ public class AdaptiveConfig implements Serializable, Cloneable {
         this.qpsScore = qpsScore;
     }
 
-    public RankScore<Integer> getTpScore() {
+    public RankScore<Double> getTpScore() {
         return tpScore;
     }
 
-    public void setTpScore(RankScore<Integer> tpScore) {
+    public void setTpScore(RankScore<Double> tpScore) {
         this.tpScore = tpScore;
     }
 
@@ -313,26 +313,20 @@ public class AdaptiveConfig implements Serializable, Cloneable {
     }
 
     /**
-     * 计算TP评分
+     * 计算TP评分，阈值单位毫秒，可以带小数。<br/>
+     * 4毫秒以内按基线的2、3、4倍评分，避免亚毫秒的调用都被评为好
      *
-     * @param fair
+     * @param fair 基线
      */
-    public static RankScore<Integer> computeTpScore(final int fair) {
-        switch (fair) {
-            case 0:
-            case 1:
-            case 2:
-            case 3:
-            case 4:
-                return new RankScore<>(4, 8, 12);
-            case 5:
-            case 6:
-            case 7:
-            case 8:
-                return new RankScore<>(8, 12, 16);
-            default:
-                return new RankScore<>((int) (fair * 1.2), (int) (fair * 1.5), fair * 2);
+    public static RankScore<Double> computeTpScore(final double fair) {
+        if (fair <= 0) {
+            return new RankScore<>(4D, 8D, 12D);
+        } else if (fair <= 4) {
+            return new RankScore<>(fair * 2, fair * 3, fair * 4);
+        } else if (fair <= 8) {
+            return new RankScore<>(8D, 12D, 16D);
         }
+        return new RankScore<>(fair * 1.2, fair * 1.5, fair * 2);
     }
 
     /**
@@ -340,10 +334,10 @@ public class AdaptiveConfig implements Serializable, Cloneable {
      *
      * @param url 参数
      */
-    public static RankScore<Integer> computeTpScore(final Parametric url) {
-        Integer fair = url.getInteger(ADAPTIVE_TP_FAIR);
-        Integer poor = url.getInteger(ADAPTIVE_TP_POOR);
-        Integer disable = url.getInteger(ADAPTIVE_TP_DISABLE);
+    public static RankScore<Double> computeTpScore(final Parametric url) {
+        Double fair = url.getDouble(ADAPTIVE_TP_FAIR);
+        Double poor = url.getDouble(ADAPTIVE_TP_POOR);
+        Double disable = url.getDouble(ADAPTIVE_TP_DISABLE);
         if (fair == null && poor == null && disable == null) {
             return null;
         } else if (fair != null && poor == null && disable == null) {
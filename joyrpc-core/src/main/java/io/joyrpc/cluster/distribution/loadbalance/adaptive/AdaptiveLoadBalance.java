@@ -26,20 +26,25 @@ import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Cluster;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.AliasTable;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.election.RandomWeightElection;
 import io.joyrpc.config.InterfaceOption.ConsumerMethodOption;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.URL;
 import io.joyrpc.metric.*;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import static io.joyrpc.constants.Constants.ADAPTIVE_CLUSTER_TP;
-import static io.joyrpc.constants.Constants.ADAPTIVE_NODE_TP;
+import static io.joyrpc.constants.Constants.*;
 
 /**
  * 自适应负载均衡
@@ -47,12 +52,15 @@ import static io.joyrpc.constants.Constants.ADAPTIVE_NODE_TP;
 @Extension(value = "adaptive")
 public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, DashboardAware, AdaptiveScorer {
 
-    public static final Function<TPSnapshot, Integer> TP30_FUNCTION = TPSnapshot::getTp30;
-    public static final Function<TPSnapshot, Integer> TP50_FUNCTION = TPSnapshot::getTp50;
-    public static final Function<TPSnapshot, Integer> TP90_FUNCTION = TPSnapshot::getTp90;
-    public static final Function<TPSnapshot, Integer> TP99_FUNCTION = TPSnapshot::getTp99;
-    public static final Function<TPSnapshot, Integer> TP999_FUNCTION = TPSnapshot::getTp999;
-    public static final Function<TPSnapshot, Integer> TPAVG_FUNCTION = TPSnapshot::getAvg;
+    /**
+     * TP函数，由微秒数据换算成带小数的毫秒，亚毫秒的调用也能区分快慢
+     */
+    public static final Function<TPSnapshot, Double> TP30_FUNCTION = o -> o.getTp30Micros() / 1000D;
+    public static final Function<TPSnapshot, Double> TP50_FUNCTION = o -> o.getTp50Micros() / 1000D;
+    public static final Function<TPSnapshot, Double> TP90_FUNCTION = o -> o.getTp90Micros() / 1000D;
+    public static final Function<TPSnapshot, Double> TP99_FUNCTION = o -> o.getTp99Micros() / 1000D;
+    public static final Function<TPSnapshot, Double> TP999_FUNCTION = o -> o.getTp999Micros() / 1000D;
+    public static final Function<TPSnapshot, Double> TPAVG_FUNCTION = o -> o.getAvgMicros() / 1000D;
 
     /**
      * URL
@@ -65,17 +73,28 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
     /**
      * 集群TP函数
      */
-    protected Function<TPSnapshot, Integer> clusterFunction;
+    protected Function<TPSnapshot, Double> clusterFunction;
     /**
      * 节点TP函数
      */
-    protected Function<TPSnapshot, Integer> nodeFunction;
+    protected Function<TPSnapshot, Double> nodeFunction;
 
     /**
      * 接口
      */
     protected String className;
-
+    /**
+     * 是否缓存评分结果
+     */
+    protected boolean rankCache;
+    /**
+     * 节点并发数增长阈值，超过则绕过缓存的评分结果
+     */
+    protected int activesJump;
+    /**
+     * 方法缓存的评分结果
+     */
+    protected Map<String, RankTable> tables = new ConcurrentHashMap<>();
 
     @Override
     public void setClassName(String className) {
@@ -91,9 +110,11 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
     public void setup() {
         clusterFunction = getTpFunction(url.getString(ADAPTIVE_CLUSTER_TP), TP30_FUNCTION);
         nodeFunction = getTpFunction(url.getString(ADAPTIVE_NODE_TP), TP90_FUNCTION);
+        rankCache = url.getBoolean(ADAPTIVE_RANK_CACHE);
+        activesJump = url.getInteger(ADAPTIVE_ACTIVES_JUMP);
     }
 
-    protected Function<TPSnapshot, Integer> getTpFunction(final String type, final Function<TPSnapshot, Integer> def) {
+    protected Function<TPSnapshot, Double> getTpFunction(final String type, final Function<TPSnapshot, Double> def) {
         switch (type) {
             case "avg":
                 return TPAVG_FUNCTION;
@@ -170,6 +191,11 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
 
         ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
         AdaptivePolicy policy = option.getAdaptivePolicy();
+        NodeRank rank = rankCache ? select(candidate, request, policy, metricFunction) : null;
+        if (rank != null) {
+            rank.distribution();
+            return rank.getNode();
+        }
         ClusterRank clusterRank = new ClusterRank(candidate.getCluster(), policy, metricFunction, nodeFunction);
         int size = candidates.size();
         //抽样随机打散，避免每次都拿到固定的节点
@@ -195,7 +221,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
             recorder.accept(clusterRank.ranks);
         }
         //选择最佳评分节点
-        NodeRank rank = clusterRank.select();
+        rank = clusterRank.select();
         if (rank != null) {
             rank.distribution();
             return rank.getNode();
@@ -203,6 +229,59 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         return null;
     }
 
+    /**
+     * 从缓存的评分结果中选择节点
+     *
+     * @param candidate      候选者
+     * @param request        请求
+     * @param policy         自适应策略
+     * @param metricFunction 窗口函数
+     * @return 节点评分，返回null表示需要实时评分
+     */
+    protected NodeRank select(final Candidate candidate, final RequestMessage<Invocation> request,
+                              final AdaptivePolicy policy, final Function<Dashboard, TPWindow> metricFunction) {
+        List<Node> candidates = candidate.getNodes();
+        Cluster cluster = candidate.getCluster();
+        String method = request.getPayLoad().getMethodName();
+        RankTable table = tables.get(method);
+        if (table == null || table.candidates != candidates || table.policy != policy) {
+            //只缓存集群全量节点的评分，路由或重试产生的临时节点列表实时评分，避免缓存抖动
+            if (cluster == null || candidates != cluster.getNodes()) {
+                return null;
+            }
+            table = new RankTable(cluster, candidates, policy, metricFunction, nodeFunction);
+            tables.put(method, table);
+            record(table);
+        } else if (table.isExpired() && table.refreshing.compareAndSet(false, true)) {
+            //只有一个线程重新评分，其它线程继续使用旧的评分结果
+            table = new RankTable(cluster, candidates, policy, metricFunction, nodeFunction);
+            tables.put(method, table);
+            record(table);
+        }
+        NodeRank rank;
+        //节点并发数突增，说明评分已经不准确，重新抽取
+        for (int i = 0; i < 3; i++) {
+            rank = table.select();
+            if (rank == null) {
+                return null;
+            } else if (activesJump <= 0 || rank.getNodeWindow().actives().get() - rank.getActives() <= activesJump) {
+                return rank;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 记录评分信息
+     *
+     * @param table 评分结果
+     */
+    protected void record(final RankTable table) {
+        if (recorder != null) {
+            recorder.accept(table.ranks);
+        }
+    }
+
     /**
      * 生成请求的指标，例如可以获取方法的指标
      *
@@ -236,7 +315,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         /**
          * 节点TP函数
          */
-        protected Function<TPSnapshot, Integer> nodeFunction;
+        protected Function<TPSnapshot, Double> nodeFunction;
 
         /**
          * 构造函数
@@ -248,7 +327,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
          */
         public ClusterRank(final Cluster cluster, final AdaptivePolicy policy,
                            final Function<Dashboard, TPWindow> metricFunction,
-                           final Function<TPSnapshot, Integer> nodeFunction) {
+                           final Function<TPSnapshot, Double> nodeFunction) {
             this.cluster = cluster;
             this.policy = policy;
             this.metricFunction = metricFunction;
@@ -324,4 +403,79 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
 
     }
 
+    /**
+     * 缓存的评分结果，在集群指标快照更新或者窗口时间到达后重新评分
+     */
+    protected static class RankTable {
+        //候选节点
+        protected final List<Node> candidates;
+        //自适应策略
+        protected final AdaptivePolicy policy;
+        //评分时的集群指标快照
+        protected final TPMetric snapshot;
+        //集群指标窗口
+        protected final TPWindow clusterWindow;
+        //过期时间
+        protected final long expireTime;
+        //所有服务计算的统计得分
+        protected final List<NodeRank> ranks;
+        //最高级别评分
+        protected final List<NodeRank> bestRanks;
+        //加权随机别名表，自定义选举算法为空
+        protected final AliasTable<NodeRank> aliasTable;
+        //正在重新评分
+        protected final AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * 构造函数
+         *
+         * @param cluster        集群
+         * @param candidates     候选节点
+         * @param policy         自适应策略
+         * @param metricFunction 窗口函数
+         * @param nodeFunction   节点指标函数
+         */
+        public RankTable(final Cluster cluster, final List<Node> candidates, final AdaptivePolicy policy,
+                         final Function<Dashboard, TPWindow> metricFunction,
+                         final Function<TPSnapshot, Double> nodeFunction) {
+            this.candidates = candidates;
+            this.policy = policy;
+            this.clusterWindow = metricFunction.apply(cluster.getDashboard());
+            this.snapshot = clusterWindow.getSnapshot();
+            this.expireTime = SystemClock.now() + clusterWindow.getWindowTime();
+            //全量评分
+            ClusterRank clusterRank = new ClusterRank(cluster, policy, metricFunction, nodeFunction);
+            clusterRank.enoughGoods = 0;
+            clusterRank.score(candidates);
+            this.ranks = clusterRank.ranks;
+            this.bestRanks = clusterRank.bestRanks;
+            this.aliasTable = policy.getElection() instanceof RandomWeightElection ? new AliasTable<>(bestRanks) : null;
+        }
+
+        /**
+         * 是否过期
+         *
+         * @return 过期标识
+         */
+        public boolean isExpired() {
+            return clusterWindow.getSnapshot() != snapshot || SystemClock.now() >= expireTime;
+        }
+
+        /**
+         * 选择节点
+         *
+         * @return 节点评分
+         */
+        public NodeRank select() {
+            switch (bestRanks.size()) {
+                case 0:
+                    return null;
+                case 1:
+                    return bestRanks.get(0);
+                default:
+                    return aliasTable != null ? aliasTable.select() : policy.getElection().choose(bestRanks, policy);
+            }
+        }
+    }
+
 }
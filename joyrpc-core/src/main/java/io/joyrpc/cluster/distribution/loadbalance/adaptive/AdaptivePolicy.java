@@ -55,7 +55,7 @@ public class AdaptivePolicy {
     /**
      * TP评分基线
      */
-    protected RankScore<Integer> tpScore;
+    protected RankScore<Double> tpScore;
     /**
      * 可用率评分基线
      */
@@ -134,7 +134,7 @@ public class AdaptivePolicy {
         return qpsScore;
     }
 
-    public RankScore<Integer> getTpScore() {
+    public RankScore<Double> getTpScore() {
         return tpScore;
     }
 
@@ -36,8 +36,8 @@ import java.util.function.Function;
  */
 public class NodeMetric implements Weighter {
 
-    public static final Function<TPSnapshot, Integer> TP50_FUNCTION = TPSnapshot::getTp50;
-    public static final Function<TPSnapshot, Integer> TP90_FUNCTION = TPSnapshot::getTp90;
+    public static final Function<TPSnapshot, Double> TP50_FUNCTION = AdaptiveLoadBalance.TP50_FUNCTION;
+    public static final Function<TPSnapshot, Double> TP90_FUNCTION = AdaptiveLoadBalance.TP90_FUNCTION;
 
     /**
      * 节点
@@ -70,7 +70,7 @@ public class NodeMetric implements Weighter {
     /**
      * 节点TP函数
      */
-    protected Function<TPSnapshot, Integer> nodeFunction;
+    protected Function<TPSnapshot, Double> nodeFunction;
     /**
      * 服务权重
      */
@@ -79,6 +79,10 @@ public class NodeMetric implements Weighter {
      * 是否在虚弱期
      */
     protected boolean weak;
+    /**
+     * 评分时的并发数
+     */
+    protected long actives;
 
     /**
      * 构造函数
@@ -100,7 +104,7 @@ public class NodeMetric implements Weighter {
      */
     public NodeMetric(final Node node, final Cluster cluster,
                       final Function<Dashboard, TPWindow> function,
-                      final Function<TPSnapshot, Integer> nodeFunction) {
+                      final Function<TPSnapshot, Double> nodeFunction) {
         this(node, cluster,
                 function == null ? node.getDashboard().getMetric() : function.apply(node.getDashboard()),
                 function == null ? cluster.getDashboard().getMetric() : function.apply(cluster.getDashboard()),
@@ -119,7 +123,7 @@ public class NodeMetric implements Weighter {
     public NodeMetric(final Node node, final Cluster cluster,
                       final TPWindow nodeWindow,
                       final TPWindow clusterWindow,
-                      final Function<TPSnapshot, Integer> nodeFunction) {
+                      final Function<TPSnapshot, Double> nodeFunction) {
         this.node = node;
         this.cluster = cluster;
         this.nodeWindow = nodeWindow;
@@ -131,6 +135,7 @@ public class NodeMetric implements Weighter {
         this.nodeFunction = nodeFunction;
         this.weak = weakPeriod != null && weakPeriod.between();
         this.weight = !weak ? node.getWeight() : (int) (node.getWeight() * weakPeriod.ratio());
+        this.actives = nodeWindow.actives().get();
     }
 
     public Node getNode() {
@@ -161,7 +166,7 @@ public class NodeMetric implements Weighter {
         return clusterSnapshot;
     }
 
-    public Function<TPSnapshot, Integer> getNodeFunction() {
+    public Function<TPSnapshot, Double> getNodeFunction() {
         return nodeFunction;
     }
 
@@ -169,6 +174,10 @@ public class NodeMetric implements Weighter {
         return weight;
     }
 
+    public long getActives() {
+        return actives;
+    }
+
     public void setWeight(int weight) {
         this.weight = weight;
     }
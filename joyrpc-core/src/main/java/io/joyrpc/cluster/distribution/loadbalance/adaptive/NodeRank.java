@@ -56,7 +56,7 @@ public class NodeRank extends NodeMetric {
      */
     public NodeRank(Node node, Cluster cluster,
                     Function<Dashboard, TPWindow> function,
-                    Function<TPSnapshot, Integer> nodeFunction) {
+                    Function<TPSnapshot, Double> nodeFunction) {
         super(node, cluster, function, nodeFunction);
     }
 
@@ -100,7 +100,7 @@ public class NodeRank extends NodeMetric {
                 }
             }
         }
-        policy.getArbiter().score(this, ranks, policy);
+        this.rank = policy.getArbiter().score(this, ranks, policy);
         return this;
     }
 }
@@ -42,7 +42,7 @@ public class Tp99LimitJudge extends AbstractJudge implements MetricAware {
             //当虚弱的时候，由于没有数据，容易判断出Good，进行修正
             result = Rank.Fair;
         } else {
-            result = score(policy.getTpScore(), metric.getNodeFunction().apply(nodeTp), RankScore.INT_DESCENDING);
+            result = score(policy.getTpScore(), metric.getNodeFunction().apply(nodeTp), RankScore.DOUBLE_DESCENDING);
         }
         //先考虑TP，再考虑可用率
         switch (result) {
@@ -0,0 +1,188 @@
+package io.joyrpc.cluster.distribution.loadbalance.consistenthash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 有界负载的一致性哈希负载均衡，按照参数或隐式参数路由，节点并发超过(1+因子)×平均并发则顺延到环上的下一个节点。<br/>
+ * 哈希环跟随集群的可用节点列表增量重建，集群节点变化会替换该列表。
+ */
+@Extension("consistentHash")
+public class ConsistentHashLoadBalance implements LoadBalance {
+
+    /**
+     * 平均负载的刷新间隔（毫秒），避免每次调用遍历所有节点
+     */
+    protected static final long LOAD_REFRESH_INTERVAL = 10;
+
+    /**
+     * 作为哈希键的参数位置
+     */
+    protected int argument = CONSISTENT_HASH_ARGUMENT.getValue();
+    /**
+     * 作为哈希键的隐式参数
+     */
+    protected String attachment = CONSISTENT_HASH_ATTACHMENT.getValue();
+    /**
+     * 虚拟节点数
+     */
+    protected int virtualNodes = CONSISTENT_HASH_VIRTUAL_NODES.getValue();
+    /**
+     * 有界负载因子
+     */
+    protected double loadFactor = CONSISTENT_HASH_LOAD_FACTOR.getValue();
+    /**
+     * URL
+     */
+    protected URL url;
+    /**
+     * 哈希环
+     */
+    protected volatile HashRing ring;
+    /**
+     * 上次统计负载的哈希环
+     */
+    protected volatile HashRing loadRing;
+    /**
+     * 上次统计的总负载
+     */
+    protected volatile long totalLoad;
+    /**
+     * 上次统计负载的时间
+     */
+    protected volatile long loadTime;
+
+    @Override
+    public void setUrl(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public void setup() {
+        if (url != null) {
+            argument = url.getInteger(CONSISTENT_HASH_ARGUMENT);
+            attachment = url.getString(CONSISTENT_HASH_ATTACHMENT);
+            virtualNodes = url.getPositiveInt(CONSISTENT_HASH_VIRTUAL_NODES);
+            loadFactor = url.getDouble(CONSISTENT_HASH_LOAD_FACTOR);
+        }
+    }
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes.size();
+        if (size == 0) {
+            return null;
+        } else if (size == 1) {
+            return nodes.get(0);
+        }
+        Object key = getKey(request.getPayLoad());
+        if (key == null) {
+            return nodes.get(ThreadLocalRandom.current().nextInt(size));
+        }
+        //优先采用集群的节点构建哈希环，候选者是其子集的时候（例如重试）不用重建
+        Cluster cluster = candidate.getCluster();
+        List<Node> all = cluster == null ? nodes : cluster.getNodes();
+        HashRing ring = getRing(all.isEmpty() ? nodes : all);
+        long hash = HashRing.hash(key);
+        Node result = ring.select(hash, ring.getNodes() == nodes ? null : nodes, getCapacity(ring));
+        return result != null ? result : nodes.get((int) ((hash & Long.MAX_VALUE) % size));
+    }
+
+    /**
+     * 获取哈希键
+     *
+     * @param invocation 调用
+     * @return 哈希键
+     */
+    protected Object getKey(final Invocation invocation) {
+        if (invocation == null) {
+            return null;
+        }
+        if (attachment != null && !attachment.isEmpty()) {
+            Object result = invocation.getAttachment(attachment);
+            if (result != null) {
+                return result;
+            }
+        }
+        Object[] args = invocation.getArgs();
+        return args != null && argument >= 0 && argument < args.length ? args[argument] : null;
+    }
+
+    /**
+     * 获取哈希环，节点列表变化则在原有的哈希环上增量重建
+     *
+     * @param nodes 节点
+     * @return 哈希环
+     */
+    protected HashRing getRing(final List<Node> nodes) {
+        HashRing result = ring;
+        if (result == null || result.getNodes() != nodes) {
+            synchronized (this) {
+                result = ring;
+                if (result == null || result.getNodes() != nodes) {
+                    result = HashRing.build(result, nodes, virtualNodes);
+                    ring = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算单个节点的负载上限，(1+因子)×(总负载+1)/节点数
+     *
+     * @param ring 哈希环
+     * @return 负载上限
+     */
+    protected long getCapacity(final HashRing ring) {
+        if (loadFactor <= 0) {
+            return Long.MAX_VALUE;
+        }
+        long now = SystemClock.now();
+        if (loadRing != ring || now - loadTime >= LOAD_REFRESH_INTERVAL) {
+            long total = 0;
+            for (Node node : ring.getDistinct()) {
+                total += HashRing.getLoad(node);
+            }
+            totalLoad = total;
+            loadTime = now;
+            loadRing = ring;
+        }
+        return (long) Math.ceil((1 + loadFactor) * (totalLoad + 1) / ring.getDistinct().length);
+    }
+
+}
@@ -0,0 +1,283 @@
+package io.joyrpc.cluster.distribution.loadbalance.consistenthash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Node;
+import io.joyrpc.transport.Client;
+
+import java.util.*;
+
+/**
+ * 不可变的哈希环，虚拟节点按照哈希值排序存放在数组中，二分查找定位
+ */
+public class HashRing {
+
+    /**
+     * 构建哈希环的节点列表
+     */
+    protected final List<Node> nodes;
+    /**
+     * 去重后的节点
+     */
+    protected final Node[] distinct;
+    /**
+     * 虚拟节点的哈希值，升序
+     */
+    protected final long[] hashes;
+    /**
+     * 虚拟节点对应的节点
+     */
+    protected final Node[] owners;
+    /**
+     * 虚拟节点对应的节点在去重节点中的序号
+     */
+    protected final int[] ordinals;
+    /**
+     * 节点的序号，按照对象引用查找
+     */
+    protected final Map<Node, Integer> indexes;
+    /**
+     * 最近一次的候选节点过滤器
+     */
+    protected volatile Filter lastFilter;
+
+    protected HashRing(final List<Node> nodes, final Node[] distinct, final long[] hashes, final Node[] owners) {
+        this.nodes = nodes;
+        this.distinct = distinct;
+        this.hashes = hashes;
+        this.owners = owners;
+        this.indexes = new IdentityHashMap<>(distinct.length);
+        for (int i = 0; i < distinct.length; i++) {
+            indexes.put(distinct[i], i);
+        }
+        this.ordinals = new int[owners.length];
+        for (int i = 0; i < owners.length; i++) {
+            ordinals[i] = indexes.get(owners[i]);
+        }
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public Node[] getDistinct() {
+        return distinct;
+    }
+
+    /**
+     * 从哈希值顺时针查找第一个负载低于上限的节点，都超过上限则返回第一个满足过滤条件的节点
+     *
+     * @param hash     哈希值
+     * @param filter   候选节点，为空则不过滤
+     * @param capacity 负载上限
+     * @return 节点，没有满足过滤条件的节点返回null
+     */
+    public Node select(final long hash, final List<Node> filter, final long capacity) {
+        int length = hashes.length;
+        if (length == 0) {
+            return null;
+        }
+        int pos = Arrays.binarySearch(hashes, hash);
+        if (pos < 0) {
+            pos = -pos - 1;
+        } else {
+            //相同哈希值取第一个
+            while (pos > 0 && hashes[pos - 1] == hash) {
+                pos--;
+            }
+        }
+        //候选节点转换成按照序号的标识数组，环上每一步O(1)判断
+        boolean[] candidates = filter == null ? null : getFlags(filter);
+        Node first = null;
+        Node node;
+        for (int i = 0; i < length; i++, pos++) {
+            if (pos == length) {
+                pos = 0;
+            }
+            if (candidates == null || candidates[ordinals[pos]]) {
+                node = owners[pos];
+                if (capacity == Long.MAX_VALUE || getLoad(node) < capacity) {
+                    return node;
+                } else if (first == null) {
+                    first = node;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * 获取候选节点的标识数组，按照候选节点列表的对象引用缓存
+     *
+     * @param candidates 候选节点
+     * @return 标识数组，下标是节点序号
+     */
+    protected boolean[] getFlags(final List<Node> candidates) {
+        Filter result = lastFilter;
+        if (result == null || result.candidates != candidates) {
+            boolean[] flags = new boolean[distinct.length];
+            Integer ordinal;
+            for (Node node : candidates) {
+                ordinal = indexes.get(node);
+                if (ordinal != null) {
+                    flags[ordinal] = true;
+                }
+            }
+            result = new Filter(candidates, flags);
+            lastFilter = result;
+        }
+        return result.flags;
+    }
+
+    /**
+     * 节点的负载，取客户端正在处理的请求数
+     *
+     * @param node 节点
+     * @return 负载
+     */
+    public static long getLoad(final Node node) {
+        Client client = node.getClient();
+        return client == null ? 0 : client.getRequests();
+    }
+
+    /**
+     * 构建哈希环，保留原有哈希环中仍然存在的节点的虚拟节点，只为新增的节点计算哈希
+     *
+     * @param old          原有哈希环
+     * @param nodes        节点
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @return 哈希环
+     */
+    public static HashRing build(final HashRing old, final List<Node> nodes, final int virtualNodes) {
+        Map<String, Node> current = new LinkedHashMap<>(nodes.size() * 4 / 3 + 1);
+        for (Node node : nodes) {
+            current.putIfAbsent(node.getName(), node);
+        }
+        //保留的虚拟节点，节点对象可能因为重连而变化，替换成新的对象
+        long[] keepHashes = old == null ? new long[0] : new long[old.hashes.length];
+        Node[] keepOwners = old == null ? new Node[0] : new Node[old.owners.length];
+        int keeps = 0;
+        Set<String> exists = new HashSet<>();
+        if (old != null) {
+            Node node;
+            for (int i = 0; i < old.hashes.length; i++) {
+                node = current.get(old.owners[i].getName());
+                if (node != null) {
+                    keepHashes[keeps] = old.hashes[i];
+                    keepOwners[keeps++] = node;
+                    exists.add(node.getName());
+                }
+            }
+        }
+        //新增节点的虚拟节点
+        List<Node> adds = new ArrayList<>();
+        for (Node node : current.values()) {
+            if (!exists.contains(node.getName())) {
+                adds.add(node);
+            }
+        }
+        Point[] points = new Point[adds.size() * virtualNodes];
+        int count = 0;
+        for (Node node : adds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points[count++] = new Point(hash(node.getName() + "#" + i), node);
+            }
+        }
+        Arrays.sort(points, Comparator.comparingLong(o -> o.hash));
+        //归并
+        long[] hashes = new long[keeps + count];
+        Node[] owners = new Node[keeps + count];
+        int i = 0, j = 0, k = 0;
+        while (i < keeps || j < count) {
+            if (j == count || (i < keeps && keepHashes[i] <= points[j].hash)) {
+                hashes[k] = keepHashes[i];
+                owners[k++] = keepOwners[i++];
+            } else {
+                hashes[k] = points[j].hash;
+                owners[k++] = points[j++].node;
+            }
+        }
+        return new HashRing(nodes, current.values().toArray(new Node[0]), hashes, owners);
+    }
+
+    /**
+     * 计算哈希值，字符串按照字符计算，不创建字节数组
+     *
+     * @param key 键
+     * @return 哈希值
+     */
+    public static long hash(final Object key) {
+        long h;
+        if (key instanceof CharSequence) {
+            //FNV-1a
+            CharSequence cs = (CharSequence) key;
+            h = 0xcbf29ce484222325L;
+            for (int i = 0; i < cs.length(); i++) {
+                h ^= cs.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            h = ((Number) key).longValue();
+        } else {
+            h = key.hashCode();
+        }
+        //MurmurHash3的最终混淆，使相邻的键分散
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 候选节点过滤器
+     */
+    protected static class Filter {
+        /**
+         * 候选节点列表
+         */
+        protected final List<Node> candidates;
+        /**
+         * 节点序号是否在候选节点中
+         */
+        protected final boolean[] flags;
+
+        public Filter(final List<Node> candidates, final boolean[] flags) {
+            this.candidates = candidates;
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * 虚拟节点
+     */
+    protected static class Point {
+        protected final long hash;
+        protected final Node node;
+
+        public Point(final long hash, final Node node) {
+            this.hash = hash;
+            this.node = node;
+        }
+    }
+}
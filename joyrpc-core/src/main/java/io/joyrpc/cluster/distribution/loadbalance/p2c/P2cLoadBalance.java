@@ -0,0 +1,175 @@
+package io.joyrpc.cluster.distribution.loadbalance.p2c;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.AliasTable;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.Client;
+import io.joyrpc.util.SystemClock;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 两次选择的最少请求负载均衡，按照权重（包括预热权重）随机选择两个节点，取正在处理的请求数少的节点。<br/>
+ * 集群全量节点的别名表按照列表缓存，定时刷新以跟随预热权重的变化；路由或重试产生的临时列表均匀随机选择两个节点，按照单位权重的请求数比较。
+ */
+@Extension("p2c")
+public class P2cLoadBalance implements LoadBalance {
+
+    /**
+     * 别名表的刷新间隔（毫秒），跟随预热权重的变化
+     */
+    protected static final long WEIGHT_REFRESH_INTERVAL = 1000;
+
+    /**
+     * 缓存的别名表
+     */
+    protected volatile WeightTable table;
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                AliasTable<Node> aliasTable = getTable(candidate.getCluster(), nodes);
+                return aliasTable != null ? select(aliasTable) : select(nodes, size);
+        }
+    }
+
+    /**
+     * 从别名表中按照权重选择两个节点
+     *
+     * @param aliasTable 别名表
+     * @return 节点
+     */
+    protected Node select(final AliasTable<Node> aliasTable) {
+        Node first = aliasTable.select();
+        Node second = aliasTable.select();
+        if (second == first) {
+            //再尝试一次，权重差异较大的时候仍可能相同
+            second = aliasTable.select();
+        }
+        if (second == first) {
+            return first;
+        }
+        int a = getRequests(first);
+        int b = getRequests(second);
+        if (a != b) {
+            return a < b ? first : second;
+        }
+        return first.getWeight() >= second.getWeight() ? first : second;
+    }
+
+    /**
+     * 从临时列表中均匀选择两个不同的节点，按照单位权重的请求数比较
+     *
+     * @param nodes 节点
+     * @param size  节点数量
+     * @return 节点
+     */
+    protected Node select(final List<Node> nodes, final int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        Node first = nodes.get(i);
+        Node second = nodes.get(j >= i ? j + 1 : j);
+        long wa = Math.max(first.getWeight(), 0);
+        long wb = Math.max(second.getWeight(), 0);
+        if (wa == 0 || wb == 0) {
+            return wa >= wb ? first : second;
+        }
+        //(a+1)/wa与(b+1)/wb交叉相乘比较，避免除法
+        long a = (getRequests(first) + 1L) * wb;
+        long b = (getRequests(second) + 1L) * wa;
+        if (a != b) {
+            return a < b ? first : second;
+        }
+        return wa >= wb ? first : second;
+    }
+
+    /**
+     * 获取集群全量节点的别名表，临时列表返回空
+     *
+     * @param cluster 集群
+     * @param nodes   节点
+     * @return 别名表
+     */
+    protected AliasTable<Node> getTable(final Cluster cluster, final List<Node> nodes) {
+        WeightTable result = table;
+        long now = SystemClock.now();
+        if (result != null && result.nodes == nodes && now - result.createTime < WEIGHT_REFRESH_INTERVAL) {
+            return result.aliasTable;
+        } else if (cluster == null || cluster.getNodes() != nodes) {
+            return null;
+        }
+        result = new WeightTable(nodes, new AliasTable<>(nodes), now);
+        table = result;
+        return result.aliasTable;
+    }
+
+    /**
+     * 节点正在处理的请求数
+     *
+     * @param node 节点
+     * @return 请求数
+     */
+    protected static int getRequests(final Node node) {
+        Client client = node.getClient();
+        return client == null ? 0 : client.getRequests();
+    }
+
+    /**
+     * 别名表
+     */
+    protected static class WeightTable {
+        /**
+         * 构建的节点列表
+         */
+        protected final List<Node> nodes;
+        /**
+         * 别名表
+         */
+        protected final AliasTable<Node> aliasTable;
+        /**
+         * 创建时间
+         */
+        protected final long createTime;
+
+        public WeightTable(final List<Node> nodes, final AliasTable<Node> aliasTable, final long createTime) {
+            this.nodes = nodes;
+            this.aliasTable = aliasTable;
+            this.createTime = createTime;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package io.joyrpc.cluster.distribution.router.hedging;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.Result;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.router.AbstractRouter;
+import io.joyrpc.exception.FailoverException;
+import io.joyrpc.exception.HedgeCancellationException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.TPSnapshot;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.Client;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.util.Futures;
+import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.Timer;
+import io.joyrpc.util.Timer.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.cluster.distribution.Router.HEDGING;
+import static io.joyrpc.cluster.distribution.Router.ORDER_HEDGING;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 对冲调用，先调用一个节点，超过等待时间没有应答则向负载均衡选择的另一个节点再发送一次，取先成功的结果并放弃另一个请求。<br/>
+ * 对冲请求的数量受预算限制，每个请求按照预算比例积累令牌，发送对冲请求消耗一个令牌。请求会被重复执行，只适用于幂等的方法。<br/>
+ * 对冲请求发送的是请求的副本，放弃的调用以HedgeCancellationException结束，确保过滤器、在途请求数和指标的回调都能执行，且不计入节点的失败和熔断。
+ */
+@Extension(value = HEDGING, order = ORDER_HEDGING)
+public class HedgingRouter extends AbstractRouter {
+
+    /**
+     * 一个令牌的单位，按照千分之一累计
+     */
+    protected static final long TOKEN_UNIT = 1000;
+    /**
+     * 最多积累的令牌，限制空闲后的突发对冲
+     */
+    protected static final long MAX_TOKENS = 100 * TOKEN_UNIT;
+    /**
+     * 对冲定时器，默认定时器的精度不够
+     */
+    protected static volatile Timer timer;
+
+    /**
+     * 固定的等待时间
+     */
+    protected long delay;
+    /**
+     * 估算的等待时间下限
+     */
+    protected long minDelay;
+    /**
+     * 每个请求积累的令牌
+     */
+    protected long permit;
+    /**
+     * 令牌
+     */
+    protected final AtomicLong tokens = new AtomicLong();
+    /**
+     * 发送的对冲请求数
+     */
+    protected final LongAdder hedges = new LongAdder();
+    /**
+     * 对冲请求先成功的次数
+     */
+    protected final LongAdder wins = new LongAdder();
+
+    @Override
+    public void setup() {
+        delay = url.getLong(HEDGE_DELAY_OPTION);
+        minDelay = url.getPositiveLong(HEDGE_MIN_DELAY_OPTION);
+        permit = (long) (Math.max(url.getDouble(HEDGE_BUDGET_OPTION), 0) * TOKEN_UNIT);
+    }
+
+    @Override
+    public CompletableFuture<Result> route(final RequestMessage<Invocation> request, final Candidate candidate) {
+        Node node = loadBalance.select(candidate, request);
+        if (node == null) {
+            return Futures.completeExceptionally(new FailoverException(
+                    String.format("there is not any suitable node. candidates size %d", candidate.getSize()), true));
+        }
+        deposit();
+        Attempt primary = new Attempt(node, request, operation.apply(node, null, request));
+        long wait = getDelay(candidate.getCluster(), request);
+        int timeout = request.getTimeout() > 0 ? request.getTimeout() : request.getHeader().getTimeout();
+        if (primary.future.isDone() || candidate.getNodes().size() < 2 || permit <= 0 || timeout > 0 && wait >= timeout) {
+            return primary.future;
+        }
+        Hedge hedge = new Hedge(request, candidate, primary);
+        hedge.timeout = getTimer().add("hedge", SystemClock.now() + wait, hedge::send);
+        primary.future.whenComplete((r, t) -> hedge.onComplete(primary, r, t));
+        return hedge.result;
+    }
+
+    /**
+     * 计算等待时间，没有配置固定值则取集群方法的TP95
+     *
+     * @param cluster 集群
+     * @param request 请求
+     * @return 等待时间
+     */
+    protected long getDelay(final Cluster cluster, final RequestMessage<Invocation> request) {
+        if (delay > 0) {
+            return delay;
+        }
+        Dashboard dashboard = cluster == null ? null : cluster.getDashboard();
+        if (dashboard == null) {
+            return minDelay;
+        }
+        TPSnapshot snapshot = dashboard.getMethod(request.getMethodName()).getSnapshot().getSnapshot();
+        return Math.max(snapshot.getTp95Micros() / 1000, minDelay);
+    }
+
+    /**
+     * 按照预算积累令牌
+     */
+    protected void deposit() {
+        long current;
+        long update;
+        do {
+            current = tokens.get();
+            if (current >= MAX_TOKENS) {
+                return;
+            }
+            update = Math.min(current + permit, MAX_TOKENS);
+        } while (!tokens.compareAndSet(current, update));
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return 成功标识
+     */
+    protected boolean acquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN_UNIT) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN_UNIT));
+        return true;
+    }
+
+    /**
+     * 发送的对冲请求数
+     *
+     * @return 对冲请求数
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * 对冲请求先成功的次数
+     *
+     * @return 成功次数
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+    /**
+     * 获取对冲定时器
+     *
+     * @return 定时器
+     */
+    protected static Timer getTimer() {
+        if (timer == null) {
+            synchronized (HedgingRouter.class) {
+                if (timer == null) {
+                    timer = new Timer("hedging", 5, 200, 2);
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 一次调用
+     */
+    protected static class Attempt {
+        /**
+         * 节点
+         */
+        protected final Node node;
+        /**
+         * 客户端
+         */
+        protected final Client client;
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<Result> future;
+        /**
+         * 消息ID，取本次调用实际发送的消息
+         */
+        protected final int msgId;
+
+        public Attempt(final Node node, final RequestMessage<Invocation> request, final CompletableFuture<Result> future) {
+            this.node = node;
+            this.client = node.getClient();
+            this.future = future;
+            this.msgId = request.getMsgId();
+        }
+
+        /**
+         * 放弃调用，从Future管理器中移除并异常结束，不再等待应答
+         */
+        public void cancel() {
+            Channel channel = client == null || future.isDone() ? null : client.getChannel();
+            if (channel != null) {
+                CompletableFuture<?> cf = channel.getFutureManager().remove(msgId);
+                if (cf != null) {
+                    //触发调用链上的回调，释放并发数和在途请求数，指标不计入失败和熔断
+                    cf.completeExceptionally(new HedgeCancellationException("hedged request is cancelled."));
+                }
+            }
+        }
+    }
+
+    /**
+     * 对冲调用
+     */
+    protected class Hedge {
+        /**
+         * 请求
+         */
+        protected final RequestMessage<Invocation> request;
+        /**
+         * 候选者
+         */
+        protected final Candidate candidate;
+        /**
+         * 首次调用
+         */
+        protected final Attempt primary;
+        /**
+         * 对冲调用
+         */
+        protected volatile Attempt backup;
+        /**
+         * 未结束的调用数
+         */
+        protected final AtomicInteger pending = new AtomicInteger(1);
+        /**
+         * 是否已经有结果
+         */
+        protected final AtomicBoolean completed = new AtomicBoolean();
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<Result> result = new CompletableFuture<>();
+        /**
+         * 定时任务
+         */
+        protected volatile Timeout timeout;
+
+        public Hedge(final RequestMessage<Invocation> request, final Candidate candidate, final Attempt primary) {
+            this.request = request;
+            this.candidate = candidate;
+            this.primary = primary;
+        }
+
+        /**
+         * 等待超时，向其它节点发送对冲请求
+         */
+        protected void send() {
+            if (result.isDone() || primary.future.isDone() || request.isTimeout() || !acquire()) {
+                return;
+            }
+            List<Node> nodes = new ArrayList<>(candidate.getNodes());
+            nodes.remove(primary.node);
+            Node node = loadBalance.select(new Candidate(candidate, nodes), request);
+            if (node == null) {
+                return;
+            }
+            pending.incrementAndGet();
+            hedges.increment();
+            //发送请求副本，避免和首次调用并发修改消息头和透传参数，上下文和原请求共享
+            RequestMessage<Invocation> copy = request.copy(request.getPayLoad().copy());
+            copy.setCreateTime(request.getCreateTime());
+            copy.setContext(request.getContext());
+            Attempt attempt = new Attempt(node, copy, operation.apply(node, null, copy));
+            backup = attempt;
+            attempt.future.whenComplete((r, t) -> onComplete(attempt, r, t));
+        }
+
+        /**
+         * 调用结束，先成功的结果胜出，都失败则返回最后的异常
+         *
+         * @param attempt 调用
+         * @param r       结果
+         * @param t       异常
+         */
+        protected void onComplete(final Attempt attempt, final Result r, final Throwable t) {
+            int remain = pending.decrementAndGet();
+            boolean success = t == null && !r.isException();
+            if (success || attempt == primary) {
+                //首次调用结束了就不需要再对冲
+                Timeout task = timeout;
+                if (task != null) {
+                    task.cancel();
+                }
+            }
+            if (success) {
+                //先更新统计再返回结果，调用方拿到结果的时候统计已经可见
+                if (completed.compareAndSet(false, true)) {
+                    if (attempt != primary) {
+                        wins.increment();
+                    }
+                    result.complete(r);
+                    Attempt other = attempt == primary ? backup : primary;
+                    if (other != null) {
+                        other.cancel();
+                    }
+                }
+            } else if (remain == 0 && completed.compareAndSet(false, true)) {
+                //没有其它进行中的调用，返回最后的异常
+                result.complete(t != null ? new Result(request.getContext(), t) : r);
+            }
+        }
+    }
+}
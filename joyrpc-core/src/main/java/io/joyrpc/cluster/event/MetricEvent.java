@@ -25,27 +25,29 @@ import io.joyrpc.extension.URL;
 import io.joyrpc.transport.message.Message;
 
 /**
- * 集群指标事件
+ * 集群指标事件，通过{@link MetricPublisher}发布的事件对象会被复用，处理器不能在handle方法之外持有，需要持有的调用{@link #copy()}
  */
 public class MetricEvent extends AbstractEvent {
     //集群URL
-    protected final URL cluster;
+    protected URL cluster;
     //集群名
-    protected final String clusterName;
+    protected String clusterName;
     //目标节点URL
-    protected final URL url;
+    protected URL url;
     //请求
-    protected final Message request;
+    protected Message request;
     //应答
-    protected final Message response;
+    protected Message response;
     //当前并发数
-    protected final int concurrency;
+    protected int concurrency;
     //开始时间
-    protected final long startTime;
+    protected long startTime;
     //结束时间
-    protected final long endTime;
+    protected long endTime;
+    //耗时，单位纳秒
+    protected long elapsedNanos;
     //异常
-    protected final Throwable throwable;
+    protected Throwable throwable;
 
     /**
      * 构造函数
@@ -74,9 +76,92 @@ public class MetricEvent extends AbstractEvent {
         this.concurrency = concurrency;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.elapsedNanos = (endTime - startTime) * 1000000L;
         this.throwable = throwable;
     }
 
+    /**
+     * 构造函数
+     *
+     * @param source       来源
+     * @param target       目标
+     * @param cluster      集群URL
+     * @param clusterName  集群名称
+     * @param url          节点URL
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
+     */
+    public MetricEvent(final Object source, final Object target,
+                       final URL cluster, final String clusterName, final URL url,
+                       final Message request, final Message response, final Throwable throwable,
+                       final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        this(source, target, cluster, clusterName, url, request, response, throwable, concurrency, startTime, endTime);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 构造函数，用于环形队列预分配的可复用事件
+     */
+    protected MetricEvent() {
+        super(null, null);
+    }
+
+    /**
+     * 填充事件，由环形队列在发布前调用
+     *
+     * @param source       来源
+     * @param target       目标
+     * @param cluster      集群URL
+     * @param clusterName  集群名称
+     * @param url          节点URL
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
+     */
+    protected void update(final Object source, final Object target,
+                          final URL cluster, final String clusterName, final URL url,
+                          final Message request, final Message response, final Throwable throwable,
+                          final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        this.source = source;
+        this.target = target;
+        this.cluster = cluster;
+        this.clusterName = clusterName;
+        this.url = url;
+        this.request = request;
+        this.response = response;
+        this.concurrency = concurrency;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.elapsedNanos = elapsedNanos;
+        this.throwable = throwable;
+    }
+
+    /**
+     * 复制事件，给需要持有事件的处理器使用
+     *
+     * @return 新的事件
+     */
+    public MetricEvent copy() {
+        return new MetricEvent(source, target, cluster, clusterName, url, request, response, throwable,
+                concurrency, startTime, endTime, elapsedNanos);
+    }
+
+    /**
+     * 清理引用，避免环形队列长期持有请求和应答
+     */
+    protected void clear() {
+        update(null, null, null, null, null, null, null, null, 0, 0, 0, 0);
+    }
+
     public URL getCluster() {
         return cluster;
     }
@@ -109,6 +194,10 @@ public class MetricEvent extends AbstractEvent {
         return endTime;
     }
 
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
     public Throwable getThrowable() {
         return throwable;
     }
@@ -0,0 +1,360 @@
+package io.joyrpc.cluster.event;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.MetricHandler;
+import io.joyrpc.event.EventHandler;
+import io.joyrpc.event.Publisher;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.util.Daemon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 指标事件发布器，多生产者单消费者的环形队列，槽位事件预先分配并复用，由公共的派发线程批量消费。<br/>
+ * 队列满了直接丢弃，不阻塞调用线程，并统计丢弃数和积压数。
+ */
+public class MetricPublisher implements Publisher<MetricEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricPublisher.class);
+
+    /**
+     * 每次批量消费的最大数量
+     */
+    protected static final int BATCH_SIZE = 256;
+    /**
+     * 公共的派发线程
+     */
+    protected static final Dispatcher DISPATCHER = new Dispatcher("RPC-Metric-Dispatcher");
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 掩码
+     */
+    protected final int mask;
+    /**
+     * 预分配的事件槽位
+     */
+    protected final MetricEvent[] slots;
+    /**
+     * 每个槽位已发布的序号
+     */
+    protected final AtomicLongArray sequences;
+    /**
+     * 生产者申请的下一个序号
+     */
+    protected final AtomicLong tail = new AtomicLong();
+    /**
+     * 消费者下一个要消费的序号，只有派发线程修改
+     */
+    protected volatile long head;
+    /**
+     * 最大积压数，只有派发线程修改
+     */
+    protected volatile long maxLag;
+    /**
+     * 丢弃数
+     */
+    protected final LongAdder drops = new LongAdder();
+    /**
+     * 处理器
+     */
+    protected final Set<EventHandler<MetricEvent>> handlers = new CopyOnWriteArraySet<>();
+    /**
+     * 启动标识
+     */
+    protected final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * 构造函数
+     *
+     * @param name     名称
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MetricPublisher(final String name, final int capacity) {
+        int size = 2;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.mask = size - 1;
+        this.slots = new MetricEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new MetricEvent();
+            sequences.set(i, -1);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            DISPATCHER.add(this);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (started.compareAndSet(true, false)) {
+            DISPATCHER.remove(this);
+        }
+    }
+
+    @Override
+    public boolean addHandler(final EventHandler<MetricEvent> handler) {
+        return handler != null && handlers.add(handler);
+    }
+
+    @Override
+    public boolean removeHandler(final EventHandler<MetricEvent> handler) {
+        return handler != null && handlers.remove(handler);
+    }
+
+    @Override
+    public int size() {
+        return handlers.size();
+    }
+
+    @Override
+    public boolean offer(final MetricEvent event) {
+        return event != null && offer(event.getSource(), event.getTarget(), event.getCluster(), event.getClusterName(),
+                event.getUrl(), event.getRequest(), event.getResponse(), event.getThrowable(),
+                event.getConcurrency(), event.getStartTime(), event.getEndTime(), event.getElapsedNanos());
+    }
+
+    @Override
+    public boolean offer(final MetricEvent event, final long timeout, final TimeUnit timeUnit) {
+        //指标不等待，满了直接丢弃
+        return offer(event);
+    }
+
+    /**
+     * 发布指标，直接填充到预分配的槽位，不创建事件对象
+     *
+     * @param source       来源
+     * @param target       目标
+     * @param cluster      集群URL
+     * @param clusterName  集群名称
+     * @param url          节点URL
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
+     * @return 成功标识
+     */
+    public boolean offer(final Object source, final Object target,
+                         final URL cluster, final String clusterName, final URL url,
+                         final Message request, final Message response, final Throwable throwable,
+                         final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        if (!started.get()) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                drops.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        slots[index].update(source, target, cluster, clusterName, url, request, response, throwable,
+                concurrency, startTime, endTime, elapsedNanos);
+        //填充完成后再发布序号
+        sequences.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * 批量消费，只在派发线程中调用
+     *
+     * @return 消费的数量
+     */
+    protected int drain() {
+        long current = head;
+        long lag = tail.get() - current;
+        if (lag > maxLag) {
+            maxLag = lag;
+        }
+        int count = 0;
+        int index;
+        MetricEvent event;
+        while (count < BATCH_SIZE) {
+            index = (int) current & mask;
+            if (sequences.get(index) != current) {
+                //还没有发布
+                break;
+            }
+            event = slots[index];
+            try {
+                publish(event);
+            } catch (Throwable e) {
+                logger.error(String.format("Error occurs while handling metric event of %s, caused by %s", name, e.getMessage()), e);
+            } finally {
+                event.clear();
+            }
+            current++;
+            count++;
+        }
+        if (count > 0) {
+            //释放槽位
+            head = current;
+        }
+        return count;
+    }
+
+    /**
+     * 发布事件，声明持有事件的处理器收到副本
+     *
+     * @param event 事件
+     */
+    protected void publish(final MetricEvent event) {
+        Object target = event.getTarget();
+        for (EventHandler<MetricEvent> handler : handlers) {
+            if (target == null || target == handler) {
+                handler.handle(handler instanceof MetricHandler && ((MetricHandler) handler).retain() ? event.copy() : event);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * 丢弃的事件数
+     *
+     * @return 丢弃的事件数
+     */
+    public long getDrops() {
+        return drops.sum();
+    }
+
+    /**
+     * 当前积压的事件数
+     *
+     * @return 积压的事件数
+     */
+    public long getLag() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * 派发时观察到的最大积压数
+     *
+     * @return 最大积压数
+     */
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    /**
+     * 公共派发线程，轮询所有环形队列，空闲时逐步退避
+     */
+    protected static class Dispatcher {
+        /**
+         * 最大空闲等待时间（毫秒）
+         */
+        protected static final long MAX_IDLE = 10;
+        /**
+         * 名称
+         */
+        protected final String name;
+        /**
+         * 环形队列
+         */
+        protected final List<MetricPublisher> publishers = new CopyOnWriteArrayList<>();
+        /**
+         * 空闲等待时间
+         */
+        protected long idle;
+        /**
+         * 分发线程
+         */
+        protected Daemon daemon;
+
+        public Dispatcher(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * 添加环形队列，必要时启动线程
+         *
+         * @param publisher 发布器
+         */
+        protected synchronized void add(final MetricPublisher publisher) {
+            publishers.add(publisher);
+            if (daemon == null) {
+                daemon = Daemon.builder().name(name).callable(this::dispatch).build();
+                daemon.start();
+            }
+        }
+
+        /**
+         * 移除环形队列，线程和JEventBus的派发线程一样常驻，避免新旧线程同时消费
+         *
+         * @param publisher 发布器
+         */
+        protected void remove(final MetricPublisher publisher) {
+            publishers.remove(publisher);
+        }
+
+        /**
+         * 派发
+         *
+         * @return 下一次等待时间
+         */
+        protected long dispatch() {
+            int count = 0;
+            for (MetricPublisher publisher : publishers) {
+                count += publisher.drain();
+            }
+            if (count > 0) {
+                idle = 0;
+            } else if (idle < MAX_IDLE) {
+                idle++;
+            }
+            return idle;
+        }
+    }
+}
@@ -26,14 +26,39 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 /**
- * 自适应压缩
+ * 自适应压缩，数据超过阈值才开启压缩。设置了压缩顾问，则在开启压缩前由顾问根据数据头部选择压缩算法或不压缩
  */
 public class AdaptiveCompressOutputStream extends OutputStream implements Finishable {
 
+    /**
+     * 默认开启压缩的阈值
+     */
+    public static final int DEFAULT_THRESHOLD = 2048;
+    /**
+     * 使用预置字典的时候，小数据也能有较好的压缩率，降低开启压缩的阈值
+     */
+    public static final int DICTIONARY_THRESHOLD = 256;
+
     /**
      * 提供压缩流
      */
     protected Compression compression;
+    /**
+     * 压缩顾问
+     */
+    protected AdaptiveCompressionPolicy.Advisor advisor;
+    /**
+     * 实际选择的压缩算法
+     */
+    protected Compression selected;
+    /**
+     * 顾问决定不压缩
+     */
+    protected boolean bypass;
+    /**
+     * 压缩耗费的纳秒数
+     */
+    protected long nanos;
 
     /**
      * 压缩流
@@ -55,6 +80,14 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
      * 起始的写入位置
      */
     protected int writerIndex;
+    /**
+     * 预置字典
+     */
+    protected byte[] dictionary;
+    /**
+     * 开启压缩前缓冲的数据头部
+     */
+    protected byte[] head;
 
     protected boolean finished;
 
@@ -68,7 +101,7 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
      * @throws IllegalArgumentException
      */
     public AdaptiveCompressOutputStream(final ChannelBuffer buffer, final Compression compression) {
-        this(buffer, compression, 2048);
+        this(buffer, compression, DEFAULT_THRESHOLD, null);
     }
 
     /**
@@ -80,6 +113,20 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
      * @throws IllegalArgumentException
      */
     public AdaptiveCompressOutputStream(final ChannelBuffer buffer, final Compression compression, final int threshold) {
+        this(buffer, compression, threshold, null);
+    }
+
+    /**
+     * 构建自适应压缩流
+     *
+     * @param buffer      数据缓冲区.
+     * @param compression 压缩流提供者.
+     * @param threshold   缓冲区大小.
+     * @param dictionary  预置字典.
+     * @throws IllegalArgumentException
+     */
+    public AdaptiveCompressOutputStream(final ChannelBuffer buffer, final Compression compression, final int threshold,
+                                        final byte[] dictionary) {
         if (buffer == null) {
             throw new NullPointerException("buffer can not be null.");
         } else if (compression == null) {
@@ -91,33 +138,91 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
         this.buffer = buffer;
         this.compression = compression;
         this.threshold = threshold;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 构建自适应压缩流
+     *
+     * @param buffer      数据缓冲区.
+     * @param compression 压缩流提供者.
+     * @param threshold   缓冲区大小.
+     * @param dictionary  预置字典.
+     * @param advisor     压缩顾问.
+     * @throws IllegalArgumentException
+     */
+    public AdaptiveCompressOutputStream(final ChannelBuffer buffer, final Compression compression, final int threshold,
+                                        final byte[] dictionary, final AdaptiveCompressionPolicy.Advisor advisor) {
+        this(buffer, compression, threshold, dictionary);
+        this.advisor = advisor;
     }
 
     public boolean isCompressed() {
         return out != null;
     }
 
+    /**
+     * 实际使用的压缩算法，没有开启压缩返回null
+     *
+     * @return 压缩算法
+     */
+    public Compression getCompression() {
+        return out == null ? null : selected;
+    }
+
     public int getTotal() {
         return total;
     }
 
+    /**
+     * 开启压缩前缓冲的数据头部，没有开启压缩返回null
+     *
+     * @return 数据头部
+     */
+    public byte[] getHead() {
+        return head;
+    }
+
     /**
      * 把数据缓冲区转换成压缩流
      */
     protected void compress() throws IOException {
-        if (out == null) {
+        compress(null, 0, 0);
+    }
+
+    /**
+     * 把数据缓冲区转换成压缩流
+     *
+     * @param b   本次写入的数据，用于压缩顾问采样
+     * @param off 偏移量
+     * @param len 长度
+     */
+    protected void compress(final byte[] b, final int off, final int len) throws IOException {
+        if (out == null && !bypass) {
             //读取写入的数据
             int size = buffer.writerIndex() - writerIndex;
+            byte[] bytes = null;
             if (size > 0) {
-                byte[] bytes = new byte[size];
+                bytes = new byte[size];
                 buffer.getBytes(writerIndex, bytes);
-                buffer.writerIndex(writerIndex);
+            }
+            selected = advisor == null ? compression : advisor.select(compression, bytes, size, b, off, len);
+            if (selected == null) {
+                //不压缩，直接写入缓冲区
+                bypass = true;
+                return;
+            }
+            long start = System.nanoTime();
+            buffer.writerIndex(writerIndex);
+            //字典只对协商的压缩算法有效
+            OutputStream os = selected.compress(buffer.outputStream(), selected == compression ? dictionary : null);
+            if (bytes != null) {
+                head = bytes;
                 //转换成压缩流，再次写入数据
-                out = compression.compress(buffer.outputStream());
-                out.write(bytes);
-            } else {
-                out = compression.compress(buffer.outputStream());
+                os.write(bytes);
             }
+            out = os;
+            nanos += System.nanoTime() - start;
         }
     }
 
@@ -128,18 +233,20 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
      * @throws IOException if an I/O error occurs.
      */
     public void write(int b) throws IOException {
-        if (out != null) {
+        if (out == null && !bypass && total >= threshold) {
+            //超过了压缩阈值，转换成压缩流输出
+            compress();
+        }
+        if (out == null) {
+            //写入缓冲区
+            buffer.writeByte(b);
+        } else if (advisor == null) {
             //开启了压缩，直接输出到压缩流，避免二次拷贝
             out.write(b);
         } else {
-            if (total >= threshold) {
-                //超过了压缩阈值，转换成压缩流输出
-                compress();
-                out.write(b);
-            } else {
-                //写入缓冲区
-                buffer.writeByte(b);
-            }
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
         }
         total++;
     }
@@ -161,16 +268,20 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
      * @throws IOException if an I/O error occurs.
      */
     public void write(final byte b[], final int off, final int len) throws IOException {
-        if (out != null) {
-            //开启了压缩，直接输出到压缩缓冲区，避免二次拷贝数据
-            out.write(b, off, len);
-        } else if (len > threshold - total) {
+        if (out == null && !bypass && len > threshold - total) {
             //超过了压缩阈值，转换成压缩流输出
-            compress();
-            out.write(b, off, len);
-        } else {
+            compress(b, off, len);
+        }
+        if (out == null) {
             //写入原始值
             buffer.writeBytes(b, off, len);
+        } else if (advisor == null) {
+            //开启了压缩，直接输出到压缩缓冲区，避免二次拷贝数据
+            out.write(b, off, len);
+        } else {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
         }
         total += len;
     }
@@ -191,8 +302,20 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
     public void finish() throws IOException {
         if (!finished) {
             finished = true;
-            if (out != null && out instanceof Finishable) {
-                ((Finishable) out).finish();
+            if (advisor == null) {
+                if (out instanceof Finishable) {
+                    ((Finishable) out).finish();
+                }
+            } else if (out != null) {
+                long start = System.nanoTime();
+                if (out instanceof Finishable) {
+                    ((Finishable) out).finish();
+                }
+                out.flush();
+                nanos += System.nanoTime() - start;
+                advisor.record(total, buffer.writerIndex() - writerIndex, nanos);
+            } else if (bypass) {
+                advisor.record(total, total, 0);
             }
         }
     }
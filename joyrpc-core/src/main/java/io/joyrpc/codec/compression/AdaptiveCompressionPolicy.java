@@ -0,0 +1,409 @@
+package io.joyrpc.codec.compression;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.MapParametric;
+import io.joyrpc.extension.Parametric;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.mc.McTPWindow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 自适应压缩策略。<br/>
+ * 按照方法记录各压缩算法实际的压缩率和CPU耗时，结合本次数据头部的信息熵估算收益，
+ * 在不压缩、协商的压缩算法、lz4和snappy之间选择。收益按照节省的网络传输时间减去压缩耗费的CPU时间计算。
+ */
+public class AdaptiveCompressionPolicy {
+
+    /**
+     * 不压缩
+     */
+    public static final String NONE = "none";
+    /**
+     * 候选的快速压缩算法
+     */
+    protected static final String[] FAST_COMPRESSIONS = new String[]{"lz4", "snappy"};
+    /**
+     * 计算信息熵的最大采样长度
+     */
+    protected static final int ENTROPY_SAMPLE_SIZE = 1024;
+    /**
+     * 每个算法至少需要的样本数，不足则优先尝试该算法
+     */
+    protected static final int MIN_SAMPLES = 8;
+    /**
+     * 探测周期，定期选择样本最少的算法，避免历史数据过时
+     */
+    protected static final int EXPLORE_PERIOD = 128;
+    /**
+     * 指数加权移动平均系数
+     */
+    protected static final double ALPHA = 0.125;
+
+    protected static volatile AdaptiveCompressionPolicy instance;
+
+    /**
+     * 是否启用
+     */
+    protected final boolean enabled;
+    /**
+     * 传输一个字节耗费的纳秒数
+     */
+    protected final double wireNanosPerByte;
+    /**
+     * 信息熵上限(bit/byte)，超过则认为数据不可压缩
+     */
+    protected final double maxEntropy;
+    /**
+     * 接口方法的统计
+     */
+    protected final Map<String, Map<String, MethodStat>> methods = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param enabled    是否启用
+     * @param bandwidth  网络带宽(Mbps)
+     * @param maxEntropy 信息熵上限(bit/byte)
+     */
+    public AdaptiveCompressionPolicy(final boolean enabled, final int bandwidth, final double maxEntropy) {
+        this.enabled = enabled;
+        this.wireNanosPerByte = 8000.0 / (bandwidth <= 0 ? COMPRESS_ADAPTIVE_BANDWIDTH.getValue() : bandwidth);
+        this.maxEntropy = maxEntropy <= 0 || maxEntropy > 8 ? COMPRESS_ADAPTIVE_ENTROPY.getValue() : maxEntropy;
+    }
+
+    /**
+     * 获取全局的策略，参数从全局上下文读取
+     *
+     * @return 自适应压缩策略
+     */
+    public static AdaptiveCompressionPolicy getInstance() {
+        if (instance == null) {
+            synchronized (AdaptiveCompressionPolicy.class) {
+                if (instance == null) {
+                    Parametric parametric = new MapParametric(GlobalContext.getContext());
+                    instance = new AdaptiveCompressionPolicy(
+                            parametric.getBoolean(COMPRESS_ADAPTIVE_OPTION),
+                            parametric.getPositive(COMPRESS_ADAPTIVE_BANDWIDTH.getName(), COMPRESS_ADAPTIVE_BANDWIDTH.getValue()),
+                            parametric.getDouble(COMPRESS_ADAPTIVE_ENTROPY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取本次消息的压缩顾问
+     *
+     * @param className    接口名称
+     * @param methodName   方法名称
+     * @param compressions 对端支持的压缩算法
+     * @return 压缩顾问，未启用或没有方法信息返回null
+     */
+    public Advisor getAdvisor(final String className, final String methodName, final List<String> compressions) {
+        if (!enabled || className == null || methodName == null) {
+            return null;
+        }
+        return new Advisor(getMethod(className, methodName), compressions);
+    }
+
+    /**
+     * 获取方法上某种压缩决策的性能窗口
+     *
+     * @param className   接口名称
+     * @param methodName  方法名称
+     * @param compression 压缩算法名称，不压缩为{@link #NONE}
+     * @return 性能窗口
+     */
+    public TPWindow getWindow(final String className, final String methodName, final String compression) {
+        Map<String, MethodStat> stats = methods.get(className);
+        MethodStat method = stats == null ? null : stats.get(methodName);
+        Stat stat = method == null ? null : method.stats.get(compression);
+        return stat == null ? null : stat.window;
+    }
+
+    /**
+     * 获取方法统计
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @return 方法统计
+     */
+    protected MethodStat getMethod(final String className, final String methodName) {
+        return methods.computeIfAbsent(className, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(methodName, o -> new MethodStat());
+    }
+
+    /**
+     * 计算信息熵
+     *
+     * @param data   数据
+     * @param offset 偏移量
+     * @param length 长度
+     * @return 信息熵(bit/byte)
+     */
+    public static double entropy(final byte[] data, final int offset, final int length) {
+        int[] counts = new int[256];
+        return entropy(counts, count(counts, data, offset, length));
+    }
+
+    /**
+     * 统计字节出现的次数
+     *
+     * @param counts 计数器
+     * @param data   数据
+     * @param offset 偏移量
+     * @param length 长度
+     * @return 统计的字节数
+     */
+    protected static int count(final int[] counts, final byte[] data, final int offset, final int length) {
+        if (data == null || length <= 0) {
+            return 0;
+        }
+        for (int i = offset, end = offset + length; i < end; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        return length;
+    }
+
+    /**
+     * 根据字节出现的次数计算信息熵，采用Miller-Madow修正小样本的低估偏差
+     *
+     * @param counts 计数器
+     * @param total  总字节数
+     * @return 信息熵(bit/byte)
+     */
+    protected static double entropy(final int[] counts, final int total) {
+        if (total <= 0) {
+            return 0;
+        }
+        double result = 0;
+        double p;
+        int symbols = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                p = (double) count / total;
+                result -= p * Math.log(p);
+                symbols++;
+            }
+        }
+        result += (symbols - 1) / (2.0 * total);
+        return Math.min(8, result / Math.log(2));
+    }
+
+    /**
+     * 压缩顾问，每个消息一个实例，负责选择压缩算法并记录结果
+     */
+    public class Advisor {
+        /**
+         * 方法统计
+         */
+        protected final MethodStat method;
+        /**
+         * 对端支持的压缩算法
+         */
+        protected final List<String> compressions;
+        /**
+         * 本次数据的信息熵
+         */
+        protected double entropy;
+        /**
+         * 本次选择的统计
+         */
+        protected Stat selected;
+
+        protected Advisor(final MethodStat method, final List<String> compressions) {
+            this.method = method;
+            this.compressions = compressions;
+        }
+
+        /**
+         * 选择压缩算法，采样已缓冲的数据头部和本次写入的数据计算信息熵
+         *
+         * @param compression 协商的压缩算法
+         * @param head        已缓冲的数据头部
+         * @param headLength  数据头部长度
+         * @param data        本次写入的数据
+         * @param offset      本次写入的偏移量
+         * @param length      本次写入的长度
+         * @return 压缩算法，不压缩返回null
+         */
+        public Compression select(final Compression compression, final byte[] head, final int headLength,
+                                  final byte[] data, final int offset, final int length) {
+            int[] counts = new int[256];
+            int total = count(counts, head, 0, Math.min(headLength, ENTROPY_SAMPLE_SIZE));
+            total += count(counts, data, offset, Math.min(length, ENTROPY_SAMPLE_SIZE - total));
+            entropy = entropy(counts, total);
+            Compression result = null;
+            if (entropy < maxEntropy) {
+                boolean explore = method.counter.incrementAndGet() % EXPLORE_PERIOD == 0;
+                Stat best = null;
+                double bestScore = 0;
+                Stat stat;
+                double score;
+                Compression candidate;
+                for (int i = -1; i < FAST_COMPRESSIONS.length; i++) {
+                    candidate = i < 0 ? compression : getCompression(compression, FAST_COMPRESSIONS[i]);
+                    if (candidate != null) {
+                        stat = method.getStat(candidate.getTypeName());
+                        if (stat.samples < MIN_SAMPLES) {
+                            //样本不足，先尝试
+                            result = candidate;
+                            best = stat;
+                            break;
+                        } else if (explore) {
+                            //探测样本最少的算法
+                            if (best == null || stat.samples < best.samples) {
+                                result = candidate;
+                                best = stat;
+                            }
+                        } else if ((score = score(stat)) > bestScore) {
+                            result = candidate;
+                            best = stat;
+                            bestScore = score;
+                        }
+                    }
+                }
+                selected = best;
+            }
+            if (result == null) {
+                selected = method.getStat(NONE);
+            }
+            return result;
+        }
+
+        /**
+         * 获取对端支持的快速压缩算法
+         *
+         * @param compression 协商的压缩算法
+         * @param name        名称
+         * @return 压缩算法
+         */
+        protected Compression getCompression(final Compression compression, final String name) {
+            if (compressions == null || name.equals(compression.getTypeName()) || !compressions.contains(name)) {
+                return null;
+            }
+            return COMPRESSION.get(name);
+        }
+
+        /**
+         * 估算每个字节的收益(纳秒)
+         *
+         * @param stat 统计
+         * @return 收益
+         */
+        protected double score(final Stat stat) {
+            //按照信息熵对历史压缩率进行修正
+            double ratio = Math.min(1, stat.ratio * entropy / Math.max(stat.entropy, 0.1));
+            return (1 - ratio) * wireNanosPerByte - stat.nanosPerByte;
+        }
+
+        /**
+         * 记录压缩结果
+         *
+         * @param raw        原始大小
+         * @param compressed 压缩后大小
+         * @param nanos      压缩耗费的纳秒数
+         */
+        public void record(final int raw, final int compressed, final long nanos) {
+            if (selected != null && raw > 0) {
+                selected.update((double) compressed / raw, (double) nanos / raw, entropy);
+                selected.window.success(nanos, TimeUnit.NANOSECONDS, 1, compressed);
+            }
+        }
+
+        public double getEntropy() {
+            return entropy;
+        }
+    }
+
+    /**
+     * 方法统计
+     */
+    protected static class MethodStat {
+        /**
+         * 各压缩决策的统计
+         */
+        protected final Map<String, Stat> stats = new ConcurrentHashMap<>(4);
+        /**
+         * 决策计数器
+         */
+        protected final AtomicLong counter = new AtomicLong();
+
+        protected Stat getStat(final String name) {
+            return stats.computeIfAbsent(name, o -> new Stat());
+        }
+    }
+
+    /**
+     * 压缩算法的统计
+     */
+    protected static class Stat {
+        /**
+         * 性能窗口，记录压缩耗时和压缩后的数据大小
+         */
+        protected final TPWindow window = new McTPWindow();
+        /**
+         * 样本数
+         */
+        protected volatile long samples;
+        /**
+         * 压缩率(压缩后/原始)
+         */
+        protected volatile double ratio = 1;
+        /**
+         * 每个字节耗费的压缩时间
+         */
+        protected volatile double nanosPerByte;
+        /**
+         * 样本的信息熵
+         */
+        protected volatile double entropy = 8;
+
+        protected synchronized void update(final double ratio, final double nanosPerByte, final double entropy) {
+            if (samples == 0) {
+                this.ratio = ratio;
+                this.nanosPerByte = nanosPerByte;
+                this.entropy = entropy;
+            } else {
+                this.ratio += (ratio - this.ratio) * ALPHA;
+                this.nanosPerByte += (nanosPerByte - this.nanosPerByte) * ALPHA;
+                this.entropy += (entropy - this.entropy) * ALPHA;
+            }
+            samples++;
+        }
+    }
+}
@@ -84,6 +84,27 @@ public interface Compression extends CodecType {
      */
     OutputStream compress(OutputStream out) throws IOException;
 
+    /**
+     * 使用预置字典构造压缩流，不支持字典的压缩算法忽略字典
+     *
+     * @param out        输出流
+     * @param dictionary 预置字典
+     * @return
+     * @throws IOException
+     */
+    default OutputStream compress(OutputStream out, byte[] dictionary) throws IOException {
+        return compress(out);
+    }
+
+    /**
+     * 是否支持预置字典
+     *
+     * @return 支持字典标识
+     */
+    default boolean isDictionary() {
+        return false;
+    }
+
     /**
      * 构建解压流
      *
@@ -21,21 +21,42 @@ package io.joyrpc.codec.compression.gzip;
  */
 
 import io.joyrpc.codec.compression.Compression;
-import io.joyrpc.codec.compression.Finishable;
+import io.joyrpc.codec.compression.zlib.PooledDeflaterOutputStream;
+import io.joyrpc.codec.compression.zlib.PooledInflaterInputStream;
 import io.joyrpc.extension.Extension;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
 
 /**
- * Gzip压缩算法
+ * Gzip压缩算法，JDK的GZIP流每次都会创建新的压缩器，这里基于对象池的压缩器自己处理gzip的头部和尾部
  */
 @Extension(value = "gzip", provider = "java")
 public class GzipCompression implements Compression {
 
+    /**
+     * 魔法数
+     */
+    protected static final int GZIP_MAGIC = 0x8b1f;
+    /**
+     * 头部标识
+     */
+    protected static final int FHCRC = 2;
+    protected static final int FEXTRA = 4;
+    protected static final int FNAME = 8;
+    protected static final int FCOMMENT = 16;
+    /**
+     * 固定的头部，没有扩展信息
+     */
+    protected static final byte[] HEADER = new byte[]{(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), 8, 0, 0, 0, 0, 0, 0, 0};
+
     @Override
     public byte getTypeId() {
         return GZIP;
@@ -53,17 +74,136 @@ public class GzipCompression implements Compression {
 
     @Override
     public InputStream decompress(final InputStream input) throws IOException {
-        return new GZIPInputStream(input);
+        return new MyGZIPInputStream(input);
     }
 
     /**
      * 压缩
      */
-    protected static class MyGZIPOutputStream extends GZIPOutputStream implements Finishable {
+    protected static class MyGZIPOutputStream extends PooledDeflaterOutputStream {
+        /**
+         * 校验和
+         */
+        protected final CRC32 crc = new CRC32();
+        /**
+         * 原始数据长度
+         */
+        protected int size;
 
         public MyGZIPOutputStream(final OutputStream out) throws IOException {
-            super(out);
+            super(out, true, null);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+            size += len;
+        }
+
+        @Override
+        protected void onFinish() throws IOException {
+            long v = crc.getValue();
+            out.write(new byte[]{(byte) v, (byte) (v >> 8), (byte) (v >> 16), (byte) (v >> 24),
+                    (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)});
+        }
+    }
+
+    /**
+     * 解压
+     */
+    protected static class MyGZIPInputStream extends PooledInflaterInputStream {
+        /**
+         * 校验和
+         */
+        protected final CRC32 crc = new CRC32();
+        /**
+         * 原始数据长度
+         */
+        protected long size;
+
+        public MyGZIPInputStream(final InputStream in) throws IOException {
+            super(in, true);
+            readHeader(in);
+        }
+
+        @Override
+        protected void onRead(final byte[] b, final int off, final int n) {
+            crc.update(b, off, n);
+            size += n;
+        }
+
+        @Override
+        protected void onFinish() throws IOException {
+            //尾部可能已经读取到了缓冲区中
+            InputStream is = in;
+            int n = inf.getRemaining();
+            if (n > 0) {
+                is = new SequenceInputStream(new ByteArrayInputStream(buf, len - n, n), new FilterInputStream(in) {
+                    @Override
+                    public void close() {
+                    }
+                });
+            }
+            if (readUInt(is) != crc.getValue() || readUInt(is) != (size & 0xffffffffL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        /**
+         * 读取头部
+         *
+         * @param is 输入流
+         * @throws IOException
+         */
+        protected void readHeader(final InputStream is) throws IOException {
+            if (readUShort(is) != GZIP_MAGIC) {
+                throw new ZipException("Not in GZIP format");
+            } else if (readUByte(is) != 8) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flg = readUByte(is);
+            //跳过修改时间、扩展标识和操作系统
+            skipBytes(is, 6);
+            if ((flg & FEXTRA) == FEXTRA) {
+                skipBytes(is, readUShort(is));
+            }
+            if ((flg & FNAME) == FNAME) {
+                while (readUByte(is) != 0) {
+                }
+            }
+            if ((flg & FCOMMENT) == FCOMMENT) {
+                while (readUByte(is) != 0) {
+                }
+            }
+            if ((flg & FHCRC) == FHCRC) {
+                skipBytes(is, 2);
+            }
         }
 
+        protected long readUInt(final InputStream is) throws IOException {
+            long s = readUShort(is);
+            return ((long) readUShort(is) << 16) | s;
+        }
+
+        protected int readUShort(final InputStream is) throws IOException {
+            int b = readUByte(is);
+            return (readUByte(is) << 8) | b;
+        }
+
+        protected int readUByte(final InputStream is) throws IOException {
+            int b = is.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        protected void skipBytes(final InputStream is, int n) throws IOException {
+            while (n-- > 0) {
+                readUByte(is);
+            }
+        }
     }
 }
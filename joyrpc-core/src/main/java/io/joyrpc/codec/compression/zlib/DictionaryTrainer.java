@@ -0,0 +1,321 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 字典训练器，采样数据的头部，采样够了以后在后台训练。<br/>
+ * 统计8字节片段在多少个样本中出现，把样本切成固定长度的段，按照段中片段的覆盖价值贪心选择，
+ * 已经选中的片段不再计分，价值最高的段放在字典的最后面，引用距离最短。
+ */
+public class DictionaryTrainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryTrainer.class);
+
+    /**
+     * 片段长度
+     */
+    protected static final int GRAM = 8;
+    /**
+     * 段长度
+     */
+    protected static final int SEGMENT = 64;
+    /**
+     * 段的步长
+     */
+    protected static final int STEP = 16;
+    /**
+     * 默认样本数
+     */
+    protected static final int DEFAULT_SAMPLES = 256;
+    /**
+     * 每个样本最大长度
+     */
+    protected static final int DEFAULT_SAMPLE_SIZE = 1024;
+    /**
+     * 默认字典大小
+     */
+    protected static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 样本
+     */
+    protected final byte[][] samples;
+    /**
+     * 每个样本最大长度
+     */
+    protected final int sampleSize;
+    /**
+     * 字典大小
+     */
+    protected final int dictionarySize;
+    /**
+     * 训练完成的回调
+     */
+    protected final Consumer<byte[]> consumer;
+    /**
+     * 采样计数器
+     */
+    protected final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param name     名称
+     * @param consumer 训练完成的回调
+     */
+    public DictionaryTrainer(final String name, final Consumer<byte[]> consumer) {
+        this(name, DEFAULT_SAMPLES, DEFAULT_SAMPLE_SIZE, DEFAULT_DICTIONARY_SIZE, consumer);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name           名称
+     * @param samples        样本数
+     * @param sampleSize     每个样本最大长度
+     * @param dictionarySize 字典大小
+     * @param consumer       训练完成的回调
+     */
+    public DictionaryTrainer(final String name, final int samples, final int sampleSize, final int dictionarySize,
+                             final Consumer<byte[]> consumer) {
+        this.name = name;
+        this.samples = new byte[samples][];
+        this.sampleSize = sampleSize;
+        this.dictionarySize = Math.min(dictionarySize, ZlibDictionary.MAX_SIZE);
+        this.consumer = consumer;
+    }
+
+    /**
+     * 是否还需要采样
+     *
+     * @return 需要采样标识
+     */
+    public boolean isSampling() {
+        return counter.get() < samples.length;
+    }
+
+    /**
+     * 采样
+     *
+     * @param data   数据
+     * @param offset 偏移量
+     * @param length 长度
+     */
+    public void sample(final byte[] data, final int offset, final int length) {
+        if (length >= GRAM && isSampling()) {
+            int index = counter.getAndIncrement();
+            if (index < samples.length) {
+                byte[] sample = new byte[Math.min(length, sampleSize)];
+                System.arraycopy(data, offset, sample, 0, sample.length);
+                samples[index] = sample;
+                if (index == samples.length - 1) {
+                    CompletableFuture.runAsync(this::complete);
+                }
+            }
+        }
+    }
+
+    /**
+     * 采样
+     *
+     * @param buffer 缓冲区
+     * @param index  位置
+     * @param length 长度
+     */
+    public void sample(final ChannelBuffer buffer, final int index, final int length) {
+        if (length >= GRAM && isSampling()) {
+            byte[] sample = new byte[Math.min(length, sampleSize)];
+            buffer.getBytes(index, sample);
+            sample(sample, 0, sample.length);
+        }
+    }
+
+    /**
+     * 训练并回调
+     */
+    protected void complete() {
+        try {
+            byte[] dictionary = train();
+            logger.info(String.format("Success training compression dictionary of %s, size=%d", name, dictionary.length));
+            consumer.accept(dictionary);
+        } catch (Throwable e) {
+            logger.error(String.format("Error occurs while training compression dictionary of %s", name), e);
+        }
+    }
+
+    /**
+     * 训练
+     *
+     * @return 字典数据
+     */
+    public byte[] train() {
+        //统计片段出现在多少个样本中
+        Map<Long, int[]> grams = new HashMap<>(4096);
+        int[] stat;
+        byte[] sample;
+        for (int i = 0; i < samples.length; i++) {
+            sample = samples[i];
+            if (sample != null) {
+                for (int j = 0; j + GRAM <= sample.length; j++) {
+                    stat = grams.computeIfAbsent(gram(sample, j), k -> new int[]{0, -1});
+                    if (stat[1] != i) {
+                        stat[0]++;
+                        stat[1] = i;
+                    }
+                }
+            }
+        }
+        //计算每个段的初始价值
+        PriorityQueue<Segment> queue = new PriorityQueue<>(1024, (o1, o2) -> Long.compare(o2.score, o1.score));
+        Segment segment;
+        for (byte[] s : samples) {
+            if (s != null) {
+                for (int j = 0; j < s.length; j += STEP) {
+                    segment = new Segment(s, j, Math.min(SEGMENT, s.length - j));
+                    if (segment.length >= GRAM && segment.score(grams) > 0) {
+                        queue.offer(segment);
+                    }
+                }
+            }
+        }
+        //贪心选择，价值过时的段重新计分后放回
+        Segment[] selected = new Segment[dictionarySize / GRAM + 1];
+        int count = 0;
+        int size = 0;
+        Segment next;
+        while (size < dictionarySize && (segment = queue.poll()) != null) {
+            long score = segment.score;
+            if (segment.score(grams) <= 0) {
+                continue;
+            } else if (segment.score < score && (next = queue.peek()) != null && next.score > segment.score) {
+                queue.offer(segment);
+                continue;
+            }
+            segment.clear(grams);
+            selected[count++] = segment;
+            size += segment.length;
+        }
+        //价值高的放在最后
+        byte[] result = new byte[Math.min(size, dictionarySize)];
+        int pos = result.length;
+        int length;
+        for (int i = 0; i < count && pos > 0; i++) {
+            length = Math.min(selected[i].length, pos);
+            pos -= length;
+            System.arraycopy(selected[i].data, selected[i].offset, result, pos, length);
+        }
+        return result;
+    }
+
+    /**
+     * 计算片段的键
+     *
+     * @param data   数据
+     * @param offset 偏移量
+     * @return 键
+     */
+    protected static long gram(final byte[] data, final int offset) {
+        long result = 0;
+        for (int i = 0; i < GRAM; i++) {
+            result = (result << 8) | (data[offset + i] & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * 候选段
+     */
+    protected static class Segment {
+        /**
+         * 数据
+         */
+        protected final byte[] data;
+        /**
+         * 偏移量
+         */
+        protected final int offset;
+        /**
+         * 长度
+         */
+        protected final int length;
+        /**
+         * 价值
+         */
+        protected long score;
+
+        public Segment(final byte[] data, final int offset, final int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * 计算价值，只在多个样本中出现的片段才有价值
+         *
+         * @param grams 片段统计
+         * @return 价值
+         */
+        protected long score(final Map<Long, int[]> grams) {
+            long result = 0;
+            int[] stat;
+            for (int i = offset; i + GRAM <= offset + length; i++) {
+                stat = grams.get(gram(data, i));
+                if (stat != null && stat[0] > 1) {
+                    result += stat[0];
+                }
+            }
+            score = result;
+            return result;
+        }
+
+        /**
+         * 选中以后，段中的片段不再计分
+         *
+         * @param grams 片段统计
+         */
+        protected void clear(final Map<Long, int[]> grams) {
+            int[] stat;
+            for (int i = offset; i + GRAM <= offset + length; i++) {
+                stat = grams.get(gram(data, i));
+                if (stat != null) {
+                    stat[0] = 0;
+                }
+            }
+        }
+    }
+}
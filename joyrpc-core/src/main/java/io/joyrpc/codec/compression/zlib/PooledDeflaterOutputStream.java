@@ -0,0 +1,105 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.compression.Finishable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 使用对象池中压缩器的压缩流，完成的时候归还压缩器
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream implements Finishable {
+
+    /**
+     * 是否不带zlib头
+     */
+    protected final boolean nowrap;
+    /**
+     * 是否完成
+     */
+    protected boolean finished;
+    /**
+     * 是否关闭
+     */
+    protected boolean closed;
+
+    /**
+     * 构造函数
+     *
+     * @param out        输出流
+     * @param nowrap     是否不带zlib头
+     * @param dictionary 预置字典
+     */
+    public PooledDeflaterOutputStream(final OutputStream out, final boolean nowrap, final byte[] dictionary) {
+        super(out, ZlibPool.deflater(nowrap));
+        this.nowrap = nowrap;
+        if (dictionary != null && dictionary.length > 0) {
+            def.setDictionary(dictionary);
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        super.write(b, off, len);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            try {
+                super.finish();
+                onFinish();
+            } finally {
+                ZlibPool.release(def, nowrap);
+            }
+        }
+    }
+
+    /**
+     * 压缩数据输出完毕，可以追加尾部
+     *
+     * @throws IOException
+     */
+    protected void onFinish() throws IOException {
+
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                finish();
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
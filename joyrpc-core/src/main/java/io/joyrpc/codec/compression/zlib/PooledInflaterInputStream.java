@@ -0,0 +1,165 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * 使用对象池中解压器的解压流，读到结尾或者关闭的时候归还解压器。<br/>
+ * 数据需要预置字典的时候，按照数据中的字典标识到字典注册表中查找。
+ */
+public class PooledInflaterInputStream extends InflaterInputStream {
+
+    /**
+     * 是否不带zlib头
+     */
+    protected final boolean nowrap;
+    /**
+     * 是否读到结尾
+     */
+    protected boolean eof;
+    /**
+     * 是否关闭
+     */
+    protected boolean closed;
+    /**
+     * 是否已经归还解压器
+     */
+    protected boolean released;
+
+    /**
+     * 构造函数
+     *
+     * @param in     输入流
+     * @param nowrap 是否不带zlib头
+     */
+    public PooledInflaterInputStream(final InputStream in, final boolean nowrap) {
+        super(in, ZlibPool.inflater(nowrap));
+        this.nowrap = nowrap;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        } else if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || length < 0 || length > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (length == 0) {
+            return 0;
+        } else if (eof) {
+            return -1;
+        }
+        try {
+            int n;
+            while ((n = inf.inflate(b, off, length)) == 0) {
+                if (inf.finished()) {
+                    finish();
+                    return -1;
+                } else if (inf.needsDictionary()) {
+                    ZlibDictionary dictionary = ZlibDictionary.get(inf.getAdler());
+                    if (dictionary == null) {
+                        throw new ZipException(String.format("dictionary %d is not found.", inf.getAdler()));
+                    }
+                    inf.setDictionary(dictionary.getData());
+                } else if (inf.needsInput()) {
+                    fill();
+                }
+            }
+            onRead(b, off, n);
+            if (inf.finished()) {
+                finish();
+            }
+            return n;
+        } catch (DataFormatException e) {
+            String s = e.getMessage();
+            throw new ZipException(s != null ? s : "Invalid ZLIB data format");
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return eof ? 0 : 1;
+    }
+
+    /**
+     * 读取到了解压数据
+     *
+     * @param b   数据
+     * @param off 偏移量
+     * @param n   长度
+     */
+    protected void onRead(final byte[] b, final int off, final int n) {
+
+    }
+
+    /**
+     * 解压结束，可以读取尾部
+     *
+     * @throws IOException
+     */
+    protected void onFinish() throws IOException {
+
+    }
+
+    /**
+     * 读取结束
+     *
+     * @throws IOException
+     */
+    protected void finish() throws IOException {
+        eof = true;
+        try {
+            onFinish();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 归还解压器
+     */
+    protected void release() {
+        if (!released) {
+            released = true;
+            ZlibPool.release(inf, nowrap);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            release();
+            in.close();
+        }
+    }
+}
@@ -21,16 +21,13 @@ package io.joyrpc.codec.compression.zlib;
  */
 
 import io.joyrpc.codec.compression.Compression;
-import io.joyrpc.codec.compression.Finishable;
 import io.joyrpc.extension.Extension;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 /**
- * Zlib压缩算法
+ * Zlib压缩算法，压缩器和解压器从线程级的对象池中获取，支持预置字典
  */
 @Extension(value = "zlib", provider = "java", order = Compression.ZLIB_ORDER)
 public class ZlibCompression implements Compression {
@@ -47,21 +44,21 @@ public class ZlibCompression implements Compression {
 
     @Override
     public OutputStream compress(final OutputStream out) {
-        return new MyDeflaterOutputStream(out);
+        return new PooledDeflaterOutputStream(out, false, null);
     }
 
     @Override
-    public InputStream decompress(final InputStream input) {
-        return new InflaterInputStream(input);
+    public OutputStream compress(final OutputStream out, final byte[] dictionary) {
+        return new PooledDeflaterOutputStream(out, false, dictionary);
     }
 
-    /**
-     * 压缩
-     */
-    protected static class MyDeflaterOutputStream extends DeflaterOutputStream implements Finishable {
+    @Override
+    public boolean isDictionary() {
+        return true;
+    }
 
-        public MyDeflaterOutputStream(OutputStream out) {
-            super(out);
-        }
+    @Override
+    public InputStream decompress(final InputStream input) {
+        return new PooledInflaterInputStream(input, false);
     }
 }
@@ -0,0 +1,149 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Adler32;
+
+/**
+ * zlib预置字典，字典标识就是字典的Adler32校验和，和zlib数据头里面的字典标识一致，解压的时候可以直接查找。<br/>
+ * 服务端按照接口采样应答数据训练字典，协商或心跳的时候下发给客户端，双方都注册到这里。<br/>
+ * 不同的字典可能有相同的Adler32校验和，注册的时候拒绝冲突的字典，避免用错误的字典解压。
+ */
+public class ZlibDictionary {
+
+    /**
+     * 字典最大长度，超过zlib的窗口大小没有意义
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+    /**
+     * 注册的字典
+     */
+    protected static final Map<Integer, ZlibDictionary> DICTIONARIES = new ConcurrentHashMap<>();
+    /**
+     * 按照接口训练好的字典
+     */
+    protected static final Map<String, ZlibDictionary> TRAINED = new ConcurrentHashMap<>();
+    /**
+     * 按照接口的训练器
+     */
+    protected static final Map<String, DictionaryTrainer> TRAINERS = new ConcurrentHashMap<>();
+
+    /**
+     * 字典标识
+     */
+    protected final int id;
+    /**
+     * 字典数据
+     */
+    protected final byte[] data;
+
+    /**
+     * 构造函数
+     *
+     * @param data 字典数据
+     */
+    protected ZlibDictionary(final byte[] data) {
+        this.id = getId(data);
+        this.data = data;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * 计算字典标识
+     *
+     * @param data 字典数据
+     * @return 字典标识
+     */
+    public static int getId(final byte[] data) {
+        Adler32 adler32 = new Adler32();
+        adler32.update(data, 0, data.length);
+        return (int) adler32.getValue();
+    }
+
+    /**
+     * 注册字典，相同的字典已经存在则返回已有的字典
+     *
+     * @param data 字典数据
+     * @return 字典，数据不合法或者和已有的不同字典标识冲突返回null
+     */
+    public static ZlibDictionary register(final byte[] data) {
+        if (data == null || data.length == 0 || data.length > MAX_SIZE) {
+            return null;
+        }
+        ZlibDictionary dictionary = new ZlibDictionary(data);
+        ZlibDictionary exists = DICTIONARIES.putIfAbsent(dictionary.id, dictionary);
+        if (exists == null) {
+            return dictionary;
+        }
+        return Arrays.equals(exists.data, data) ? exists : null;
+    }
+
+    /**
+     * 根据标识获取字典
+     *
+     * @param id 标识
+     * @return 字典
+     */
+    public static ZlibDictionary get(final int id) {
+        return DICTIONARIES.get(id);
+    }
+
+    /**
+     * 获取接口训练好的字典
+     *
+     * @param name 接口名称
+     * @return 字典，还没有训练好返回null
+     */
+    public static ZlibDictionary getTrained(final String name) {
+        return name == null ? null : TRAINED.get(name);
+    }
+
+    /**
+     * 获取接口的训练器，已经训练好则返回null
+     *
+     * @param name 接口名称
+     * @return 训练器
+     */
+    public static DictionaryTrainer getTrainer(final String name) {
+        if (name == null || TRAINED.containsKey(name)) {
+            return null;
+        }
+        return TRAINERS.computeIfAbsent(name, n -> new DictionaryTrainer(n, data -> {
+            ZlibDictionary dictionary = register(data);
+            if (dictionary != null) {
+                TRAINED.putIfAbsent(n, dictionary);
+            }
+            TRAINERS.remove(n);
+        }));
+    }
+}
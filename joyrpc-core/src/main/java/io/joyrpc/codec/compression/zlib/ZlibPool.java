@@ -0,0 +1,121 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 线程级的Deflater和Inflater对象池，避免每个消息都申请和释放本地内存
+ */
+public class ZlibPool {
+
+    /**
+     * 每个线程每种对象最多缓存的数量
+     */
+    protected static final int MAX_SIZE = 4;
+
+    protected static final ThreadLocal<ZlibPool> POOLS = ThreadLocal.withInitial(ZlibPool::new);
+
+    /**
+     * 带zlib头的压缩器
+     */
+    protected final ArrayDeque<Deflater> deflaters = new ArrayDeque<>(MAX_SIZE);
+    /**
+     * 不带头的压缩器，用于gzip
+     */
+    protected final ArrayDeque<Deflater> rawDeflaters = new ArrayDeque<>(MAX_SIZE);
+    /**
+     * 带zlib头的解压器
+     */
+    protected final ArrayDeque<Inflater> inflaters = new ArrayDeque<>(MAX_SIZE);
+    /**
+     * 不带头的解压器，用于gzip
+     */
+    protected final ArrayDeque<Inflater> rawInflaters = new ArrayDeque<>(MAX_SIZE);
+
+    /**
+     * 获取压缩器
+     *
+     * @param nowrap 是否不带zlib头
+     * @return 压缩器
+     */
+    public static Deflater deflater(final boolean nowrap) {
+        ZlibPool pool = POOLS.get();
+        Deflater result = nowrap ? pool.rawDeflaters.pollLast() : pool.deflaters.pollLast();
+        return result != null ? result : new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+
+    /**
+     * 归还压缩器，重置后放回当前线程的对象池，池满了则释放本地内存
+     *
+     * @param deflater 压缩器
+     * @param nowrap   是否不带zlib头
+     */
+    public static void release(final Deflater deflater, final boolean nowrap) {
+        if (deflater == null) {
+            return;
+        }
+        ZlibPool pool = POOLS.get();
+        ArrayDeque<Deflater> deque = nowrap ? pool.rawDeflaters : pool.deflaters;
+        if (deque.size() < MAX_SIZE) {
+            deflater.reset();
+            deque.offerLast(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 获取解压器
+     *
+     * @param nowrap 是否不带zlib头
+     * @return 解压器
+     */
+    public static Inflater inflater(final boolean nowrap) {
+        ZlibPool pool = POOLS.get();
+        Inflater result = nowrap ? pool.rawInflaters.pollLast() : pool.inflaters.pollLast();
+        return result != null ? result : new Inflater(nowrap);
+    }
+
+    /**
+     * 归还解压器，重置后放回当前线程的对象池，池满了则释放本地内存
+     *
+     * @param inflater 解压器
+     * @param nowrap   是否不带zlib头
+     */
+    public static void release(final Inflater inflater, final boolean nowrap) {
+        if (inflater == null) {
+            return;
+        }
+        ZlibPool pool = POOLS.get();
+        ArrayDeque<Inflater> deque = nowrap ? pool.rawInflaters : pool.inflaters;
+        if (deque.size() < MAX_SIZE) {
+            inflater.reset();
+            deque.offerLast(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -55,12 +55,7 @@ public abstract class AbstractSerializer implements Serializer {
         ObjectWriter output = null;
         try {
             output = createWriter(os, object);
-            if (object instanceof Codec) {
-                ((Codec) object).encode(output);
-            } else {
-                output.writeObject(object);
-            }
-            output.flush();
+            write(output, object);
         } catch (IOException e) {
             throw new SerializerException("Error occurred while serializing class " + object.getClass().getName(), e);
         } finally {
@@ -77,17 +72,44 @@ public abstract class AbstractSerializer implements Serializer {
         }
         try {
             Class<T> clazz = (Class<T>) type;
-            ObjectReader input = createReader(is, clazz);
-            if (Codec.class.isAssignableFrom(clazz)) {
-                Codec codec = (Codec) ClassUtils.newInstance(clazz);
-                codec.decode(input);
-                return (T) codec;
-            }
-            return input.readObject(clazz);
+            return read(createReader(is, clazz), clazz);
         } catch (Exception e) {
             throw new SerializerException("Error occurred while deserializing class " + type, e);
         }
     }
+
+    /**
+     * 写对象
+     *
+     * @param output 数据写对象
+     * @param object 对象
+     * @throws IOException
+     */
+    protected void write(final ObjectWriter output, final Object object) throws IOException {
+        if (object instanceof Codec) {
+            ((Codec) object).encode(output);
+        } else {
+            output.writeObject(object);
+        }
+        output.flush();
+    }
+
+    /**
+     * 读对象
+     *
+     * @param input 数据读对象
+     * @param clazz 类型
+     * @return 对象
+     * @throws Exception
+     */
+    protected <T> T read(final ObjectReader input, final Class<T> clazz) throws Exception {
+        if (Codec.class.isAssignableFrom(clazz)) {
+            Codec codec = (Codec) ClassUtils.newInstance(clazz);
+            codec.decode(input);
+            return (T) codec;
+        }
+        return input.readObject(clazz);
+    }
 }
 
 
@@ -0,0 +1,356 @@
+package io.joyrpc.codec.serialization.generic;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.ReflectionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static io.joyrpc.util.ClassUtils.*;
+
+/**
+ * POJO转换器，按类型构建一次，缓存属性的读写句柄，避免泛化调用每次反射遍历字段
+ */
+public class PojoConverter {
+
+    protected static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * 读取句柄的类型
+     */
+    protected static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * 写入句柄的类型
+     */
+    protected static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 类型
+     */
+    protected final Class<?> type;
+    /**
+     * 标准化的读取器，getter优先，其次是公共字段
+     */
+    protected final Reader[] readers;
+    /**
+     * 反序列化的写入器，setter优先，其次是非final字段
+     */
+    protected final Map<String, Writer> writers;
+    /**
+     * 属性的类型不会引用回自身，不需要进行循环引用跟踪
+     */
+    protected final boolean acyclic;
+
+    /**
+     * 构造函数
+     *
+     * @param type  类型
+     * @param basic 基本类型断言
+     */
+    public PojoConverter(final Class<?> type, final Predicate<Class> basic) {
+        this.type = type;
+        this.readers = buildReaders(type);
+        this.writers = buildWriters(type);
+        this.acyclic = isAcyclic(type, basic, new HashSet<>());
+    }
+
+    /**
+     * 构建读取器，和原有反射遍历的顺序及规则保持一致
+     *
+     * @param type 类型
+     * @return 读取器
+     */
+    protected static Reader[] buildReaders(final Class<?> type) {
+        List<Reader> result = new ArrayList<>();
+        Map<String, Method> getters = getGetter(type);
+        for (Map.Entry<String, Method> entry : getters.entrySet()) {
+            result.add(new Reader(entry.getKey(), reader(entry.getValue()), false));
+        }
+        int modifiers;
+        Set<String> names = new HashSet<>(getters.keySet());
+        for (Field field : getFields(type)) {
+            modifiers = field.getModifiers();
+            if (Modifier.isPublic(modifiers)
+                    && !Modifier.isStatic(modifiers)
+                    && !Modifier.isFinal(modifiers) && !field.isSynthetic()
+                    && !Modifier.isTransient(modifiers)
+                    && names.add(field.getName())) {
+                result.add(new Reader(field.getName(), reader(field), true));
+            }
+        }
+        return result.toArray(new Reader[0]);
+    }
+
+    /**
+     * 构建写入器，静态字段不能被写入
+     *
+     * @param type 类型
+     * @return 写入器
+     */
+    protected static Map<String, Writer> buildWriters(final Class<?> type) {
+        Map<String, Field> fields = getFieldNames(type);
+        Map<String, Method> setters = getSetter(type);
+        Map<String, Writer> result = new HashMap<>(fields.size() * 4 / 3 + 1);
+        Field field;
+        Method setter;
+        for (String name : fields.keySet()) {
+            field = getField(type, name);
+            setter = setters.get(name);
+            try {
+                if (setter != null) {
+                    result.put(name, new Writer(setter.getParameterTypes()[0], setter.getGenericParameterTypes()[0], writer(setter)));
+                } else if (!Modifier.isFinal(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())) {
+                    result.put(name, new Writer(field.getType(), field.getGenericType(), writer(field)));
+                }
+            } catch (ReflectionException e) {
+                //无法访问的属性不能写入
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断类型的对象图是否无环。属性类型是基本类型，或者是final的无环POJO，则该类型无环。
+     * 非final的属性类型在运行时可能是子类，无法静态判断。
+     *
+     * @param type  类型
+     * @param basic 基本类型断言
+     * @param path  当前检查路径
+     * @return 无环标识
+     */
+    protected static boolean isAcyclic(final Class<?> type, final Predicate<Class> basic, final Set<Class<?>> path) {
+        if (!isPojo(type) || !path.add(type)) {
+            return false;
+        }
+        List<Class<?>> types = new LinkedList<>();
+        getGetter(type).values().forEach(o -> types.add(o.getReturnType()));
+        getSetter(type).values().forEach(o -> types.add(o.getParameterTypes()[0]));
+        getFields(type).forEach(o -> {
+            if (!Modifier.isStatic(o.getModifiers())) {
+                types.add(o.getType());
+            }
+        });
+        for (Class<?> t : types) {
+            if (!isLeaf(t, basic) && !(Modifier.isFinal(t.getModifiers()) && isAcyclic(t, basic, path))) {
+                return false;
+            }
+        }
+        path.remove(type);
+        return true;
+    }
+
+    /**
+     * 是否是叶子类型，叶子类型及其子类在标准化和反序列化的时候都不会引用其它对象
+     *
+     * @param type  类型
+     * @param basic 基本类型断言
+     * @return 叶子类型标识
+     */
+    protected static boolean isLeaf(final Class<?> type, final Predicate<Class> basic) {
+        //常量有方法体的枚举不是final的，运行时类型不是枚举
+        return isPrimitive(type, basic) || type == Class.class || (type.isEnum() && Modifier.isFinal(type.getModifiers()));
+    }
+
+    /**
+     * 是否是普通对象
+     *
+     * @param type 类型
+     * @return 普通对象标识
+     */
+    protected static boolean isPojo(final Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isInterface() && type != Object.class
+                && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type);
+    }
+
+    /**
+     * 构建读取句柄
+     *
+     * @param member 方法或字段
+     * @return 句柄
+     */
+    protected static MethodHandle reader(final AccessibleObject member) {
+        try {
+            return (member instanceof Method ? LOOKUP.unreflect(accessible(member, (Method) member))
+                    : LOOKUP.unreflectGetter(accessible(member, (Field) member))).asType(READER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 构建写入句柄
+     *
+     * @param member 方法或字段
+     * @return 句柄
+     */
+    protected static MethodHandle writer(final AccessibleObject member) {
+        try {
+            return (member instanceof Method ? LOOKUP.unreflect(accessible(member, (Method) member))
+                    : LOOKUP.unreflectSetter(accessible(member, (Field) member))).asType(WRITER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 设置可以访问，类不是公共的时候其公共方法也不能通过句柄访问
+     *
+     * @param member 成员
+     * @param result 返回值
+     * @param <T>    成员类型
+     * @return 成员
+     */
+    protected static <T> T accessible(final AccessibleObject member, final T result) {
+        if (!member.isAccessible()) {
+            try {
+                member.setAccessible(true);
+            } catch (RuntimeException e) {
+                //高版本JDK的模块不开放，按照原有的访问权限处理
+            }
+        }
+        return result;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Reader[] getReaders() {
+        return readers;
+    }
+
+    /**
+     * 获取写入器
+     *
+     * @param name 属性名
+     * @return 写入器
+     */
+    public Writer getWriter(final String name) {
+        return writers.get(name);
+    }
+
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+
+    /**
+     * 属性读取器
+     */
+    public static class Reader {
+        /**
+         * 属性名
+         */
+        protected final String name;
+        /**
+         * 读取句柄
+         */
+        protected final MethodHandle handle;
+        /**
+         * 公共字段为空的时候不输出
+         */
+        protected final boolean skipNull;
+
+        public Reader(final String name, final MethodHandle handle, final boolean skipNull) {
+            this.name = name;
+            this.handle = handle;
+            this.skipNull = skipNull;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isSkipNull() {
+            return skipNull;
+        }
+
+        /**
+         * 读取属性
+         *
+         * @param target 目标对象
+         * @return 属性值
+         * @throws ReflectionException
+         */
+        public Object get(final Object target) throws ReflectionException {
+            try {
+                return (Object) handle.invokeExact(target);
+            } catch (Throwable e) {
+                throw new ReflectionException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 属性写入器
+     */
+    public static class Writer {
+        /**
+         * 类型
+         */
+        protected final Class<?> type;
+        /**
+         * 泛型
+         */
+        protected final Type genericType;
+        /**
+         * 写入句柄
+         */
+        protected final MethodHandle handle;
+
+        public Writer(final Class<?> type, final Type genericType, final MethodHandle handle) {
+            this.type = type;
+            this.genericType = genericType;
+            this.handle = handle;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        /**
+         * 写入属性
+         *
+         * @param target 目标对象
+         * @param value  属性值
+         * @throws ReflectionException
+         */
+        public void set(final Object target, final Object value) throws ReflectionException {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new ReflectionException(e.getMessage(), e);
+            }
+        }
+    }
+}
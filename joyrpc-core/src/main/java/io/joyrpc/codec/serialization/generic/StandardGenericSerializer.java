@@ -68,6 +68,11 @@ public class StandardGenericSerializer implements GenericSerializer {
     };
     public static final String CLASS = "class";
 
+    /**
+     * 类型转换器缓存
+     */
+    protected final Map<Class<?>, PojoConverter> converters = new ConcurrentHashMap<>();
+
     @Override
     public Object serialize(final Object object) throws CodecException {
         try {
@@ -122,17 +127,18 @@ public class StandardGenericSerializer implements GenericSerializer {
      * @return
      */
     protected Object normalize(final Object pojo) throws Exception {
-        return normalize(pojo, new IdentityHashMap<>());
+        //历史记录延迟创建，无环对象不需要
+        return normalize(pojo, null);
     }
 
     /**
      * 标准化
      *
      * @param pojo
-     * @param history
+     * @param history 历史记录，为空则按需创建
      * @return
      */
-    protected Object normalize(final Object pojo, final Map<Object, Object> history) throws Exception {
+    protected Object normalize(final Object pojo, Map<Object, Object> history) throws Exception {
         if (pojo == null) {
             return null;
         }
@@ -147,6 +153,15 @@ public class StandardGenericSerializer implements GenericSerializer {
         } else if (pojo instanceof Class) {
             return ((Class) pojo).getName();
         }
+        boolean isPojo = !pojoClass.isArray() && !(pojo instanceof Collection<?>) && !(pojo instanceof Map<?, ?>);
+        PojoConverter converter = isPojo ? getConverter(pojoClass) : null;
+        if (converter != null && converter.isAcyclic()) {
+            //无环对象不跟踪引用
+            return normalizePojo(pojo, converter, history);
+        }
+        if (history == null) {
+            history = new IdentityHashMap<>();
+        }
         Object o = history.get(pojo);
         if (o != null) {
             return o;
@@ -160,39 +175,50 @@ public class StandardGenericSerializer implements GenericSerializer {
         } else if (pojo instanceof Map<?, ?>) {
             return normalizeMap((Map<?, ?>) pojo, history);
         } else {
-            return normalizePojo(pojo, history);
+            return normalizePojo(pojo, converter, history);
+        }
+    }
+
+    /**
+     * 获取类型转换器
+     *
+     * @param type 类型
+     * @return 类型转换器
+     */
+    protected PojoConverter getConverter(final Class<?> type) {
+        PojoConverter result = converters.get(type);
+        if (result == null) {
+            //不在computeIfAbsent中构建，构建过程会加载其它类的元数据
+            result = new PojoConverter(type, PRIMITIVE);
+            PojoConverter exists = converters.putIfAbsent(type, result);
+            if (exists != null) {
+                result = exists;
+            }
         }
+        return result;
     }
 
     /**
      * 标准化POJO
      *
      * @param pojo
-     * @param history
+     * @param converter 类型转换器
+     * @param history   历史记录，无环对象为空
      * @return
      */
-    protected Object normalizePojo(final Object pojo, final Map<Object, Object> history) throws Exception {
-        Class<?> pojoClass = pojo.getClass();
-        Map<String, Object> result = new HashMap<>();
-        history.put(pojo, result);
-        result.put(CLASS, pojoClass.getName());
-        //读方法 //TODO 可能因 get方法new出新对象，无限循环
-        for (Map.Entry<String, Method> entry : getGetter(pojoClass).entrySet()) {
-            result.put(entry.getKey(), normalize(entry.getValue().invoke(pojo), history));
-        }
-        int modifiers;
-        //公共字段
-        for (Field field : getFields(pojoClass)) {
-            modifiers = field.getModifiers();
-            if (Modifier.isPublic(modifiers)
-                    && !Modifier.isStatic(modifiers)
-                    && !Modifier.isFinal(modifiers) && !field.isSynthetic()
-                    && !Modifier.isTransient(modifiers)
-                    && !result.containsKey(field.getName())) {
-                Object fieldValue = field.get(pojo);
-                if (fieldValue != null) {
-                    result.putIfAbsent(field.getName(), normalize(fieldValue, history));
-                }
+    protected Object normalizePojo(final Object pojo, final PojoConverter converter, final Map<Object, Object> history) throws Exception {
+        PojoConverter.Reader[] readers = converter.getReaders();
+        Map<String, Object> result = new HashMap<>((readers.length + 1) * 4 / 3 + 1);
+        if (!converter.isAcyclic()) {
+            history.put(pojo, result);
+        }
+        result.put(CLASS, converter.getType().getName());
+        //读方法优先，其次是公共字段 //TODO 可能因 get方法new出新对象，无限循环
+        Object value;
+        for (PojoConverter.Reader reader : readers) {
+            value = reader.get(pojo);
+            if (value != null || !reader.isSkipNull()) {
+                result.put(reader.getName(), normalize(value, history));
             }
         }
         return result;
@@ -396,6 +422,12 @@ public class StandardGenericSerializer implements GenericSerializer {
             return ClassUtils.getClass((String) pojo);
         }
 
+        if (Map.class.isAssignableFrom(clazz) && type != null) {
+            //在确定目标类型后再跟踪引用
+            return realizeMap((Map<?, ?>) pojo, type, genericType, history);
+        } else if (!clazz.isArray() && !Collection.class.isAssignableFrom(clazz)) {
+            return pojo;
+        }
         Object o = history.get(pojo);
         if (o != null) {
             return o;
@@ -403,12 +435,24 @@ public class StandardGenericSerializer implements GenericSerializer {
         history.put(pojo, pojo);
         if (clazz.isArray()) {
             return realizeArray(pojo, type, genericType, history);
-        } else if (Collection.class.isAssignableFrom(clazz)) {
+        } else {
             return realizeCollection((Collection<?>) pojo, type, genericType, history);
-        } else if (Map.class.isAssignableFrom(clazz) && type != null) {
-            return realizeMap((Map<?, ?>) pojo, type, genericType, history);
         }
-        return pojo;
+    }
+
+    /**
+     * 跟踪引用，返回已经反序列化的对象
+     *
+     * @param pojo    原始对象
+     * @param history 历史记录
+     * @return 已经反序列化的对象
+     */
+    protected Object track(final Object pojo, final Map<Object, Object> history) {
+        Object o = history.get(pojo);
+        if (o == null) {
+            history.put(pojo, pojo);
+        }
+        return o;
     }
 
     /**
@@ -432,6 +476,15 @@ public class StandardGenericSerializer implements GenericSerializer {
             }
         }
 
+        //目标类型无环则不需要跟踪引用
+        PojoConverter converter = Map.class.isAssignableFrom(type) || type == Object.class || type.isInterface() || type.isEnum()
+                ? null : getConverter(type);
+        if (converter == null || !converter.isAcyclic()) {
+            Object o = track(pojo, history);
+            if (o != null) {
+                return o;
+            }
+        }
         if (Map.class.isAssignableFrom(type) || type == Object.class) {
             return realizeMap2Map(pojo, type, genericType, history);
         } else if (type.isInterface()) {
@@ -441,8 +494,9 @@ public class StandardGenericSerializer implements GenericSerializer {
             if (name != null) {
                 return Enum.valueOf((Class<Enum>) type, name.toString());
             }
+            converter = getConverter(type);
         }
-        return realizeMap2Pojo(pojo, type, history);
+        return realizeMap2Pojo(pojo, converter, history);
     }
 
     /**
@@ -464,24 +518,25 @@ public class StandardGenericSerializer implements GenericSerializer {
      * 反序列化，Map到POJO
      *
      * @param pojo
-     * @param type
+     * @param converter 目标类型转换器
      * @param history
      * @return
      */
-    protected Object realizeMap2Pojo(final Map<?, ?> pojo, final Class<?> type, final Map<Object, Object> history) throws Exception {
-        Object result = newInstance(type);
-        history.put(pojo, result);
+    protected Object realizeMap2Pojo(final Map<?, ?> pojo, final PojoConverter converter, final Map<Object, Object> history) throws Exception {
+        Object result = newInstance(converter.getType());
+        if (result == null) {
+            return null;
+        }
+        if (!converter.isAcyclic()) {
+            history.put(pojo, result);
+        }
+        PojoConverter.Writer writer;
         for (Map.Entry<?, ?> entry : pojo.entrySet()) {
             if (entry.getKey() instanceof String && entry.getValue() != null) {
-                setValue(result.getClass(), (String) entry.getKey(), result, (c, t) -> {
-                    try {
-                        return realize(entry.getValue(), c, t, history);
-                    } catch (CodecException e) {
-                        throw e;
-                    } catch (Exception e) {
-                        throw new CodecException(e.getMessage(), e);
-                    }
-                });
+                writer = converter.getWriter((String) entry.getKey());
+                if (writer != null) {
+                    writer.set(result, realize(entry.getValue(), writer.getType(), writer.getGenericType(), history));
+                }
             }
         }
         //异常信息
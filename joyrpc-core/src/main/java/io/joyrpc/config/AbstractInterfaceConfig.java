@@ -140,6 +140,10 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
      * cache过期时间
      */
     protected Long cacheExpireTime;
+    /**
+     * cache过期后返回旧值并后台刷新的时间
+     */
+    protected Long cacheStaleTime;
     /**
      * cache最大容量
      */
@@ -186,6 +190,7 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheKeyGenerator = config.cacheKeyGenerator;
         this.cache = config.cache;
         this.cacheExpireTime = config.cacheExpireTime;
+        this.cacheStaleTime = config.cacheStaleTime;
         this.cacheCapacity = config.cacheCapacity;
         this.cacheNullable = config.cacheNullable;
         this.name = config.name;
@@ -421,6 +426,14 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheExpireTime = cacheExpireTime;
     }
 
+    public Long getCacheStaleTime() {
+        return cacheStaleTime;
+    }
+
+    public void setCacheStaleTime(Long cacheStaleTime) {
+        this.cacheStaleTime = cacheStaleTime;
+    }
+
     public Integer getCacheCapacity() {
         return cacheCapacity;
     }
@@ -582,6 +595,7 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         addElement2Map(params, Constants.CONCURRENCY_OPTION, concurrency);
         addElement2Map(params, Constants.CACHE_OPTION, cache);
         addElement2Map(params, Constants.CACHE_EXPIRE_TIME_OPTION, cacheExpireTime);
+        addElement2Map(params, Constants.CACHE_STALE_TIME_OPTION, cacheStaleTime);
         addElement2Map(params, Constants.CACHE_PROVIDER_OPTION, cacheProvider);
         addElement2Map(params, Constants.CACHE_KEY_GENERATOR_OPTION, cacheKeyGenerator);
         addElement2Map(params, Constants.CACHE_CAPACITY_OPTION, cacheCapacity);
@@ -99,6 +99,10 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
      * 缓存过期时间
      */
     protected int cacheExpireTime;
+    /**
+     * 缓存过期后返回旧值并后台刷新的时间
+     */
+    protected int cacheStaleTime;
     /**
      * 缓存键生成器
      */
@@ -180,6 +184,7 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
         this.cacheNullable = url.getBoolean(CACHE_NULLABLE_OPTION);
         this.cacheCapacity = url.getInteger(CACHE_CAPACITY_OPTION);
         this.cacheExpireTime = url.getInteger(CACHE_EXPIRE_TIME_OPTION);
+        this.cacheStaleTime = url.getInteger(CACHE_STALE_TIME_OPTION);
         this.cacheKeyGenerator = url.getString(CACHE_KEY_GENERATOR_OPTION);
         this.cacheProvider = url.getString(CACHE_PROVIDER_OPTION);
         this.cacheFactory = CACHE.get(cacheProvider);
@@ -334,15 +339,17 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
                     gen.setParametric(parametric);
                     gen.setup();
                 }
+                int expireTime = parametric.getInteger(CACHE_EXPIRE_TIME_OPTION.getName(), cacheExpireTime);
+                int staleTime = expireTime <= 0 ? -1 : parametric.getInteger(CACHE_STALE_TIME_OPTION.getName(), cacheStaleTime);
                 //判断是否缓存空值
-                //创建缓存
+                //创建缓存，返回旧值的时候缓存要多保留一段时间，由过滤器判断逻辑过期
                 CacheConfig<Object, Object> cacheConfig = CacheConfig.builder().
                         nullable(parametric.getBoolean(CACHE_NULLABLE_OPTION.getName(), cacheNullable)).
                         capacity(parametric.getInteger(CACHE_CAPACITY_OPTION.getName(), cacheCapacity)).
-                        expireAfterWrite(parametric.getInteger(CACHE_EXPIRE_TIME_OPTION.getName(), cacheExpireTime)).
+                        expireAfterWrite(staleTime > 0 ? expireTime + staleTime : expireTime).
                         build();
                 Cache<Object, Object> cache = cacheFactory.build(parametric.getName(), cacheConfig);
-                cachePolicy = new CachePolicy(cache, generator);
+                cachePolicy = new CachePolicy(cache, generator, expireTime, staleTime);
             }
         }
         return cachePolicy;
@@ -20,6 +20,7 @@ package io.joyrpc.config;
  * #L%
  */
 
+import io.joyrpc.Result;
 import io.joyrpc.cache.Cache;
 import io.joyrpc.cache.CacheKeyGenerator;
 import io.joyrpc.cluster.Shard;
@@ -33,11 +34,22 @@ import io.joyrpc.permission.BlackWhiteList;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.thread.Bulkhead;
 
 import javax.validation.Validator;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiPredicate;
 
 /**
@@ -60,6 +72,15 @@ public interface InterfaceOption {
      */
     boolean isCallback();
 
+    /**
+     * 获取服务端隔离舱
+     *
+     * @return 隔离舱
+     */
+    default List<Bulkhead> getBulkheads() {
+        return Collections.emptyList();
+    }
+
     /**
      * 关闭，释放资源，例如移除监听器
      */
@@ -224,6 +245,13 @@ public interface InterfaceOption {
          */
         MethodCaller getCaller();
 
+        /**
+         * 获取隔离舱
+         *
+         * @return 隔离舱，没有启用返回null
+         */
+        Bulkhead getBulkhead();
+
     }
 
     /**
@@ -240,15 +268,54 @@ public interface InterfaceOption {
          * 活动并发
          */
         protected AtomicLong actives = new AtomicLong();
+        /**
+         * 异步等待队列大小
+         */
+        protected int queues;
+        /**
+         * 异步等待队列，按照加入顺序排列，超时可以直接移除
+         */
+        protected LinkedHashSet<Waiter> waiters;
+        /**
+         * 异步等待数量
+         */
+        protected AtomicInteger waitings;
+        /**
+         * 派发请求数，不为0说明已经有线程在派发
+         */
+        protected AtomicInteger dispatches;
 
         public Concurrency(int max) {
+            this(max, 0);
+        }
+
+        public Concurrency(int max, int queues) {
             this.max = max;
+            this.queues = max <= 0 || queues <= 0 ? 0 : queues;
+            if (this.queues > 0) {
+                this.waiters = new LinkedHashSet<>();
+                this.waitings = new AtomicInteger();
+                this.dispatches = new AtomicInteger();
+            }
         }
 
         public int getMax() {
             return max;
         }
 
+        public int getQueues() {
+            return queues;
+        }
+
+        /**
+         * 当前异步等待数量
+         *
+         * @return 异步等待数量
+         */
+        public int getWaitings() {
+            return waitings == null ? 0 : waitings.get();
+        }
+
         /**
          * 当前并发数
          *
@@ -272,6 +339,129 @@ public interface InterfaceOption {
             actives.decrementAndGet();
         }
 
+        /**
+         * 在没有超出并发数的情况下增加
+         *
+         * @return 成功标识
+         */
+        public boolean tryAdd() {
+            long active;
+            while ((active = actives.get()) < max) {
+                if (actives.compareAndSet(active, active + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 加入异步等待队列，加入后会尝试派发
+         *
+         * @param waiter 等待者
+         * @return 成功标识，队列已满返回false
+         */
+        public boolean offer(final Waiter waiter) {
+            if (queues <= 0) {
+                return false;
+            } else if (waitings.incrementAndGet() > queues) {
+                waitings.decrementAndGet();
+                return false;
+            }
+            synchronized (waiters) {
+                waiters.add(waiter);
+            }
+            //防止在入队前并发已经释放，导致没有被唤醒
+            dispatch();
+            return true;
+        }
+
+        /**
+         * 从异步等待队列中移除
+         *
+         * @param waiter 等待者
+         * @return 成功标识
+         */
+        public boolean remove(final Waiter waiter) {
+            if (waiters == null) {
+                return false;
+            }
+            synchronized (waiters) {
+                if (!waiters.remove(waiter)) {
+                    return false;
+                }
+            }
+            waitings.decrementAndGet();
+            return true;
+        }
+
+        /**
+         * 从异步等待队列头部取出
+         *
+         * @return 等待者
+         */
+        protected Waiter poll() {
+            synchronized (waiters) {
+                Iterator<Waiter> iterator = waiters.iterator();
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                Waiter result = iterator.next();
+                iterator.remove();
+                return result;
+            }
+        }
+
+        /**
+         * 在当前线程按照先进先出的顺序把空闲的并发派发给异步等待者
+         */
+        public void dispatch() {
+            dispatch(null);
+        }
+
+        /**
+         * 按照先进先出的顺序把空闲的并发派发给异步等待者。<br/>
+         * 同一时刻只有一个线程在派发，等待者同步完成时再次触发的派发只增加派发请求数，由正在派发的线程循环处理，不会递归。
+         *
+         * @param executor 派发的执行器，为空则在当前线程派发
+         */
+        public void dispatch(final Executor executor) {
+            if (waitings == null || dispatches.getAndIncrement() != 0) {
+                return;
+            }
+            if (executor == null) {
+                drain();
+            } else {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    drain();
+                }
+            }
+        }
+
+        /**
+         * 循环派发，直到没有新的派发请求
+         */
+        protected void drain() {
+            int missed = 1;
+            Waiter waiter;
+            do {
+                while (waitings.get() > 0 && tryAdd()) {
+                    waiter = poll();
+                    if (waiter == null) {
+                        //并发的入队者会自己再派发
+                        actives.decrementAndGet();
+                        break;
+                    }
+                    waitings.decrementAndGet();
+                    if (!waiter.admit()) {
+                        //已经超时
+                        actives.decrementAndGet();
+                    }
+                }
+            } while ((missed = dispatches.addAndGet(-missed)) != 0);
+        }
+
         /**
          * 唤醒
          */
@@ -303,6 +493,19 @@ public interface InterfaceOption {
             }
         }
 
+        /**
+         * 异步等待者
+         */
+        public interface Waiter {
+
+            /**
+             * 获得并发许可，在调用该方法之前已经占用了并发数
+             *
+             * @return 成功标识，已经超时返回false
+             */
+            boolean admit();
+        }
+
     }
 
     /**
@@ -317,10 +520,44 @@ public interface InterfaceOption {
          * 缓存键生成器
          */
         protected final CacheKeyGenerator generator;
+        /**
+         * 过期时间（毫秒），启用旧值返回时由过滤器判断过期
+         */
+        protected final long expireTime;
+        /**
+         * 过期后仍然可以返回旧值的时间（毫秒），期间只有一个请求在后台刷新
+         */
+        protected final long staleTime;
+        /**
+         * 正在进行的远程调用，相同的缓存键共享一个调用
+         */
+        protected final Map<Object, CompletableFuture<Result>> flights = new ConcurrentHashMap<>();
+        /**
+         * 命中数
+         */
+        protected final LongAdder hits = new LongAdder();
+        /**
+         * 未命中数
+         */
+        protected final LongAdder misses = new LongAdder();
+        /**
+         * 合并到正在进行的调用的数量
+         */
+        protected final LongAdder coalesced = new LongAdder();
+        /**
+         * 后台刷新数
+         */
+        protected final LongAdder refreshes = new LongAdder();
 
         public CachePolicy(Cache<Object, Object> cache, CacheKeyGenerator generator) {
+            this(cache, generator, -1, -1);
+        }
+
+        public CachePolicy(Cache<Object, Object> cache, CacheKeyGenerator generator, long expireTime, long staleTime) {
             this.cache = cache;
             this.generator = generator;
+            this.expireTime = expireTime;
+            this.staleTime = expireTime > 0 ? staleTime : -1;
         }
 
         public Cache<Object, Object> getCache() {
@@ -330,6 +567,43 @@ public interface InterfaceOption {
         public CacheKeyGenerator getGenerator() {
             return generator;
         }
+
+        public long getExpireTime() {
+            return expireTime;
+        }
+
+        public long getStaleTime() {
+            return staleTime;
+        }
+
+        /**
+         * 是否启用过期后返回旧值并后台刷新
+         *
+         * @return 启用标识
+         */
+        public boolean isStale() {
+            return staleTime > 0;
+        }
+
+        public Map<Object, CompletableFuture<Result>> getFlights() {
+            return flights;
+        }
+
+        public LongAdder getHits() {
+            return hits;
+        }
+
+        public LongAdder getMisses() {
+            return misses;
+        }
+
+        public LongAdder getCoalesced() {
+            return coalesced;
+        }
+
+        public LongAdder getRefreshes() {
+            return refreshes;
+        }
     }
 
 }
@@ -89,6 +89,18 @@ public class MethodConfig extends AbstractConfig {
      * The concurrency. 最大并发执行（不管服务端还是客户端）
      */
     protected Integer concurrency;
+    /**
+     * 服务端方法隔离舱核心线程数，大于0启用
+     */
+    protected Integer bulkheadCoreSize;
+    /**
+     * 服务端方法隔离舱最大线程数
+     */
+    protected Integer bulkheadMaxSize;
+    /**
+     * 服务端方法隔离舱队列大小
+     */
+    protected Integer bulkheadQueues;
     /**
      * 结果缓存插件名称
      */
@@ -107,6 +119,10 @@ public class MethodConfig extends AbstractConfig {
      * cache过期时间
      */
     protected Long cacheExpireTime;
+    /**
+     * cache过期后返回旧值并后台刷新的时间
+     */
+    protected Long cacheStaleTime;
     /**
      * cache最大容量
      */
@@ -218,6 +234,30 @@ public class MethodConfig extends AbstractConfig {
         this.concurrency = concurrency;
     }
 
+    public Integer getBulkheadCoreSize() {
+        return bulkheadCoreSize;
+    }
+
+    public void setBulkheadCoreSize(Integer bulkheadCoreSize) {
+        this.bulkheadCoreSize = bulkheadCoreSize;
+    }
+
+    public Integer getBulkheadMaxSize() {
+        return bulkheadMaxSize;
+    }
+
+    public void setBulkheadMaxSize(Integer bulkheadMaxSize) {
+        this.bulkheadMaxSize = bulkheadMaxSize;
+    }
+
+    public Integer getBulkheadQueues() {
+        return bulkheadQueues;
+    }
+
+    public void setBulkheadQueues(Integer bulkheadQueues) {
+        this.bulkheadQueues = bulkheadQueues;
+    }
+
     public Boolean getCache() {
         return cache;
     }
@@ -258,6 +298,14 @@ public class MethodConfig extends AbstractConfig {
         this.cacheExpireTime = cacheExpireTime;
     }
 
+    public Long getCacheStaleTime() {
+        return cacheStaleTime;
+    }
+
+    public void setCacheStaleTime(Long cacheStaleTime) {
+        this.cacheStaleTime = cacheStaleTime;
+    }
+
     public Integer getCacheCapacity() {
         return cacheCapacity;
     }
@@ -334,12 +382,16 @@ public class MethodConfig extends AbstractConfig {
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.TIMEOUT_OPTION.getName()), timeout);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.VALIDATION_OPTION.getName()), validation);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CONCURRENCY_OPTION.getName()), concurrency);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_CORE_SIZE_OPTION.getName()), bulkheadCoreSize);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_MAX_SIZE_OPTION.getName()), bulkheadMaxSize);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_QUEUES_OPTION.getName()), bulkheadQueues);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.COMPRESS_OPTION.getName()), compress);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.DST_PARAM_OPTION.getName()), dstParam);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_OPTION.getName()), cache);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_PROVIDER_OPTION.getName()), cacheProvider);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_KEY_GENERATOR_OPTION.getName()), cacheKeyGenerator);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_EXPIRE_TIME_OPTION.getName()), cacheExpireTime);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_STALE_TIME_OPTION.getName()), cacheStaleTime);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_CAPACITY_OPTION.getName()), cacheCapacity);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_NULLABLE_OPTION.getName()), cacheNullable);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_KEY_EXPRESSION), cacheKeyExpression);
@@ -108,6 +108,22 @@ public class ProviderConfig<T> extends AbstractInterfaceConfig implements Serial
      * 接口验证器插件
      */
     protected String interfaceValidator;
+    /**
+     * 接口隔离舱核心线程数，大于0启用
+     */
+    protected Integer bulkheadCoreSize;
+    /**
+     * 接口隔离舱最大线程数
+     */
+    protected Integer bulkheadMaxSize;
+    /**
+     * 接口隔离舱队列大小
+     */
+    protected Integer bulkheadQueues;
+    /**
+     * 隔离舱满了是否借用共享线程池的空闲线程
+     */
+    protected Boolean bulkheadBorrow;
     /**
      * 预热插件
      */
@@ -368,6 +384,10 @@ public class ProviderConfig<T> extends AbstractInterfaceConfig implements Serial
         addElement2Map(params, Constants.TIMESTAMP_KEY, String.valueOf(SystemClock.now()));
         addElement2Map(params, Constants.ENABLE_VALIDATOR_OPTION, enableValidator);
         addElement2Map(params, Constants.INTERFACE_VALIDATOR_OPTION, interfaceValidator);
+        addElement2Map(params, Constants.BULKHEAD_CORE_SIZE_OPTION, bulkheadCoreSize);
+        addElement2Map(params, Constants.BULKHEAD_MAX_SIZE_OPTION, bulkheadMaxSize);
+        addElement2Map(params, Constants.BULKHEAD_QUEUES_OPTION, bulkheadQueues);
+        addElement2Map(params, Constants.BULKHEAD_BORROW_OPTION, bulkheadBorrow);
         //从serverConfig获取SSL_ENABLE配置
         String sslEnable = serverConfig.parameters == null ? "false" : serverConfig.parameters.getOrDefault(SSL_ENABLE.getName(), String.valueOf(SSL_ENABLE.getValue()));
         addElement2Map(params, SSL_ENABLE, sslEnable);
@@ -483,6 +503,38 @@ public class ProviderConfig<T> extends AbstractInterfaceConfig implements Serial
         this.weight = weight;
     }
 
+    public Integer getBulkheadCoreSize() {
+        return bulkheadCoreSize;
+    }
+
+    public void setBulkheadCoreSize(Integer bulkheadCoreSize) {
+        this.bulkheadCoreSize = bulkheadCoreSize;
+    }
+
+    public Integer getBulkheadMaxSize() {
+        return bulkheadMaxSize;
+    }
+
+    public void setBulkheadMaxSize(Integer bulkheadMaxSize) {
+        this.bulkheadMaxSize = bulkheadMaxSize;
+    }
+
+    public Integer getBulkheadQueues() {
+        return bulkheadQueues;
+    }
+
+    public void setBulkheadQueues(Integer bulkheadQueues) {
+        this.bulkheadQueues = bulkheadQueues;
+    }
+
+    public Boolean getBulkheadBorrow() {
+        return bulkheadBorrow;
+    }
+
+    public void setBulkheadBorrow(Boolean bulkheadBorrow) {
+        this.bulkheadBorrow = bulkheadBorrow;
+    }
+
     public String getInclude() {
         return include;
     }
@@ -123,6 +123,10 @@ public class InnerConsumerOption extends AbstractInterfaceOption {
      * 接口级别并行度
      */
     protected int forks;
+    /**
+     * 接口级别异步并发等待队列大小
+     */
+    protected int concurrencyQueue;
     /**
      * 重试异常
      */
@@ -177,6 +181,7 @@ public class InnerConsumerOption extends AbstractInterfaceOption {
         //需要放在failoverPredication后面，里面加载配置文件的时候需要判断failoverPredication
         this.failoverBlackWhiteList = buildFailoverBlackWhiteList();
         this.forks = url.getInteger(FORKS_OPTION);
+        this.concurrencyQueue = url.getInteger(CONCURRENCY_QUEUE_OPTION);
         this.mockConfig = new IntfConfiguration<>(MOCK, interfaceName, config -> {
             if (options != null) {
                 options.forEach((method, mo) -> {
@@ -245,7 +250,8 @@ public class InnerConsumerOption extends AbstractInterfaceOption {
                 method,
                 getImplicits(parametric.getName()),
                 parametric.getPositive(TIMEOUT_OPTION.getName(), timeout),
-                new Concurrency(parametric.getInteger(CONCURRENCY_OPTION.getName(), concurrency)),
+                new Concurrency(parametric.getInteger(CONCURRENCY_OPTION.getName(), concurrency),
+                        parametric.getInteger(CONCURRENCY_QUEUE_OPTION.getName(), concurrencyQueue)),
                 getCachePolicy(parametric),
                 getValidator(parametric),
                 parametric.getString(HIDDEN_KEY_TOKEN, token),
@@ -30,20 +30,24 @@ import io.joyrpc.invoker.CallbackMethod;
 import io.joyrpc.permission.BlackWhiteList;
 import io.joyrpc.permission.StringBlackWhiteList;
 import io.joyrpc.proxy.MethodCaller;
-import io.joyrpc.util.ClassUtils;
-import io.joyrpc.util.JCompiler;
+import io.joyrpc.proxy.MethodCallerFactory;
+import io.joyrpc.thread.Bulkhead;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.Validator;
-import java.lang.reflect.*;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
+import static io.joyrpc.Plugin.METHOD_CALLER_FACTORY;
 import static io.joyrpc.constants.Constants.*;
 import static io.joyrpc.context.auth.IPPermissionConfiguration.IP_PERMISSION;
 import static io.joyrpc.context.limiter.LimiterConfiguration.LIMITERS;
-import static io.joyrpc.util.ClassUtils.inbox;
 import static io.joyrpc.util.ClassUtils.isReturnFuture;
 
 /**
@@ -73,6 +77,34 @@ public class InnerProviderOption extends AbstractInterfaceOption {
      * 预编译
      */
     protected boolean precompilation;
+    /**
+     * 方法调用工厂
+     */
+    protected String methodCaller;
+    /**
+     * 隔离舱核心线程数
+     */
+    protected int bulkheadCoreSize;
+    /**
+     * 隔离舱最大线程数
+     */
+    protected int bulkheadMaxSize;
+    /**
+     * 隔离舱队列大小
+     */
+    protected int bulkheadQueues;
+    /**
+     * 隔离舱是否可以借用共享线程池
+     */
+    protected boolean bulkheadBorrow;
+    /**
+     * 隔离舱名称前缀
+     */
+    protected String bulkheadPrefix;
+    /**
+     * 隔离舱，包括接口级别和方法级别
+     */
+    protected Map<String, Bulkhead> bulkheads;
 
     /**
      * 构造函数
@@ -98,8 +130,40 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         this.methodBlackWhiteList = (include == null || include.isEmpty()) && (exclude == null || exclude.isEmpty()) ? null :
                 new StringBlackWhiteList(include, exclude);
         this.precompilation = url.getBoolean(METHOD_PRECOMPILATION);
+        this.methodCaller = url.getString(METHOD_CALLER_OPTION);
         this.ipPermissions = new IntfConfiguration<>(IP_PERMISSION, interfaceName);
         this.limiters = new IntfConfiguration<>(LIMITERS, interfaceName);
+        this.bulkheadCoreSize = url.getInteger(BULKHEAD_CORE_SIZE_OPTION);
+        this.bulkheadMaxSize = url.getInteger(BULKHEAD_MAX_SIZE_OPTION);
+        this.bulkheadQueues = url.getInteger(BULKHEAD_QUEUES_OPTION);
+        this.bulkheadBorrow = url.getBoolean(BULKHEAD_BORROW_OPTION);
+        this.bulkheadPrefix = url.getPort() + "/" + interfaceName + "/" + url.getString(ALIAS_OPTION);
+        this.bulkheads = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public List<Bulkhead> getBulkheads() {
+        return new ArrayList<>(bulkheads.values());
+    }
+
+    /**
+     * 获取方法的隔离舱，方法上配置了核心线程数则独占隔离舱，否则使用接口级别的隔离舱
+     *
+     * @param parametric 方法参数
+     * @return 隔离舱
+     */
+    protected Bulkhead getBulkhead(final WrapperParametric parametric) {
+        int coreSize = parametric.getInteger(BULKHEAD_CORE_SIZE_OPTION.getName(), 0);
+        if (coreSize > 0) {
+            return bulkheads.computeIfAbsent(bulkheadPrefix + "." + parametric.getName(), n -> new Bulkhead(n, coreSize,
+                    parametric.getInteger(BULKHEAD_MAX_SIZE_OPTION.getName(), bulkheadMaxSize),
+                    parametric.getInteger(BULKHEAD_QUEUES_OPTION.getName(), bulkheadQueues),
+                    parametric.getBoolean(BULKHEAD_BORROW_OPTION.getName(), bulkheadBorrow)));
+        } else if (bulkheadCoreSize > 0) {
+            return bulkheads.computeIfAbsent(bulkheadPrefix, n -> new Bulkhead(n, bulkheadCoreSize,
+                    bulkheadMaxSize, bulkheadQueues, bulkheadBorrow));
+        }
+        return null;
     }
 
     @Override
@@ -107,12 +171,13 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         super.doClose();
         ipPermissions.close();
         limiters.close();
+        bulkheads.values().forEach(Bulkhead::close);
     }
 
     @Override
     protected InnerMethodOption create(final WrapperParametric parametric) {
         Method method = getMethod(parametric.getName());
-        return new InnerProviderMethodOption(
+        InnerProviderMethodOption option = new InnerProviderMethodOption(
                 method,
                 getImplicits(parametric.getName()),
                 parametric.getPositive(TIMEOUT_OPTION.getName(), timeout),
@@ -125,66 +190,38 @@ public class InnerProviderOption extends AbstractInterfaceOption {
                 methodBlackWhiteList,
                 ipPermissions,
                 limiters,
-                precompilation ? compile(method) : null);
+                null,
+                getBulkhead(parametric));
+        if (precompilation && method != null) {
+            //各方法并行异步生成，生成之前采用反射调用
+            CompletableFuture.supplyAsync(() -> compile(method)).whenComplete((caller, error) -> option.caller = caller);
+        }
+        return option;
     }
 
     /**
-     * 动态编译方法
+     * 动态生成方法调用，优先使用配置的字节码插件，失败则降级到javac编译
      *
      * @param method 方法
-     * @return 动态编译
+     * @return 方法调用
      */
     protected MethodCaller compile(final Method method) {
-        if (method == null) {
-            return null;
-        }
-        String name = method.getName();
-        name = Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Caller";
-        String simpleName = interfaceClass.getSimpleName() + "$" + name;
-        String fullName = interfaceClass.getName() + "$" + name;
-        boolean isVoid = method.getReturnType() == void.class;
-        StringBuilder builder = new StringBuilder(300).
-                append("package ").append(interfaceClass.getPackage().getName()).append(";\n").
-                append("public class ").append(simpleName).append(" implements ").append(MethodCaller.class.getCanonicalName()).append("{\n").
-                append("\t").append("protected ").append(interfaceClass.getCanonicalName()).append(" ref").append(";\n").
-                append("\t").append("public ").append(simpleName).append("(").append(interfaceClass.getCanonicalName()).append(" ref").append(')').append("{\n").
-                append("\t\t").append("this.ref=ref;").append("\n").
-                append("\t}\n").
-                append("\t").append("public Object invoke(Object[] args) throws java.lang.reflect.InvocationTargetException").append("{\n").
-                append("\t\ttry{\n").
-                append("\t\t\t").append(!isVoid ? "return " : "").
-                append(Modifier.isStatic(method.getModifiers()) ? interfaceClass.getCanonicalName() : "ref").append('.').
-                append(method.getName()).append("(");
-        //参数
-        int index = 0;
-        Class<?> type;
-        for (Parameter parameter : method.getParameters()) {
-            //强制类型转换
-            type = parameter.getType();
-            builder.append(index > 0 ? "," : "").append("(").append(inbox(type).getCanonicalName()).append(")").append("args[").append(index++).append("]");
-        }
-        builder.append(");").append("\n").
-                append(isVoid ? "\t\t\treturn null;\n" : "").
-                append("\t\t}catch(Throwable e){\n").
-                append("\t\t\tthrow new java.lang.reflect.InvocationTargetException(e);\n").
-                append("\t\t}\n").
-                append("\t}\n").append("}");
+        MethodCallerFactory factory = METHOD_CALLER_FACTORY.getOrDefault(methodCaller);
         try {
-            Class<?> clazz = ClassUtils.forName(fullName, (n) -> {
-                try {
-                    return JCompiler.compile(n, builder);
-                } catch (Throwable e) {
-                    logger.error(e.getMessage() + " java:\n" + builder.toString());
-                    return null;
-                }
-            });
-            if (clazz == null) {
+            return factory.generate(interfaceClass, method, ref);
+        } catch (Throwable e) {
+            MethodCallerFactory javac = METHOD_CALLER_FACTORY.get(JAVAC_METHOD_CALLER);
+            if (javac == null || javac == factory) {
+                logger.error(e.getMessage(), e);
+                return null;
+            }
+            logger.warn(e.getMessage() + ", fallback to javac.");
+            try {
+                return javac.generate(interfaceClass, method, ref);
+            } catch (Throwable ex) {
+                logger.error(ex.getMessage(), ex);
                 return null;
             }
-            Constructor[] constructors = clazz.getConstructors();
-            return (MethodCaller) constructors[0].newInstance(ref);
-        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
-            return null;
         }
     }
 
@@ -205,9 +242,13 @@ public class InnerProviderOption extends AbstractInterfaceOption {
          */
         protected Supplier<ClassLimiter> limiter;
         /**
-         * 动态生成的方法调用
+         * 动态生成的方法调用，异步生成完成后赋值
+         */
+        protected volatile MethodCaller caller;
+        /**
+         * 隔离舱
          */
-        protected MethodCaller caller;
+        protected Bulkhead bulkhead;
 
         public InnerProviderMethodOption(final Method method, final Map<String, ?> implicits, final int timeout,
                                          final Concurrency concurrency, final CachePolicy cachePolicy, final Validator validator,
@@ -215,12 +256,14 @@ public class InnerProviderOption extends AbstractInterfaceOption {
                                          final BlackWhiteList<String> methodBlackWhiteList,
                                          final Supplier<IPPermission> iPPermission,
                                          final Supplier<ClassLimiter> limiter,
-                                         final MethodCaller caller) {
+                                         final MethodCaller caller,
+                                         final Bulkhead bulkhead) {
             super(method, implicits, timeout, concurrency, cachePolicy, validator, token, async, callback);
             this.methodBlackWhiteList = methodBlackWhiteList;
             this.iPPermission = iPPermission;
             this.limiter = limiter;
             this.caller = caller;
+            this.bulkhead = bulkhead;
         }
 
         @Override
@@ -242,6 +285,11 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         public MethodCaller getCaller() {
             return caller;
         }
+
+        @Override
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
     }
 
 }
@@ -399,6 +399,22 @@ public class Constants {
      * 定时器线程数
      */
     public static final String TIMER_THREADS = "timer.threads";
+    /**
+     * 请求超时时间轮一跳的时间（微秒）
+     */
+    public static final String TIMEOUT_WHEEL_TICK = "timeout.wheel.tick";
+    /**
+     * 请求超时时间轮的槽数
+     */
+    public static final String TIMEOUT_WHEEL_TICKS = "timeout.wheel.ticks";
+    /**
+     * 请求超时时间轮的驱动线程数
+     */
+    public static final String TIMEOUT_WHEEL_THREADS = "timeout.wheel.threads";
+    /**
+     * 每个连接上Future表的初始数组槽数量，按照未完成的请求数自动扩容和缩容
+     */
+    public static final String FUTURE_TABLE_CAPACITY = "future.table.capacity";
     /**
      * SERVICE_MESH的键名称
      */
@@ -544,6 +560,30 @@ public class Constants {
     public static final URLOption<Boolean> VALIDATION_OPTION = new URLOption<>("validation", false);
     //默认不压缩
     public static final URLOption<String> COMPRESS_OPTION = new URLOption<>("compress", (String) null);
+    /**
+     * 是否开启压缩预置字典，服务端按照接口训练字典，协商的时候下发
+     */
+    public static final URLOption<Boolean> COMPRESS_DICTIONARY_OPTION = new URLOption<>("compress.dictionary", false);
+    /**
+     * 协商下发的字典数据，Base64编码
+     */
+    public static final String COMPRESS_DICTIONARY_DATA = "compress.dictionary.data";
+    /**
+     * 是否开启会话字符串字典，会话上重复的头部字符串用索引替换，需要双方协商
+     */
+    public static final URLOption<Boolean> HEADER_DICTIONARY_OPTION = new URLOption<>("header.dictionary", true);
+    /**
+     * 是否开启自适应压缩，根据信息熵和方法的历史压缩率、耗时选择压缩算法
+     */
+    public static final URLOption<Boolean> COMPRESS_ADAPTIVE_OPTION = new URLOption<>("compress.adaptive", true);
+    /**
+     * 自适应压缩参考的网络带宽(Mbps)
+     */
+    public static final URLOption<Integer> COMPRESS_ADAPTIVE_BANDWIDTH = new URLOption<>("compress.adaptive.bandwidth", 1000);
+    /**
+     * 自适应压缩的信息熵上限(bit/byte)，超过则不压缩
+     */
+    public static final URLOption<Double> COMPRESS_ADAPTIVE_ENTROPY = new URLOption<>("compress.adaptive.entropy", 7.5D);
     /**
      * 默认候选者算法
      */
@@ -571,11 +611,39 @@ public class Constants {
     public static final URLOption<Integer> DELAY_OPTION = new URLOption<>("delay", -1);
     public static final URLOption<Boolean> DYNAMIC_OPTION = new URLOption<>("dynamic", true);
     public static final URLOption<Integer> CONCURRENCY_OPTION = new URLOption<>("concurrency", 0);
+    /**
+     * 异步调用超出并发数时的等待队列大小，0表示同步等待
+     */
+    public static final URLOption<Integer> CONCURRENCY_QUEUE_OPTION = new URLOption<>("concurrencyQueue", 0);
     public static final URLOption<Boolean> LIMITER_OPTION = new URLOption<>("limiter", false);
     public static final URLOption<String> METHOD_EXCLUDE_OPTION = new URLOption<>("exclude", "");
     public static final URLOption<String> CONTEXT_PATH_OPTION = new URLOption<>("contextpath", "/");
     public static final URLOption<Integer> FORKS_OPTION = new URLOption<>("forks", 2);
+    /**
+     * 对冲请求的等待时间（毫秒），小于等于0则按照集群方法的TP95估算
+     */
+    public static final URLOption<Long> HEDGE_DELAY_OPTION = new URLOption<>("hedge.delay", 0L);
+    /**
+     * 估算的对冲等待时间下限（毫秒），没有性能数据的时候也采用该值
+     */
+    public static final URLOption<Long> HEDGE_MIN_DELAY_OPTION = new URLOption<>("hedge.minDelay", 10L);
+    /**
+     * 对冲请求最多占请求数的比例，即额外负载的上限
+     */
+    public static final URLOption<Double> HEDGE_BUDGET_OPTION = new URLOption<>("hedge.budget", 0.1D);
     public static final URLOption<Boolean> METHOD_PRECOMPILATION = new URLOption<>("precompilation", Boolean.TRUE);
+    /**
+     * 方法调用工厂默认值
+     */
+    public static final String DEFAULT_METHOD_CALLER = "bytebuddy";
+    /**
+     * 基于javac的方法调用工厂
+     */
+    public static final String JAVAC_METHOD_CALLER = "javac";
+    /**
+     * 方法调用工厂选项，预编译生成方法调用的插件，生成失败会降级到javac
+     */
+    public static final URLOption<String> METHOD_CALLER_OPTION = new URLOption<>("methodCaller", DEFAULT_METHOD_CALLER);
 
     public static final String JAVA_VERSION_KEY = "javaVersion";
 
@@ -632,6 +700,13 @@ public class Constants {
     public static final URLOption<Integer> KEEP_ALIVE_TIME_OPTION = new URLOption<>("thread.keepAliveTime", 60000);
     public static final URLOption<Integer> QUEUES_OPTION = new URLOption<>("queues", 0);
     public static final URLOption<String> QUEUE_TYPE_OPTION = new URLOption<>("queueType", "normal");
+    /**
+     * 服务端隔离舱选项，核心线程数大于0启用，配置在接口上为接口级别隔离，配置在方法上为方法级别隔离
+     */
+    public static final URLOption<Integer> BULKHEAD_CORE_SIZE_OPTION = new URLOption<>("bulkhead.coreSize", 0);
+    public static final URLOption<Integer> BULKHEAD_MAX_SIZE_OPTION = new URLOption<>("bulkhead.maxSize", 0);
+    public static final URLOption<Integer> BULKHEAD_QUEUES_OPTION = new URLOption<>("bulkhead.queues", 0);
+    public static final URLOption<Boolean> BULKHEAD_BORROW_OPTION = new URLOption<>("bulkhead.borrow", true);
 
     public static final String REGISTRY_NAME_KEY = "name";
     public static final URLOption<Boolean> REGISTRY_BACKUP_ENABLED_OPTION = new URLOption<>("reg.backupEnabled", Boolean.TRUE);
@@ -666,6 +741,10 @@ public class Constants {
      */
     public static final URLOption<String> CACHE_KEY_GENERATOR_OPTION = new URLOption<>("cacheKeyGenerator", JSON_CACHE_KEY_GENERATOR);
     public static final URLOption<Integer> CACHE_EXPIRE_TIME_OPTION = new URLOption<>("cacheExpireTime", -1);
+    /**
+     * 缓存过期后仍然返回旧值并在后台刷新的时间（毫秒）
+     */
+    public static final URLOption<Integer> CACHE_STALE_TIME_OPTION = new URLOption<>("cacheStaleTime", -1);
     public static final URLOption<Integer> CACHE_CAPACITY_OPTION = new URLOption<>("cacheCapacity", 10000);
     public static final URLOption<Boolean> CACHE_NULLABLE_OPTION = new URLOption<>("cacheNullable", Boolean.FALSE);
 
@@ -673,13 +752,57 @@ public class Constants {
      * 指标窗口时间（毫秒）
      */
     public static final URLOption<Long> METRIC_WINDOWS_TIME_OPTION = new URLOption<>("metric.window.time", 1000L);
+    /**
+     * 指标环形队列大小，会向上取整为2的幂，满了直接丢弃
+     */
+    public static final URLOption<Integer> METRIC_RING_SIZE_OPTION = new URLOption<>("metric.ring.size", 4096);
+    /**
+     * 指标直方图的有效二进制位数，取值1-10，相对误差为1/2^n
+     */
+    public static final URLOption<Integer> METRIC_HISTOGRAM_PRECISION_OPTION = new URLOption<>("metric.histogram.precision", 5);
 
     /**
      * 插件默认常量
      */
     public static final URLOption<String> CHANNEL_MANAGER_FACTORY_OPTION = new URLOption<>("channelManagerFactory", "shared");
+    /**
+     * 多连接通道管理器，每个节点的最大连接数
+     */
+    public static final URLOption<Integer> STRIPE_CONNECTIONS_OPTION = new URLOption<>("stripeConnections", 4);
+    /**
+     * 多连接通道管理器，每个客户端预计的在途请求数，和连接上实际的在途请求数一起作为连接的负载
+     */
+    public static final URLOption<Integer> STRIPE_PENDINGS_OPTION = new URLOption<>("stripePendings", 64);
+    /**
+     * 多连接通道管理器，在用连接的负载都达到该值后才新建连接
+     */
+    public static final URLOption<Integer> STRIPE_THRESHOLD_OPTION = new URLOption<>("stripeThreshold", 256);
+    /**
+     * 多连接通道管理器，连接选择策略，支持leastPending和roundRobin
+     */
+    public static final URLOption<String> STRIPE_POLICY_OPTION = new URLOption<>("stripePolicy", "leastPending");
 
     public static final URLOption<Integer> PAYLOAD = new URLOption<>("payload", 8388608);
+    /**
+     * 业务请求延迟到业务线程池中反序列化
+     */
+    public static final URLOption<Boolean> LAZY_PAYLOAD_OPTION = new URLOption<>("lazyPayload", false);
+    /**
+     * 合并刷新，同一个事件循环周期内的写操作只刷新一次
+     */
+    public static final URLOption<Boolean> FLUSH_CONSOLIDATION_OPTION = new URLOption<>("flushConsolidation", false);
+    /**
+     * 合并刷新的最大消息数
+     */
+    public static final URLOption<Integer> FLUSH_MAX_MESSAGES_OPTION = new URLOption<>("flushMaxMessages", 256);
+    /**
+     * 合并刷新的最大待发送字节数
+     */
+    public static final URLOption<Integer> FLUSH_MAX_BYTES_OPTION = new URLOption<>("flushMaxBytes", 64 * 1024);
+    /**
+     * 合并刷新的最大排队消息数，超过后通道不可写
+     */
+    public static final URLOption<Integer> FLUSH_MAX_PENDING_OPTION = new URLOption<>("flushMaxPending", 4096);
 
     public static final String IO_THREADS_KEY = "ioThreads";
     public static final String BOSS_THREADS_KEY = "bossThreads";
@@ -780,17 +903,17 @@ public class Constants {
      */
     public static final URLOption<Double> ADAPTIVE_AVAILABILITY_DISABLE = new URLOption<>("adaptive.availability.disable", (Double) null);
     /**
-     * 自适应负载均衡，TP一般阈值
+     * 自适应负载均衡，TP一般阈值，单位毫秒，可以带小数
      */
-    public static final URLOption<Integer> ADAPTIVE_TP_FAIR = new URLOption<>("adaptive.tp.fair", (Integer) null);
+    public static final URLOption<Double> ADAPTIVE_TP_FAIR = new URLOption<>("adaptive.tp.fair", (Double) null);
     /**
-     * 自适应负载均衡，TP差阈值
+     * 自适应负载均衡，TP差阈值，单位毫秒，可以带小数
      */
-    public static final URLOption<Integer> ADAPTIVE_TP_POOR = new URLOption<>("adaptive.tp.poor", (Integer) null);
+    public static final URLOption<Double> ADAPTIVE_TP_POOR = new URLOption<>("adaptive.tp.poor", (Double) null);
     /**
-     * 自适应负载均衡，TP禁用阈值
+     * 自适应负载均衡，TP禁用阈值，单位毫秒，可以带小数
      */
-    public static final URLOption<Integer> ADAPTIVE_TP_DISABLE = new URLOption<>("adaptive.tp.disable", (Integer) null);
+    public static final URLOption<Double> ADAPTIVE_TP_DISABLE = new URLOption<>("adaptive.tp.disable", (Double) null);
     /**
      * 自适应负载均衡，熔断恢复期
      */
@@ -807,6 +930,30 @@ public class Constants {
      * 自适应负载均衡，集群TP
      */
     public static final URLOption<String> ADAPTIVE_CLUSTER_TP = new URLOption<>("adaptive.clusterTp", "tp30");
+    /**
+     * 自适应负载均衡，是否缓存评分结果，每个指标窗口重新评分一次
+     */
+    public static final URLOption<Boolean> ADAPTIVE_RANK_CACHE = new URLOption<>("adaptive.rankCache", true);
+    /**
+     * 自适应负载均衡，缓存评分后节点并发数增长超过该值则重新选择，小于等于0不检查
+     */
+    public static final URLOption<Integer> ADAPTIVE_ACTIVES_JUMP = new URLOption<>("adaptive.activesJump", 20);
+    /**
+     * 一致性哈希负载均衡，作为哈希键的参数位置
+     */
+    public static final URLOption<Integer> CONSISTENT_HASH_ARGUMENT = new URLOption<>("consistentHash.argument", 0);
+    /**
+     * 一致性哈希负载均衡，作为哈希键的隐式参数名称，配置了则优先于参数
+     */
+    public static final URLOption<String> CONSISTENT_HASH_ATTACHMENT = new URLOption<>("consistentHash.attachment", "");
+    /**
+     * 一致性哈希负载均衡，每个节点的虚拟节点数
+     */
+    public static final URLOption<Integer> CONSISTENT_HASH_VIRTUAL_NODES = new URLOption<>("consistentHash.virtualNodes", 160);
+    /**
+     * 一致性哈希负载均衡，有界负载因子，节点并发超过(1+因子)×平均并发则顺延到下一个节点，小于等于0不限制
+     */
+    public static final URLOption<Double> CONSISTENT_HASH_LOAD_FACTOR = new URLOption<>("consistentHash.loadFactor", 0.25D);
 
     /**
      * 是否启用epoll
@@ -925,4 +1072,12 @@ public class Constants {
      * 兼容老版本的网关请求
      */
     public static final Head HEAD_GENERIC = new Head((byte) 12, Byte.class);
+    /**
+     * 心跳应答下发的压缩预置字典，Base64编码，用于协商后才训练好的字典
+     */
+    public static final Head HEAD_COMPRESS_DICTIONARY = new Head((byte) 13, String.class);
+    /**
+     * 心跳请求携带的客户端已经注册的压缩预置字典标识，服务端收到后才开始使用该字典
+     */
+    public static final Head HEAD_COMPRESS_DICTIONARY_ID = new Head((byte) 14, Integer.class);
 }
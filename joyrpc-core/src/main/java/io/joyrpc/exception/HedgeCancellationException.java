@@ -0,0 +1,38 @@
+package io.joyrpc.exception;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 对冲调用放弃较慢请求的异常，不是节点的故障，不计入失败指标和熔断
+ */
+public class HedgeCancellationException extends CancellationException {
+
+    private static final long serialVersionUID = -2632417392532287061L;
+
+    public HedgeCancellationException() {
+    }
+
+    public HedgeCancellationException(String message) {
+        super(message);
+    }
+}
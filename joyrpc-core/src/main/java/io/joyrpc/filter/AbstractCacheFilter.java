@@ -23,6 +23,9 @@ package io.joyrpc.filter;
 import io.joyrpc.Invoker;
 import io.joyrpc.Result;
 import io.joyrpc.cache.Cache;
+import io.joyrpc.cache.CacheObject;
+import io.joyrpc.cache.SerializedCache;
+import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.config.InterfaceOption.CachePolicy;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.exception.CacheException;
@@ -30,12 +33,16 @@ import io.joyrpc.extension.Converts;
 import io.joyrpc.extension.URL;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+
 
 /**
  * consumer结果缓存过滤器, 需要扩展实现Cache接口
@@ -60,24 +67,37 @@ public class AbstractCacheFilter extends AbstractFilter {
         //获取缓存
         cache.get(key).whenComplete((c, t) -> {
             if (t == null && c != null) {
-                result.complete(new Result(request.getContext(), c.getResult()));
+                policy.getHits().increment();
+                Object value = getValue(request, policy, c);
+                if (value instanceof StaleObject) {
+                    StaleObject stale = (StaleObject) value;
+                    value = stale.getValue();
+                    if (stale.isExpire()) {
+                        //逻辑过期，返回旧值，只让一个请求在后台刷新。
+                        //当前请求马上就应答了，刷新采用独立的请求副本，避免共享上下文
+                        load(invoker, request.copy(request.getPayLoad().copy()), policy, key, true);
+                    }
+                }
+                result.complete(new Result(request.getContext(), value));
             } else {
                 //没有拿到缓存
                 if (t != null) {
                     //有异常
                     logger.error("Error occurs while reading cache,caused by " + t.getMessage(), t);
                 }
-                //未命中发起远程调用
-                invoker.invoke(request).whenComplete((r, error) -> {
+                policy.getMisses().increment();
+                //未命中发起远程调用，相同的键合并成一个调用
+                load(invoker, request, policy, key, false).whenComplete((r, error) -> {
                     if (error != null) {
                         //远程调用异常
                         result.completeExceptionally(error);
-                    } else {
-                        if (!r.isException()) {
-                            //缓存非异常结果
-                            cache.put(key, r.getValue());
-                        }
+                    } else if (r.getContext() == request.getContext()) {
                         result.complete(r);
+                    } else {
+                        //合并的调用，使用当前请求的上下文
+                        result.complete(r.isException() ?
+                                new Result(request.getContext(), r.getException(), r.getMessage()) :
+                                new Result(request.getContext(), r.getValue(), r.getMessage()));
                     }
                 });
             }
@@ -85,6 +105,77 @@ public class AbstractCacheFilter extends AbstractFilter {
         return result;
     }
 
+    /**
+     * 加载数据，相同的缓存键共享一个正在进行的远程调用
+     *
+     * @param invoker 调用器
+     * @param request 请求
+     * @param policy  缓存策略
+     * @param key     缓存键
+     * @param refresh 是否是后台刷新
+     * @return 调用结果
+     */
+    protected CompletableFuture<Result> load(final Invoker invoker, final RequestMessage<Invocation> request,
+                                             final CachePolicy policy, final Object key, final boolean refresh) {
+        Map<Object, CompletableFuture<Result>> flights = policy.getFlights();
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletableFuture<Result> exists = flights.putIfAbsent(key, future);
+        if (exists != null) {
+            if (!refresh) {
+                policy.getCoalesced().increment();
+            }
+            return exists;
+        }
+        if (refresh) {
+            policy.getRefreshes().increment();
+        }
+        try {
+            invoker.invoke(request).whenComplete((r, error) -> {
+                if (error == null && !r.isException()) {
+                    //缓存非异常结果
+                    Object value = r.getValue();
+                    Cache<Object, Object> cache = policy.getCache();
+                    if (policy.isStale()) {
+                        cache.put(key, new StaleObject(value, policy.getExpireTime()));
+                    } else if (cache instanceof SerializedCache) {
+                        //按照请求的序列化方式缓存
+                        Serialization serialization = SERIALIZATION_SELECTOR.select(request.getHeader().getSerialization());
+                        if (serialization != null) {
+                            ((SerializedCache<Object, Object>) cache).put(key, value, serialization);
+                        } else {
+                            cache.put(key, value);
+                        }
+                    } else {
+                        cache.put(key, value);
+                    }
+                }
+                //先放入缓存再移除，避免并发请求再次穿透
+                flights.remove(key, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(r);
+                }
+            });
+        } catch (Throwable e) {
+            flights.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 获取缓存的结果值
+     *
+     * @param request 请求
+     * @param policy  缓存策略
+     * @param cache   缓存对象
+     * @return 结果值
+     */
+    protected Object getValue(final RequestMessage<Invocation> request, final CachePolicy policy, final CacheObject<Object> cache) {
+        return cache.getResult();
+    }
+
     /**
      * 生成缓存键
      *
@@ -118,4 +209,38 @@ public class AbstractCacheFilter extends AbstractFilter {
         }
         return false;
     }
+
+    /**
+     * 支持返回旧值的缓存对象，逻辑过期时间由过滤器判断，物理过期时间由缓存控制
+     */
+    protected static class StaleObject implements Serializable {
+
+        private static final long serialVersionUID = 4474451557327005627L;
+        /**
+         * 结果值
+         */
+        protected Object value;
+        /**
+         * 逻辑过期时间
+         */
+        protected long expireTime;
+
+        public StaleObject(final Object value, final long expireTime) {
+            this.value = value;
+            this.expireTime = SystemClock.now() + expireTime;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * 是否逻辑过期
+         *
+         * @return 过期标识
+         */
+        public boolean isExpire() {
+            return SystemClock.now() > expireTime;
+        }
+    }
 }
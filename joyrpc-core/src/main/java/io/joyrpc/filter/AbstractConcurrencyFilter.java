@@ -55,9 +55,22 @@ public abstract class AbstractConcurrencyFilter extends AbstractFilter {
             }
         }
         //执行调用
+        onInvoke(concurrency);
+        return invoke(invoker, request, concurrency);
+    }
+
+    /**
+     * 已经占用并发数，执行调用
+     *
+     * @param invoker     调用器
+     * @param request     请求
+     * @param concurrency 并发配置
+     * @return 结果
+     */
+    protected CompletableFuture<Result> invoke(final Invoker invoker, final RequestMessage<Invocation> request,
+                                               final Concurrency concurrency) {
         CompletableFuture<Result> future = null;
         try {
-            onInvoke(concurrency);
             future = invoker.invoke(request);
             return future.whenComplete((result, throwable) -> onInvokeComplete(concurrency));
         } finally {
@@ -20,8 +20,11 @@ package io.joyrpc.filter.consumer;
  * #L%
  */
 
+import io.joyrpc.Invoker;
 import io.joyrpc.Result;
 import io.joyrpc.config.InterfaceOption.Concurrency;
+import io.joyrpc.config.InterfaceOption.Concurrency.Waiter;
+import io.joyrpc.config.InterfaceOption.MethodOption;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.exception.OverloadException;
 import io.joyrpc.extension.Extension;
@@ -29,30 +32,82 @@ import io.joyrpc.filter.AbstractConcurrencyFilter;
 import io.joyrpc.filter.ConsumerFilter;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.thread.NamedThreadFactory;
 import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.TimeoutWheel;
+import io.joyrpc.util.TimeoutWheel.Timeoutable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.joyrpc.constants.Constants.KEEP_ALIVE_TIME_OPTION;
+import static io.joyrpc.thread.ThreadPool.QUEUE_FUNCTION;
 
 /**
  * 按接口和方法进行限制<br>
+ * 异步调用配置了等待队列（concurrencyQueue）后，超出并发数的请求进入先进先出的等待队列，不阻塞调用线程
  */
 @Extension(value = "concurrency", order = ConsumerFilter.CONCURRENCY_ORDER)
 public class ConcurrencyFilter extends AbstractConcurrencyFilter implements ConsumerFilter {
 
+    @Override
+    public CompletableFuture<Result> invoke(final Invoker invoker, final RequestMessage<Invocation> request) {
+        MethodOption option = request.getOption();
+        Concurrency concurrency = option.getConcurrency();
+        if (concurrency.getQueues() <= 0 || !option.isAsync()) {
+            //同步等待
+            return super.invoke(invoker, request);
+        } else if (concurrency.getWaitings() == 0 && concurrency.tryAdd()) {
+            return invoke(invoker, request, concurrency);
+        }
+        //异步等待
+        AsyncWaiter waiter = new AsyncWaiter(this, invoker, request, concurrency);
+        if (!WheelHolder.WHEEL.add(waiter)) {
+            //已经超时
+            waiter.expire();
+        } else if (!concurrency.offer(waiter)) {
+            WheelHolder.WHEEL.remove(waiter);
+            Invocation invocation = request.getPayLoad();
+            return CompletableFuture.completedFuture(new Result(request.getContext(),
+                    new OverloadException("Waiting queue of concurrency is full in client-side when invoke "
+                            + invocation.getClassName() + "." + invocation.getMethodName()
+                            + ", queue size: " + concurrency.getQueues() + ". max concurrency: " + concurrency.getMax()
+                            + ". You can change it by interface or method concurrencyQueue",
+                            ExceptionCode.FILTER_CONCURRENT_CONSUMER_TIMEOUT, 0, false)));
+        }
+        return waiter.future;
+    }
+
     @Override
     protected void onInvokeException(final Concurrency concurrency) {
         concurrency.decrement();
         concurrency.wakeup();
+        dispatch(concurrency);
     }
 
     @Override
     protected void onInvokeComplete(final Concurrency concurrency) {
         concurrency.decrement();
         concurrency.wakeup();
+        dispatch(concurrency);
+    }
+
+    /**
+     * 派发异步等待者，默认在释放并发的线程中派发；释放线程是IO线程时切换到派发线程池执行后续调用
+     *
+     * @param concurrency 并发配置
+     */
+    protected void dispatch(final Concurrency concurrency) {
+        if (concurrency.getWaitings() > 0) {
+            concurrency.dispatch(NamedThreadFactory.isIoThread() ? DispatcherHolder.DISPATCHER : null);
+        }
     }
 
     @Override
     protected Result onExceed(final RequestMessage<Invocation> request, final Concurrency concurrency) {
         long start = SystemClock.now();
-        Invocation invocation = request.getPayLoad();
         long active;
         int timeout = request.getHeader().getTimeout();
         long remain = timeout;
@@ -63,12 +118,7 @@ public class ConcurrencyFilter extends AbstractConcurrencyFilter implements Cons
             elapsed = SystemClock.now() - start;
             remain = timeout - elapsed;
             if (remain <= 0) {
-                return new Result(request.getContext(),
-                        new OverloadException("Waiting concurrent timeout in client-side when invoke"
-                                + invocation.getClassName() + "." + invocation.getMethodName() + ", elapsed: " + elapsed
-                                + ", timeout: " + timeout + ". concurrent invokes: " + active
-                                + ". max concurrency: " + max + ". You can change it by interface or method concurrency",
-                                ExceptionCode.FILTER_CONCURRENT_CONSUMER_TIMEOUT, 0, false));
+                return timeout(request, elapsed, timeout, active, max);
             } else {
                 request.getHeader().setTimeout((int) remain);
             }
@@ -76,9 +126,177 @@ public class ConcurrencyFilter extends AbstractConcurrencyFilter implements Cons
         return null;
     }
 
+    /**
+     * 等待超时结果
+     *
+     * @param request 请求
+     * @param elapsed 已经等待的时间
+     * @param timeout 超时时间
+     * @param active  当前并发数
+     * @param max     最大并发数
+     * @return 结果
+     */
+    protected static Result timeout(final RequestMessage<Invocation> request, final long elapsed, final long timeout,
+                                    final long active, final long max) {
+        Invocation invocation = request.getPayLoad();
+        return new Result(request.getContext(),
+                new OverloadException("Waiting concurrent timeout in client-side when invoke"
+                        + invocation.getClassName() + "." + invocation.getMethodName() + ", elapsed: " + elapsed
+                        + ", timeout: " + timeout + ". concurrent invokes: " + active
+                        + ". max concurrency: " + max + ". You can change it by interface or method concurrency",
+                        ExceptionCode.FILTER_CONCURRENT_CONSUMER_TIMEOUT, 0, false));
+    }
+
     @Override
     public int type() {
         return SYSTEM_GLOBAL;
     }
 
+    /**
+     * 延迟创建时间轮
+     */
+    protected static class WheelHolder {
+        /**
+         * 异步等待超时时间轮
+         */
+        protected static final TimeoutWheel<AsyncWaiter> WHEEL = TimeoutWheel.create(AsyncWaiter::expire);
+    }
+
+    /**
+     * 延迟创建派发线程池
+     */
+    protected static class DispatcherHolder {
+        /**
+         * 有界的派发线程池，每个并发配置同时最多只有一个派发任务，不同的并发配置可以并行派发。<br/>
+         * 队列满了由Concurrency在当前线程派发
+         */
+        protected static final ThreadPoolExecutor DISPATCHER = create();
+
+        /**
+         * 创建派发线程池
+         *
+         * @return 线程池
+         */
+        protected static ThreadPoolExecutor create() {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_TIME_OPTION.getValue(), TimeUnit.MILLISECONDS,
+                    QUEUE_FUNCTION.apply(1024, false),
+                    new NamedThreadFactory("concurrency-dispatcher", true));
+            result.allowCoreThreadTimeOut(true);
+            return result;
+        }
+    }
+
+    /**
+     * 异步等待者
+     */
+    protected static class AsyncWaiter implements Waiter, Timeoutable {
+        /**
+         * 过滤器
+         */
+        protected final ConcurrencyFilter filter;
+        /**
+         * 调用器
+         */
+        protected final Invoker invoker;
+        /**
+         * 请求
+         */
+        protected final RequestMessage<Invocation> request;
+        /**
+         * 并发配置
+         */
+        protected final Concurrency concurrency;
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<Result> future = new CompletableFuture<>();
+        /**
+         * 开始时间
+         */
+        protected final long start;
+        /**
+         * 超时时间
+         */
+        protected final int timeout;
+        /**
+         * 截止时间（纳秒）
+         */
+        protected final long deadline;
+        /**
+         * 在时间槽中的位置
+         */
+        protected int slot = -1;
+        /**
+         * 完成标识
+         */
+        protected final AtomicBoolean done = new AtomicBoolean();
+
+        public AsyncWaiter(final ConcurrencyFilter filter, final Invoker invoker,
+                           final RequestMessage<Invocation> request, final Concurrency concurrency) {
+            this.filter = filter;
+            this.invoker = invoker;
+            this.request = request;
+            this.concurrency = concurrency;
+            this.start = SystemClock.now();
+            this.timeout = request.getHeader().getTimeout();
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        }
+
+        @Override
+        public boolean admit() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            WheelHolder.WHEEL.remove(this);
+            long elapsed = SystemClock.now() - start;
+            long remain = timeout - elapsed;
+            if (remain <= 0) {
+                future.complete(timeout(request, elapsed, timeout, concurrency.getActives(), concurrency.getMax()));
+                return false;
+            }
+            request.getHeader().setTimeout((int) remain);
+            try {
+                filter.invoke(invoker, request, concurrency).whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        future.completeExceptionally(throwable);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (Throwable e) {
+                //调用异常已经释放了并发数
+                future.completeExceptionally(e);
+            }
+            return true;
+        }
+
+        /**
+         * 超时
+         */
+        protected void expire() {
+            if (done.compareAndSet(false, true)) {
+                concurrency.remove(this);
+                future.complete(timeout(request, SystemClock.now() - start, timeout,
+                        concurrency.getActives(), concurrency.getMax()));
+            }
+        }
+
+        @Override
+        public long getDeadline() {
+            return deadline;
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+    }
+
 }
@@ -20,9 +20,15 @@ package io.joyrpc.filter.provider;
  * #L%
  */
 
+import io.joyrpc.cache.CacheObject;
+import io.joyrpc.cache.SerializedCacheObject;
+import io.joyrpc.config.InterfaceOption.CachePolicy;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.filter.AbstractCacheFilter;
 import io.joyrpc.filter.ProviderFilter;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.protocol.message.SerializedPayload;
 
 /**
  * @description: consumer结果缓存过滤器, 需要扩展实现Cache接口
@@ -30,6 +36,19 @@ import io.joyrpc.filter.ProviderFilter;
 @Extension(value = "cache", order = ProviderFilter.CACHE_ORDER)
 public class CacheFilter extends AbstractCacheFilter implements ProviderFilter {
 
+    @Override
+    protected Object getValue(final RequestMessage<Invocation> request, final CachePolicy policy, final CacheObject<Object> cache) {
+        if (cache instanceof SerializedCacheObject && !policy.isStale()
+                && !request.getPayLoad().isGeneric() && !request.getOption().isAsync()) {
+            SerializedPayload payload = ((SerializedCacheObject<Object>) cache).getPayload();
+            if (payload.getSerialization() == request.getHeader().getSerialization()) {
+                //序列化方式一致，直接把缓存的字节写入应答，不需要反序列化再序列化
+                return payload;
+            }
+        }
+        return cache.getResult();
+    }
+
     @Override
     public int type() {
         return SYSTEM_GLOBAL;
@@ -36,6 +36,7 @@ import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.context.RequestContext;
 import io.joyrpc.event.Publisher;
 import io.joyrpc.exception.InitializationException;
+import io.joyrpc.exception.OverloadException;
 import io.joyrpc.exception.ShutdownExecption;
 import io.joyrpc.extension.URL;
 import io.joyrpc.invoker.ExporterEvent.EventType;
@@ -45,6 +46,7 @@ import io.joyrpc.permission.Identification;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.transport.DecoratorServer;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.transport.ServerTransport;
@@ -341,12 +343,34 @@ public class Exporter extends AbstractInvoker {
      * @return
      */
     protected CompletableFuture<Result> invokeMethod(final RequestMessage<Invocation> request) {
+        Bulkhead bulkhead = ((InterfaceOption.ProviderMethodOption) request.getOption()).getBulkhead();
+        if (bulkhead == null) {
+            return invokeMethod(request, request.getContext());
+        }
+        //在隔离舱中执行业务代码，释放共享的业务线程
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        try {
+            bulkhead.execute(() -> Futures.chain(invokeMethod(request, request.getContext()), result),
+                    server == null ? null : server.getBizThreadPool());
+        } catch (OverloadException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * 调用方法
+     *
+     * @param request 请求
+     * @param context 上下文
+     * @return 结果
+     */
+    protected CompletableFuture<Result> invokeMethod(final RequestMessage<Invocation> request, final RequestContext context) {
 
         Invocation invocation = request.getPayLoad();
 
         CompletableFuture<Result> resultFuture;
         //恢复上下文，因为过滤链（缓存）这些是异步的
-        RequestContext context = request.getContext();
         RequestContext.restore(context);
         try {
             MethodCaller caller = ((InterfaceOption.ProviderMethodOption) request.getOption()).getCaller();
@@ -444,6 +468,26 @@ public class Exporter extends AbstractInvoker {
         return port;
     }
 
+    /**
+     * 方法是否是返回CompletableFuture的异步方法
+     *
+     * @param methodName 方法名称
+     * @return 异步标识
+     */
+    public boolean isAsync(final String methodName) {
+        MethodOption option = options.getOption(methodName);
+        return option != null && option.isAsync();
+    }
+
+    /**
+     * 获取隔离舱
+     *
+     * @return 隔离舱
+     */
+    public List<Bulkhead> getBulkheads() {
+        return options.getBulkheads();
+    }
+
     public Authentication getAuthentication() {
         return authentication;
     }
@@ -132,4 +132,85 @@ public interface TPSnapshot extends Metric {
      */
     int getTp999();
 
+    /**
+     * 最大时间，单位微秒
+     *
+     * @return
+     */
+    default long getMaxMicros() {
+        return getMax() * 1000L;
+    }
+
+    /**
+     * 最小时间，单位微秒
+     *
+     * @return
+     */
+    default long getMinMicros() {
+        return getMin() * 1000L;
+    }
+
+    /**
+     * 平均时间，单位微秒
+     *
+     * @return
+     */
+    default long getAvgMicros() {
+        return getAvg() * 1000L;
+    }
+
+    /**
+     * TP30，单位微秒
+     *
+     * @return
+     */
+    default long getTp30Micros() {
+        return getTp30() * 1000L;
+    }
+
+    /**
+     * TP50，单位微秒
+     *
+     * @return
+     */
+    default long getTp50Micros() {
+        return getTp50() * 1000L;
+    }
+
+    /**
+     * TP90，单位微秒
+     *
+     * @return
+     */
+    default long getTp90Micros() {
+        return getTp90() * 1000L;
+    }
+
+    /**
+     * TP95，单位微秒，默认取TP90和TP99的中值估算
+     *
+     * @return
+     */
+    default long getTp95Micros() {
+        return (getTp90Micros() + getTp99Micros()) / 2;
+    }
+
+    /**
+     * TP99，单位微秒
+     *
+     * @return
+     */
+    default long getTp99Micros() {
+        return getTp99() * 1000L;
+    }
+
+    /**
+     * TP999，单位微秒
+     *
+     * @return
+     */
+    default long getTp999Micros() {
+        return getTp999() * 1000L;
+    }
+
 }
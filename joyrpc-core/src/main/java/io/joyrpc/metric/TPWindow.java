@@ -22,6 +22,7 @@ package io.joyrpc.metric;
 
 import io.joyrpc.util.MilliPeriod;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -47,6 +48,18 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
      */
     void success(int timeMillis, int records, long dataSize);
 
+    /**
+     * 成功请求一次，支持更高精度的时间
+     *
+     * @param elapse   耗费的时间
+     * @param unit     时间单位
+     * @param records  记录数
+     * @param dataSize 数据大小
+     */
+    default void success(final long elapse, final TimeUnit unit, final int records, final long dataSize) {
+        success((int) unit.toMillis(elapse), records, dataSize);
+    }
+
     /**
      * 请求失败
      */
@@ -22,6 +22,7 @@ package io.joyrpc.metric.mc;
 
 import io.joyrpc.cluster.distribution.CircuitBreaker;
 import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.exception.HedgeCancellationException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.metric.Clock;
 import io.joyrpc.metric.Dashboard;
@@ -35,9 +36,12 @@ import io.joyrpc.transport.message.Message;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 
+import static io.joyrpc.constants.Constants.METRIC_HISTOGRAM_PRECISION_OPTION;
 import static io.joyrpc.constants.Constants.METRIC_WINDOWS_TIME_OPTION;
 
 /**
@@ -68,6 +72,10 @@ public class McDashboard implements Dashboard {
      * 时间窗口间隔
      */
     protected long interval;
+    /**
+     * 直方图有效二进制位数
+     */
+    protected int precision;
 
     /**
      * 构造函数
@@ -82,7 +90,8 @@ public class McDashboard implements Dashboard {
         this.type = type;
         this.breakerFunction = breakerFunction;
         this.interval = url.getPositiveLong(METRIC_WINDOWS_TIME_OPTION);
-        this.window = new McTPWindow(interval, Clock.MILLI);
+        this.precision = Math.min(10, Math.max(1, url.getInteger(METRIC_HISTOGRAM_PRECISION_OPTION)));
+        this.window = new McTPWindow(interval, Clock.MILLI, precision);
     }
 
     @Override
@@ -107,7 +116,7 @@ public class McDashboard implements Dashboard {
      * @return
      */
     public TPWindow getMethod(final String methodName) {
-        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> new McTPWindow(interval, Clock.MILLI));
+        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> new McTPWindow(interval, Clock.MILLI, precision));
     }
 
     @Override
@@ -133,8 +142,8 @@ public class McDashboard implements Dashboard {
         TPWindow method = getMethod(invocation.getMethodName());
         Throwable throwable = getThrowable(event);
         if (throwable != null) {
-            //如果有异常，进行异常统计
-            if (type == DashboardType.Node) {
+            //如果有异常，进行异常统计，对冲调用放弃的请求不是节点的故障，不统计
+            if (type == DashboardType.Node && !isHedgeCancelled(throwable)) {
                 CircuitBreaker breaker = breakerFunction == null ? null : breakerFunction.apply(invocation.getClassName(), invocation.getMethodName());
                 //只有节点才触发熔断逻辑，集群也会收到相同的事件不进行处理
                 //判断熔断支持的异常才统计数据
@@ -147,14 +156,31 @@ public class McDashboard implements Dashboard {
             }
         } else if (event.getStartTime() > 0 && event.getEndTime() > 0) {
             //如果正常执行，统计成功
-            int elapse = (int) (event.getEndTime() - event.getStartTime());
-            method.success(elapse);
+            //优先采用纳秒耗时，亚毫秒的调用也能区分
+            long elapse = event.getElapsedNanos();
+            TimeUnit unit = TimeUnit.NANOSECONDS;
+            if (elapse <= 0) {
+                elapse = event.getEndTime() - event.getStartTime();
+                unit = TimeUnit.MILLISECONDS;
+            }
+            method.success(elapse, unit, 1, 0);
             method.actives().set(event.getConcurrency());
-            window.success(elapse);
+            window.success(elapse, unit, 1, 0);
             window.actives().set(event.getConcurrency());
         }
     }
 
+    /**
+     * 是否是对冲调用放弃的请求
+     *
+     * @param throwable 异常
+     * @return 对冲放弃标识
+     */
+    protected boolean isHedgeCancelled(final Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        return cause instanceof HedgeCancellationException;
+    }
+
     /**
      * 获取异常
      *
@@ -57,6 +57,24 @@ public class McTPSnapshot implements TPSnapshot {
     protected int tp99;
     //TP999
     protected int tp999;
+    //最大时间，单位微秒
+    protected long maxMicros;
+    //最小时间，单位微秒
+    protected long minMicros;
+    //平均时间，单位微秒
+    protected long avgMicros;
+    //TP30，单位微秒
+    protected long tp30Micros;
+    //TP50，单位微秒
+    protected long tp50Micros;
+    //TP90，单位微秒
+    protected long tp90Micros;
+    //TP95，单位微秒
+    protected long tp95Micros;
+    //TP99，单位微秒
+    protected long tp99Micros;
+    //TP999，单位微秒
+    protected long tp999Micros;
 
     public McTPSnapshot() {
     }
@@ -80,6 +98,54 @@ public class McTPSnapshot implements TPSnapshot {
         this.tp90 = tp90;
         this.tp99 = tp99;
         this.tp999 = tp999;
+        this.maxMicros = max * 1000L;
+        this.minMicros = min * 1000L;
+        this.avgMicros = avg * 1000L;
+        this.tp30Micros = tp30 * 1000L;
+        this.tp50Micros = tp50 * 1000L;
+        this.tp90Micros = tp90 * 1000L;
+        this.tp95Micros = (tp90Micros + tp99 * 1000L) / 2;
+        this.tp99Micros = tp99 * 1000L;
+        this.tp999Micros = tp999 * 1000L;
+    }
+
+    /**
+     * 根据微秒数据构建快照，毫秒数据截断取整
+     *
+     * @param requests      请求数
+     * @param successes     成功数
+     * @param failures      失败数
+     * @param records       记录数
+     * @param dataSize      数据大小
+     * @param elapsedMicros 成功请求的总时间
+     * @param max           最大时间
+     * @param min           最小时间
+     * @param tp30          TP30
+     * @param tp50          TP50
+     * @param tp90          TP90
+     * @param tp95          TP95
+     * @param tp99          TP99
+     * @param tp999         TP999
+     * @return 快照
+     */
+    public static McTPSnapshot ofMicros(final long requests, final long successes,
+                                        final long failures, final long records,
+                                        final long dataSize, final long elapsedMicros,
+                                        final long max, final long min, final long tp30, final long tp50,
+                                        final long tp90, final long tp95, final long tp99, final long tp999) {
+        McTPSnapshot result = new McTPSnapshot(requests, successes, failures, records, dataSize,
+                (int) (elapsedMicros / 1000), (int) (max / 1000), (int) (min / 1000), (int) (tp30 / 1000),
+                (int) (tp50 / 1000), (int) (tp90 / 1000), (int) (tp99 / 1000), (int) (tp999 / 1000));
+        result.maxMicros = max;
+        result.minMicros = min;
+        result.avgMicros = successes <= 0 ? 0 : (long) Math.ceil(elapsedMicros * 1.0 / successes);
+        result.tp30Micros = tp30;
+        result.tp50Micros = tp50;
+        result.tp90Micros = tp90;
+        result.tp95Micros = tp95;
+        result.tp99Micros = tp99;
+        result.tp999Micros = tp999;
+        return result;
     }
 
     @Override
@@ -157,6 +223,51 @@ public class McTPSnapshot implements TPSnapshot {
         return tp999;
     }
 
+    @Override
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    @Override
+    public long getAvgMicros() {
+        return avgMicros;
+    }
+
+    @Override
+    public long getTp30Micros() {
+        return tp30Micros;
+    }
+
+    @Override
+    public long getTp50Micros() {
+        return tp50Micros;
+    }
+
+    @Override
+    public long getTp90Micros() {
+        return tp90Micros;
+    }
+
+    @Override
+    public long getTp95Micros() {
+        return tp95Micros;
+    }
+
+    @Override
+    public long getTp99Micros() {
+        return tp99Micros;
+    }
+
+    @Override
+    public long getTp999Micros() {
+        return tp999Micros;
+    }
+
     @Override
     public String toString() {
         StringBuilder sbuilder = new StringBuilder();
@@ -25,9 +25,6 @@ import io.joyrpc.metric.TPMetric;
 import io.joyrpc.metric.TPWindow;
 import io.joyrpc.util.MilliPeriod;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.*;
 import java.util.function.Function;
@@ -39,7 +36,10 @@ public class McTPWindow implements TPWindow {
 
     public static final Function<String, TPWindow> MILLI_WINDOW_FUNCTION = t -> new McTPWindow();
 
-    protected volatile Histogram histogram = new Histogram();
+    //当前写入的缓冲器
+    protected volatile Histogram histogram;
+    //上一个时间窗口的缓冲器，快照的时候和当前缓冲器交换复用
+    protected volatile Histogram last;
     //当前并发数
     protected AtomicLong actives = new AtomicLong();
     //待分发数量
@@ -73,6 +73,19 @@ public class McTPWindow implements TPWindow {
      * @param clock            时钟
      */
     public McTPWindow(final long windowTimeMillis, final Clock clock) {
+        this(windowTimeMillis, clock, Histogram.PRECISION);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param windowTimeMillis 时间窗口，单位毫秒
+     * @param clock            时钟
+     * @param precision        直方图有效二进制位数
+     */
+    public McTPWindow(final long windowTimeMillis, final Clock clock, final int precision) {
+        this.histogram = new Histogram(precision);
+        this.last = new Histogram(precision);
         this.clock = clock == null ? Clock.MILLI : clock;
         //把毫秒时间窗口转换成指定时间单位的时间
         this.windowTime = this.clock.getTimeUnit().convert(windowTimeMillis <= 0 ? 1000 : windowTimeMillis, TimeUnit.MILLISECONDS);
@@ -86,7 +99,10 @@ public class McTPWindow implements TPWindow {
         if (isExpired()) {
             lastSnapshotTime = clock.getTime();
             Histogram old = histogram;
-            histogram = new Histogram();
+            //复用上上个窗口的缓冲器，交换前先清空
+            last.reset();
+            histogram = last;
+            last = old;
             snapshot = new McTPMetric(successiveFailures, actives, distribution,
                     brokenPeriod != null && brokenPeriod.between(), old.snapshot());
         }
@@ -115,7 +131,12 @@ public class McTPWindow implements TPWindow {
 
     @Override
     public void success(final int timeMillis, final int records, final long dataSize) {
-        histogram.success(timeMillis, records, dataSize);
+        success(timeMillis, TimeUnit.MILLISECONDS, records, dataSize);
+    }
+
+    @Override
+    public void success(final long elapse, final TimeUnit unit, final int records, final long dataSize) {
+        histogram.success(unit.toMicros(elapse), records, dataSize);
         successiveFailures.set(0);
     }
 
@@ -132,7 +153,7 @@ public class McTPWindow implements TPWindow {
 
     @Override
     public boolean hasRequest() {
-        return histogram.requests.longValue() > 0;
+        return histogram.requests.sum() > 0;
     }
 
     @Override
@@ -187,101 +208,113 @@ public class McTPWindow implements TPWindow {
     }
 
     /**
-     * TP性能统计缓冲器，用于计算
+     * 对数线性分桶的TP性能统计缓冲器，单位微秒。<br/>
+     * 小于2^precision的时间精确记录，更大的时间按二进制数量级分组，每组2^precision个桶，相对误差不超过1/2^precision
      */
     protected static class Histogram {
-        // 默认矩阵长度，2的指数，便于取余数
-        protected static final int LENGTH = 256;
-        // 矩阵，最多存放length*length-1
-        protected AtomicReferenceArray<AtomicLongArray> timer;
-        // 超过maxTime的数据存储在这俩
-        protected AtomicReference<ConcurrentMap<Integer, LongAdder>> outstrip;
+        // 默认有效二进制位数，相对误差约3%
+        public static final int PRECISION = 5;
+        // 最大记录时间的二进制位数，2^36微秒约19个小时
+        protected static final int MAX_BITS = 36;
+        // 最大记录时间
+        protected static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+        // 按数量级分组的桶，按需创建，重置的时候复用
+        protected final AtomicReferenceArray<AtomicLongArray> groups;
         // 成功处理的记录条数
-        protected LongAdder records = new LongAdder();
+        protected final LongAdder records = new LongAdder();
         // 总调用次数
-        protected LongAdder requests = new LongAdder();
+        protected final LongAdder requests = new LongAdder();
         // 成功调用次数
-        protected LongAdder successes = new LongAdder();
+        protected final LongAdder successes = new LongAdder();
         // 失败调用次数
-        protected LongAdder failures = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
         // 数据大小
-        protected LongAdder dataSize = new LongAdder();
-        // 总时间
-        protected LongAdder elapsedTime = new LongAdder();
-        // 最大时间
-        protected int maxTime;
-        // 矩阵的长度
-        protected int length;
-        // 2的指数
-        protected int exponent;
+        protected final LongAdder dataSize = new LongAdder();
+        // 总时间，单位微秒
+        protected final LongAdder elapsedTime = new LongAdder();
+        // 有效二进制位数
+        protected final int precision;
+        // 每组的桶数
+        protected final int buckets;
+        // 组内掩码
+        protected final int mask;
 
         public Histogram() {
-            this(LENGTH);
+            this(PRECISION);
         }
 
-        public Histogram(int length) {
-            if (length < 1) {
-                throw new IllegalArgumentException("length must be greater than 0");
+        public Histogram(final int precision) {
+            if (precision < 1 || precision > 10) {
+                throw new IllegalArgumentException("precision must be between 1 and 10");
             }
+            this.precision = precision;
+            this.buckets = 1 << precision;
+            this.mask = buckets - 1;
+            this.groups = new AtomicReferenceArray<>(MAX_BITS - precision + 1);
+        }
 
-            // 容量是2的指数
-            int cap = 1;
-            int exponent = 0;
-            while (length > cap) {
-                cap <<= 1;
-                exponent++;
-            }
-            this.length = cap;
-            this.exponent = exponent;
-            this.timer = new AtomicReferenceArray<>(cap);
-            this.outstrip = new AtomicReference<>();
-            this.maxTime = cap * cap - 1;
+        /**
+         * 计算分组
+         *
+         * @param micros 时间，单位微秒
+         * @return 分组
+         */
+        protected int group(final long micros) {
+            return micros < buckets ? 0 : 64 - Long.numberOfLeadingZeros(micros) - precision;
         }
 
         /**
-         * 对齐时间，减少数据量
+         * 计算组内的桶
          *
-         * @param timeMillis 时间，单位毫秒
-         * @return 时间
+         * @param micros 时间，单位微秒
+         * @param group  分组
+         * @return 桶
          */
-        protected int align(final int timeMillis) {
-            //[64,128) 2ms对齐;[128,256) 4ms对齐;[256-1024) 8ms对齐，[1024,) 16ms对齐
-            switch (timeMillis >> 6) {
-                case 0:
-                    return timeMillis;
-                case 1:
-                    return timeMillis & 0xFFFFFFFE;
-                case 2:
-                case 3:
-                    return timeMillis & 0xFFFFFFFC;
-                case 4:
-                case 5:
-                case 6:
-                case 7:
-                case 8:
-                case 9:
-                case 10:
-                case 11:
-                    return timeMillis & 0xFFFFFFF8;
-                default:
-                    return timeMillis & 0xFFFFFFF0;
+        protected int bucket(final long micros, final int group) {
+            return group == 0 ? (int) micros : (int) (micros >>> (group - 1)) & mask;
+        }
+
+        /**
+         * 桶能代表的最大时间
+         *
+         * @param group  分组
+         * @param bucket 桶
+         * @return 时间，单位微秒
+         */
+        protected long highest(final int group, final int bucket) {
+            return group == 0 ? bucket : ((((long) (buckets | bucket)) + 1) << (group - 1)) - 1;
+        }
+
+        /**
+         * 获取分组的桶，不存在则创建
+         *
+         * @param group 分组
+         * @return 桶
+         */
+        protected AtomicLongArray getGroup(final int group) {
+            AtomicLongArray v = groups.get(group);
+            if (v == null) {
+                v = new AtomicLongArray(buckets);
+                if (!groups.compareAndSet(group, null, v)) {
+                    v = groups.get(group);
+                }
             }
+            return v;
         }
 
         /**
          * 成功调用，批量增加统计信息，每次调用时间一样.
          *
-         * @param timeMillis 单次调用时间，单位毫秒
-         * @param records    总共记录条数
-         * @param size       总共数据包大小
+         * @param micros  单次调用时间，单位微秒
+         * @param records 总共记录条数
+         * @param size    总共数据包大小
          */
-        public void success(final int timeMillis, final int records, final long size) {
-            if (timeMillis < 0) {
+        public void success(final long micros, final int records, final long size) {
+            if (micros < 0) {
                 // 做性能统计时间不可能为负数
                 return;
             }
-            //数据对齐，减少存储
-            int elapse = align(timeMillis);
+            long elapse = micros > MAX_VALUE ? MAX_VALUE : micros;
             elapsedTime.add(elapse);
             requests.increment();
             successes.increment();
@@ -291,40 +324,8 @@ public class McTPWindow implements TPWindow {
             if (size > 0) {
                 dataSize.add(size);
             }
-
-            int maxIndex = length - 1;
-
-            if (elapse > maxTime) {
-                // 超过最大时间，矩阵不能存储，采用MAP存储
-                ConcurrentMap<Integer, LongAdder> exceeds = outstrip.get();
-                if (exceeds == null) {
-                    // 按时间排序
-                    exceeds = new ConcurrentSkipListMap<>();
-                    if (!outstrip.compareAndSet(null, exceeds)) {
-                        exceeds = outstrip.get();
-                    }
-                }
-                LongAdder counts = exceeds.get(elapse);
-                if (counts == null) {
-                    counts = new LongAdder();
-                    LongAdder old = exceeds.putIfAbsent(elapse, counts);
-                    if (old != null) {
-                        counts = old;
-                    }
-                }
-                counts.add(1);
-            } else {
-                int i = elapse >> exponent;
-                int j = elapse & maxIndex;
-                AtomicLongArray v = timer.get(i);
-                if (v == null) {
-                    v = new AtomicLongArray(length);
-                    if (!timer.compareAndSet(i, null, v)) {
-                        v = timer.get(i);
-                    }
-                }
-                v.addAndGet(j, 1);
-            }
+            int group = group(elapse);
+            getGroup(group).getAndIncrement(bucket(elapse, group));
         }
 
         /**
@@ -335,6 +336,26 @@ public class McTPWindow implements TPWindow {
             requests.increment();
         }
 
+        /**
+         * 重置数据，保留已经分配的桶
+         */
+        public void reset() {
+            records.reset();
+            requests.reset();
+            successes.reset();
+            failures.reset();
+            dataSize.reset();
+            elapsedTime.reset();
+            AtomicLongArray v;
+            for (int i = 0; i < groups.length(); i++) {
+                v = groups.get(i);
+                if (v != null) {
+                    for (int j = 0; j < buckets; j++) {
+                        v.lazySet(j, 0);
+                    }
+                }
+            }
+        }
 
         /**
          * 获取性能统计
@@ -342,115 +363,52 @@ public class McTPWindow implements TPWindow {
          * @return 性能统计
          */
         public McTPSnapshot snapshot() {
-            long m_requests = requests.longValue();
-            long m_successes = successes.longValue();
-            long m_failures = failures.longValue();
-            long m_records = records.longValue();
-            long m_dataSize = dataSize.longValue();
-            int m_elapsedTime = elapsedTime.intValue();
-            int m_tp30 = 0;
-            int m_tp50 = 0;
-            int m_tp90 = 0;
-            int m_tp99 = 0;
-            int m_tp999 = 0;
-
-            if (m_requests <= 0) {
-                return new McTPSnapshot(m_requests, m_successes, m_failures, m_records, m_dataSize, m_elapsedTime,
-                        0, 0, m_tp30, m_tp50, m_tp90, m_tp99, m_tp999);
+            long m_requests = requests.sum();
+            long m_successes = successes.sum();
+            long m_failures = failures.sum();
+            long m_records = records.sum();
+            long m_dataSize = dataSize.sum();
+            long m_elapsedTime = elapsedTime.sum();
+            // TP30,TP50,TP90,TP95,TP99,TP999的排序位置
+            double[] percentiles = new double[]{30.0, 50.0, 90.0, 95.0, 99.0, 99.9};
+            long[] ranks = new long[percentiles.length];
+            long[] tps = new long[percentiles.length];
+            for (int i = 0; i < percentiles.length; i++) {
+                ranks[i] = Math.max(1, (long) Math.ceil(m_successes * percentiles[i] / 100));
             }
-
-            int m_min = -1;
-            int m_max = -1;
-            // 计算排序位置
-            int tp999 = (int) Math.floor(m_successes * 99.9 / 100);
-            int tp99 = (int) Math.floor(m_successes * 99.0 / 100);
-            int tp90 = (int) Math.floor(m_successes * 90.0 / 100);
-            int tp50 = (int) Math.floor(m_successes * 50.0 / 100);
-            int tp30 = (int) Math.floor(m_successes * 30.0 / 100);
-
+            long m_min = -1;
+            long m_max = 0;
+            long total = 0;
             long count;
-            long prev = 0;
-            long pos = 0;
-            int time;
+            long time;
+            int rank = 0;
             AtomicLongArray v;
-            // 递增遍历数组
-            for (int i = 0; i < length; i++) {
-                v = timer.get(i);
+            // 按时间递增遍历
+            for (int i = 0; i < groups.length() && total < m_successes; i++) {
+                v = groups.get(i);
                 if (v != null) {
-                    for (int j = 0; j < length; j++) {
-                        // 获取该时间的数量
+                    for (int j = 0; j < buckets && total < m_successes; j++) {
                         count = v.get(j);
                         if (count > 0) {
-                            time = i * length + j;
-                            // 当前排序位置
-                            pos = prev + count;
+                            time = highest(i, j);
                             if (m_min == -1) {
-                                m_min = time;
-                            }
-                            if (m_max == -1 || time > m_max) {
-                                m_max = time;
+                                m_min = i == 0 ? j : time - (1L << (i - 1)) + 1;
                             }
-                            if (prev < tp50 && pos >= tp30) {
-                                m_tp30 = time;
-                            }
-                            if (prev < tp50 && pos >= tp50) {
-                                m_tp50 = time;
-                            }
-                            if (prev < tp90 && pos >= tp90) {
-                                m_tp90 = time;
-                            }
-                            if (prev < tp99 && pos >= tp99) {
-                                m_tp99 = time;
-                            }
-                            if (prev < tp999 && pos >= tp999) {
-                                m_tp999 = time;
-                            }
-                            prev = pos;
-                            if (prev >= m_successes) {
-                                //可以提前终止了
-                                break;
+                            m_max = time;
+                            total += count;
+                            while (rank < ranks.length && total >= ranks[rank]) {
+                                tps[rank++] = time;
                             }
                         }
                     }
-                    if (prev >= m_successes) {
-                        //可以提前终止了
-                        break;
-                    }
                 }
             }
-            // 遍历超过最大时间的数据
-            ConcurrentMap<Integer, LongAdder> exceeds = outstrip.get();
-            if (exceeds != null) {
-                for (Map.Entry<Integer, LongAdder> entry : exceeds.entrySet()) {
-                    time = entry.getKey();
-                    pos = prev + entry.getValue().longValue();
-                    if (m_min == -1) {
-                        m_min = time;
-                    }
-                    if (m_max == -1 || time > m_max) {
-                        m_max = time;
-                    }
-                    if (prev < tp30 && pos >= tp30) {
-                        m_tp50 = time;
-                    }
-                    if (prev < tp50 && pos >= tp50) {
-                        m_tp50 = time;
-                    }
-                    if (prev < tp90 && pos >= tp90) {
-                        m_tp90 = time;
-                    }
-                    if (prev < tp99 && pos >= tp99) {
-                        m_tp99 = time;
-                    }
-                    if (prev < tp999 && pos >= tp999) {
-                        m_tp999 = time;
-                    }
-                    prev = pos;
-                }
+            //并发写入的时候计数可能不一致，用最大值补齐
+            while (rank < ranks.length && m_successes > 0) {
+                tps[rank++] = m_max;
             }
-
-            return new McTPSnapshot(m_requests, m_successes, m_failures, m_records, m_dataSize, m_elapsedTime,
-                    m_max, m_min, m_tp30, m_tp50, m_tp90, m_tp99, m_tp999);
+            return McTPSnapshot.ofMicros(m_requests, m_successes, m_failures, m_records, m_dataSize, m_elapsedTime,
+                    m_max, m_min < 0 ? 0 : m_min, tps[0], tps[1], tps[2], tps[3], tps[4], tps[5]);
         }
 
     }
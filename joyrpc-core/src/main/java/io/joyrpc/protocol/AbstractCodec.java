@@ -21,18 +21,29 @@ package io.joyrpc.protocol;
  */
 
 import io.joyrpc.codec.compression.AdaptiveCompressOutputStream;
+import io.joyrpc.codec.compression.AdaptiveCompressionPolicy;
 import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.zlib.DictionaryTrainer;
+import io.joyrpc.codec.compression.zlib.ZlibDictionary;
+import io.joyrpc.codec.serialization.BufferSerializer;
 import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.codec.serialization.Serializer;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.exception.CodecException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.exception.ProtocolException;
 import io.joyrpc.exception.SerializerException;
+import io.joyrpc.extension.Converts;
 import io.joyrpc.protocol.Protocol.MessageConverter;
+import io.joyrpc.protocol.message.HeaderAttributes;
+import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.protocol.message.SerializedPayload;
 import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.codec.Codec;
 import io.joyrpc.transport.codec.DecodeContext;
 import io.joyrpc.transport.codec.EncodeContext;
@@ -40,6 +51,9 @@ import io.joyrpc.transport.codec.LengthFieldFrameCodec;
 import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.session.Session;
+import io.joyrpc.transport.session.Session.RpcSession;
+import io.joyrpc.transport.session.Session.ServerSession;
+import io.joyrpc.transport.session.StringTable;
 import io.joyrpc.util.StringUtils;
 import io.joyrpc.util.SystemClock;
 
@@ -48,18 +62,56 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static io.joyrpc.Plugin.COMPRESSION_SELECTOR;
 import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+import static io.joyrpc.constants.Constants.COMPRESS_DICTIONARY_OPTION;
 
 /**
  * 编码基类
  */
 public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
+    /**
+     * 扩展属性类型：整数
+     */
+    protected static final byte ATTR_INT = 1;
+    /**
+     * 扩展属性类型：字符串
+     */
+    protected static final byte ATTR_STRING = 2;
+    /**
+     * 扩展属性类型：字节
+     */
+    protected static final byte ATTR_BYTE = 3;
+    /**
+     * 扩展属性类型：短整数
+     */
+    protected static final byte ATTR_SHORT = 4;
+    /**
+     * 扩展属性类型：引用会话字典中的字符串
+     */
+    protected static final byte ATTR_STRING_REF = 5;
+    /**
+     * 扩展属性类型：定义会话字典中的字符串
+     */
+    protected static final byte ATTR_STRING_DEF = 6;
+    /**
+     * 缓存编码结果的字符串最大长度
+     */
+    protected static final int MAX_CACHED_STRING_LENGTH = 256;
+    /**
+     * 缓存编码结果的字符串最大数量
+     */
+    protected static final int MAX_CACHED_STRINGS = 4096;
+    /**
+     * 字符串的UTF-8编码缓存，头部的接口名、别名和令牌等基本不变
+     */
+    protected static final Map<String, byte[]> STRING_BYTES = new ConcurrentHashMap<>(256);
+
     /**
      * 协议
      */
@@ -160,6 +212,9 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         }
         Message target = (Message) message;
         Header header = null;
+        //会话字符串字典，转换后的消息头不包含会话
+        Session session = target.getSession();
+        StringTable table = session == null ? null : session.getStringTable();
         try {
             //进行转换
             MessageConverter converter = protocol.outMessage();
@@ -179,7 +234,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             //定位到数据包长度后面
             buffer.writerIndex(start + 4);
             //编码数据头
-            int compress = encodeHeader(buffer, header);
+            int compress = encodeHeader(buffer, header, table);
             //编码数据包
             if (target.getPayLoad() != null) {
                 //编码消息体
@@ -188,10 +243,20 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             int length = buffer.writerIndex() - start;
             header.setLength(length);
             buffer.setInt(start, length);
+            if (table != null) {
+                table.commit();
+            }
         } catch (CodecException e) {
+            if (table != null) {
+                //消息没有发出，撤销新定义的字符串
+                table.rollback();
+            }
             e.setHeader(header == null ? target.getHeader() : header);
             throw e;
         } catch (Exception e) {
+            if (table != null) {
+                table.rollback();
+            }
             CodecException ce = toCodecException("Error occurs while encoding.", e);
             ce.setHeader(header == null ? target.getHeader() : header);
             throw ce;
@@ -215,6 +280,18 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @return 压缩位置
      */
     protected int encodeHeader(final ChannelBuffer buffer, final Header header) {
+        return encodeHeader(buffer, header, null);
+    }
+
+    /**
+     * 编码消息头，返回压缩位置，便于自适应压缩算法修改压缩标识
+     *
+     * @param buffer 缓冲区
+     * @param header 头部
+     * @param table  会话字符串字典
+     * @return 压缩位置
+     */
+    protected int encodeHeader(final ChannelBuffer buffer, final Header header, final StringTable table) {
         //头部2个字节是消息头的大小，因为有扩展属性，是变长
         int start = buffer.writerIndex();
         buffer.setShort(start, 0);
@@ -231,7 +308,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         buffer.writerIndex(start + 17);
         //编码扩展属性
         MessageHeader messageHeader = (MessageHeader) header;
-        encodeAttributes(buffer, messageHeader.getAttributes());
+        encodeAttributes(buffer, messageHeader.getAttributes(), table);
         int headLength = buffer.writerIndex() - start;
         header.setHeaderLength((short) headLength);
         // 替换head长度的两位
@@ -246,54 +323,126 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @param attributes 属性
      */
     protected void encodeAttributes(final ChannelBuffer buffer, final Map<Byte, Object> attributes) {
+        encodeAttributes(buffer, attributes, null);
+    }
+
+    /**
+     * 编码头部扩展信息
+     *
+     * @param buffer     缓冲区
+     * @param attributes 属性
+     * @param table      会话字符串字典
+     */
+    protected void encodeAttributes(final ChannelBuffer buffer, final Map<Byte, Object> attributes, final StringTable table) {
         int size = attributes == null ? 0 : attributes.size();
         int pos = buffer.writerIndex();
         buffer.setByte(pos++, size);
         if (size > 0) {
-            byte key;
-            Object val;
-            for (Map.Entry<Byte, Object> attr : attributes.entrySet()) {
-                key = attr.getKey();
-                val = attr.getValue();
-                if (val != null) {
-                    if (val instanceof Integer) {
-                        buffer.ensureWritable(6);
-                        buffer.setByte(pos++, key);
-                        buffer.setByte(pos++, (byte) 1);
-                        buffer.setInt(pos, (Integer) val);
-                        pos += 4;
-                    } else if (val instanceof String) {
-                        byte[] bytes = ((String) val).getBytes(StandardCharsets.UTF_8);
-                        int length = bytes.length;
-                        buffer.ensureWritable(4 + length);
-                        buffer.setByte(pos++, key);
-                        buffer.setByte(pos++, (byte) 2);
-                        buffer.setShort(pos, length);
-                        pos += 2;
-                        if (length > 0) {
-                            buffer.setBytes(pos, bytes, 0, length);
-                            pos += bytes.length;
-                        }
-                    } else if (val instanceof Byte) {
-                        buffer.ensureWritable(3);
-                        buffer.setByte(pos++, key);
-                        buffer.setByte(pos++, (byte) 3);
-                        buffer.setByte(pos++, (Byte) val);
-                    } else if (val instanceof Short) {
-                        buffer.ensureWritable(4);
-                        buffer.setByte(pos++, key);
-                        buffer.setByte(pos++, (byte) 4);
-                        buffer.setShort(pos, (Short) val);
-                        pos += 2;
-                    } else {
-                        throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
-                    }
+            if (attributes instanceof HeaderAttributes) {
+                //按照下标遍历，避免创建迭代器和装箱
+                HeaderAttributes attrs = (HeaderAttributes) attributes;
+                for (int i = 0; i < size; i++) {
+                    pos = encodeAttribute(buffer, pos, attrs.keyAt(i), attrs.valueAt(i), table);
+                }
+            } else {
+                for (Map.Entry<Byte, Object> attr : attributes.entrySet()) {
+                    pos = encodeAttribute(buffer, pos, attr.getKey(), attr.getValue(), table);
                 }
             }
         }
         buffer.writerIndex(pos);
     }
 
+    /**
+     * 编码单个扩展属性
+     *
+     * @param buffer 缓冲区
+     * @param pos    写入位置
+     * @param key    键
+     * @param val    值
+     * @param table  会话字符串字典
+     * @return 新的写入位置
+     */
+    protected int encodeAttribute(final ChannelBuffer buffer, final int pos, final byte key, final Object val,
+                                  final StringTable table) {
+        int result = pos;
+        if (val == null) {
+            return result;
+        } else if (val instanceof Integer) {
+            buffer.ensureWritable(6);
+            buffer.setByte(result++, key);
+            buffer.setByte(result++, ATTR_INT);
+            buffer.setInt(result, (Integer) val);
+            result += 4;
+        } else if (val instanceof String) {
+            String value = (String) val;
+            int index = table == null ? -1 : table.index(value);
+            if (index >= 0) {
+                //引用会话字典
+                buffer.ensureWritable(4);
+                buffer.setByte(result++, key);
+                buffer.setByte(result++, ATTR_STRING_REF);
+                buffer.setShort(result, index);
+                result += 2;
+            } else {
+                index = table == null ? -1 : table.define(value);
+                byte[] bytes = getBytes(value);
+                int length = bytes.length;
+                buffer.ensureWritable(6 + length);
+                buffer.setByte(result++, key);
+                if (index >= 0) {
+                    //定义会话字典
+                    buffer.setByte(result++, ATTR_STRING_DEF);
+                    buffer.setShort(result, index);
+                    result += 2;
+                } else {
+                    buffer.setByte(result++, ATTR_STRING);
+                }
+                buffer.setShort(result, length);
+                result += 2;
+                if (length > 0) {
+                    buffer.setBytes(result, bytes, 0, length);
+                    result += length;
+                }
+            }
+        } else if (val instanceof Byte) {
+            buffer.ensureWritable(3);
+            buffer.setByte(result++, key);
+            buffer.setByte(result++, ATTR_BYTE);
+            buffer.setByte(result++, (Byte) val);
+        } else if (val instanceof Short) {
+            buffer.ensureWritable(4);
+            buffer.setByte(result++, key);
+            buffer.setByte(result++, ATTR_SHORT);
+            buffer.setShort(result, (Short) val);
+            result += 2;
+        } else {
+            throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+        }
+        return result;
+    }
+
+    /**
+     * 获取字符串的UTF-8编码，短字符串缓存编码结果
+     *
+     * @param value 字符串
+     * @return 字节数组
+     */
+    protected static byte[] getBytes(final String value) {
+        if (value.length() > MAX_CACHED_STRING_LENGTH) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] result = STRING_BYTES.get(value);
+        if (result == null) {
+            result = value.getBytes(StandardCharsets.UTF_8);
+            if (STRING_BYTES.size() >= MAX_CACHED_STRINGS) {
+                STRING_BYTES.clear();
+            }
+            STRING_BYTES.put(value, result);
+        }
+        return result;
+    }
+
     /**
      * 编码消息体
      *
@@ -311,25 +460,87 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         }
         //根据协议和序列化进行消息体调整
         adjustEncode(message, serialization);
+        Object payload = message.getPayLoad();
+        if (payload instanceof SerializedPayload && ((SerializedPayload) payload).getSerialization() != serialization.getTypeId()) {
+            //序列化方式不一致，不能直接输出字节
+            SerializedPayload serialized = (SerializedPayload) payload;
+            message.setPayLoad(new ResponsePayload(serialized.getResponse(), serialized.getException()));
+        }
 
         if (header.getCompression() > 0) {
             Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
             if (compression != null) {
+                //协商了预置字典
+                Session session = message.getSession();
+                byte[] dictionary = session == null || !compression.isDictionary() ? null : session.getDictionary();
+                DictionaryTrainer trainer = dictionary == null ? getTrainer(message, compression) : null;
+                int start = buffer.writerIndex();
                 //自适应压缩
-                AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, 2048);
+                AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression,
+                        dictionary == null ? AdaptiveCompressOutputStream.DEFAULT_THRESHOLD : AdaptiveCompressOutputStream.DICTIONARY_THRESHOLD,
+                        dictionary, getAdvisor(message));
                 serialize(serialization, acos, message, context);
                 //压缩完成，写完结束标识
                 acos.finish();
                 //输出
                 acos.flush();
                 //动态压缩设置
-                buffer.setByte(compress, !acos.isCompressed() ? Compression.NONE : header.getCompression());
+                buffer.setByte(compress, !acos.isCompressed() ? Compression.NONE : acos.getCompression().getTypeId());
+                if (trainer != null) {
+                    //采样数据头部训练字典
+                    byte[] head = acos.getHead();
+                    if (head != null) {
+                        trainer.sample(head, 0, head.length);
+                    } else {
+                        trainer.sample(buffer, start, buffer.writerIndex() - start);
+                    }
+                }
                 return;
             } else {
                 buffer.setByte(compress, Compression.NONE);
             }
         }
-        serialize(serialization, buffer.outputStream(), message, context);
+        serialize(serialization, buffer, message, context);
+    }
+
+    /**
+     * 获取自适应压缩顾问，只对业务请求和应答生效
+     *
+     * @param message 消息
+     * @return 压缩顾问
+     */
+    protected AdaptiveCompressionPolicy.Advisor getAdvisor(final Message message) {
+        AdaptiveCompressionPolicy policy = AdaptiveCompressionPolicy.getInstance();
+        if (!policy.isEnabled()) {
+            return null;
+        }
+        Session session = message.getSession();
+        Object payload = message.getPayLoad();
+        if (payload instanceof Invocation) {
+            Invocation invocation = (Invocation) payload;
+            return policy.getAdvisor(invocation.getClassName(), invocation.getMethodName(),
+                    session == null ? null : session.getCompressions());
+        } else if (session instanceof RpcSession && message.getHeader() instanceof MessageHeader) {
+            return policy.getAdvisor(((RpcSession) session).getInterfaceName(),
+                    ((MessageHeader) message.getHeader()).getMethod(), session.getCompressions());
+        }
+        return null;
+    }
+
+    /**
+     * 获取字典训练器，只对开启了字典的服务端会话的业务应答进行采样
+     *
+     * @param message     消息
+     * @param compression 压缩
+     * @return 训练器
+     */
+    protected DictionaryTrainer getTrainer(final Message message, final Compression compression) {
+        Session session = message.getSession();
+        if (session instanceof ServerSession && compression.isDictionary() && message.getMsgType() == MsgType.BizResp.getType()
+                && Converts.getBoolean(session.get(COMPRESS_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+            return ZlibDictionary.getTrainer(((ServerSession) session).getInterfaceName());
+        }
+        return null;
     }
 
     /**
@@ -351,7 +562,36 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @param context       上下文
      */
     protected void serialize(final Serialization serialization, final OutputStream os, final Message message, final EncodeContext context) {
-        serialization.getSerializer().serialize(os, message.getPayLoad());
+        Object payload = message.getPayLoad();
+        if (payload instanceof SerializedPayload) {
+            //已经序列化好的字节直接输出
+            try {
+                os.write(((SerializedPayload) payload).getData());
+            } catch (IOException e) {
+                throw new SerializerException(e.getMessage(), e);
+            }
+        } else {
+            serialization.getSerializer().serialize(os, payload);
+        }
+    }
+
+    /**
+     * 序列化到缓冲区，序列化支持直接写缓冲区则不经过输出流
+     *
+     * @param serialization 序列化
+     * @param buffer        缓冲区
+     * @param message       消息
+     * @param context       上下文
+     */
+    protected void serialize(final Serialization serialization, final ChannelBuffer buffer, final Message message, final EncodeContext context) {
+        Serializer serializer = serialization.getSerializer();
+        if (message.getPayLoad() instanceof SerializedPayload) {
+            buffer.writeBytes(((SerializedPayload) message.getPayLoad()).getData());
+        } else if (serializer instanceof BufferSerializer) {
+            ((BufferSerializer) serializer).serialize(buffer, message.getPayLoad());
+        } else {
+            serialize(serialization, buffer.outputStream(), message, context);
+        }
     }
 
     @Override
@@ -375,6 +615,9 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
                     header.setSession(null);
                 }
             }
+            //扩展属性可能引用会话字符串字典，在绑定会话后解码
+            Session current = header.getSession();
+            ((MessageHeader) header).setAttributes(decodeAttributes(buffer, current == null ? null : current.getStringTable()));
             //进行转换
             MessageConverter converter = protocol.inMessage();
             header = convert(header, converter);
@@ -407,7 +650,6 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         header.setSerialization(buffer.readByte());
         header.setCompression(buffer.readByte());
         header.setTimeout(buffer.readInt());
-        header.setAttributes(decodeAttributes(buffer));
         header.setLength(length);
         header.setHeaderLength(headerLength);
         header.setProtocolType(AbstractProtocol.PROTOCOL_NUMBER);
@@ -442,24 +684,96 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             throw new CodecException(String.format("Error occurs while decoding. unknown serialization type %d!", header.getSerialization()), ExceptionCode.CODEC_SERIALIZER_EXCEPTION);
         }
         Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
-        InputStream inputStream = buffer.inputStream();
-        inputStream = compression == null ? inputStream : compression.decompress(inputStream);
         Class payloadClass = getPayloadClass(msgType);
-
-        Object payload = payloadClass == null ? null : deserialize(serialization, inputStream, payloadClass, msgHeader, context);
         if (msgType.isRequest()) {
-            RequestMessage request = new RequestMessage(msgHeader, payload);
+            RequestMessage<Object> request = new RequestMessage<>(msgHeader);
             request.setReceiveTime(SystemClock.now());
-            adjustDecode(request, serialization);
+            if (payloadClass != null && isLazyPayload(context, msgType)) {
+                //只保留消息体切片，在业务线程中进行反序列化
+                request.setLazyPayload(buffer.readRetainedSlice(buffer.readableBytes()),
+                        b -> decodeLazyPayload(context, b, request, serialization, compression, payloadClass));
+            } else {
+                request.setPayLoad(decodePayload(context, buffer, msgHeader, serialization, compression, payloadClass));
+                adjustDecode(request, serialization);
+            }
             return request;
         } else {
-            ResponseMessage<Object> response = new ResponseMessage<>(msgHeader, payload);
+            ResponseMessage<Object> response = new ResponseMessage<>(msgHeader,
+                    decodePayload(context, buffer, msgHeader, serialization, compression, payloadClass));
             adjustDecode(response, serialization);
             return response;
         }
 
     }
 
+    /**
+     * 判断是否延迟解码消息体，只对开启了延迟解码的通道上的业务请求生效
+     *
+     * @param context 上下文
+     * @param msgType 消息类型
+     * @return 延迟解码标识
+     */
+    protected boolean isLazyPayload(final DecodeContext context, final MsgType msgType) {
+        return msgType == MsgType.BizReq && Boolean.TRUE.equals(context.getChannel().getAttribute(Channel.LAZY_PAYLOAD));
+    }
+
+    /**
+     * 解码消息体
+     *
+     * @param context       上下文
+     * @param buffer        缓冲区
+     * @param header        头部
+     * @param serialization 序列化
+     * @param compression   压缩
+     * @param payloadClass  包体类
+     * @return 包体
+     * @throws IOException 解压缩异常
+     */
+    protected Object decodePayload(final DecodeContext context, final ChannelBuffer buffer, final MessageHeader header,
+                                   final Serialization serialization, final Compression compression,
+                                   final Class payloadClass) throws IOException {
+        if (payloadClass == null) {
+            return null;
+        }
+        if (compression == null) {
+            return deserialize(serialization, buffer, payloadClass, header, context);
+        }
+        //关闭解压流，归还解压器
+        try (InputStream is = compression.decompress(buffer.inputStream())) {
+            return deserialize(serialization, is, payloadClass, header, context);
+        }
+    }
+
+    /**
+     * 在业务线程中解码延迟的消息体
+     *
+     * @param context       上下文
+     * @param buffer        消息体缓冲区
+     * @param request       请求
+     * @param serialization 序列化
+     * @param compression   压缩
+     * @param payloadClass  包体类
+     * @return 包体
+     */
+    protected Object decodeLazyPayload(final DecodeContext context, final ChannelBuffer buffer, final RequestMessage<Object> request,
+                                       final Serialization serialization, final Compression compression,
+                                       final Class payloadClass) {
+        MessageHeader header = request.getHeader();
+        try {
+            Object payload = decodePayload(context, buffer, header, serialization, compression, payloadClass);
+            request.setPayLoad(payload);
+            adjustDecode(request, serialization);
+            return request.getPayLoad();
+        } catch (CodecException e) {
+            e.setHeader(header);
+            throw e;
+        } catch (Exception e) {
+            CodecException ce = toCodecException("Error occurs while decoding.", e);
+            ce.setHeader(header);
+            throw ce;
+        }
+    }
+
     /**
      * 反序列化
      *
@@ -473,6 +787,23 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return serialization.getSerializer().deserialize(is, type);
     }
 
+    /**
+     * 从缓冲区反序列化，序列化支持直接读缓冲区则不经过输入流
+     *
+     * @param serialization 序列化
+     * @param buffer        缓冲区
+     * @param type          类型
+     * @param header        头
+     * @param context       上下文
+     */
+    protected Object deserialize(final Serialization serialization, final ChannelBuffer buffer, final Type type, final MessageHeader header, final DecodeContext context) {
+        Serializer serializer = serialization.getSerializer();
+        if (serializer instanceof BufferSerializer) {
+            return ((BufferSerializer) serializer).deserialize(buffer, type);
+        }
+        return deserialize(serialization, buffer.inputStream(), type, header, context);
+    }
+
     /**
      * 解码后根据协议和序列化进行消息调整
      *
@@ -500,28 +831,48 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @return 扩展属性
      */
     protected Map<Byte, Object> decodeAttributes(final ChannelBuffer buffer) {
+        return decodeAttributes(buffer, null);
+    }
+
+    /**
+     * 解码扩展属性
+     *
+     * @param buffer 缓冲区
+     * @param table  会话字符串字典
+     * @return 扩展属性
+     */
+    protected Map<Byte, Object> decodeAttributes(final ChannelBuffer buffer, final StringTable table) {
         byte size = buffer.readByte();
         if (size <= 0) {
             return null;
         }
-        Map<Byte, Object> attributes = new HashMap<>(size);
+        HeaderAttributes attributes = new HeaderAttributes(size);
         byte key;
         byte type;
         for (int i = 0; i < size; i++) {
             key = buffer.readByte();
             type = buffer.readByte();
             switch (type) {
-                case 1:
-                    attributes.put(key, buffer.readInt());
+                case ATTR_INT:
+                    attributes.set(key, buffer.readInt());
+                    break;
+                case ATTR_STRING:
+                    attributes.set(key, buffer.readString(null, true));
                     break;
-                case 2:
-                    attributes.put(key, buffer.readString(null, true));
+                case ATTR_BYTE:
+                    attributes.set(key, buffer.readByte());
                     break;
-                case 3:
-                    attributes.put(key, buffer.readByte());
+                case ATTR_SHORT:
+                    attributes.set(key, buffer.readShort());
                     break;
-                case 4:
-                    attributes.put(key, buffer.readShort());
+                case ATTR_STRING_REF:
+                    attributes.set(key, getStringTable(table).get(buffer.readShort()));
+                    break;
+                case ATTR_STRING_DEF:
+                    int index = buffer.readShort();
+                    String value = buffer.readString(null, true);
+                    getStringTable(table).put(index, value);
+                    attributes.set(key, value);
                     break;
                 default:
                     throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
@@ -531,6 +882,19 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return attributes;
     }
 
+    /**
+     * 校验会话字符串字典
+     *
+     * @param table 会话字符串字典
+     * @return 会话字符串字典
+     */
+    protected StringTable getStringTable(final StringTable table) {
+        if (table == null) {
+            throw new CodecException("String table of session is not negotiated.", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+        }
+        return table;
+    }
+
     @Override
     public LengthFieldFrame getLengthFieldFrame() {
         return new LengthFieldFrame(2, 4, -4, 2);
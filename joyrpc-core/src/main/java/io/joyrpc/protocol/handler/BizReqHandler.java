@@ -78,20 +78,31 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         RequestMessage<Invocation> request = (RequestMessage<Invocation>) message;
         //绑定上下文
         request.setContext(RequestContext.getContext());
-        Invocation invocation = request.getPayLoad();
         Channel channel = context.getChannel();
 
         if (request.isTimeout(request::getReceiveTime)) {
-            // 客户端已经超时的请求
+            // 客户端已经超时的请求，丢弃未解码的消息体
+            request.discard();
             logger.warn(ExceptionCode.format(ExceptionCode.PROVIDER_DISCARD_TIMEOUT_MESSAGE)
                     + "Discard request cause by timeout after receive the msg: {}", request.getHeader());
             return;
         } else if (!channel.isWritable()) {
             //channel不可写，丢弃消息
+            request.discard();
             logger.error(String.format("Discard request, because client is sending too fast, causing channel is not writable. at %s : %s",
                     Channel.toString(channel), request.getHeader()));
             return;
         }
+        try {
+            //延迟解码的消息体在业务线程中反序列化
+            request.decode();
+        } catch (CodecException e) {
+            RequestContext.remove();
+            logger.error(String.format("Error occurs while decoding request at %s : %s", Channel.toString(channel), e.getMessage()));
+            sendException(channel, e, request, null);
+            return;
+        }
+        Invocation invocation = request.getPayLoad();
 
         Exporter exporter = null;
         try {
@@ -145,6 +156,8 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         ResponseMessage<ResponsePayload> response = supplier != null ? supplier.get() :
                 new ResponseMessage<>(header.response(MsgType.BizResp.getType(),
                         session == null ? Compression.NONE : session.getCompressionType()));
+        //记录方法名称，用于按方法自适应压缩
+        response.getHeader().setMethod(invocation.getMethodName());
         if (result.getContext().isAsync() && !result.isException()) {
             //异步
             ((CompletableFuture<Object>) result.getValue()).whenComplete((obj, th) -> {
@@ -152,7 +165,10 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
                 channel.send(response, sendFailed);
             });
         } else {
-            response.setPayLoad(new ResponsePayload(result.getValue(), result.getException()));
+            //缓存命中的已序列化结果直接作为消息体
+            Object value = result.getValue();
+            response.setPayLoad(value instanceof SerializedPayload ? (SerializedPayload) value :
+                    new ResponsePayload(value, result.getException()));
             channel.send(response, sendFailed);
         }
     }
@@ -20,17 +20,27 @@ package io.joyrpc.protocol.handler;
  * #L%
  */
 
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.zlib.ZlibDictionary;
 import io.joyrpc.exception.HandlerException;
+import io.joyrpc.extension.Converts;
 import io.joyrpc.health.HealthProbe;
 import io.joyrpc.protocol.MessageHandler;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.message.Message;
+import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.ResponseMessage;
 import io.joyrpc.protocol.message.heartbeat.DefaultHeartbeatResponse;
 import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.session.Session;
+import io.joyrpc.transport.session.Session.ServerSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Base64;
+
+import static io.joyrpc.constants.Constants.*;
+
 /**
  * @date: 2019/3/14
  */
@@ -48,10 +58,43 @@ public class HeartbeatReqHandler extends AbstractReqHandler implements MessageHa
         //支持插件进行判断
         ResponseMessage response = ResponseMessage.build(message, MsgType.HbResp.getType(),
                 new DefaultHeartbeatResponse(HealthProbe.getInstance().getState()));
+        dictionary(message, response.getHeader());
         context.getChannel().send(response, sendFailed);
         context.end();
     }
 
+    /**
+     * 协商之后才训练好的压缩预置字典，通过心跳下发给已经建立的会话。<br/>
+     * 客户端注册后在心跳请求中确认字典标识，服务端收到确认后才使用该字典压缩应答，避免客户端无法解压
+     *
+     * @param message 心跳请求
+     * @param header  心跳应答头
+     */
+    protected void dictionary(final Message message, final MessageHeader header) {
+        Session session = message.getSession();
+        if (!(session instanceof ServerSession) || session.getDictionary() != null
+                || !Converts.getBoolean(session.get(COMPRESS_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+            return;
+        }
+        Compression compression = session.getCompression();
+        ZlibDictionary dictionary = compression == null || !compression.isDictionary() ? null :
+                ZlibDictionary.getTrained(((ServerSession) session).getInterfaceName());
+        if (dictionary == null) {
+            return;
+        }
+        Object id = ((MessageHeader) message.getHeader()).getAttribute(HEAD_COMPRESS_DICTIONARY_ID);
+        if (id instanceof Integer && (Integer) id == dictionary.getId()) {
+            //客户端已经注册
+            session.setDictionary(dictionary.getData());
+        } else {
+            String data = Base64.getEncoder().encodeToString(dictionary.getData());
+            //扩展属性的字符串采用短整数长度
+            if (data.length() <= Short.MAX_VALUE) {
+                header.addAttribute(HEAD_COMPRESS_DICTIONARY, data);
+            }
+        }
+    }
+
     @Override
     public Integer type() {
         return (int) MsgType.HbReq.getType();
@@ -21,6 +21,8 @@ package io.joyrpc.protocol.handler;
  */
 
 import io.joyrpc.Invoker;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.zlib.ZlibDictionary;
 import io.joyrpc.constants.Version;
 import io.joyrpc.context.GlobalContext;
 import io.joyrpc.extension.Converts;
@@ -40,6 +42,7 @@ import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.transport.ChannelTransport;
 
 import java.net.InetSocketAddress;
+import java.util.Base64;
 import java.util.Map;
 
 import static io.joyrpc.Plugin.*;
@@ -76,6 +79,19 @@ public class NegotiationReqHandler extends AbstractNegotiationHandler<Message> i
             response.addAttribute(APPLICATION_NAME, GlobalContext.getString(KEY_APPNAME));
             response.addAttribute(APPLICATION_INSTANCE, GlobalContext.getString(KEY_APPINSID));
             response.addAttribute(APPLICATION_GROUP, GlobalContext.getString(KEY_APPGROUP));
+            //同意开启头部字符串字典
+            if (Converts.getBoolean(attributes.get(HEADER_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+                response.addAttribute(HEADER_DICTIONARY_OPTION.getName(), Boolean.TRUE.toString());
+            }
+            //下发已经训练好的压缩预置字典，客户端在心跳中确认注册成功后才使用
+            if (Converts.getBoolean(attributes.get(COMPRESS_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+                Compression compression = COMPRESSION.get(response.getCompression());
+                ZlibDictionary dictionary = compression == null || !compression.isDictionary() ? null :
+                        ZlibDictionary.getTrained(attributes.get(CONFIG_KEY_INTERFACE));
+                if (dictionary != null) {
+                    response.addAttribute(COMPRESS_DICTIONARY_DATA, Base64.getEncoder().encodeToString(dictionary.getData()));
+                }
+            }
         }
         return response;
     }
@@ -0,0 +1,274 @@
+package io.joyrpc.protocol.message;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 消息头扩展属性，键为字节，采用数组顺序存储，避免HashMap的节点分配。扩展属性数量很少，线性查找更快。<br/>
+ * 不支持null值，修改操作加锁。
+ */
+public class HeaderAttributes extends AbstractMap<Byte, Object> {
+
+    /**
+     * 键
+     */
+    protected byte[] keys;
+    /**
+     * 值
+     */
+    protected Object[] values;
+    /**
+     * 大小
+     */
+    protected volatile int size;
+
+    public HeaderAttributes() {
+        this(4);
+    }
+
+    public HeaderAttributes(final int capacity) {
+        int length = capacity <= 0 ? 4 : capacity;
+        this.keys = new byte[length];
+        this.values = new Object[length];
+    }
+
+    /**
+     * 查找键的位置
+     *
+     * @param key 键
+     * @return 位置，不存在返回-1
+     */
+    protected int indexOf(final byte key) {
+        byte[] ks = keys;
+        for (int i = 0, n = Math.min(size, ks.length); i < n; i++) {
+            if (ks[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取指定位置的键
+     *
+     * @param index 位置
+     * @return 键
+     */
+    public byte keyAt(final int index) {
+        return keys[index];
+    }
+
+    /**
+     * 获取指定位置的值
+     *
+     * @param index 位置
+     * @return 值
+     */
+    public Object valueAt(final int index) {
+        return values[index];
+    }
+
+    /**
+     * 获取值
+     *
+     * @param key 键
+     * @return 值
+     */
+    public Object get(final byte key) {
+        Object[] vs = values;
+        int pos = indexOf(key);
+        return pos < 0 || pos >= vs.length ? null : vs[pos];
+    }
+
+    /**
+     * 设置值
+     *
+     * @param key   键
+     * @param value 值，为null则删除
+     * @return 原值
+     */
+    public synchronized Object set(final byte key, final Object value) {
+        if (value == null) {
+            return remove(key);
+        }
+        int pos = indexOf(key);
+        if (pos >= 0) {
+            Object old = values[pos];
+            values[pos] = value;
+            return old;
+        }
+        if (size == keys.length) {
+            int length = keys.length << 1;
+            values = Arrays.copyOf(values, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * 删除值
+     *
+     * @param key 键
+     * @return 原值
+     */
+    public synchronized Object remove(final byte key) {
+        int pos = indexOf(key);
+        if (pos < 0) {
+            return null;
+        }
+        Object old = values[pos];
+        int last = size - 1;
+        if (pos < last) {
+            System.arraycopy(keys, pos + 1, keys, pos, last - pos);
+            System.arraycopy(values, pos + 1, values, pos, last - pos);
+        }
+        values[last] = null;
+        size = last;
+        return old;
+    }
+
+    /**
+     * 复制属性，新对象和原对象相互独立
+     *
+     * @return 新的属性
+     */
+    public synchronized HeaderAttributes copy() {
+        HeaderAttributes result = new HeaderAttributes(keys.length);
+        System.arraycopy(keys, 0, result.keys, 0, size);
+        System.arraycopy(values, 0, result.values, 0, size);
+        result.size = size;
+        return result;
+    }
+
+    /**
+     * 复制属性
+     *
+     * @param attributes 属性
+     * @return 新的属性
+     */
+    public static HeaderAttributes copy(final Map<Byte, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        } else if (attributes instanceof HeaderAttributes) {
+            return ((HeaderAttributes) attributes).copy();
+        }
+        HeaderAttributes result = new HeaderAttributes(attributes.size());
+        attributes.forEach((k, v) -> {
+            if (k != null && v != null) {
+                result.set(k, v);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof Byte && indexOf((Byte) key) >= 0;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return key instanceof Byte ? get(((Byte) key).byteValue()) : null;
+    }
+
+    @Override
+    public Object put(final Byte key, final Object value) {
+        if (key == null) {
+            throw new NullPointerException("key can not be null.");
+        }
+        return set(key.byteValue(), value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        return key instanceof Byte ? remove(((Byte) key).byteValue()) : null;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Byte, Object>> entrySet() {
+        return new AbstractSet<Entry<Byte, Object>>() {
+            @Override
+            public Iterator<Entry<Byte, Object>> iterator() {
+                return new Iterator<Entry<Byte, Object>>() {
+                    protected int index;
+                    protected int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Entry<Byte, Object> next() {
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        last = index++;
+                        return new SimpleEntry<>(keys[last], values[last]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+                        HeaderAttributes.this.remove(keys[last]);
+                        index = last;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -199,6 +199,26 @@ public class Invocation implements Call {
         setArgsType(argTypes);
     }
 
+    /**
+     * 复制调用信息，参数数组和扩展属性和原对象相互独立
+     *
+     * @return 新的调用信息
+     */
+    public Invocation copy() {
+        Invocation result = new Invocation(attachments == null ? null : new HashMap<>(attachments));
+        result.className = className;
+        result.alias = alias;
+        result.methodName = methodName;
+        result.argsType = argsType;
+        result.argClasses = argClasses;
+        result.args = args == null ? null : args.clone();
+        result.method = method;
+        result.clazz = clazz;
+        result.object = object;
+        result.generic = generic;
+        return result;
+    }
+
     @Override
     public String[] getArgsType() {
         return argsType;
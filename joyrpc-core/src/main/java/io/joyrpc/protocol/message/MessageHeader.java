@@ -28,7 +28,6 @@ import io.joyrpc.util.StringUtils;
 
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 消息头
@@ -80,6 +79,11 @@ public class MessageHeader implements Header {
      */
     protected transient Session session;
 
+    /**
+     * 方法名称，应答消息用于按方法统计
+     */
+    protected transient String method;
+
     /**
      * 构造函数
      */
@@ -236,6 +240,14 @@ public class MessageHeader implements Header {
         compression = session.getCompressionType();
     }
 
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
     /**
      * 获取或创建扩展属性
      *
@@ -246,7 +258,7 @@ public class MessageHeader implements Header {
             //TODO 是否是单线程操作
             synchronized (this) {
                 if (attributes == null) {
-                    attributes = new ConcurrentHashMap<>(5);
+                    attributes = new HeaderAttributes(5);
                 }
             }
         }
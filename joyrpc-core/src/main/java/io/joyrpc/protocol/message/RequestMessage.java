@@ -27,7 +27,9 @@ import io.joyrpc.permission.Authentication;
 import io.joyrpc.permission.Authorization;
 import io.joyrpc.permission.Identification;
 import io.joyrpc.protocol.MsgType;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.message.LazyPayload;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.transport.ChannelTransport;
 import io.joyrpc.util.SystemClock;
@@ -39,7 +41,7 @@ import java.util.function.Supplier;
 /**
  * @date: 8/1/2019
  */
-public class RequestMessage<T> extends BaseMessage<T> implements Request {
+public class RequestMessage<T> extends BaseMessage<T> implements Request, LazyPayload {
 
     /**
      * 请求体信息
@@ -111,6 +113,14 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
      * 实际的方法名称，对泛化进行处理
      */
     protected transient String methodName;
+    /**
+     * 未解码的消息体缓冲区
+     */
+    protected transient ChannelBuffer lazyBuffer;
+    /**
+     * 消息体解码器
+     */
+    protected transient Function<ChannelBuffer, T> lazyDecoder;
 
     /**
      * 构造函数
@@ -215,6 +225,28 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         return request;
     }
 
+    /**
+     * 复制请求，用于和原请求相互独立的再次调用。<br/>
+     * 头部属性和上下文都是新的对象，不复制会话、认证和应答等运行时状态，消息ID在发送的时候重新分配
+     *
+     * @param payload 请求体
+     * @return 新的请求
+     */
+    public RequestMessage<T> copy(final T payload) {
+        MessageHeader h = header.clone();
+        h.attributes = HeaderAttributes.copy(header.attributes);
+        RequestMessage<T> result = new RequestMessage<>(h, payload);
+        result.createTime = SystemClock.now();
+        result.timeout = timeout;
+        result.option = option;
+        result.methodName = methodName;
+        result.localAddress = localAddress;
+        result.remoteAddress = remoteAddress;
+        result.thread = thread;
+        result.context = context == null ? null : new RequestContext.InnerContext(context).copy();
+        return result;
+    }
+
     @Override
     public T getPayLoad() {
         return payload;
@@ -353,6 +385,47 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         this.methodName = methodName;
     }
 
+    /**
+     * 设置延迟解码的消息体
+     *
+     * @param buffer  消息体缓冲区
+     * @param decoder 解码器
+     */
+    public void setLazyPayload(final ChannelBuffer buffer, final Function<ChannelBuffer, T> decoder) {
+        this.lazyBuffer = buffer;
+        this.lazyDecoder = decoder;
+    }
+
+    @Override
+    public boolean isLazy() {
+        return lazyBuffer != null;
+    }
+
+    @Override
+    public void decode() {
+        ChannelBuffer buffer = lazyBuffer;
+        if (buffer != null) {
+            Function<ChannelBuffer, T> decoder = lazyDecoder;
+            lazyBuffer = null;
+            lazyDecoder = null;
+            try {
+                payload = decoder.apply(buffer);
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+
+    @Override
+    public void discard() {
+        ChannelBuffer buffer = lazyBuffer;
+        if (buffer != null) {
+            lazyBuffer = null;
+            lazyDecoder = null;
+            buffer.release();
+        }
+    }
+
     /**
      * 当前请求是否超时
      *
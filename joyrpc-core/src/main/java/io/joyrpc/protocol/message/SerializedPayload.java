@@ -0,0 +1,120 @@
+package io.joyrpc.protocol.message;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.exception.SerializerException;
+
+import java.io.ByteArrayInputStream;
+
+import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+
+/**
+ * 已经序列化好的应答消息体，序列化方式和请求一致的时候编码器直接输出字节，否则在使用的时候才反序列化
+ */
+public class SerializedPayload extends ResponsePayload {
+
+    private static final long serialVersionUID = 2953541526826154916L;
+    /**
+     * 序列化类型
+     */
+    protected byte serialization;
+    /**
+     * ResponsePayload序列化后的字节
+     */
+    protected byte[] data;
+    /**
+     * 是否已经反序列化
+     */
+    protected transient volatile boolean decoded;
+
+    /**
+     * 构造函数
+     *
+     * @param serialization 序列化类型
+     * @param data          ResponsePayload序列化后的字节
+     */
+    public SerializedPayload(final byte serialization, final byte[] data) {
+        this.serialization = serialization;
+        this.data = data;
+    }
+
+    public byte getSerialization() {
+        return serialization;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public Object getResponse() {
+        decode();
+        return response;
+    }
+
+    @Override
+    public void setResponse(final Object response) {
+        decoded = true;
+        this.response = response;
+    }
+
+    @Override
+    public Throwable getException() {
+        decode();
+        return exception;
+    }
+
+    @Override
+    public void setException(final Throwable exception) {
+        decoded = true;
+        this.exception = exception;
+    }
+
+    @Override
+    public boolean isError() {
+        return getException() != null;
+    }
+
+    /**
+     * 反序列化
+     */
+    protected void decode() {
+        if (!decoded) {
+            synchronized (this) {
+                if (!decoded) {
+                    Serialization target = SERIALIZATION_SELECTOR.select(serialization);
+                    if (target == null) {
+                        throw new SerializerException(String.format("serialization %d is not found.", serialization));
+                    }
+                    ResponsePayload payload = target.getSerializer().deserialize(new ByteArrayInputStream(data), ResponsePayload.class);
+                    if (payload != null) {
+                        response = payload.getResponse();
+                        exception = payload.getException();
+                    }
+                    decoded = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.joyrpc.proxy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extensible;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法调用工厂，为服务提供者的方法生成直接调用的代码，避免反射
+ */
+@Extensible("methodCaller")
+public interface MethodCallerFactory {
+
+    int ORDER_BYTE_BUDDY = 100;
+
+    int ORDER_JAVASSIST = 101;
+
+    int ORDER_JAVAC = 200;
+
+    /**
+     * 生成方法调用
+     *
+     * @param clz    接口类
+     * @param method 方法
+     * @param ref    接口实现对象
+     * @return 方法调用
+     * @throws ProxyException
+     */
+    MethodCaller generate(Class<?> clz, Method method, Object ref) throws ProxyException;
+}
@@ -0,0 +1,106 @@
+package io.joyrpc.proxy.jdk;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import io.joyrpc.util.ClassUtils;
+import io.joyrpc.util.JCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+import static io.joyrpc.constants.Constants.JAVAC_METHOD_CALLER;
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_JAVAC;
+import static io.joyrpc.util.ClassUtils.inbox;
+
+/**
+ * 基于JDK编译器生成源代码的方法调用工厂，需要运行在JDK环境中，作为字节码工厂的兜底
+ */
+@Extension(value = JAVAC_METHOD_CALLER, order = ORDER_JAVAC)
+public class JavacMethodCallerFactory implements MethodCallerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavacMethodCallerFactory.class);
+
+    @Override
+    public MethodCaller generate(final Class<?> clz, final Method method, final Object ref) throws ProxyException {
+        String name = method.getName();
+        name = Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Caller";
+        String simpleName = clz.getSimpleName() + "$" + name;
+        String fullName = clz.getName() + "$" + name;
+        boolean isVoid = method.getReturnType() == void.class;
+        StringBuilder builder = new StringBuilder(300).
+                append("package ").append(clz.getPackage().getName()).append(";\n").
+                append("public class ").append(simpleName).append(" implements ").append(MethodCaller.class.getCanonicalName()).append("{\n").
+                append("\t").append("protected ").append(clz.getCanonicalName()).append(" ref").append(";\n").
+                append("\t").append("public ").append(simpleName).append("(").append(clz.getCanonicalName()).append(" ref").append(')').append("{\n").
+                append("\t\t").append("this.ref=ref;").append("\n").
+                append("\t}\n").
+                append("\t").append("public Object invoke(Object[] args) throws java.lang.reflect.InvocationTargetException").append("{\n").
+                append("\t\ttry{\n").
+                append("\t\t\t").append(!isVoid ? "return " : "").
+                append(Modifier.isStatic(method.getModifiers()) ? clz.getCanonicalName() : "ref").append('.').
+                append(method.getName()).append("(");
+        //参数
+        int index = 0;
+        Class<?> type;
+        for (Parameter parameter : method.getParameters()) {
+            //强制类型转换
+            type = parameter.getType();
+            builder.append(index > 0 ? "," : "").append("(").append(inbox(type).getCanonicalName()).append(")").append("args[").append(index++).append("]");
+        }
+        builder.append(");").append("\n").
+                append(isVoid ? "\t\t\treturn null;\n" : "").
+                append("\t\t}catch(Throwable e){\n").
+                append("\t\t\tthrow new java.lang.reflect.InvocationTargetException(e);\n").
+                append("\t\t}\n").
+                append("\t}\n").append("}");
+        try {
+            Class<?> clazz = ClassUtils.forName(fullName, (n) -> {
+                try {
+                    //JDK编译器输出到同一个目录，串行编译
+                    synchronized (JavacMethodCallerFactory.class) {
+                        return JCompiler.compile(n, builder);
+                    }
+                } catch (Throwable e) {
+                    logger.error(e.getMessage() + " java:\n" + builder.toString());
+                    return null;
+                }
+            });
+            if (clazz == null) {
+                throw new ProxyException("Error occurred while compiling caller of " + clz.getName() + "." + method.getName());
+            }
+            Constructor<?>[] constructors = clazz.getConstructors();
+            return (MethodCaller) constructors[0].newInstance(ref);
+        } catch (ProxyException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProxyException("Error occurred while creating caller of " + clz.getName() + "." + method.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.joyrpc.thread;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.exception.OverloadException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.joyrpc.constants.Constants.KEEP_ALIVE_TIME_OPTION;
+import static io.joyrpc.thread.ThreadPool.QUEUE_FUNCTION;
+
+/**
+ * 隔离舱，为接口或方法提供独立的有界线程池，避免慢方法耗尽共享的业务线程池。<br/>
+ * 隔离舱满了可以借用共享线程池的空闲线程。
+ */
+public class Bulkhead implements AutoCloseable {
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 线程池
+     */
+    protected final ThreadPoolExecutor executor;
+    /**
+     * 是否可以借用共享线程池
+     */
+    protected final boolean borrow;
+    /**
+     * 拒绝次数
+     */
+    protected final AtomicLong rejects = new AtomicLong();
+    /**
+     * 借用次数
+     */
+    protected final AtomicLong borrows = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param name     名称
+     * @param coreSize 核心线程数
+     * @param maxSize  最大线程数，小于核心线程数则和核心线程数一样
+     * @param queues   队列大小，0表示不排队
+     * @param borrow   是否可以借用共享线程池
+     */
+    public Bulkhead(final String name, final int coreSize, final int maxSize, final int queues, final boolean borrow) {
+        this.name = name;
+        this.borrow = borrow;
+        this.executor = new ThreadPoolExecutor(coreSize, Math.max(coreSize, maxSize),
+                KEEP_ALIVE_TIME_OPTION.getValue(), TimeUnit.MILLISECONDS,
+                QUEUE_FUNCTION.apply(Math.max(queues, 0), false),
+                new NamedThreadFactory("RPC-BH-" + name, true));
+    }
+
+    /**
+     * 执行任务
+     *
+     * @param task   任务
+     * @param shared 共享线程池，可以为空
+     * @throws OverloadException 隔离舱满了，并且无法借用共享线程池
+     */
+    public void execute(final Runnable task, final ThreadPoolExecutor shared) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (borrow && shared != null && !shared.isShutdown() && shared.getActiveCount() < shared.getMaximumPoolSize()) {
+                //共享线程池还有空闲线程
+                try {
+                    shared.execute(task);
+                    borrows.incrementAndGet();
+                    return;
+                } catch (RuntimeException ignored) {
+                    //共享线程池也满了
+                }
+            }
+            rejects.incrementAndGet();
+            throw new OverloadException(String.format("Bulkhead %s of provider has bean exhausted", name),
+                    ExceptionCode.PROVIDER_THREAD_EXHAUSTED, 0, true);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public boolean isBorrow() {
+        return borrow;
+    }
+
+    public long getRejects() {
+        return rejects.get();
+    }
+
+    public long getBorrows() {
+        return borrows.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,35 @@
+package io.joyrpc.thread;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 可以在IO线程中直接执行部分消息的线程池，例如非阻塞的异步服务方法，省去一次线程切换
+ */
+public interface InlineExecutor {
+
+    /**
+     * 是否在当前IO线程中直接执行
+     *
+     * @param message 消息
+     * @return 直接执行标识
+     */
+    boolean inline(Object message);
+}
@@ -49,6 +49,10 @@ public class NamedThreadFactory implements ThreadFactory {
      * 是否守护线程
      */
     protected final boolean isDaemon;
+    /**
+     * 是否IO线程
+     */
+    protected final boolean io;
 
     /**
      * 构造函数，默认非守护线程
@@ -66,15 +70,28 @@ public class NamedThreadFactory implements ThreadFactory {
      * @param daemon 是否守护线程，true的话随主线程退出而退出，false的话则要主动退出
      */
     public NamedThreadFactory(String prefix, boolean daemon) {
+        this(prefix, daemon, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param prefix 前缀，后面会自动加上-T-
+     * @param daemon 是否守护线程，true的话随主线程退出而退出，false的话则要主动退出
+     * @param io     是否IO线程，IO线程中不能执行阻塞或耗时的操作
+     */
+    public NamedThreadFactory(String prefix, boolean daemon, boolean io) {
         SecurityManager s = System.getSecurityManager();
         group = (s != null) ? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
         namePrefix = prefix + "-" + poolCount.getAndIncrement() + "-T-";
         isDaemon = daemon;
+        this.io = io;
     }
 
     @Override
     public Thread newThread(Runnable r) {
-        Thread t = new Thread(group, r, namePrefix + threadCount.getAndIncrement(), 0);
+        String name = namePrefix + threadCount.getAndIncrement();
+        Thread t = io ? new IoThread(group, r, name) : new Thread(group, r, name, 0);
         t.setDaemon(isDaemon);
         if (t.getPriority() != Thread.NORM_PRIORITY) {
             t.setPriority(Thread.NORM_PRIORITY);
@@ -82,4 +99,23 @@ public class NamedThreadFactory implements ThreadFactory {
         return t;
     }
 
+    /**
+     * 当前线程是否是IO线程
+     *
+     * @return IO线程标识
+     */
+    public static boolean isIoThread() {
+        return Thread.currentThread() instanceof IoThread;
+    }
+
+    /**
+     * IO线程
+     */
+    protected static class IoThread extends Thread {
+
+        public IoThread(ThreadGroup group, Runnable target, String name) {
+            super(group, target, name, 0);
+        }
+    }
+
 }
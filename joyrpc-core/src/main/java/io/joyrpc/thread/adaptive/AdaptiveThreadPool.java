@@ -61,9 +61,7 @@ public class AdaptiveThreadPool implements ThreadPool {
         } else {
             keepAliveTime = keepAliveTime == null ? Constants.KEEP_ALIVE_TIME_OPTION.getValue() : keepAliveTime;
         }
-        return new ThreadPoolExecutor(coreSize, maxSize, keepAliveTime, TimeUnit.MILLISECONDS,
-                function.apply(url),
-                threadFactory,
+        return create(coreSize, maxSize, keepAliveTime, function.apply(url), threadFactory,
                 new RejectedExecutionHandler() {
                     protected int i = 1;
 
@@ -79,4 +77,21 @@ public class AdaptiveThreadPool implements ThreadPool {
                     }
                 });
     }
+
+    /**
+     * 创建线程池
+     *
+     * @param coreSize      核心线程数
+     * @param maxSize       最大线程数
+     * @param keepAliveTime 空闲时间(毫秒)
+     * @param queue         队列
+     * @param threadFactory 线程工厂
+     * @param handler       拒绝策略
+     * @return 线程池
+     */
+    protected ThreadPoolExecutor create(final int coreSize, final int maxSize, final int keepAliveTime,
+                                        final BlockingQueue queue, final ThreadFactory threadFactory,
+                                        final RejectedExecutionHandler handler) {
+        return new ThreadPoolExecutor(coreSize, maxSize, keepAliveTime, TimeUnit.MILLISECONDS, queue, threadFactory, handler);
+    }
 }
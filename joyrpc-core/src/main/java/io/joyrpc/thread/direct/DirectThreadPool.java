@@ -0,0 +1,99 @@
+package io.joyrpc.thread.direct;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+import io.joyrpc.invoker.Exporter;
+import io.joyrpc.invoker.InvokerManager;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.thread.InlineExecutor;
+import io.joyrpc.thread.adaptive.AdaptiveThreadPool;
+import io.joyrpc.transport.message.LazyPayload;
+import io.joyrpc.transport.session.Session.ServerSession;
+
+import java.util.concurrent.*;
+
+/**
+ * 直接执行线程池，返回CompletableFuture的非阻塞服务方法在IO线程中直接执行，其它请求还是提交到业务线程池
+ */
+@Extension(value = "direct")
+public class DirectThreadPool extends AdaptiveThreadPool {
+
+    @Override
+    protected ThreadPoolExecutor create(final int coreSize, final int maxSize, final int keepAliveTime,
+                                        final BlockingQueue queue, final ThreadFactory threadFactory,
+                                        final RejectedExecutionHandler handler) {
+        return new DirectExecutor(coreSize, maxSize, keepAliveTime, queue, threadFactory, handler);
+    }
+
+    /**
+     * 直接执行的线程池
+     */
+    protected static class DirectExecutor extends ThreadPoolExecutor implements InlineExecutor {
+
+        public DirectExecutor(final int coreSize, final int maxSize, final int keepAliveTime,
+                              final BlockingQueue<Runnable> queue, final ThreadFactory threadFactory,
+                              final RejectedExecutionHandler handler) {
+            super(coreSize, maxSize, keepAliveTime, TimeUnit.MILLISECONDS, queue, threadFactory, handler);
+        }
+
+        @Override
+        public boolean inline(final Object message) {
+            if (!(message instanceof RequestMessage) || message instanceof LazyPayload && ((LazyPayload) message).isLazy()) {
+                return false;
+            }
+            Object payload = ((RequestMessage<?>) message).getPayLoad();
+            if (!(payload instanceof Invocation)) {
+                return false;
+            }
+            Invocation invocation = (Invocation) payload;
+            String methodName = invocation.getMethodName();
+            if (methodName == null) {
+                return false;
+            }
+            Exporter exporter = getExporter((RequestMessage<?>) message, invocation);
+            return exporter != null && exporter.isAsync(methodName);
+        }
+
+        /**
+         * 获取服务
+         *
+         * @param request    请求
+         * @param invocation 调用
+         * @return 服务
+         */
+        protected Exporter getExporter(final RequestMessage<?> request, final Invocation invocation) {
+            if (request.getSession() instanceof ServerSession) {
+                Object provider = ((ServerSession) request.getSession()).getProvider();
+                if (provider instanceof Exporter) {
+                    return (Exporter) provider;
+                }
+            }
+            String className = invocation.getClassName();
+            //兼容老版本的接口ID，交给业务线程处理
+            if (className == null || className.isEmpty() || Character.isDigit(className.charAt(0))) {
+                return null;
+            }
+            return InvokerManager.getFirstExporter(className, invocation.getAlias());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package io.joyrpc.thread.virtual;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.Constants;
+import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.thread.ThreadPool;
+import io.joyrpc.thread.adaptive.AdaptiveThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 虚拟线程池，每个请求在一个新的虚拟线程中执行。<br/>
+ * 通过反射创建虚拟线程工厂，运行时不支持虚拟线程则退化为自适应线程池。
+ */
+@Extension(value = "virtual")
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    /**
+     * 创建虚拟线程构建器的方法，运行时不支持则为null。构建器是可变的，每个线程池单独创建
+     */
+    protected static final Method OF_VIRTUAL = ofVirtual();
+
+    /**
+     * 退化的线程池
+     */
+    protected ThreadPool fallback = new AdaptiveThreadPool();
+
+    @Override
+    public ThreadPoolExecutor get(final URL url, final ThreadFactory threadFactory, final Function<URL, BlockingQueue> function) {
+        ThreadFactory factory = factory("RPC-VT-" + url.getPort() + "-");
+        if (factory == null) {
+            logger.warn("Virtual thread is not supported by current jvm, use adaptive thread pool instead.");
+            return fallback.get(url, threadFactory, function);
+        }
+        //只有显式配置了最大线程数才限制并发
+        Integer maxSize = url.getPositive(Constants.MAX_SIZE_OPTION.getName(), (Integer) null);
+        return new VirtualThreadExecutor(factory, maxSize == null ? 0 : maxSize);
+    }
+
+    /**
+     * 是否支持虚拟线程
+     *
+     * @return 支持标识
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 反射获取创建虚拟线程构建器的方法
+     *
+     * @return 方法
+     */
+    protected static Method ofVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 构建虚拟线程工厂
+     *
+     * @param prefix 线程名称前缀
+     * @return 线程工厂，不支持返回null
+     */
+    protected static ThreadFactory factory(final String prefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Class<?> type = Class.forName("java.lang.Thread$Builder");
+            Object builder = type.getMethod("name", String.class, long.class).invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) type.getMethod("factory").invoke(builder);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 虚拟线程执行器，继承ThreadPoolExecutor便于复用现有的线程池管理和监控
+     */
+    protected static class VirtualThreadExecutor extends ThreadPoolExecutor {
+        /**
+         * 虚拟线程工厂
+         */
+        protected final ThreadFactory factory;
+        /**
+         * 最大并发，0表示不限制
+         */
+        protected volatile int maxSize;
+        /**
+         * 正在执行的任务数
+         */
+        protected final AtomicInteger actives = new AtomicInteger();
+        /**
+         * 任务数
+         */
+        protected final AtomicLong tasks = new AtomicLong();
+        /**
+         * 完成的任务数
+         */
+        protected final AtomicLong completes = new AtomicLong();
+
+        public VirtualThreadExecutor(final ThreadFactory factory, final int maxSize) {
+            super(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), factory);
+            this.factory = factory;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (command == null) {
+                throw new NullPointerException();
+            } else if (isShutdown()) {
+                throw new RejectedExecutionException("Virtual thread executor is shutdown.");
+            }
+            int max = maxSize;
+            if (actives.incrementAndGet() > max && max > 0) {
+                actives.decrementAndGet();
+                throw new OverloadException("Biz thread pool of provider has bean exhausted", ExceptionCode.PROVIDER_THREAD_EXHAUSTED, 0, true);
+            }
+            tasks.incrementAndGet();
+            try {
+                factory.newThread(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        actives.decrementAndGet();
+                        completes.incrementAndGet();
+                    }
+                }).start();
+            } catch (RuntimeException | Error e) {
+                actives.decrementAndGet();
+                completes.incrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public void setCorePoolSize(final int corePoolSize) {
+            //虚拟线程没有核心线程
+        }
+
+        @Override
+        public int getCorePoolSize() {
+            return 0;
+        }
+
+        @Override
+        public void setMaximumPoolSize(final int maximumPoolSize) {
+            this.maxSize = maximumPoolSize;
+        }
+
+        @Override
+        public int getMaximumPoolSize() {
+            return maxSize > 0 ? maxSize : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getPoolSize() {
+            return actives.get();
+        }
+
+        @Override
+        public int getActiveCount() {
+            return actives.get();
+        }
+
+        @Override
+        public long getTaskCount() {
+            return tasks.get();
+        }
+
+        @Override
+        public long getCompletedTaskCount() {
+            return completes.get();
+        }
+    }
+}
@@ -43,6 +43,21 @@ public interface ChannelBuffer {
      */
     void ensureWritable(int minWritableBytes);
 
+    /**
+     * 获取可写区域的NIO视图，写入视图的数据直接落到缓冲区中，写完后需要调整writerIndex
+     *
+     * @param minWritableBytes 最小可写字节数
+     * @return NIO视图，底层不是单一连续内存时返回null
+     */
+    ByteBuffer writableBuffer(int minWritableBytes);
+
+    /**
+     * 获取可读区域的NIO视图，不复制数据，读完后需要调整readerIndex
+     *
+     * @return NIO视图，底层不是单一连续内存时返回null
+     */
+    ByteBuffer readableBuffer();
+
     void clear();
 
     ChannelBuffer copy();
@@ -97,6 +112,14 @@ public interface ChannelBuffer {
 
     ChannelBuffer readSlice(int length);
 
+    /**
+     * 读取切片并增加引用计数，切片需要单独释放
+     *
+     * @param length 长度
+     * @return 切片
+     */
+    ChannelBuffer readRetainedSlice(int length);
+
     void setByte(int index, int value);
 
     void setBytes(int index, byte[] src);
@@ -20,6 +20,9 @@ package io.joyrpc.transport.channel;
  * #L%
  */
 
+import io.joyrpc.thread.InlineExecutor;
+import io.joyrpc.transport.message.LazyPayload;
+
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -74,16 +77,24 @@ public class ChainChannelHandler implements ChannelHandler {
 
     @Override
     public Object received(final ChannelContext context, final Object message) {
-        if (executor != null) {
-            executor.execute(
-                    runFunc.apply(() -> {
-                        try {
-                            doReceived(context, message);
-                        } catch (Exception e) {
-                            //发生异常，触发异常事件
-                            context.getChannel().fireCaught(e);
-                        }
-                    }));
+        if (executor != null && !(executor instanceof InlineExecutor && ((InlineExecutor) executor).inline(message))) {
+            try {
+                executor.execute(
+                        runFunc.apply(() -> {
+                            try {
+                                doReceived(context, message);
+                            } catch (Exception e) {
+                                //发生异常，触发异常事件
+                                context.getChannel().fireCaught(e);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                //线程池拒绝，释放未解码的消息体
+                if (message instanceof LazyPayload) {
+                    ((LazyPayload) message).discard();
+                }
+                throw e;
+            }
             return null;
         } else {
             //在IO线程中，发生异常，有底层插件捕获
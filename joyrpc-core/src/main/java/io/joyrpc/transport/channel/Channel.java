@@ -54,6 +54,8 @@ public interface Channel {
 
     String PAYLOAD = "PAYLOAD";
 
+    String LAZY_PAYLOAD = "LAZY_PAYLOAD";
+
     String EVENT_PUBLISHER = "EVENT_PUBLISHER";
 
     /**
@@ -220,7 +222,7 @@ public interface Channel {
      *
      * @return
      */
-    FutureManager<Integer, Message> getFutureManager();
+    FutureManager<Message> getFutureManager();
 
     /**
      * 申请一个ChannelBuffer
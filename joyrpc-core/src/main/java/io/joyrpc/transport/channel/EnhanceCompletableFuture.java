@@ -21,7 +21,7 @@ package io.joyrpc.transport.channel;
  */
 
 import io.joyrpc.transport.session.Session;
-import io.joyrpc.util.Timer;
+import io.joyrpc.util.TimeoutWheel.Timeoutable;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,19 +31,19 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * @date: 2019/5/9
  */
-public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
+public class EnhanceCompletableFuture<M> extends CompletableFuture<M> implements Timeoutable {
     /**
      * 消息ID
      */
-    protected final I messageId;
+    protected final int messageId;
     /**
      * 会话
      */
     protected final Session session;
     /**
-     * 超时时间
+     * 截止时间（纳秒）
      */
-    protected final Timer.Timeout timeout;
+    protected final long deadline;
     /**
      * Transport上的请求数
      */
@@ -52,24 +52,28 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
      * 扩展属性
      */
     protected Object attr;
+    /**
+     * 在超时时间轮中的位置
+     */
+    protected int slot = -1;
 
     /**
      * 构造函数
      *
      * @param messageId
      * @param session
-     * @param timeout
+     * @param deadline
      * @param requests
      */
-    public EnhanceCompletableFuture(final I messageId, final Session session, final Timer.Timeout timeout,
+    public EnhanceCompletableFuture(final int messageId, final Session session, final long deadline,
                                     final AtomicInteger requests) {
         this.messageId = messageId;
         this.session = session;
         this.requests = requests;
-        this.timeout = timeout;
+        this.deadline = deadline;
     }
 
-    public I getMessageId() {
+    public int getMessageId() {
         return messageId;
     }
 
@@ -77,8 +81,19 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
         return session;
     }
 
-    public Timer.Timeout getTimeout() {
-        return timeout;
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public void setSlot(int slot) {
+        this.slot = slot;
     }
 
     public Object getAttr() {
@@ -90,12 +105,9 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
     }
 
     /**
-     * 放弃过期检查任务，在从Future管理器移除任务会进行调用
+     * 放弃过期检查任务，在从Future管理器移除任务会进行调用，过期检查任务已经由Future管理器从时间轮中移除
      */
     protected void cancel() {
-        if (timeout != null && !timeout.isExpired()) {
-            timeout.cancel();
-        }
         if (requests != null) {
             requests.decrementAndGet();
         }
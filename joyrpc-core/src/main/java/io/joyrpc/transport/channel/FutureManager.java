@@ -20,24 +20,27 @@ package io.joyrpc.transport.channel;
  * #L%
  */
 
+import io.joyrpc.context.GlobalContext;
 import io.joyrpc.exception.ChannelClosedException;
+import io.joyrpc.extension.MapParametric;
 import io.joyrpc.transport.session.Session;
-import io.joyrpc.util.SystemClock;
-import io.joyrpc.util.Timer;
+import io.joyrpc.util.TimeoutWheel;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.function.IntSupplier;
 
-import static io.joyrpc.util.Timer.timer;
+import static io.joyrpc.constants.Constants.FUTURE_TABLE_CAPACITY;
 
 /**
  * @date: 2019/1/14
  */
-public class FutureManager<I, M> {
+public class FutureManager<M> {
     /**
      * 通道
      */
@@ -45,19 +48,19 @@ public class FutureManager<I, M> {
     /**
      * ID生成器
      */
-    protected Supplier<I> idGenerator;
+    protected IntSupplier idGenerator;
     /**
      * 计数器
      */
     protected AtomicInteger counter = new AtomicInteger();
     /**
-     * 消费者
+     * 超时时间轮，服务端连接很少需要，延迟创建
      */
-    protected Consumer<I> consumer;
+    protected volatile TimeoutWheel<EnhanceCompletableFuture<M>> timeouts;
     /**
      * Future管理，有些连接并发很少不需要初始化
      */
-    protected Map<I, EnhanceCompletableFuture<I, M>> futures = new ConcurrentHashMap<>();
+    protected volatile FutureTable<M> futures;
 
     /**
      * 构造函数
@@ -65,17 +68,9 @@ public class FutureManager<I, M> {
      * @param channel
      * @param idGenerator
      */
-    public FutureManager(final Channel channel, final Supplier<I> idGenerator) {
+    public FutureManager(final Channel channel, final IntSupplier idGenerator) {
         this.channel = channel;
         this.idGenerator = idGenerator;
-        this.consumer = id -> {
-            EnhanceCompletableFuture<I, M> future = futures.remove(id);
-            if (future != null) {
-                counter.decrementAndGet();
-                //超时
-                future.completeExceptionally(new TimeoutException("future is timeout."));
-            }
-        };
     }
 
     /**
@@ -85,7 +80,7 @@ public class FutureManager<I, M> {
      * @param timeoutMillis
      * @return
      */
-    public EnhanceCompletableFuture<I, M> create(final I messageId, final long timeoutMillis) {
+    public EnhanceCompletableFuture<M> create(final int messageId, final long timeoutMillis) {
         return create(messageId, timeoutMillis, null, null);
     }
 
@@ -98,15 +93,21 @@ public class FutureManager<I, M> {
      * @param requests      当前Transport正在处理的请求数
      * @return
      */
-    public EnhanceCompletableFuture<I, M> create(final I messageId, final long timeoutMillis, final Session session,
-                                                 final AtomicInteger requests) {
-        return futures.computeIfAbsent(messageId, o -> {
-            //增加计数器
-            counter.incrementAndGet();
-            return new EnhanceCompletableFuture<>(o, session,
-                    timer().add(new FutureTimeoutTask<>(messageId, SystemClock.now() + timeoutMillis, consumer)),
-                    requests);
-        });
+    public EnhanceCompletableFuture<M> create(final int messageId, final long timeoutMillis, final Session session,
+                                              final AtomicInteger requests) {
+        EnhanceCompletableFuture<M> future = new EnhanceCompletableFuture<>(messageId, session,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), requests);
+        EnhanceCompletableFuture<M> exists = getFutures().putIfAbsent(future);
+        if (exists != null) {
+            return exists;
+        }
+        //增加计数器
+        counter.incrementAndGet();
+        //添加到超时时间轮，失败说明已经超时
+        if (!getTimeouts().add(future)) {
+            expire(future);
+        }
+        return future;
     }
 
     /**
@@ -115,8 +116,9 @@ public class FutureManager<I, M> {
      * @param messageId
      * @return
      */
-    public EnhanceCompletableFuture<I, M> get(final I messageId) {
-        return futures.get(messageId);
+    public EnhanceCompletableFuture<M> get(final int messageId) {
+        FutureTable<M> table = futures;
+        return table == null ? null : table.get(messageId);
     }
 
     /**
@@ -125,10 +127,14 @@ public class FutureManager<I, M> {
      * @param messageId
      * @return
      */
-    public EnhanceCompletableFuture<I, M> remove(final I messageId) {
-        EnhanceCompletableFuture<I, M> result = futures.remove(messageId);
+    public EnhanceCompletableFuture<M> remove(final int messageId) {
+        FutureTable<M> table = futures;
+        EnhanceCompletableFuture<M> result = table == null ? null : table.remove(messageId);
         if (result != null) {
             //放弃过期检查任务
+            if (timeouts != null) {
+                timeouts.remove(result);
+            }
             result.cancel();
             //减少计数器
             counter.decrementAndGet();
@@ -148,12 +154,18 @@ public class FutureManager<I, M> {
      * @return
      */
     public void close() {
-        Map<I, EnhanceCompletableFuture<I, M>> futures = this.futures;
-        this.futures = new ConcurrentHashMap<>();
+        FutureTable<M> table = futures;
         this.counter = new AtomicInteger();
-        Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
-        futures.forEach((id, future) -> future.cancel(exception));
-        futures.clear();
+        if (table != null) {
+            Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
+            TimeoutWheel<EnhanceCompletableFuture<M>> wheel = timeouts;
+            table.clear(future -> {
+                if (wheel != null) {
+                    wheel.remove(future);
+                }
+                future.cancel(exception);
+            });
+        }
     }
 
     /**
@@ -161,8 +173,8 @@ public class FutureManager<I, M> {
      *
      * @return
      */
-    public I generateId() {
-        return idGenerator.get();
+    public int generateId() {
+        return idGenerator.getAsInt();
     }
 
     /**
@@ -184,51 +196,445 @@ public class FutureManager<I, M> {
     }
 
     /**
-     * Future超时检查任务
+     * 获取Future表
+     *
+     * @return
+     */
+    protected FutureTable<M> getFutures() {
+        if (futures == null) {
+            synchronized (this) {
+                if (futures == null) {
+                    futures = new FutureTable<>(new MapParametric(GlobalContext.getContext()).getPositive(FUTURE_TABLE_CAPACITY, 1024));
+                }
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * 获取超时时间轮
+     *
+     * @return
+     */
+    protected TimeoutWheel<EnhanceCompletableFuture<M>> getTimeouts() {
+        if (timeouts == null) {
+            synchronized (this) {
+                if (timeouts == null) {
+                    timeouts = TimeoutWheel.create(this::expire);
+                }
+            }
+        }
+        return timeouts;
+    }
+
+    /**
+     * 超时处理
+     *
+     * @param future
+     */
+    protected void expire(final EnhanceCompletableFuture<M> future) {
+        FutureTable<M> table = futures;
+        if (table != null && table.remove(future)) {
+            counter.decrementAndGet();
+            //超时
+            future.completeExceptionally(new TimeoutException("future is timeout."));
+        }
+    }
+
+    /**
+     * Future表，按照消息ID的低位分段，连续的消息ID落在不同的分段上，减少发送线程之间的竞争
+     *
+     * @param <M>
+     */
+    protected static class FutureTable<M> {
+        /**
+         * 分段数量
+         */
+        protected static final int SEGMENTS = 16;
+        /**
+         * 分段
+         */
+        protected final Segment<M>[] segments;
+
+        /**
+         * 构造函数
+         *
+         * @param capacity 初始容量
+         */
+        @SuppressWarnings("unchecked")
+        public FutureTable(final int capacity) {
+            this.segments = new Segment[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment<>(capacity / SEGMENTS);
+            }
+        }
+
+        /**
+         * 获取消息ID所在的分段
+         *
+         * @param id 消息ID
+         * @return 分段
+         */
+        protected Segment<M> segment(final int id) {
+            return segments[id & (SEGMENTS - 1)];
+        }
+
+        /**
+         * 添加
+         *
+         * @param future
+         * @return 存在相同消息ID的Future则返回该Future，否则返回null
+         */
+        public EnhanceCompletableFuture<M> putIfAbsent(final EnhanceCompletableFuture<M> future) {
+            return segment(future.getMessageId()).putIfAbsent(future);
+        }
+
+        /**
+         * 获取
+         *
+         * @param id 消息ID
+         * @return
+         */
+        public EnhanceCompletableFuture<M> get(final int id) {
+            return segment(id).get(id);
+        }
+
+        /**
+         * 移除
+         *
+         * @param id 消息ID
+         * @return
+         */
+        public EnhanceCompletableFuture<M> remove(final int id) {
+            return segment(id).remove(id);
+        }
+
+        /**
+         * 移除指定的Future
+         *
+         * @param future
+         * @return 成功标识
+         */
+        public boolean remove(final EnhanceCompletableFuture<M> future) {
+            return segment(future.getMessageId()).remove(future);
+        }
+
+        /**
+         * 清空
+         *
+         * @param consumer 消费者
+         */
+        public void clear(final Consumer<EnhanceCompletableFuture<M>> consumer) {
+            for (Segment<M> segment : segments) {
+                segment.clear(consumer);
+            }
+        }
+    }
+
+    /**
+     * Future表的分段，开放寻址的线性探测哈希表，容量保持在占用槽数的2倍以上。<br/>
+     * 消息ID是递增的，直接取低位会让长时间未应答的请求连成长串，采用斐波那契散列打散。<br/>
+     * 应答线程的查找和删除不加锁，删除通过CAS把槽替换成墓碑；添加、扩缩容和清空在分段锁里面进行，
+     * 扩缩容的时候把旧数组的槽替换成迁移标记，并发删除遇到迁移标记则到新数组上重试。
      *
-     * @param <I>
+     * @param <M>
      */
-    protected static class FutureTimeoutTask<I> implements Timer.TimeTask {
-        public static final String FUTURE_TIMEOUT = "FutureTimeout-";
+    protected static class Segment<M> {
+        /**
+         * 墓碑，已经删除的槽
+         */
+        protected static final Object TOMBSTONE = new Object();
+        /**
+         * 迁移标记，槽已经迁移到新数组
+         */
+        protected static final Object MOVED = new Object();
+        /**
+         * 最小容量
+         */
+        protected final int minCapacity;
         /**
-         * 消息ID
+         * 数组槽
          */
-        protected I messageId;
+        protected volatile Slots slots;
         /**
-         * 时间
+         * 有效元素数量
          */
-        protected long time;
+        protected final AtomicInteger size = new AtomicInteger();
         /**
-         * 执行回调的消费者
+         * 占用的槽数量，包括墓碑，只在锁里面修改
          */
-        protected Consumer<I> consumer;
+        protected int used;
 
         /**
          * 构造函数
          *
-         * @param messageId
-         * @param time
-         * @param consumer
+         * @param capacity 初始容量，会调整为2的幂
+         */
+        public Segment(final int capacity) {
+            this.minCapacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+            this.slots = new Slots(minCapacity);
+        }
+
+        /**
+         * 添加
+         *
+         * @param future
+         * @return 存在相同消息ID的Future则返回该Future，否则返回null
+         */
+        public synchronized EnhanceCompletableFuture<M> putIfAbsent(final EnhanceCompletableFuture<M> future) {
+            int id = future.getMessageId();
+            Slots table = slots;
+            int index = table.hash(id);
+            int free = -1;
+            Object exists;
+            //探测到空槽为止，确认不存在相同的消息ID，优先复用墓碑
+            while ((exists = table.array.get(index)) != null) {
+                if (exists == TOMBSTONE) {
+                    if (free < 0) {
+                        free = index;
+                    }
+                } else if (((EnhanceCompletableFuture<M>) exists).getMessageId() == id) {
+                    return (EnhanceCompletableFuture<M>) exists;
+                }
+                index = (index + 1) & table.mask;
+            }
+            if (free < 0) {
+                free = index;
+                used++;
+            }
+            table.array.set(free, future);
+            int count = size.incrementAndGet();
+            int length = table.array.length();
+            if (used > (length >> 1) || length > minCapacity && count < (length >> 3)) {
+                //装载因子超过一半，或者请求高峰过后，按照有效元素数量重建
+                resize(count);
+            }
+            return null;
+        }
+
+        /**
+         * 获取，不加锁
+         *
+         * @param id 消息ID
+         * @return
+         */
+        public EnhanceCompletableFuture<M> get(final int id) {
+            Slots table = slots;
+            int index = table.hash(id);
+            Object exists;
+            while ((exists = table.array.get(index)) != null) {
+                if (exists == MOVED) {
+                    table = await(table);
+                    index = table.hash(id);
+                    continue;
+                } else if (exists != TOMBSTONE && ((EnhanceCompletableFuture<M>) exists).getMessageId() == id) {
+                    return (EnhanceCompletableFuture<M>) exists;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return null;
+        }
+
+        /**
+         * 移除，不加锁
+         *
+         * @param id 消息ID
+         * @return
+         */
+        public EnhanceCompletableFuture<M> remove(final int id) {
+            Slots table = slots;
+            int index = table.hash(id);
+            Object exists;
+            while ((exists = table.array.get(index)) != null) {
+                if (exists == MOVED) {
+                    table = await(table);
+                    index = table.hash(id);
+                    continue;
+                } else if (exists != TOMBSTONE && ((EnhanceCompletableFuture<M>) exists).getMessageId() == id) {
+                    if (table.array.compareAndSet(index, exists, TOMBSTONE)) {
+                        size.decrementAndGet();
+                        return (EnhanceCompletableFuture<M>) exists;
+                    }
+                    //被并发删除或者迁移，重新读取该槽
+                    continue;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return null;
+        }
+
+        /**
+         * 移除指定的Future，不加锁
+         *
+         * @param future
+         * @return 成功标识
+         */
+        public boolean remove(final EnhanceCompletableFuture<M> future) {
+            int id = future.getMessageId();
+            Slots table = slots;
+            int index = table.hash(id);
+            Object exists;
+            while ((exists = table.array.get(index)) != null) {
+                if (exists == MOVED) {
+                    table = await(table);
+                    index = table.hash(id);
+                    continue;
+                } else if (exists == future) {
+                    if (table.array.compareAndSet(index, future, TOMBSTONE)) {
+                        size.decrementAndGet();
+                        return true;
+                    }
+                    continue;
+                } else if (exists != TOMBSTONE && ((EnhanceCompletableFuture<M>) exists).getMessageId() == id) {
+                    //相同消息ID的其它Future
+                    return false;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return false;
+        }
+
+        /**
+         * 清空
+         *
+         * @param consumer 消费者
+         */
+        public void clear(final Consumer<EnhanceCompletableFuture<M>> consumer) {
+            List<EnhanceCompletableFuture<M>> removed = new LinkedList<>();
+            synchronized (this) {
+                Slots table = slots;
+                Object exists;
+                for (int i = 0; i < table.array.length(); i++) {
+                    exists = transfer(table, i);
+                    if (exists != null) {
+                        removed.add((EnhanceCompletableFuture<M>) exists);
+                    }
+                }
+                size.addAndGet(-removed.size());
+                used = 0;
+                slots = new Slots(minCapacity);
+            }
+            //在锁外面回调，避免回调里面再操作
+            removed.forEach(consumer);
+        }
+
+        /**
+         * 按照有效元素数量重建数组，清理墓碑
+         *
+         * @param count 有效元素数量
+         */
+        protected void resize(final int count) {
+            Slots table = slots;
+            //新数组的装载因子在四分之一左右
+            int capacity = Math.max(minCapacity, Integer.highestOneBit(count) << 3);
+            Slots target = new Slots(capacity);
+            Object exists;
+            int index;
+            used = 0;
+            for (int i = 0; i < table.array.length(); i++) {
+                exists = transfer(table, i);
+                if (exists != null) {
+                    index = target.hash(((EnhanceCompletableFuture<M>) exists).getMessageId());
+                    while (target.array.get(index) != null) {
+                        index = (index + 1) & target.mask;
+                    }
+                    target.array.set(index, exists);
+                    used++;
+                }
+            }
+            slots = target;
+        }
+
+        /**
+         * 把槽替换成迁移标记
+         *
+         * @param table 旧数组
+         * @param index 槽位置
+         * @return 槽上的有效元素
          */
-        public FutureTimeoutTask(I messageId, long time, Consumer<I> consumer) {
-            this.messageId = messageId;
-            this.time = time;
-            this.consumer = consumer;
+        protected Object transfer(final Slots table, final int index) {
+            Object exists;
+            while (true) {
+                exists = table.array.get(index);
+                if (exists == null || exists == TOMBSTONE) {
+                    //锁里面不会有新增，墓碑也不会再变化
+                    return null;
+                } else if (table.array.compareAndSet(index, exists, MOVED)) {
+                    return exists;
+                }
+            }
         }
 
-        @Override
-        public String getName() {
-            return FUTURE_TIMEOUT + messageId.toString();
+        /**
+         * 等待新数组发布
+         *
+         * @param table 旧数组
+         * @return 新数组
+         */
+        protected Slots await(final Slots table) {
+            Slots result;
+            while ((result = slots) == table) {
+                Thread.yield();
+            }
+            return result;
         }
 
-        @Override
-        public long getTime() {
-            return time;
+        /**
+         * 起始槽
+         *
+         * @param id 消息ID
+         * @return 槽位置
+         */
+        protected int hash(final int id) {
+            return slots.hash(id);
         }
 
-        @Override
-        public void run() {
-            consumer.accept(messageId);
+        /**
+         * 容量
+         *
+         * @return 容量
+         */
+        protected int capacity() {
+            return slots.array.length();
+        }
+    }
+
+    /**
+     * 数组槽
+     */
+    protected static class Slots {
+        /**
+         * 数组
+         */
+        protected final AtomicReferenceArray<Object> array;
+        /**
+         * 掩码
+         */
+        protected final int mask;
+        /**
+         * 散列的右移位数
+         */
+        protected final int shift;
+
+        /**
+         * 构造函数
+         *
+         * @param capacity 容量，2的幂
+         */
+        public Slots(final int capacity) {
+            this.array = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        /**
+         * 起始槽
+         *
+         * @param id 消息ID
+         * @return 槽位置
+         */
+        protected int hash(final int id) {
+            return (id * 0x9E3779B9) >>> shift;
         }
     }
 
@@ -0,0 +1,232 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.event.AsyncResult;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.transport.ClientTransport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 多连接通道管理器，每个节点维护多个物理连接，客户端按照连接负载或轮询分配到不同的连接上。<br>
+ * 每个连接有独立的心跳，客户端在分配到的连接上进行协商和认证。按负载分配时，连接数随负载增减：
+ * 只有在用的连接负载都达到阈值才新建连接，连接上没有客户端后自动关闭
+ */
+public class StripedChannelManager extends AbstractChannelManager implements ChannelManager {
+
+    public static final String ROUND_ROBIN = "roundRobin";
+
+    /**
+     * 每个节点的最大连接数
+     */
+    protected int connections;
+    /**
+     * 每个客户端预计的在途请求数
+     */
+    protected int pendings;
+    /**
+     * 新建连接的负载阈值
+     */
+    protected int threshold;
+    /**
+     * 是否轮询
+     */
+    protected boolean roundRobin;
+    /**
+     * 节点的连接分配，键为连接名称前缀
+     */
+    protected Map<String, Stripes> stripes = new ConcurrentHashMap<>();
+    /**
+     * 连接名称对应的连接，用于在连接完成后释放预留
+     */
+    protected Map<String, Stripe> names = new ConcurrentHashMap<>();
+
+    public StripedChannelManager(URL url) {
+        super(url);
+        this.connections = url.getPositiveInt(STRIPE_CONNECTIONS_OPTION);
+        this.pendings = url.getPositiveInt(STRIPE_PENDINGS_OPTION);
+        this.threshold = url.getPositiveInt(STRIPE_THRESHOLD_OPTION);
+        this.roundRobin = ROUND_ROBIN.equals(url.getString(STRIPE_POLICY_OPTION));
+    }
+
+    @Override
+    public String getChannelKey(final ClientTransport transport) {
+        if (transport == null) {
+            return null;
+        }
+        URL url = transport.getUrl();
+        String prefix = "ch-striped-" + url.getProtocol() + "-" + url.getHost() + "-" + url.getPort() + "-";
+        Stripes stripe = stripes.computeIfAbsent(prefix, Stripes::new);
+        return (roundRobin ? stripe.roundRobin() : stripe.leastLoad()).name;
+    }
+
+    @Override
+    public void getChannel(final ClientTransport transport,
+                           final Consumer<AsyncResult<Channel>> consumer,
+                           final Connector connector) {
+        //连接完成后由连接的引用计数代替预留的客户端数
+        String name = transport.getChannelName();
+        Stripe stripe = name == null ? null : names.get(name);
+        if (stripe == null) {
+            super.getChannel(transport, consumer, connector);
+        } else {
+            super.getChannel(transport, r -> {
+                stripe.release();
+                if (consumer != null) {
+                    consumer.accept(r);
+                }
+            }, connector);
+        }
+    }
+
+    /**
+     * 连接上的在途请求数
+     *
+     * @param channel 连接
+     * @return 在途请求数
+     */
+    protected int pending(final PoolChannel channel) {
+        //正在建立连接
+        Channel ch = channel.channel;
+        return ch == null ? 0 : ch.getFutureManager().size();
+    }
+
+    /**
+     * 节点的一个连接
+     */
+    protected static class Stripe {
+        /**
+         * 连接序号
+         */
+        protected final int index;
+        /**
+         * 连接名称
+         */
+        protected final String name;
+        /**
+         * 已经分配但是还没有完成连接的客户端数，由所属的Stripes加锁保护
+         */
+        protected int reserves;
+        /**
+         * 所属的节点
+         */
+        protected final Stripes owner;
+
+        public Stripe(final Stripes owner, final int index) {
+            this.owner = owner;
+            this.index = index;
+            this.name = owner.prefix + index;
+        }
+
+        /**
+         * 客户端连接完成，释放预留
+         */
+        public void release() {
+            synchronized (owner) {
+                if (reserves > 0) {
+                    reserves--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 节点的多个连接
+     */
+    protected class Stripes {
+        /**
+         * 前缀
+         */
+        protected final String prefix;
+        /**
+         * 连接
+         */
+        protected final Stripe[] stripes;
+        /**
+         * 轮询计数器
+         */
+        protected final AtomicInteger counter = new AtomicInteger();
+
+        public Stripes(final String prefix) {
+            this.prefix = prefix;
+            this.stripes = new Stripe[connections];
+            for (int i = 0; i < connections; i++) {
+                stripes[i] = new Stripe(this, i);
+                names.put(stripes[i].name, stripes[i]);
+            }
+        }
+
+        /**
+         * 轮询选择连接
+         *
+         * @return 连接
+         */
+        public Stripe roundRobin() {
+            return stripes[(counter.getAndIncrement() & Integer.MAX_VALUE) % connections];
+        }
+
+        /**
+         * 选择负载最小的在用连接，负载为在途请求数加上客户端数乘以每个客户端预计的在途请求数。<br>
+         * 没有在用连接，或者在用连接的负载都达到阈值，则启用一个空闲的连接
+         *
+         * @return 连接
+         */
+        public synchronized Stripe leastLoad() {
+            Stripe best = null;
+            Stripe idle = null;
+            long min = Long.MAX_VALUE;
+            long load;
+            int transports;
+            PoolChannel channel;
+            for (Stripe stripe : stripes) {
+                channel = channels.get(stripe.name);
+                transports = stripe.reserves;
+                if (channel != null) {
+                    transports += (int) channel.counter.get();
+                } else if (transports == 0) {
+                    //空闲的连接
+                    if (idle == null) {
+                        idle = stripe;
+                    }
+                    continue;
+                }
+                load = (channel == null ? 0 : pending(channel)) + (long) transports * pendings;
+                if (load < min) {
+                    min = load;
+                    best = stripe;
+                }
+            }
+            if (best == null || idle != null && min >= threshold) {
+                best = idle;
+            }
+            best.reserves++;
+            return best;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package io.joyrpc.transport.message;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 延迟解码的消息，解码器只解析消息头，消息体在业务线程中反序列化
+ */
+public interface LazyPayload {
+
+    /**
+     * 是否存在未解码的消息体
+     *
+     * @return 未解码标识
+     */
+    boolean isLazy();
+
+    /**
+     * 解码消息体，并释放缓冲区
+     */
+    void decode();
+
+    /**
+     * 丢弃未解码的消息体，释放缓冲区
+     */
+    void discard();
+
+}
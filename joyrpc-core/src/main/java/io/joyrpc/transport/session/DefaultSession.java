@@ -73,6 +73,14 @@ public class DefaultSession implements RpcSession {
      * 压缩算法
      */
     protected Compression compression;
+    /**
+     * 压缩的预置字典
+     */
+    protected byte[] dictionary;
+    /**
+     * 头部字符串字典
+     */
+    protected StringTable stringTable;
 
     /**
      * 校验和算法
@@ -201,6 +209,26 @@ public class DefaultSession implements RpcSession {
         this.compression = compression;
     }
 
+    @Override
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void setDictionary(final byte[] dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public StringTable getStringTable() {
+        return stringTable;
+    }
+
+    @Override
+    public void setStringTable(final StringTable stringTable) {
+        this.stringTable = stringTable;
+    }
+
     @Override
     public Checksum getChecksum() {
         return checksum;
@@ -163,6 +163,37 @@ public interface Session {
      */
     void setCompression(Compression compression);
 
+    /**
+     * 获取压缩的预置字典
+     *
+     * @return 字典
+     */
+    byte[] getDictionary();
+
+    /**
+     * 设置压缩的预置字典
+     *
+     * @param dictionary 字典
+     */
+    void setDictionary(byte[] dictionary);
+
+    /**
+     * 获取头部字符串字典，没有协商返回null
+     *
+     * @return 字符串字典
+     */
+    default StringTable getStringTable() {
+        return null;
+    }
+
+    /**
+     * 设置头部字符串字典
+     *
+     * @param stringTable 字符串字典
+     */
+    default void setStringTable(StringTable stringTable) {
+    }
+
     /**
      * 获取校验和
      *
@@ -20,11 +20,14 @@ package io.joyrpc.transport.session;
  * #L%
  */
 
+import io.joyrpc.extension.Converts;
 import io.joyrpc.util.SystemClock;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static io.joyrpc.constants.Constants.HEADER_DICTIONARY_OPTION;
+
 /**
  * 会话管理器
  *
@@ -71,6 +74,7 @@ public class SessionManager {
             return null;
         }
         session.setLastTime(SystemClock.now());
+        bindStringTable(session);
         return sessions.putIfAbsent(sessionId, session);
     }
 
@@ -86,9 +90,22 @@ public class SessionManager {
             return null;
         }
         session.setLastTime(SystemClock.now());
+        bindStringTable(session);
         return sessions.put(sessionId, session);
     }
 
+    /**
+     * 双方协商了头部字符串字典，则为会话创建字典
+     *
+     * @param session 会话
+     */
+    protected void bindStringTable(final Session session) {
+        if (session.getStringTable() == null
+                && Converts.getBoolean(session.get(HEADER_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+            session.setStringTable(new StringTable());
+        }
+    }
+
     /**
      * 移除会话
      *
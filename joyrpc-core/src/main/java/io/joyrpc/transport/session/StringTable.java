@@ -0,0 +1,147 @@
+package io.joyrpc.transport.session;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话字符串字典，会话上重复出现的头部字符串用字典索引替换。<br/>
+ * 编码端在字符串第二次出现的时候分配索引并随消息下发定义，解码端按照索引保存，后续消息只传输索引。
+ * 同一个会话的消息在通道上按序编解码，定义总是先于引用到达。
+ */
+public class StringTable {
+
+    /**
+     * 最大条目数
+     */
+    public static final int MAX_SIZE = 1024;
+    /**
+     * 字符串最大长度
+     */
+    public static final int MAX_LENGTH = 256;
+    /**
+     * 候选字符串的最大数量，超过则清理
+     */
+    protected static final int MAX_CANDIDATES = 4096;
+
+    /**
+     * 编码端的索引
+     */
+    protected final Map<String, Integer> indexes = new HashMap<>();
+    /**
+     * 编码端的候选字符串
+     */
+    protected final Map<String, Boolean> candidates = new HashMap<>();
+    /**
+     * 当前消息新分配的字符串，编码失败的时候回滚
+     */
+    protected final List<String> pending = new ArrayList<>(4);
+    /**
+     * 解码端的字符串
+     */
+    protected final String[] strings = new String[MAX_SIZE];
+
+    /**
+     * 获取字符串的索引
+     *
+     * @param value 字符串
+     * @return 索引，不存在返回-1
+     */
+    public synchronized int index(final String value) {
+        Integer result = indexes.get(value);
+        return result == null ? -1 : result;
+    }
+
+    /**
+     * 尝试为字符串分配索引，第二次出现才分配
+     *
+     * @param value 字符串
+     * @return 新分配的索引，不满足条件返回-1
+     */
+    public synchronized int define(final String value) {
+        if (value.length() > MAX_LENGTH || indexes.size() >= MAX_SIZE) {
+            return -1;
+        } else if (candidates.remove(value) == null) {
+            if (candidates.size() >= MAX_CANDIDATES) {
+                candidates.clear();
+            }
+            candidates.put(value, Boolean.TRUE);
+            return -1;
+        }
+        int result = indexes.size();
+        indexes.put(value, result);
+        pending.add(value);
+        return result;
+    }
+
+    /**
+     * 消息编码成功，确认新分配的索引
+     */
+    public synchronized void commit() {
+        if (!pending.isEmpty()) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * 消息编码失败，回滚新分配的索引
+     */
+    public synchronized void rollback() {
+        if (!pending.isEmpty()) {
+            for (String value : pending) {
+                indexes.remove(value);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * 解码端保存字符串定义
+     *
+     * @param index 索引
+     * @param value 字符串
+     */
+    public void put(final int index, final String value) {
+        if (index < 0 || index >= MAX_SIZE) {
+            throw new IllegalArgumentException("string table index is out of range. " + index);
+        }
+        strings[index] = value;
+    }
+
+    /**
+     * 解码端获取字符串
+     *
+     * @param index 索引
+     * @return 字符串
+     */
+    public String get(final int index) {
+        String result = index < 0 || index >= MAX_SIZE ? null : strings[index];
+        if (result == null) {
+            throw new IllegalStateException("string table index is not defined. " + index);
+        }
+        return result;
+    }
+}
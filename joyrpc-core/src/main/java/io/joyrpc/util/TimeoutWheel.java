@@ -0,0 +1,555 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.MapParametric;
+import io.joyrpc.extension.Parametric;
+import io.joyrpc.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static io.joyrpc.Plugin.ENVIRONMENT;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 超时时间轮，用于大量请求的超时检查<br/>
+ * 每个实例独立存储超时任务，由共享的驱动线程推进。任务本身作为时间槽数组的元素，不需要额外创建超时对象，放弃任务直接从槽中移除。
+ */
+public class TimeoutWheel<T extends TimeoutWheel.Timeoutable> {
+
+    private final static Logger logger = LoggerFactory.getLogger(TimeoutWheel.class);
+
+    /**
+     * 默认驱动
+     */
+    protected static volatile Driver[] drivers;
+    /**
+     * 驱动分配序号
+     */
+    protected static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    /**
+     * 驱动
+     */
+    protected final Driver driver;
+    /**
+     * 时间槽
+     */
+    protected final Bucket[] buckets;
+    /**
+     * 掩码
+     */
+    protected final int mask;
+    /**
+     * 超时消费者
+     */
+    protected final Consumer<T> consumer;
+    /**
+     * 待处理的任务数
+     */
+    protected final AtomicInteger pending = new AtomicInteger();
+    /**
+     * 已经处理完的跳数
+     */
+    protected volatile long cursor;
+    /**
+     * 是否在驱动中激活
+     */
+    protected volatile boolean active;
+    /**
+     * 连续空闲的跳数
+     */
+    protected int idles;
+
+    /**
+     * 构造函数
+     *
+     * @param driver   驱动
+     * @param consumer 超时消费者
+     */
+    protected TimeoutWheel(final Driver driver, final Consumer<T> consumer) {
+        this.driver = driver;
+        this.consumer = consumer;
+        this.buckets = new TimeoutWheel.Bucket[driver.ticks];
+        this.mask = driver.ticks - 1;
+        this.cursor = driver.tick(System.nanoTime());
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 使用默认的驱动创建时间轮
+     *
+     * @param consumer 超时消费者
+     * @param <T>
+     * @return 时间轮
+     */
+    public static <T extends Timeoutable> TimeoutWheel<T> create(final Consumer<T> consumer) {
+        Driver[] ds = drivers;
+        if (ds == null) {
+            synchronized (TimeoutWheel.class) {
+                ds = drivers;
+                if (ds == null) {
+                    Parametric parametric = new MapParametric(GlobalContext.getContext());
+                    int threads = parametric.getPositive(TIMEOUT_WHEEL_THREADS, 1);
+                    long tick = parametric.getPositive(TIMEOUT_WHEEL_TICK, 1000L);
+                    int ticks = parametric.getPositive(TIMEOUT_WHEEL_TICKS, 512);
+                    int workers = parametric.getPositive(TIMER_THREADS, Math.min(ENVIRONMENT.get().cpuCores() * 2 + 2, 10));
+                    ds = new Driver[threads];
+                    for (int i = 0; i < threads; i++) {
+                        ds[i] = new Driver("timeout-" + i, TimeUnit.MICROSECONDS.toNanos(tick), ticks, workers);
+                    }
+                    drivers = ds;
+                }
+            }
+        }
+        //按照顺序分配到不同的驱动线程
+        return ds[(SEQUENCE.getAndIncrement() & Integer.MAX_VALUE) % ds.length].create(consumer);
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param task 任务
+     * @return 成功标识，任务已经过期返回false
+     */
+    public boolean add(final T task) {
+        long deadline = task.getDeadline();
+        if (deadline <= System.nanoTime()) {
+            return false;
+        }
+        long tick = driver.deadline(deadline);
+        pending.incrementAndGet();
+        Bucket bucket = buckets[(int) (tick & mask)];
+        boolean result;
+        synchronized (bucket) {
+            //该跳已经处理完毕，说明任务已经过期
+            result = tick > cursor && bucket.add(task);
+        }
+        if (!result) {
+            pending.decrementAndGet();
+        } else if (!active) {
+            activate();
+        }
+        return result;
+    }
+
+    /**
+     * 放弃任务，直接从时间槽中移除
+     *
+     * @param task 任务
+     * @return 成功标识
+     */
+    public boolean remove(final T task) {
+        Bucket bucket = buckets[(int) (driver.deadline(task.getDeadline()) & mask)];
+        boolean result;
+        synchronized (bucket) {
+            result = bucket.remove(task);
+        }
+        if (result) {
+            pending.decrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * 待处理的任务数
+     *
+     * @return 任务数
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    /**
+     * 激活
+     */
+    protected synchronized void activate() {
+        if (!active) {
+            active = true;
+            idles = 0;
+            driver.wheels.add(this);
+        }
+    }
+
+    /**
+     * 空闲一圈后从驱动中移除，防止驱动线程遍历过多的时间轮
+     */
+    protected synchronized void deactivate() {
+        if (++idles >= buckets.length) {
+            active = false;
+            if (pending.get() > 0) {
+                //并发添加了任务
+                active = true;
+                idles = 0;
+            } else {
+                driver.wheels.remove(this);
+            }
+        }
+    }
+
+    /**
+     * 推进时间，处理过期任务
+     *
+     * @param now     当前时间（纳秒）
+     * @param expires 过期任务缓冲区
+     */
+    protected void advance(final long now, final List<T> expires) {
+        long target = driver.tick(now);
+        long from = cursor;
+        if (target <= from) {
+            return;
+        }
+        if (pending.get() == 0) {
+            //没有任务，直接推进
+            cursor = target;
+            if (pending.get() == 0) {
+                deactivate();
+                return;
+            }
+            //推进过程中并发添加了任务，补偿扫描
+            expire(from + 1, target, false, expires);
+        } else {
+            idles = 0;
+            expire(from + 1, target, true, expires);
+        }
+    }
+
+    /**
+     * 处理过期任务
+     *
+     * @param from    开始跳数
+     * @param to      结束跳数
+     * @param forward 是否推进游标
+     * @param expires 过期任务缓冲区
+     */
+    protected void expire(final long from, final long to, final boolean forward, final List<T> expires) {
+        //落后超过一圈，每个槽只需要处理一次
+        long start = Math.max(from, to - buckets.length + 1);
+        Bucket bucket;
+        for (long tick = start; tick <= to; tick++) {
+            bucket = buckets[(int) (tick & mask)];
+            synchronized (bucket) {
+                if (forward) {
+                    cursor = tick;
+                }
+                bucket.expire(tick, expires);
+            }
+        }
+        if (!expires.isEmpty()) {
+            pending.addAndGet(-expires.size());
+            for (T task : expires) {
+                driver.workers.submit(() -> consumer.accept(task));
+            }
+            expires.clear();
+        }
+    }
+
+    /**
+     * 时间槽，采用数组存储任务，任务记录自身在数组中的位置
+     */
+    protected class Bucket {
+        /**
+         * 任务，延迟创建
+         */
+        protected Object[] tasks;
+        /**
+         * 数量
+         */
+        protected int size;
+        /**
+         * 已经放弃的任务数量
+         */
+        protected int holes;
+
+        /**
+         * 添加任务
+         *
+         * @param task 任务
+         * @return 成功标识
+         */
+        protected boolean add(final T task) {
+            if (tasks == null) {
+                tasks = new Object[8];
+            } else if (size == tasks.length) {
+                if (holes > 0) {
+                    compact();
+                }
+                if (size == tasks.length) {
+                    Object[] values = new Object[tasks.length << 1];
+                    System.arraycopy(tasks, 0, values, 0, size);
+                    tasks = values;
+                }
+            }
+            task.setSlot(size);
+            tasks[size++] = task;
+            return true;
+        }
+
+        /**
+         * 移除任务
+         *
+         * @param task 任务
+         * @return 成功标识
+         */
+        protected boolean remove(final T task) {
+            int slot = task.getSlot();
+            if (slot >= 0 && slot < size && tasks[slot] == task) {
+                tasks[slot] = null;
+                task.setSlot(-1);
+                if (slot == size - 1) {
+                    size--;
+                } else {
+                    holes++;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 压缩空洞
+         */
+        protected void compact() {
+            int j = 0;
+            Object task;
+            for (int i = 0; i < size; i++) {
+                task = tasks[i];
+                if (task != null) {
+                    if (i != j) {
+                        tasks[j] = task;
+                        ((Timeoutable) task).setSlot(j);
+                    }
+                    j++;
+                }
+            }
+            for (int i = j; i < size; i++) {
+                tasks[i] = null;
+            }
+            size = j;
+            holes = 0;
+        }
+
+        /**
+         * 取出到期的任务，后续圈数的任务保留
+         *
+         * @param tick    当前跳数
+         * @param expires 过期任务缓冲区
+         */
+        protected void expire(final long tick, final List<T> expires) {
+            if (size == 0) {
+                return;
+            }
+            int j = 0;
+            T task;
+            for (int i = 0; i < size; i++) {
+                task = (T) tasks[i];
+                if (task != null) {
+                    if (driver.deadline(task.getDeadline()) <= tick) {
+                        task.setSlot(-1);
+                        expires.add(task);
+                    } else {
+                        if (i != j) {
+                            tasks[j] = task;
+                            task.setSlot(j);
+                        }
+                        j++;
+                    }
+                }
+            }
+            for (int i = j; i < size; i++) {
+                tasks[i] = null;
+            }
+            size = j;
+            holes = 0;
+        }
+    }
+
+    /**
+     * 驱动，一个线程推进多个时间轮，过期任务在工作线程中执行
+     */
+    public static class Driver {
+        /**
+         * 启动时间（纳秒）
+         */
+        protected final long startTime;
+        /**
+         * 一跳的时间（纳秒）
+         */
+        protected final long tickNanos;
+        /**
+         * 时间轮的槽数，为2的幂
+         */
+        protected final int ticks;
+        /**
+         * 激活的时间轮
+         */
+        protected final List<TimeoutWheel<?>> wheels = new CopyOnWriteArrayList<>();
+        /**
+         * 过期任务执行线程
+         */
+        protected final ExecutorService workers;
+        /**
+         * 推进线程
+         */
+        protected final Thread boss;
+        /**
+         * 关闭标识
+         */
+        protected volatile boolean closed;
+
+        /**
+         * 构造函数
+         *
+         * @param name      名称
+         * @param tickNanos 一跳的时间（纳秒）
+         * @param ticks     时间轮的槽数
+         * @param workers   工作线程数
+         */
+        public Driver(final String name, final long tickNanos, final int ticks, final int workers) {
+            if (tickNanos <= 0) {
+                throw new IllegalArgumentException("tickNanos must be greater than 0");
+            } else if (ticks <= 0) {
+                throw new IllegalArgumentException("ticks must be greater than 0");
+            } else if (workers <= 0) {
+                throw new IllegalArgumentException("workers must be greater than 0");
+            }
+            String prefix = name == null || name.isEmpty() ? "timeout" : name;
+            this.startTime = System.nanoTime();
+            this.tickNanos = tickNanos;
+            //槽数取2的幂，便于采用掩码定位
+            this.ticks = ticks == 1 ? 1 : Integer.highestOneBit(ticks - 1) << 1;
+            this.workers = Executors.newFixedThreadPool(workers, new NamedThreadFactory(prefix + "-worker", true));
+            this.boss = new NamedThreadFactory(prefix + "-boss", true).newThread(this::run);
+            this.boss.start();
+        }
+
+        /**
+         * 创建时间轮
+         *
+         * @param consumer 超时消费者
+         * @param <T>
+         * @return 时间轮
+         */
+        public <T extends Timeoutable> TimeoutWheel<T> create(final Consumer<T> consumer) {
+            return new TimeoutWheel<>(this, consumer);
+        }
+
+        /**
+         * 计算时间对应的跳数
+         *
+         * @param nanos 时间（纳秒）
+         * @return 跳数
+         */
+        protected long tick(final long nanos) {
+            return (nanos - startTime) / tickNanos;
+        }
+
+        /**
+         * 计算截止时间所在的跳数，向上取整，保证任务不会提前过期
+         *
+         * @param deadline 截止时间（纳秒）
+         * @return 跳数
+         */
+        protected long deadline(final long deadline) {
+            long time = deadline - startTime;
+            return time <= 0 ? 0 : (time + tickNanos - 1) / tickNanos;
+        }
+
+        /**
+         * 推进
+         */
+        protected void run() {
+            List expires = new ArrayList<>();
+            long next = System.nanoTime() + tickNanos;
+            long delay;
+            while (!closed && !Shutdown.isShutdown()) {
+                delay = next - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(this, delay);
+                    continue;
+                }
+                long now = System.nanoTime();
+                for (TimeoutWheel wheel : wheels) {
+                    try {
+                        wheel.advance(now, expires);
+                    } catch (Throwable e) {
+                        expires.clear();
+                        logger.error(e.getMessage(), e);
+                    }
+                }
+                next += tickNanos;
+                if (next < now) {
+                    //落后太多，从当前时间重新开始
+                    next = now + tickNanos;
+                }
+            }
+        }
+
+        /**
+         * 关闭
+         */
+        public void close() {
+            closed = true;
+            LockSupport.unpark(boss);
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * 超时任务
+     */
+    public interface Timeoutable {
+
+        /**
+         * 截止时间（纳秒）
+         *
+         * @return 截止时间
+         */
+        long getDeadline();
+
+        /**
+         * 在时间槽中的位置
+         *
+         * @return 位置，不在时间槽中返回-1
+         */
+        int getSlot();
+
+        /**
+         * 设置在时间槽中的位置
+         *
+         * @param slot 位置
+         */
+        void setSlot(int slot);
+    }
+}
@@ -0,0 +1,688 @@
+package io.joyrpc.cache.offheap;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cache.AbstractCache;
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.cache.CacheObject;
+import io.joyrpc.cache.SerializedCache;
+import io.joyrpc.cache.SerializedCacheObject;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.exception.CacheException;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.protocol.message.SerializedPayload;
+import io.joyrpc.util.Futures;
+import io.joyrpc.util.SystemClock;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.DEFAULT_SERIALIZATION;
+
+/**
+ * 堆外缓存，值序列化成ResponsePayload后存放在堆外内存页中。<br/>
+ * 内存按照页分配，每页划分给一个大小等级，切成固定大小的块，每个大小等级有自己的空闲块和LRU链表。<br/>
+ * 没有空闲块并且不能再分配新页的时候，如果其它等级最久没有访问的数据更旧，则回收该数据所在的页重新划分给当前等级，
+ * 避免页永久固定在最早写入的等级上；否则淘汰该等级最久没有访问的数据。<br/>
+ * 每个数据都记录了过期时间，读取的时候判断，过期的数据立即释放。<br/>
+ * 读取返回的是序列化的缓存对象，服务端在序列化方式一致的时候可以直接把字节写入应答。
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OffHeapCache<K, V> extends AbstractCache<K, V> implements SerializedCache<K, V> {
+
+    /**
+     * 最小块大小
+     */
+    protected static final int MIN_CHUNK_SIZE = 64;
+    /**
+     * 大小等级增长因子
+     */
+    protected static final double GROWTH_FACTOR = 1.25d;
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 索引
+     */
+    protected final ConcurrentHashMap<K, Entry<K>> index;
+    /**
+     * 页大小
+     */
+    protected final int pageSize;
+    /**
+     * 最大页数
+     */
+    protected final int maxPages;
+    /**
+     * 内存页
+     */
+    protected final AtomicReferenceArray<ByteBuffer> pages;
+    /**
+     * 已分配的页数，在页锁中修改
+     */
+    protected volatile int allocated;
+    /**
+     * 页分配锁
+     */
+    protected final ReentrantLock pageLock = new ReentrantLock();
+    /**
+     * 大小等级
+     */
+    protected final SlabClass<K>[] classes;
+    /**
+     * 默认的序列化方式
+     */
+    protected final Serialization serialization;
+    /**
+     * 写入后过期时间
+     */
+    protected final long expireAfterWrite;
+    /**
+     * 淘汰数
+     */
+    protected final LongAdder evictions = new LongAdder();
+    /**
+     * 页重新分配数
+     */
+    protected final LongAdder reassigns = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param name     名称
+     * @param config   配置
+     * @param memory   最大内存
+     * @param pageSize 页大小
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapCache(final String name, final CacheConfig<K, V> config, final long memory, final int pageSize) {
+        this.name = name;
+        this.config = config == null ? new CacheConfig<>() : config;
+        this.pageSize = Math.max(pageSize, MIN_CHUNK_SIZE);
+        this.maxPages = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memory / this.pageSize));
+        this.pages = new AtomicReferenceArray<>(maxPages);
+        this.expireAfterWrite = this.config.getExpireAfterWrite();
+        this.index = new ConcurrentHashMap<>(this.config.getCapacity() > 0 ? Math.min(this.config.getCapacity(), 1024) : 1024);
+        //按照增长因子计算大小等级，最大的等级等于页大小
+        int count = 1;
+        double size = MIN_CHUNK_SIZE;
+        while (size < this.pageSize) {
+            size = align((int) Math.ceil(size * GROWTH_FACTOR));
+            count++;
+        }
+        this.classes = new SlabClass[count];
+        size = MIN_CHUNK_SIZE;
+        for (int i = 0; i < count - 1; i++) {
+            classes[i] = new SlabClass<>(i, (int) size);
+            size = align((int) Math.ceil(size * GROWTH_FACTOR));
+        }
+        classes[count - 1] = new SlabClass<>(count - 1, this.pageSize);
+        Serialization s = SERIALIZATION.get(DEFAULT_SERIALIZATION);
+        this.serialization = s != null ? s : SERIALIZATION.get("java");
+    }
+
+    @Override
+    public CompletableFuture<Void> put(final K key, final V value, final Serialization serialization) {
+        if (key == null) {
+            return Futures.completeExceptionally(new NullPointerException("key can not be null."));
+        } else if (serialization == null) {
+            return put(key, value);
+        }
+        try {
+            if (value != null || config.isNullable()) {
+                store(key, value, serialization);
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return Futures.completeExceptionally(new CacheException(e.getMessage(), e));
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> doPut(final K key, final V value) {
+        store(key, value, serialization);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    protected CompletableFuture<CacheObject<V>> doGet(final K key) {
+        Entry<K> entry = index.get(key);
+        if (entry == null) {
+            return CompletableFuture.completedFuture(null);
+        } else if (entry.isExpire(SystemClock.now())) {
+            release(entry);
+            return CompletableFuture.completedFuture(null);
+        }
+        SlabClass<K> slab = classes[entry.slab];
+        byte[] data;
+        slab.lock.lock();
+        try {
+            if (entry.released) {
+                //并发被淘汰了
+                index.remove(key, entry);
+                return CompletableFuture.completedFuture(null);
+            }
+            data = new byte[entry.length];
+            read(entry.address, data);
+            slab.moveToLast(entry);
+        } finally {
+            slab.lock.unlock();
+        }
+        return CompletableFuture.completedFuture(new SerializedCacheObject<>(new SerializedPayload(entry.serialization, data)));
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRemove(final K key) {
+        Entry<K> entry = index.remove(key);
+        if (entry != null) {
+            release(entry);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 数据条数
+     *
+     * @return 数据条数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 已分配的堆外内存
+     *
+     * @return 字节数
+     */
+    public long getMemory() {
+        return (long) allocated * pageSize;
+    }
+
+    /**
+     * 淘汰数
+     *
+     * @return 淘汰数
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 页重新分配数
+     *
+     * @return 页重新分配数
+     */
+    public long getReassigns() {
+        return reassigns.sum();
+    }
+
+    /**
+     * 序列化并存储
+     *
+     * @param key           键
+     * @param value         值
+     * @param serialization 序列化
+     */
+    protected void store(final K key, final V value, final Serialization serialization) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(256);
+        serialization.getSerializer().serialize(os, new ResponsePayload(value));
+        int length = os.size();
+        SlabClass<K> slab = select(length);
+        if (slab == null) {
+            //超过页大小不缓存，同时删除旧值
+            doRemove(key);
+            return;
+        }
+        Entry<K> entry = new Entry<>(key, slab.id, length, serialization.getTypeId(),
+                expireAfterWrite > 0 ? SystemClock.now() + expireAfterWrite : -1);
+        slab.lock.lock();
+        try {
+            long address = allocate(slab);
+            if (address < 0) {
+                //该等级没有可用内存
+                doRemove(key);
+                return;
+            }
+            entry.address = address;
+            write(address, os.toByteArray());
+            slab.addLast(entry);
+        } finally {
+            slab.lock.unlock();
+        }
+        Entry<K> old = index.put(key, entry);
+        if (old != null) {
+            release(old);
+        }
+        int capacity = config.getCapacity();
+        if (capacity > 0 && index.size() > capacity) {
+            //超过数量限制，淘汰同等级最久没有访问的数据
+            slab.lock.lock();
+            try {
+                Entry<K> victim = slab.first;
+                if (victim != null && victim != entry) {
+                    evict(slab, victim);
+                }
+            } finally {
+                slab.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 选择大小等级
+     *
+     * @param length 长度
+     * @return 大小等级
+     */
+    protected SlabClass<K> select(final int length) {
+        if (length > pageSize) {
+            return null;
+        }
+        //等级数量不多，二分查找
+        int low = 0;
+        int high = classes.length - 1;
+        int mid;
+        while (low < high) {
+            mid = (low + high) >>> 1;
+            if (classes[mid].chunkSize < length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return classes[low];
+    }
+
+    /**
+     * 分配块，需要在等级锁中调用
+     *
+     * @param slab 等级
+     * @return 地址，高32位是页号，低32位是页内偏移量，没有可用的内存返回-1
+     */
+    protected long allocate(final SlabClass<K> slab) {
+        if (slab.size > 0) {
+            return slab.free[--slab.size];
+        }
+        //分配新页，内存已满则从其它等级回收一页
+        int page = newPage();
+        if (page < 0) {
+            page = reassign(slab);
+        }
+        if (page >= 0) {
+            int chunks = pageSize / slab.chunkSize;
+            slab.ensureFree(chunks);
+            for (int i = chunks - 1; i > 0; i--) {
+                slab.free[slab.size++] = ((long) page << 32) | ((long) i * slab.chunkSize);
+            }
+            return (long) page << 32;
+        }
+        //淘汰最久没有访问的数据
+        Entry<K> victim = slab.first;
+        if (victim == null) {
+            return -1;
+        }
+        evict(slab, victim);
+        return slab.free[--slab.size];
+    }
+
+    /**
+     * 分配新页
+     *
+     * @return 页号，没有可用的内存返回-1
+     */
+    protected int newPage() {
+        if (allocated >= maxPages) {
+            return -1;
+        }
+        pageLock.lock();
+        try {
+            if (allocated >= maxPages) {
+                return -1;
+            }
+            int page = allocated;
+            pages.set(page, ByteBuffer.allocateDirect(pageSize));
+            allocated = page + 1;
+            return page;
+        } finally {
+            pageLock.unlock();
+        }
+    }
+
+    /**
+     * 从最久没有访问数据的等级回收一页，需要在等级锁中调用。<br/>
+     * 只有其它等级最久没有访问的数据比当前等级的更旧才回收，其它等级的锁采用tryLock，避免相互回收造成死锁
+     *
+     * @param slab 等级
+     * @return 页号，没有可回收的页返回-1
+     */
+    protected int reassign(final SlabClass<K> slab) {
+        Entry<K> head = slab.first;
+        long oldest = head == null ? Long.MAX_VALUE : head.accessTime;
+        SlabClass<K> coldest = null;
+        for (SlabClass<K> other : classes) {
+            if (other != slab) {
+                head = other.first;
+                if (head != null && head.accessTime < oldest) {
+                    oldest = head.accessTime;
+                    coldest = other;
+                }
+            }
+        }
+        if (coldest == null || !coldest.lock.tryLock()) {
+            return -1;
+        }
+        try {
+            head = coldest.first;
+            if (head == null) {
+                return -1;
+            }
+            int page = (int) (head.address >>> 32);
+            long now = SystemClock.now();
+            //淘汰该页上的数据
+            Entry<K> entry = head;
+            Entry<K> next;
+            while (entry != null) {
+                next = entry.next;
+                if ((int) (entry.address >>> 32) == page) {
+                    entry.released = true;
+                    coldest.unlink(entry);
+                    index.remove(entry.key, entry);
+                    if (!entry.isExpire(now)) {
+                        evictions.increment();
+                    }
+                }
+                entry = next;
+            }
+            //删除该页的空闲块
+            int size = 0;
+            for (int i = 0; i < coldest.size; i++) {
+                if ((int) (coldest.free[i] >>> 32) != page) {
+                    coldest.free[size++] = coldest.free[i];
+                }
+            }
+            coldest.size = size;
+            reassigns.increment();
+            return page;
+        } finally {
+            coldest.lock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰数据，需要在等级锁中调用
+     *
+     * @param slab  等级
+     * @param entry 数据
+     */
+    protected void evict(final SlabClass<K> slab, final Entry<K> entry) {
+        index.remove(entry.key, entry);
+        slab.remove(entry);
+        if (!entry.isExpire(SystemClock.now())) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 释放数据
+     *
+     * @param entry 数据
+     */
+    protected void release(final Entry<K> entry) {
+        index.remove(entry.key, entry);
+        SlabClass<K> slab = classes[entry.slab];
+        slab.lock.lock();
+        try {
+            slab.remove(entry);
+        } finally {
+            slab.lock.unlock();
+        }
+    }
+
+    /**
+     * 从堆外内存读取
+     *
+     * @param address 地址
+     * @param data    数据
+     */
+    protected void read(final long address, final byte[] data) {
+        ByteBuffer buffer = pages.get((int) (address >>> 32)).duplicate();
+        buffer.position((int) address);
+        buffer.get(data);
+    }
+
+    /**
+     * 写入堆外内存
+     *
+     * @param address 地址
+     * @param data    数据
+     */
+    protected void write(final long address, final byte[] data) {
+        ByteBuffer buffer = pages.get((int) (address >>> 32)).duplicate();
+        buffer.position((int) address);
+        buffer.put(data);
+    }
+
+    /**
+     * 8字节对齐
+     *
+     * @param size 大小
+     * @return 对齐后的大小
+     */
+    protected static int align(final int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * 大小等级，持有空闲块和LRU链表
+     *
+     * @param <K>
+     */
+    protected static class SlabClass<K> {
+        /**
+         * 等级
+         */
+        protected final int id;
+        /**
+         * 块大小
+         */
+        protected final int chunkSize;
+        /**
+         * 锁
+         */
+        protected final ReentrantLock lock = new ReentrantLock();
+        /**
+         * 空闲块
+         */
+        protected long[] free = new long[16];
+        /**
+         * 空闲块数量
+         */
+        protected int size;
+        /**
+         * 最久没有访问的数据，回收页的时候会被其它等级无锁读取
+         */
+        protected volatile Entry<K> first;
+        /**
+         * 最近访问的数据
+         */
+        protected Entry<K> last;
+
+        public SlabClass(final int id, final int chunkSize) {
+            this.id = id;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * 确保空闲块数组的容量
+         *
+         * @param count 新增数量
+         */
+        protected void ensureFree(final int count) {
+            if (size + count > free.length) {
+                long[] target = new long[Math.max(free.length * 2, size + count)];
+                System.arraycopy(free, 0, target, 0, size);
+                free = target;
+            }
+        }
+
+        /**
+         * 添加到链表尾部
+         *
+         * @param entry 数据
+         */
+        protected void addLast(final Entry<K> entry) {
+            entry.accessTime = SystemClock.now();
+            entry.prev = last;
+            entry.next = null;
+            if (last == null) {
+                first = entry;
+            } else {
+                last.next = entry;
+            }
+            last = entry;
+        }
+
+        /**
+         * 移动到链表尾部
+         *
+         * @param entry 数据
+         */
+        protected void moveToLast(final Entry<K> entry) {
+            if (entry != last) {
+                unlink(entry);
+                addLast(entry);
+            }
+        }
+
+        /**
+         * 从链表中删除并归还块
+         *
+         * @param entry 数据
+         */
+        protected void remove(final Entry<K> entry) {
+            if (entry.released) {
+                return;
+            }
+            entry.released = true;
+            unlink(entry);
+            ensureFree(1);
+            free[size++] = entry.address;
+        }
+
+        /**
+         * 从链表中删除
+         *
+         * @param entry 数据
+         */
+        protected void unlink(final Entry<K> entry) {
+            if (entry.prev == null) {
+                first = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                last = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * 索引数据，只保存堆外内存的位置
+     *
+     * @param <K>
+     */
+    protected static class Entry<K> {
+        /**
+         * 键
+         */
+        protected final K key;
+        /**
+         * 大小等级
+         */
+        protected final int slab;
+        /**
+         * 数据长度
+         */
+        protected final int length;
+        /**
+         * 序列化类型
+         */
+        protected final byte serialization;
+        /**
+         * 过期时间
+         */
+        protected final long expireTime;
+        /**
+         * 地址
+         */
+        protected long address;
+        /**
+         * 最后访问时间，在等级锁中修改
+         */
+        protected volatile long accessTime;
+        /**
+         * 是否已经释放，在等级锁中修改
+         */
+        protected volatile boolean released;
+        /**
+         * 前一个数据
+         */
+        protected Entry<K> prev;
+        /**
+         * 后一个数据
+         */
+        protected Entry<K> next;
+
+        public Entry(final K key, final int slab, final int length, final byte serialization, final long expireTime) {
+            this.key = key;
+            this.slab = slab;
+            this.length = length;
+            this.serialization = serialization;
+            this.expireTime = expireTime;
+        }
+
+        /**
+         * 是否过期
+         *
+         * @param now 当前时间
+         * @return 过期标识
+         */
+        public boolean isExpire(final long now) {
+            return expireTime > 0 && now > expireTime;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.joyrpc.cache.offheap;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cache.Cache;
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.cache.CacheFactory;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.MapParametric;
+import io.joyrpc.extension.Parametric;
+
+import static io.joyrpc.cache.CacheFactory.OFFHEAP_ORDER;
+
+/**
+ * 堆外缓存实现，值序列化后存放在堆外内存中，减少大对象对老年代和GC的影响
+ */
+@Extension(value = "offheap", provider = "joyrpc", order = OFFHEAP_ORDER)
+public class OffHeapCacheFactory implements CacheFactory {
+
+    /**
+     * 每个缓存最大的堆外内存字节数
+     */
+    public static final String OFFHEAP_MEMORY = "cache.offheap.memory";
+    /**
+     * 每个内存页的字节数，超过页大小的值不缓存
+     */
+    public static final String OFFHEAP_PAGE_SIZE = "cache.offheap.pageSize";
+    /**
+     * 默认最大内存64M
+     */
+    public static final long DEFAULT_MEMORY = 64 * 1024 * 1024L;
+    /**
+     * 默认页大小1M
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+    @Override
+    public <K, V> Cache<K, V> build(final String name, final CacheConfig<K, V> config) {
+        Parametric parametric = new MapParametric(GlobalContext.getContext());
+        return new OffHeapCache<>(name, config,
+                parametric.getPositive(OFFHEAP_MEMORY, DEFAULT_MEMORY),
+                parametric.getPositive(OFFHEAP_PAGE_SIZE, DEFAULT_PAGE_SIZE));
+    }
+}
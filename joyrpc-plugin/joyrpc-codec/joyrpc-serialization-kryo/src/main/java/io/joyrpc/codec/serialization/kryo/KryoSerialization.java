@@ -21,16 +21,23 @@ package io.joyrpc.codec.serialization.kryo;
  */
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import io.joyrpc.codec.serialization.*;
+import io.joyrpc.exception.SerializerException;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 /**
  * kryo
@@ -57,7 +64,12 @@ public class KryoSerialization implements Serialization {
     /**
      * Kryo序列化和反序列化实现
      */
-    protected static final class KryoSerializer extends AbstractSerializer {
+    protected static final class KryoSerializer extends AbstractSerializer implements BufferSerializer {
+
+        /**
+         * 直接写缓冲区的初始可写字节数
+         */
+        protected static final int INITIAL_WRITABLE = 512;
 
         protected static final ThreadLocal<Kryo> local = ThreadLocal.withInitial(() -> {
             final Kryo kryo = new Kryo();
@@ -81,5 +93,69 @@ public class KryoSerialization implements Serialization {
             return new KryoReader(local.get(), new Input(is));
         }
 
+        @Override
+        public <T> void serialize(final ChannelBuffer buffer, final T object) throws SerializerException {
+            int writerIndex = buffer.writerIndex();
+            int writable = INITIAL_WRITABLE;
+            ByteBuffer nio;
+            while ((nio = buffer.writableBuffer(writable)) != null) {
+                //可写视图的容量即为上限，溢出后扩容重写
+                BoundedOutput output = new BoundedOutput(nio);
+                try {
+                    write(new KryoWriter(local.get(), output), object);
+                    buffer.writerIndex(writerIndex + output.position());
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    //序列化器会把异常包装成KryoException，按输出的溢出标识判断
+                    if (!output.overflow) {
+                        throw new SerializerException("Error occurred while serializing class " + object.getClass().getName(), e);
+                    }
+                    writable = nio.capacity() << 1;
+                }
+            }
+            serialize(buffer.outputStream(), object);
+        }
+
+        @Override
+        public <T> T deserialize(final ChannelBuffer buffer, final Type type) throws SerializerException {
+            ByteBuffer nio = buffer.readableBuffer();
+            if (nio == null) {
+                return deserialize(buffer.inputStream(), type);
+            } else if (!(type instanceof Class)) {
+                throw new SerializerException("type must be a Class " + type);
+            }
+            try {
+                int position = nio.position();
+                ByteBufferInput input = new ByteBufferInput(nio);
+                T result = read(new KryoReader(local.get(), input), (Class<T>) type);
+                buffer.readerIndex(buffer.readerIndex() + input.position() - position);
+                return result;
+            } catch (Exception e) {
+                throw new SerializerException("Error occurred while deserializing class " + type, e);
+            }
+        }
+
+    }
+
+    /**
+     * 固定容量的输出，剩余空间不足时记录溢出标识
+     */
+    protected static final class BoundedOutput extends ByteBufferOutput {
+        /**
+         * 是否溢出
+         */
+        protected boolean overflow;
+
+        public BoundedOutput(final ByteBuffer buffer) {
+            super(buffer);
+        }
+
+        @Override
+        protected boolean require(final int required) throws KryoException {
+            if (capacity - position < required) {
+                overflow = true;
+            }
+            return super.require(required);
+        }
     }
 }
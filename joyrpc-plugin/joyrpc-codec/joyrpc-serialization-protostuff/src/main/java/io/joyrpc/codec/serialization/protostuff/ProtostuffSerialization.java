@@ -22,12 +22,11 @@ package io.joyrpc.codec.serialization.protostuff;
 
 import io.joyrpc.codec.serialization.*;
 import io.joyrpc.codec.serialization.protostuff.schema.*;
+import io.joyrpc.exception.SerializerException;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.condition.ConditionalOnClass;
-import io.protostuff.LinkedBuffer;
-import io.protostuff.ProtostuffOutput;
-import io.protostuff.ProtostuffReader;
-import io.protostuff.ProtostuffWriter;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.protostuff.*;
 import io.protostuff.runtime.DefaultIdStrategy;
 import io.protostuff.runtime.IdStrategy;
 import io.protostuff.runtime.RuntimeSchema;
@@ -35,6 +34,7 @@ import io.protostuff.runtime.RuntimeSchema;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -66,7 +66,7 @@ public class ProtostuffSerialization implements Serialization {
     /**
      * Protostuff序列化和反序列化实现
      */
-    protected static class ProtostuffSerializer extends AbstractSerializer {
+    protected static class ProtostuffSerializer extends AbstractSerializer implements BufferSerializer {
 
         protected static final ProtostuffSerializer INSTANCE = new ProtostuffSerializer();
 
@@ -110,6 +110,38 @@ public class ProtostuffSerialization implements Serialization {
         protected ObjectReader createReader(final InputStream is, final Class clazz) throws IOException {
             return new ProtostuffReader(RuntimeSchema.getSchema(clazz, STRATEGY), local.get(), is);
         }
+
+        @Override
+        public <T> void serialize(final ChannelBuffer buffer, final T object) throws SerializerException {
+            //直接编码到缓冲区，不经过LinkedBuffer和输出流中转
+            int writerIndex = buffer.writerIndex();
+            try {
+                write(new ProtostuffBufferWriter(RuntimeSchema.getSchema(object.getClass(), STRATEGY), new ChannelBufferOutput(buffer)), object);
+            } catch (Exception e) {
+                buffer.writerIndex(writerIndex);
+                throw new SerializerException("Error occurred while serializing class " + object.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        public <T> T deserialize(final ChannelBuffer buffer, final Type type) throws SerializerException {
+            //CodedInput只能直接读堆内存数组，直接内存还是走输入流
+            if (!buffer.hasArray()) {
+                return deserialize(buffer.inputStream(), type);
+            } else if (!(type instanceof Class)) {
+                throw new SerializerException("type must be a Class " + type);
+            }
+            try {
+                Class<T> clazz = (Class<T>) type;
+                ProtostuffReader reader = new ProtostuffReader(RuntimeSchema.getSchema(clazz, STRATEGY), buffer.array(),
+                        buffer.arrayOffset() + buffer.readerIndex(), buffer.readableBytes());
+                T result = read(reader, clazz);
+                buffer.readerIndex(buffer.readerIndex() + reader.getTotalBytesRead());
+                return result;
+            } catch (Exception e) {
+                throw new SerializerException("Error occurred while deserializing class " + type, e);
+            }
+        }
     }
 
 }
@@ -0,0 +1,288 @@
+package io.protostuff;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static io.protostuff.WireFormat.*;
+
+/**
+ * 直接写入ChannelBuffer的Protostuff输出，格式和ProtostuffOutput一致，不经过LinkedBuffer中转
+ */
+public class ChannelBufferOutput implements Output {
+
+    /**
+     * 缓冲区
+     */
+    protected ChannelBuffer buffer;
+
+    /**
+     * 构造函数
+     *
+     * @param buffer 缓冲区
+     */
+    public ChannelBufferOutput(ChannelBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void writeInt32(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        if (value < 0) {
+            writeVarInt64(value);
+        } else {
+            writeVarInt32(value);
+        }
+    }
+
+    @Override
+    public void writeUInt32(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        writeVarInt32(value);
+    }
+
+    @Override
+    public void writeSInt32(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        writeVarInt32(ProtobufOutput.encodeZigZag32(value));
+    }
+
+    @Override
+    public void writeFixed32(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_FIXED32));
+        buffer.writeInt(Integer.reverseBytes(value));
+    }
+
+    @Override
+    public void writeSFixed32(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeFixed32(fieldNumber, value, repeated);
+    }
+
+    @Override
+    public void writeInt64(final int fieldNumber, final long value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        writeVarInt64(value);
+    }
+
+    @Override
+    public void writeUInt64(final int fieldNumber, final long value, final boolean repeated) throws IOException {
+        writeInt64(fieldNumber, value, repeated);
+    }
+
+    @Override
+    public void writeSInt64(final int fieldNumber, final long value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        writeVarInt64(ProtobufOutput.encodeZigZag64(value));
+    }
+
+    @Override
+    public void writeFixed64(final int fieldNumber, final long value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_FIXED64));
+        buffer.writeLong(Long.reverseBytes(value));
+    }
+
+    @Override
+    public void writeSFixed64(final int fieldNumber, final long value, final boolean repeated) throws IOException {
+        writeFixed64(fieldNumber, value, repeated);
+    }
+
+    @Override
+    public void writeFloat(final int fieldNumber, final float value, final boolean repeated) throws IOException {
+        writeFixed32(fieldNumber, Float.floatToRawIntBits(value), repeated);
+    }
+
+    @Override
+    public void writeDouble(final int fieldNumber, final double value, final boolean repeated) throws IOException {
+        writeFixed64(fieldNumber, Double.doubleToRawLongBits(value), repeated);
+    }
+
+    @Override
+    public void writeBool(final int fieldNumber, final boolean value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_VARINT));
+        buffer.writeByte(value ? 1 : 0);
+    }
+
+    @Override
+    public void writeEnum(final int fieldNumber, final int value, final boolean repeated) throws IOException {
+        writeInt32(fieldNumber, value, repeated);
+    }
+
+    @Override
+    public void writeString(final int fieldNumber, final CharSequence value, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_LENGTH_DELIMITED));
+        writeVarInt32(utf8Length(value));
+        writeUTF8(value);
+    }
+
+    @Override
+    public void writeBytes(final int fieldNumber, final ByteString value, final boolean repeated) throws IOException {
+        writeByteArray(fieldNumber, value.getBytes(), repeated);
+    }
+
+    @Override
+    public void writeByteArray(final int fieldNumber, final byte[] value, final boolean repeated) throws IOException {
+        writeByteRange(false, fieldNumber, value, 0, value.length, repeated);
+    }
+
+    @Override
+    public void writeByteRange(final boolean utf8String, final int fieldNumber, final byte[] value,
+                               final int offset, final int length, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_LENGTH_DELIMITED));
+        writeVarInt32(length);
+        buffer.writeBytes(value, offset, length);
+    }
+
+    @Override
+    public <T> void writeObject(final int fieldNumber, final T value, final Schema<T> schema, final boolean repeated) throws IOException {
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_START_GROUP));
+        schema.writeTo(this, value);
+        writeVarInt32(makeTag(fieldNumber, WIRETYPE_END_GROUP));
+    }
+
+    @Override
+    public void writeBytes(final int fieldNumber, final ByteBuffer value, final boolean repeated) throws IOException {
+        writeByteRange(false, fieldNumber, value.array(), value.arrayOffset() + value.position(), value.remaining(), repeated);
+    }
+
+    /**
+     * 写入变长整数
+     *
+     * @param value 值
+     */
+    public void writeVarInt32(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.writeByte(value);
+    }
+
+    /**
+     * 写入变长长整数
+     *
+     * @param value 值
+     */
+    public void writeVarInt64(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+
+    /**
+     * 写入字节
+     *
+     * @param value 值
+     */
+    public void writeByte(final int value) {
+        buffer.writeByte(value);
+    }
+
+    /**
+     * 写入字节数组
+     *
+     * @param value  字节数组
+     * @param offset 偏移量
+     * @param length 长度
+     */
+    public void writeBytes(final byte[] value, final int offset, final int length) {
+        buffer.writeBytes(value, offset, length);
+    }
+
+    /**
+     * 写入大端整数，和WriteSink.writeInt32一致
+     *
+     * @param value 值
+     */
+    public void writeInt(final int value) {
+        buffer.writeInt(value);
+    }
+
+    /**
+     * 写入大端长整数，和WriteSink.writeInt64一致
+     *
+     * @param value 值
+     */
+    public void writeLong(final long value) {
+        buffer.writeLong(value);
+    }
+
+    /**
+     * 直接按UTF-8编码写入字符串，不写长度。孤立的代理字符和StringSerializer一样按3个字节编码
+     *
+     * @param value 字符串
+     */
+    public void writeUTF8(final CharSequence value) {
+        int length = value.length();
+        buffer.ensureWritable(length);
+        char c;
+        for (int i = 0; i < length; i++) {
+            c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.writeByte(c);
+            } else if (c < 0x800) {
+                buffer.writeByte(0xC0 | (c >> 6));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.writeByte(0xF0 | (codePoint >> 18));
+                buffer.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (codePoint & 0x3F));
+            } else {
+                buffer.writeByte(0xE0 | (c >> 12));
+                buffer.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buffer.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * 计算UTF-8编码后的长度
+     *
+     * @param value 字符串
+     * @return 长度
+     */
+    protected static int utf8Length(final CharSequence value) {
+        int length = value.length();
+        int result = length;
+        char c;
+        for (int i = 0; i < length; i++) {
+            c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    //代理对为4个字节，两个字符已经计入2个
+                    result += 2;
+                    i++;
+                } else {
+                    result += 2;
+                }
+            } else if (c >= 0x80) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package io.protostuff;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.serialization.ObjectWriter;
+
+import java.io.IOException;
+
+/**
+ * 直接写入ChannelBuffer的Protostuff写入器，原始数据的编码和ProtostuffWriter一致
+ */
+public class ProtostuffBufferWriter implements ObjectWriter {
+
+    protected Schema schema;
+    protected ChannelBufferOutput output;
+
+    /**
+     * 构造函数
+     *
+     * @param schema
+     * @param output
+     */
+    public ProtostuffBufferWriter(Schema schema, ChannelBufferOutput output) {
+        this.schema = schema;
+        this.output = output;
+    }
+
+    @Override
+    public void writeObject(final Object obj) throws IOException {
+        schema.writeTo(output, obj);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        output.writeBytes(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    @Override
+    public void writeBoolean(final boolean v) throws IOException {
+        output.writeVarInt32(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(final int v) throws IOException {
+        output.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(final int v) throws IOException {
+        output.writeVarInt32(v);
+    }
+
+    @Override
+    public void writeChar(final int v) throws IOException {
+        output.writeVarInt32(v);
+    }
+
+    @Override
+    public void writeInt(final int v) throws IOException {
+        output.writeVarInt32(v);
+    }
+
+    @Override
+    public void writeLong(final long v) throws IOException {
+        output.writeVarInt64(v);
+    }
+
+    @Override
+    public void writeFloat(final float v) throws IOException {
+        output.writeInt(Float.floatToRawIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(final double v) throws IOException {
+        output.writeLong(Double.doubleToRawLongBits(v));
+    }
+
+    @Override
+    public void writeUTF(final String s) throws IOException {
+        output.writeUTF8(s);
+    }
+
+}
@@ -46,6 +46,10 @@ public class ProtostuffReader implements ObjectReader {
      * 输入
      */
     protected CodedInput input;
+    /**
+     * 直接读数组时的数据长度
+     */
+    protected int length;
 
     /**
      * 构造函数
@@ -61,6 +65,29 @@ public class ProtostuffReader implements ObjectReader {
         this.input = new CodedInput(inputStream, buffer.buffer, true);
     }
 
+    /**
+     * 构造函数，直接读取数组，不经过输入流
+     *
+     * @param schema
+     * @param array
+     * @param offset
+     * @param length
+     */
+    public ProtostuffReader(Schema schema, byte[] array, int offset, int length) {
+        this.schema = schema;
+        this.length = length;
+        this.input = new CodedInput(array, offset, length, true);
+    }
+
+    /**
+     * 已经读取的字节数
+     *
+     * @return 字节数
+     */
+    public int getTotalBytesRead() {
+        return input.getTotalBytesRead();
+    }
+
     @Override
     public Object readObject() throws IOException {
         Object message = schema.newMessage();
@@ -104,12 +131,14 @@ public class ProtostuffReader implements ObjectReader {
 
     @Override
     public int available() throws IOException {
-        return inputStream.available();
+        return inputStream == null ? length - input.getTotalBytesRead() : inputStream.available();
     }
 
     @Override
     public void close() throws IOException {
-        inputStream.close();
+        if (inputStream != null) {
+            inputStream.close();
+        }
     }
 
     @Override
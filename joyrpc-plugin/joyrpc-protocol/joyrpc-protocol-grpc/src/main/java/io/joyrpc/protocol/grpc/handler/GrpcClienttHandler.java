@@ -133,7 +133,7 @@ public class GrpcClienttHandler extends AbstractHttpHandler {
         Object grpcStatusVal = http2Msg.endHeaders().get(GRPC_STATUS_KEY);
         int grpcStatus = grpcStatusVal == null ? Status.Code.UNKNOWN.value() : Integer.parseInt(grpcStatusVal.toString());
         if (grpcStatus == Status.Code.OK.value()) {
-            EnhanceCompletableFuture<Integer, Message> future = channel.getFutureManager().get(http2Msg.getBizMsgId());
+            EnhanceCompletableFuture<Message> future = channel.getFutureManager().get(http2Msg.getBizMsgId());
             if (future != null) {
                 payload = decodePayload(http2Msg, (ReturnType) future.getAttr());
             } else {
@@ -220,7 +220,7 @@ public class GrpcClienttHandler extends AbstractHttpHandler {
         //包装payload
         Object payLoad = wrapPayload(invocation, grpcType);
         //将返回值类型放到 future 中
-        EnhanceCompletableFuture<Integer, Message> future = channel.getFutureManager().get(message.getMsgId());
+        EnhanceCompletableFuture<Message> future = channel.getFutureManager().get(message.getMsgId());
         storeReturnType(invocation, grpcType, future);
 
         byte compressType = message.getHeader().getCompression();
@@ -310,7 +310,7 @@ public class GrpcClienttHandler extends AbstractHttpHandler {
      * @param future     future
      */
     protected void storeReturnType(final Invocation invocation, final GrpcType grpcType,
-                                   final EnhanceCompletableFuture<Integer, Message> future) {
+                                   final EnhanceCompletableFuture<Message> future) {
         ClassWrapper respWrapper = grpcType.getResponse();
         if (respWrapper != null) {
             future.setAttr(new ReturnType(respWrapper.getClazz(), respWrapper.isWrapper()));
@@ -24,6 +24,7 @@ package io.joyrpc.protocol.telnet.handler;
  */
 
 import io.joyrpc.invoker.InvokerManager;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.telnet.TelnetResponse;
@@ -34,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.JSON;
 
@@ -47,7 +49,7 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
     public BizThreadTelnetHandler() {
         options = new Options()
                 .addOption(HELP_SHORT, HELP_LONG, false, "show help message for command config")
-                .addOption("p", "port", true, "the threads of server port")
+                .addOption("p", "port", true, "the threads of server port, callback or bulkhead name")
                 .addOption("i", "interval", true, "the interval of output")
                 .addOption("c", "count", true, "number of outputs");
     }
@@ -76,6 +78,7 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
             Map<String, Object> result = new HashMap<>(100);
             export(CALLBACK, InvokerManager.getCallbackThreadPool(), result);
             export(InvokerManager.getServers(), result);
+            InvokerManager.exports(o -> o.getBulkheads().forEach(b -> result.put(b.getName(), export(b))));
             return new TelnetResponse(JSON.get().toJSONString(result));
         } else {
             String port = cmd.getOptionValue("p", String.valueOf(channel.getLocalAddress().getPort()));
@@ -88,7 +91,9 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
             }
 
             ThreadPoolExecutor pool = getThreadPool(port);
-            if (pool != null) {
+            Bulkhead bulkhead = pool != null ? null : getBulkhead(port);
+            Supplier<Map<String, Object>> supplier = pool != null ? () -> export(pool) : (bulkhead != null ? () -> export(bulkhead) : null);
+            if (supplier != null) {
                 HashMap<String, Map<String, Object>> map = new HashMap<>(1);
                 StringBuilder builder = new StringBuilder(100);
                 //循环
@@ -105,7 +110,7 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
                         //通道被关闭了
                         return new TelnetResponse(LINE);
                     } else {
-                        map.put(port, export(pool));
+                        map.put(port, supplier.get());
                         if (i != count - 1) {
                             //最后一个由循环外输出
                             builder.setLength(0);
@@ -139,6 +144,24 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
         return null;
     }
 
+    /**
+     * 获取隔离舱
+     * @param name
+     * @return
+     */
+    protected Bulkhead getBulkhead(final String name) {
+        if (name == null) {
+            return null;
+        }
+        Bulkhead[] result = new Bulkhead[1];
+        InvokerManager.exports(o -> o.getBulkheads().forEach(b -> {
+            if (b.getName().equals(name)) {
+                result[0] = b;
+            }
+        }));
+        return result[0];
+    }
+
     /**
      * 输出服务的线程池信息
      * @param servers
@@ -181,4 +204,16 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
         result.put("queue", executor.getQueue().size());
         return result;
     }
+
+    /**
+     * 隔离舱信息
+     * @param bulkhead
+     * @return
+     */
+    protected Map<String, Object> export(final Bulkhead bulkhead) {
+        Map<String, Object> result = export(bulkhead.getExecutor());
+        result.put("reject", bulkhead.getRejects());
+        result.put("borrow", bulkhead.getBorrows());
+        return result;
+    }
 }
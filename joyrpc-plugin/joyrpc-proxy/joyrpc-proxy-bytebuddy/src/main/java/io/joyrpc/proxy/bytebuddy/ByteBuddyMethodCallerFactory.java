@@ -0,0 +1,88 @@
+package io.joyrpc.proxy.bytebuddy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.NamingStrategy;
+import net.bytebuddy.NamingStrategy.SuffixingRandom.BaseNameResolver;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_BYTE_BUDDY;
+
+/**
+ * 基于ByteBuddy在内存中生成字节码的方法调用工厂
+ */
+@Extension(value = "bytebuddy", order = ORDER_BYTE_BUDDY)
+@ConditionalOnClass("net.bytebuddy.ByteBuddy")
+public class ByteBuddyMethodCallerFactory implements MethodCallerFactory {
+
+    /**
+     * The Byte buddy.
+     */
+    protected static final ByteBuddy BYTE_BUDDY = new ByteBuddy(ClassFileVersion.ofThisVm(ClassFileVersion.JAVA_V8));
+
+    @Override
+    public MethodCaller generate(final Class<?> clz, final Method method, final Object ref) throws ProxyException {
+        try {
+            int count = method.getParameterCount();
+            MethodCall call = Modifier.isStatic(method.getModifiers()) ?
+                    MethodCall.invoke(method) : MethodCall.invoke(method).on(ref, (Class<Object>) clz);
+            if (count > 0) {
+                call = call.withArgumentArrayElements(0, count);
+            }
+            //参数和返回值按照运行时类型进行转换，包括装箱和拆箱，void返回null
+            Class<?> clazz = BYTE_BUDDY.with(new NamingStrategy.SuffixingRandom("Caller",
+                    new BaseNameResolver.ForFixedValue(clz.getName() + "$" + method.getName()), "")).
+                    subclass(Object.class).
+                    implement(MethodCaller.class).
+                    method(ElementMatchers.named("invoke")).
+                    intercept(call.withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC)).
+                    make().
+                    load(clz.getClassLoader(), ClassLoadingStrategy.Default.INJECTION).
+                    getLoaded();
+            MethodCaller caller = (MethodCaller) clazz.newInstance();
+            //生成的字节码不包装异常，统一转换成InvocationTargetException
+            return args -> {
+                try {
+                    return caller.invoke(args);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            };
+        } catch (Exception e) {
+            throw new ProxyException("Error occurred while creating bytebuddy caller of " + clz.getName() + "." + method.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.joyrpc.proxy.javassist;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import javassist.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_JAVASSIST;
+
+/**
+ * 基于Javassist在内存中编译字节码的方法调用工厂
+ */
+@Extension(value = "javassist", order = ORDER_JAVASSIST)
+@ConditionalOnClass("javassist.ClassPool")
+public class JavassistMethodCallerFactory implements MethodCallerFactory {
+
+    protected static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * ClassLoader 缓存
+     */
+    protected static final Map<ClassLoader, LoaderClassPath> LOADERS = new ConcurrentHashMap<>();
+
+    @Override
+    public MethodCaller generate(final Class<?> clz, final Method method, final Object ref) throws ProxyException {
+        try {
+            ClassPool pool = ClassPool.getDefault();
+            ClassLoader classLoader = clz.getClassLoader();
+            if (classLoader != null) {
+                LOADERS.computeIfAbsent(classLoader, o -> {
+                    LoaderClassPath path = new LoaderClassPath(classLoader);
+                    pool.appendClassPath(path);
+                    return path;
+                });
+            }
+            String interfaceName = clz.getName();
+            String className = interfaceName + "$" + method.getName() + "Caller" + COUNTER.getAndIncrement();
+            CtClass ctClass = pool.makeClass(className);
+            ctClass.addInterface(pool.get(MethodCaller.class.getName()));
+            ctClass.addField(CtField.make("protected " + interfaceName + " ref;", ctClass));
+            ctClass.addConstructor(CtNewConstructor.make("public " + ctClass.getSimpleName()
+                    + "(" + interfaceName + " ref){this.ref=$1;}", ctClass));
+            ctClass.addMethod(CtMethod.make(source(clz, method), ctClass));
+            //和接口定义在同一个类加载器下
+            Class<?> clazz = ctClass.toClass(classLoader, clz.getProtectionDomain());
+            ctClass.detach();
+            return (MethodCaller) clazz.getConstructors()[0].newInstance(ref);
+        } catch (Exception e) {
+            throw new ProxyException("Error occurred while creating javassist caller of " + clz.getName() + "." + method.getName(), e);
+        }
+    }
+
+    /**
+     * 生成调用方法的源代码，Javassist不支持自动拆箱，需要显式转换
+     *
+     * @param clz    接口类
+     * @param method 方法
+     * @return 源代码
+     */
+    protected String source(final Class<?> clz, final Method method) {
+        boolean isVoid = method.getReturnType() == void.class;
+        StringBuilder builder = new StringBuilder(300).
+                append("public Object invoke(Object[] args) throws java.lang.reflect.InvocationTargetException{").
+                append("try{");
+        builder.append(isVoid ? "" : "return ($w)").
+                append(Modifier.isStatic(method.getModifiers()) ? clz.getName() : "ref").append('.').
+                append(method.getName()).append('(');
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            asArgument(types[i], "args[" + i + "]", builder);
+        }
+        builder.append(");");
+        if (isVoid) {
+            builder.append("return null;");
+        }
+        builder.append("}catch(Throwable e){").
+                append("throw new java.lang.reflect.InvocationTargetException(e);").
+                append("}}");
+        return builder.toString();
+    }
+
+    /**
+     * 参数类型转换
+     *
+     * @param type    类型
+     * @param name    参数
+     * @param builder 字符串构建器
+     */
+    protected void asArgument(final Class<?> type, final String name, final StringBuilder builder) {
+        if (type.isPrimitive()) {
+            if (Boolean.TYPE == type) {
+                builder.append("((java.lang.Boolean)").append(name).append(").booleanValue()");
+            } else if (Byte.TYPE == type) {
+                builder.append("((java.lang.Byte)").append(name).append(").byteValue()");
+            } else if (Character.TYPE == type) {
+                builder.append("((java.lang.Character)").append(name).append(").charValue()");
+            } else if (Double.TYPE == type) {
+                builder.append("((java.lang.Double)").append(name).append(").doubleValue()");
+            } else if (Float.TYPE == type) {
+                builder.append("((java.lang.Float)").append(name).append(").floatValue()");
+            } else if (Integer.TYPE == type) {
+                builder.append("((java.lang.Integer)").append(name).append(").intValue()");
+            } else if (Long.TYPE == type) {
+                builder.append("((java.lang.Long)").append(name).append(").longValue()");
+            } else if (Short.TYPE == type) {
+                builder.append("((java.lang.Short)").append(name).append(").shortValue()");
+            }
+        } else {
+            builder.append('(').append(getName(type)).append(')').append(name);
+        }
+    }
+
+    /**
+     * 获取类型名称，数组类型转换成源代码格式
+     *
+     * @param type 类型
+     * @return 名称
+     */
+    protected String getName(final Class<?> type) {
+        if (type.isArray()) {
+            return getName(type.getComponentType()) + "[]";
+        }
+        return type.getName();
+    }
+}
@@ -62,6 +62,18 @@ public class NettyChannelBuffer implements ChannelBuffer {
         byteBuf.ensureWritable(minWritableBytes);
     }
 
+    @Override
+    public ByteBuffer writableBuffer(final int minWritableBytes) {
+        byteBuf.ensureWritable(minWritableBytes);
+        //组合缓冲区的NIO视图是复制出来的，写入不会生效
+        return byteBuf.nioBufferCount() != 1 ? null : byteBuf.nioBuffer(byteBuf.writerIndex(), byteBuf.writableBytes());
+    }
+
+    @Override
+    public ByteBuffer readableBuffer() {
+        return byteBuf.nioBufferCount() != 1 ? null : byteBuf.nioBuffer(byteBuf.readerIndex(), byteBuf.readableBytes());
+    }
+
     @Override
     public void clear() {
         byteBuf.clear();
@@ -192,6 +204,11 @@ public class NettyChannelBuffer implements ChannelBuffer {
         return new NettyChannelBuffer(byteBuf.readSlice(length));
     }
 
+    @Override
+    public ChannelBuffer readRetainedSlice(final int length) {
+        return new NettyChannelBuffer(byteBuf.readRetainedSlice(length));
+    }
+
     @Override
     public void setInt(final int index, final int value) {
         byteBuf.setInt(index, value);
@@ -32,15 +32,22 @@ import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.transport.session.SessionManager;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import io.netty.util.internal.PlatformDependent;
 
 import java.net.InetSocketAddress;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static io.joyrpc.constants.Constants.FLUSH_MAX_PENDING_OPTION;
+
 /**
  * @date: 2019/1/15
  */
@@ -56,7 +63,7 @@ public class NettyChannel implements Channel {
     /**
      * Future管理器
      */
-    protected FutureManager<Integer, Message> futureManager;
+    protected FutureManager<Message> futureManager;
     /**
      * 会话管理器
      */
@@ -65,6 +72,10 @@ public class NettyChannel implements Channel {
      * 是否是服务端
      */
     protected boolean server;
+    /**
+     * 合并刷新，为空表示每次写都刷新
+     */
+    protected FlushBatcher batcher;
 
     /**
      * 构造函数
@@ -72,10 +83,36 @@ public class NettyChannel implements Channel {
      * @param channel
      */
     public NettyChannel(io.netty.channel.Channel channel, boolean server) {
+        this(channel, server, 0, 0);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel       通道
+     * @param server        是否是服务端
+     * @param flushMessages 合并刷新的最大消息数，小于等于1表示不合并刷新
+     * @param flushBytes    合并刷新的最大待发送字节数
+     */
+    public NettyChannel(io.netty.channel.Channel channel, boolean server, int flushMessages, int flushBytes) {
+        this(channel, server, flushMessages, flushBytes, FLUSH_MAX_PENDING_OPTION.getValue());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel       通道
+     * @param server        是否是服务端
+     * @param flushMessages 合并刷新的最大消息数，小于等于1表示不合并刷新
+     * @param flushBytes    合并刷新的最大待发送字节数
+     * @param maxPending    合并刷新的最大排队消息数，超过后通道不可写
+     */
+    public NettyChannel(io.netty.channel.Channel channel, boolean server, int flushMessages, int flushBytes, int maxPending) {
         this.channel = channel;
         this.server = server;
         this.futureManager = new FutureManager<>(this, () -> idGenerator.incrementAndGet());
         this.sessionManager = new SessionManager(server);
+        this.batcher = flushMessages > 1 ? new FlushBatcher(flushMessages, flushBytes, maxPending) : null;
     }
 
     @Override
@@ -97,18 +134,52 @@ public class NettyChannel implements Channel {
                 throw throwable;
             }
         } else if (consumer != null) {
-            channel.writeAndFlush(object).addListener((future) -> {
+            ChannelPromise promise = channel.newPromise();
+            promise.addListener((future) -> {
                 if (future.isSuccess()) {
                     consumer.accept(new SendResult(true, this, object));
                 } else {
                     consumer.accept(new SendResult(future.cause(), this, object));
                 }
             });
+            write(object, promise);
         } else {
-            channel.writeAndFlush(object, channel.voidPromise());
+            write(object, channel.voidPromise());
         }
     }
 
+    /**
+     * 写消息
+     *
+     * @param object  消息
+     * @param promise 结果
+     */
+    protected void write(final Object object, final ChannelPromise promise) {
+        if (batcher == null) {
+            channel.writeAndFlush(object, promise);
+        } else {
+            batcher.write(object, promise);
+        }
+    }
+
+    /**
+     * 写消息数量，只有开启合并刷新才进行统计
+     *
+     * @return 写消息数量
+     */
+    public long getWrites() {
+        return batcher == null ? 0 : batcher.writes;
+    }
+
+    /**
+     * 刷新次数，只有开启合并刷新才进行统计
+     *
+     * @return 刷新次数
+     */
+    public long getFlushes() {
+        return batcher == null ? 0 : batcher.flushes;
+    }
+
     @Override
     public boolean close() {
         return execute(channel::close);
@@ -165,7 +236,8 @@ public class NettyChannel implements Channel {
 
     @Override
     public boolean isWritable() {
-        return channel.isWritable();
+        //排队的消息还没有编码，按消息数限制
+        return channel.isWritable() && (batcher == null || batcher.isWritable());
     }
 
     @Override
@@ -219,7 +291,7 @@ public class NettyChannel implements Channel {
     }
 
     @Override
-    public FutureManager<Integer, Message> getFutureManager() {
+    public FutureManager<Message> getFutureManager() {
         return futureManager;
     }
 
@@ -252,4 +324,155 @@ public class NettyChannel implements Channel {
     public void fireCaught(Throwable cause) {
         channel.pipeline().fireExceptionCaught(cause);
     }
+
+    /**
+     * 合并刷新，把同一个事件循环周期内提交的消息批量写入后再刷新，减少系统调用和事件循环任务
+     */
+    protected class FlushBatcher implements Runnable {
+        /**
+         * 最大消息数
+         */
+        protected final int maxMessages;
+        /**
+         * 最大待发送字节数
+         */
+        protected final int maxBytes;
+        /**
+         * 最大排队消息数
+         */
+        protected final int maxPending;
+        /**
+         * 待写入的消息
+         */
+        protected final Queue<Write> queue = PlatformDependent.newMpscQueue();
+        /**
+         * 排队消息数，并发写入时是软上限
+         */
+        protected final AtomicInteger pending = new AtomicInteger();
+        /**
+         * 是否已经提交任务
+         */
+        protected final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 写消息数量，只在事件循环线程中修改
+         */
+        protected volatile long writes;
+        /**
+         * 刷新次数，只在事件循环线程中修改
+         */
+        protected volatile long flushes;
+
+        public FlushBatcher(final int maxMessages, final int maxBytes, final int maxPending) {
+            this.maxMessages = maxMessages;
+            this.maxBytes = maxBytes;
+            this.maxPending = maxPending;
+        }
+
+        /**
+         * 排队消息数是否没有达到上限
+         *
+         * @return 可写标识
+         */
+        public boolean isWritable() {
+            return pending.get() < maxPending;
+        }
+
+        /**
+         * 添加消息
+         *
+         * @param object  消息
+         * @param promise 结果
+         */
+        public void write(final Object object, final ChannelPromise promise) {
+            pending.incrementAndGet();
+            queue.offer(new Write(object, promise));
+            schedule();
+        }
+
+        /**
+         * 提交到事件循环
+         */
+        protected void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    channel.eventLoop().execute(this);
+                } catch (Throwable e) {
+                    //事件循环已经关闭
+                    scheduled.set(false);
+                    Write write;
+                    while ((write = queue.poll()) != null) {
+                        pending.decrementAndGet();
+                        write.promise.tryFailure(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            //每次最多写入一批消息，剩余的重新提交，让出事件循环给读事件和其它任务
+            int count = 0;
+            int unflushed = 0;
+            Write write;
+            try {
+                while (count < maxMessages && (write = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    channel.write(write.message, write.promise);
+                    writes++;
+                    count++;
+                    unflushed++;
+                    if (maxBytes > 0 && pendingBytes() >= maxBytes) {
+                        flush();
+                        unflushed = 0;
+                    }
+                }
+            } finally {
+                if (unflushed > 0) {
+                    flush();
+                }
+                scheduled.set(false);
+                //处理剩余和在刷新过程中新加入的消息
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        /**
+         * 刷新
+         */
+        protected void flush() {
+            channel.flush();
+            flushes++;
+        }
+
+        /**
+         * 待发送的字节数
+         *
+         * @return 待发送的字节数
+         */
+        protected long pendingBytes() {
+            ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+            return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+        }
+    }
+
+    /**
+     * 待写入的消息
+     */
+    protected static class Write {
+        /**
+         * 消息
+         */
+        protected final Object message;
+        /**
+         * 结果
+         */
+        protected final ChannelPromise promise;
+
+        public Write(final Object message, final ChannelPromise promise) {
+            this.message = message;
+            this.promise = promise;
+        }
+    }
 }
@@ -111,11 +111,11 @@ public class EventLoopGroupFactory {
         if (isUseEpoll(url)) {
             logger.info(String.format("Success creating eventLoopGroup. name:%s, threads:%d, epoll:true. ", ioThread.getName(), threads));
             return new ShareEventLoopGroup(name,
-                    new EpollEventLoopGroup(threads, new NamedThreadFactory(threadName, true)), groups);
+                    new EpollEventLoopGroup(threads, new NamedThreadFactory(threadName, true, true)), groups);
         } else {
             logger.info(String.format("Success creating eventLoopGroup. name:%s, threads:%d, epoll:false. ", ioThread.getName(), threads));
             return new ShareEventLoopGroup(name,
-                    new NioEventLoopGroup(threads, new NamedThreadFactory(threadName, true)), groups);
+                    new NioEventLoopGroup(threads, new NamedThreadFactory(threadName, true, true)), groups);
         }
     }
 
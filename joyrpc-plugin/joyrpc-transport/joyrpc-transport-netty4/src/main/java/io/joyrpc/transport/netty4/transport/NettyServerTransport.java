@@ -24,6 +24,7 @@ import io.joyrpc.constants.Constants;
 import io.joyrpc.event.AsyncResult;
 import io.joyrpc.exception.ConnectionException;
 import io.joyrpc.extension.URL;
+import io.joyrpc.thread.InlineExecutor;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.codec.AdapterContext;
 import io.joyrpc.transport.netty4.channel.NettyChannel;
@@ -173,10 +174,15 @@ public class NettyServerTransport extends AbstractServerTransport {
         @Override
         protected void initChannel(final SocketChannel ch) {
             //及时发送 与 缓存发送
-            Channel channel = new NettyChannel(ch, true);
+            Channel channel = new NettyChannel(ch, true,
+                    url.getBoolean(Constants.FLUSH_CONSOLIDATION_OPTION) ? url.getPositiveInt(Constants.FLUSH_MAX_MESSAGES_OPTION) : 0,
+                    url.getPositiveInt(Constants.FLUSH_MAX_BYTES_OPTION), url.getPositiveInt(Constants.FLUSH_MAX_PENDING_OPTION));
             //设置payload,添加业务线程池到channel
             channel.setAttribute(Channel.PAYLOAD, url.getPositiveInt(Constants.PAYLOAD))
-                    .setAttribute(Channel.BIZ_THREAD_POOL, bizThreadPool, (k, v) -> v != null);
+                    .setAttribute(Channel.BIZ_THREAD_POOL, bizThreadPool, (k, v) -> v != null)
+                    .setAttribute(Channel.LAZY_PAYLOAD, Boolean.TRUE,
+                            (k, v) -> bizThreadPool != null && !(bizThreadPool instanceof InlineExecutor)
+                                    && url.getBoolean(Constants.LAZY_PAYLOAD_OPTION));
             if (sslContext != null) {
                 ch.pipeline().addFirst("ssl", sslContext.newHandler(ch.alloc()));
             }
@@ -0,0 +1,126 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.CACHE;
+
+/**
+ * 有容量限制的缓存插件性能对比，键按照近似Zipf分布访问，读写比例为9:1，旁路加载场景同时统计命中率
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class CacheBenchmark {
+
+    protected static final int CAPACITY = 10000;
+    protected static final int KEYS = CAPACITY * 4;
+
+    @Param({"map", "caffeine", "guava", "cache2k"})
+    protected String type;
+
+    protected Cache<Integer, Integer> cache;
+
+    protected Integer[] keys;
+
+    @Setup
+    public void setup() {
+        CacheConfig<Integer, Integer> config = CacheConfig.<Integer, Integer>builder()
+                .keyClass(Integer.class).valueClass(Integer.class).capacity(CAPACITY).expireAfterWrite(60000).build();
+        cache = CACHE.get(type).build(type, config);
+        keys = new Integer[KEYS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEYS; i++) {
+            //平方分布使得小的键访问更加频繁
+            double r = random.nextDouble();
+            keys[i] = (int) (r * r * KEYS);
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.put(keys[i], i);
+        }
+    }
+
+    @Benchmark
+    public Object readWrite() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = keys[random.nextInt(KEYS)];
+        if (random.nextInt(10) == 0) {
+            return cache.put(key, key).get();
+        }
+        return cache.get(key).get();
+    }
+
+    @Benchmark
+    public Object read() throws Exception {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]).get();
+    }
+
+    /**
+     * 旁路加载：未命中则写入，命中率 = hits / (hits + misses)
+     */
+    @Benchmark
+    public Object cacheAside(final Counter counter) throws Exception {
+        Integer key = keys[ThreadLocalRandom.current().nextInt(KEYS)];
+        CacheObject<Integer> result = cache.get(key).get();
+        if (result != null) {
+            counter.hits++;
+            return result;
+        }
+        counter.misses++;
+        return cache.put(key, key).get();
+    }
+
+    /**
+     * 命中计数器
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counter {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
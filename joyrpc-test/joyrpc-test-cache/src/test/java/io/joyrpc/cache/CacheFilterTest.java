@@ -0,0 +1,237 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Invoker;
+import io.joyrpc.Result;
+import io.joyrpc.cache.map.MapCache;
+import io.joyrpc.config.InterfaceOption.CachePolicy;
+import io.joyrpc.config.InterfaceOption.Concurrency;
+import io.joyrpc.config.InterfaceOption.MethodOption;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.filter.consumer.CacheFilter;
+import io.joyrpc.invoker.CallbackMethod;
+import io.joyrpc.protocol.message.HeaderAttributes;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.validation.Validator;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存过滤器测试
+ */
+public class CacheFilterTest {
+
+    /**
+     * 构建缓存策略
+     *
+     * @param expireTime 过期时间
+     * @param staleTime  返回旧值的时间
+     * @return 缓存策略
+     */
+    protected CachePolicy buildPolicy(final int expireTime, final int staleTime) {
+        CacheConfig<Object, Object> config = CacheConfig.builder()
+                .expireAfterWrite(staleTime > 0 ? expireTime + staleTime : expireTime).build();
+        return new CachePolicy(new MapCache<>("test", config), invocation -> invocation.getMethodName(), expireTime, staleTime);
+    }
+
+    protected RequestMessage<Invocation> buildRequest(final CachePolicy policy) {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.DemoService", "", "hello"));
+        request.setOption(new MyMethodOption(policy));
+        return request;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        CachePolicy policy = buildPolicy(-1, -1);
+        MyInvoker invoker = new MyInvoker();
+        CacheFilter filter = new CacheFilter();
+        List<CompletableFuture<Result>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(filter.invoke(invoker, buildRequest(policy)));
+        }
+        Assert.assertEquals(1, invoker.futures.size());
+        invoker.futures.get(0).complete(new Result(null, "one"));
+        for (CompletableFuture<Result> result : results) {
+            Assert.assertEquals("one", result.get(1, TimeUnit.SECONDS).getValue());
+        }
+        Assert.assertEquals(10, policy.getMisses().sum());
+        Assert.assertEquals(9, policy.getCoalesced().sum());
+        Assert.assertTrue(policy.getFlights().isEmpty());
+        //命中缓存
+        Assert.assertEquals("one", filter.invoke(invoker, buildRequest(policy)).get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertEquals(1, policy.getHits().sum());
+        Assert.assertEquals(1, invoker.futures.size());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        CachePolicy policy = buildPolicy(-1, -1);
+        MyInvoker invoker = new MyInvoker();
+        CacheFilter filter = new CacheFilter();
+        CompletableFuture<Result> first = filter.invoke(invoker, buildRequest(policy));
+        CompletableFuture<Result> second = filter.invoke(invoker, buildRequest(policy));
+        invoker.futures.get(0).completeExceptionally(new IllegalStateException());
+        Assert.assertTrue(first.isCompletedExceptionally());
+        Assert.assertTrue(second.isCompletedExceptionally());
+        //异常不缓存，下次重新调用
+        filter.invoke(invoker, buildRequest(policy));
+        Assert.assertEquals(2, invoker.futures.size());
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        CachePolicy policy = buildPolicy(50, 10000);
+        MyInvoker invoker = new MyInvoker();
+        CacheFilter filter = new CacheFilter();
+        CompletableFuture<Result> result = filter.invoke(invoker, buildRequest(policy));
+        invoker.futures.get(0).complete(new Result(null, "one"));
+        Assert.assertEquals("one", result.get(1, TimeUnit.SECONDS).getValue());
+        Thread.sleep(100);
+        //过期后返回旧值，只有一个后台刷新
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("one", filter.invoke(invoker, buildRequest(policy)).get(1, TimeUnit.SECONDS).getValue());
+        }
+        Assert.assertEquals(2, invoker.futures.size());
+        Assert.assertEquals(1, policy.getRefreshes().sum());
+        invoker.futures.get(1).complete(new Result(null, "two"));
+        Assert.assertEquals("two", filter.invoke(invoker, buildRequest(policy)).get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertEquals(2, invoker.futures.size());
+        Assert.assertEquals(6, policy.getHits().sum());
+    }
+
+    @Test
+    public void testStaleDetached() throws Exception {
+        CachePolicy policy = buildPolicy(50, 10000);
+        MyInvoker invoker = new MyInvoker();
+        CacheFilter filter = new CacheFilter();
+        CompletableFuture<Result> result = filter.invoke(invoker, buildRequest(policy));
+        invoker.futures.get(0).complete(new Result(null, "one"));
+        Assert.assertEquals("one", result.get(1, TimeUnit.SECONDS).getValue());
+        Thread.sleep(100);
+        RequestMessage<Invocation> request = buildRequest(policy);
+        request.setContext(RequestContext.getContext());
+        request.getPayLoad().addAttachment("caller", "one");
+        request.getHeader().addAttribute((byte) 100, "one");
+        result = filter.invoke(invoker, request);
+        Assert.assertEquals("one", result.get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertSame(request.getContext(), result.get().getContext());
+        //后台刷新使用独立的请求副本，调用者应答后修改请求不会影响刷新
+        RequestMessage<Invocation> refresh = invoker.requests.get(1);
+        Assert.assertNotSame(request, refresh);
+        Assert.assertNotSame(request.getHeader(), refresh.getHeader());
+        Assert.assertNotSame(request.getContext(), refresh.getContext());
+        Assert.assertNotSame(request.getPayLoad(), refresh.getPayLoad());
+        Assert.assertSame(request.getOption(), refresh.getOption());
+        Assert.assertEquals("hello", refresh.getPayLoad().getMethodName());
+        request.getPayLoad().addAttachment("caller", "two");
+        Assert.assertEquals("one", refresh.getPayLoad().getAttachment("caller"));
+        //头部属性复制后仍然是紧凑结构
+        Assert.assertTrue(refresh.getHeader().getAttributes() instanceof HeaderAttributes);
+        request.getHeader().addAttribute((byte) 100, "two");
+        Assert.assertEquals("one", refresh.getHeader().getAttribute((byte) 100));
+        invoker.futures.get(1).complete(new Result(refresh.getContext(), "two"));
+        Assert.assertEquals("two", filter.invoke(invoker, buildRequest(policy)).get(1, TimeUnit.SECONDS).getValue());
+    }
+
+    /**
+     * 手动完成的调用器
+     */
+    protected static class MyInvoker implements Invoker {
+
+        protected List<CompletableFuture<Result>> futures = new CopyOnWriteArrayList<>();
+
+        protected List<RequestMessage<Invocation>> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<Result> invoke(final RequestMessage<Invocation> request) {
+            CompletableFuture<Result> future = new CompletableFuture<>();
+            requests.add(request);
+            futures.add(future);
+            return future;
+        }
+    }
+
+    /**
+     * 方法选项
+     */
+    protected static class MyMethodOption implements MethodOption {
+
+        protected CachePolicy policy;
+
+        public MyMethodOption(CachePolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public Method getMethod() {
+            return null;
+        }
+
+        @Override
+        public Map<String, ?> getImplicits() {
+            return null;
+        }
+
+        @Override
+        public int getTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Concurrency getConcurrency() {
+            return null;
+        }
+
+        @Override
+        public CachePolicy getCachePolicy() {
+            return policy;
+        }
+
+        @Override
+        public Validator getValidator() {
+            return null;
+        }
+
+        @Override
+        public String getToken() {
+            return null;
+        }
+
+        @Override
+        public CallbackMethod getCallback() {
+            return null;
+        }
+
+        @Override
+        public boolean isAsync() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cache.offheap.OffHeapCache;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.protocol.message.SerializedPayload;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ExecutionException;
+
+import static io.joyrpc.Plugin.CACHE;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 堆外缓存测试
+ */
+public class OffHeapCacheTest {
+
+    protected <V> OffHeapCache<String, V> build(final int capacity, final long expireAfterWrite, final long memory, final int pageSize) {
+        CacheConfig<String, V> config = new CacheConfig<>(String.class, null, capacity, expireAfterWrite, false);
+        return new OffHeapCache<>("offheap", config, memory, pageSize);
+    }
+
+    @Test
+    public void testFactory() {
+        Assert.assertTrue(CACHE.get("offheap").build("offheap", new CacheConfig<>()) instanceof OffHeapCache);
+    }
+
+    @Test
+    public void testSerialized() throws ExecutionException, InterruptedException {
+        OffHeapCache<String, String> cache = build(-1, -1, 1024 * 1024, 64 * 1024);
+        Serialization serialization = SERIALIZATION.get("java");
+        cache.put("a", "value", serialization).get();
+        CacheObject<String> object = cache.get("a").get();
+        Assert.assertTrue(object instanceof SerializedCacheObject);
+        SerializedPayload payload = ((SerializedCacheObject<String>) object).getPayload();
+        Assert.assertEquals(serialization.getTypeId(), payload.getSerialization());
+        //缓存的字节就是应答消息体序列化后的字节
+        ResponsePayload response = serialization.getSerializer().deserialize(new ByteArrayInputStream(payload.getData()), ResponsePayload.class);
+        Assert.assertEquals("value", response.getResponse());
+        Assert.assertEquals("value", object.getResult());
+        //每次读取都是独立的副本
+        Assert.assertNotSame(payload.getData(), ((SerializedCacheObject<String>) cache.get("a").get()).getPayload().getData());
+        cache.remove("a").get();
+        Assert.assertNull(cache.get("a").get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testReplace() throws ExecutionException, InterruptedException {
+        OffHeapCache<String, String> cache = build(-1, -1, 1024 * 1024, 64 * 1024);
+        cache.put("a", "short").get();
+        //值变大以后换到更大的等级
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append('x');
+        }
+        cache.put("a", builder.toString()).get();
+        Assert.assertEquals(builder.toString(), cache.get("a").get().getResult());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvict() throws ExecutionException, InterruptedException {
+        //只有2页内存，每页4K
+        OffHeapCache<String, Integer> cache = build(-1, -1, 8 * 1024, 4 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(String.valueOf(i), i).get();
+        }
+        Assert.assertEquals(8 * 1024, cache.getMemory());
+        Assert.assertTrue(cache.getEvictions() > 0);
+        Assert.assertTrue(cache.size() < 1000);
+        //最近写入的数据还在，最早的数据被淘汰
+        Assert.assertEquals(999, (int) cache.get("999").get().getResult());
+        Assert.assertNull(cache.get("0").get());
+    }
+
+    @Test
+    public void testReassign() throws ExecutionException, InterruptedException {
+        //只有2页内存，每页4K，先被小数据占满
+        OffHeapCache<String, Object> cache = build(-1, -1, 8 * 1024, 4 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(String.valueOf(i), i).get();
+        }
+        Assert.assertEquals(8 * 1024, cache.getMemory());
+        Assert.assertEquals(0, cache.getReassigns());
+        Thread.sleep(10);
+        //内存已满，更大的数据从最冷的等级回收页
+        for (int i = 0; i < 2; i++) {
+            cache.put("large" + i, new byte[1000]).get();
+            Assert.assertNotNull(cache.get("large" + i).get());
+        }
+        Assert.assertTrue(cache.getReassigns() > 0);
+        Assert.assertEquals(8 * 1024, cache.getMemory());
+        //只回收了一页，另一页的小数据还在
+        Assert.assertTrue(cache.size() > 2);
+        Thread.sleep(10);
+        //小数据再次变热，可以把页回收回去
+        long reassigns = cache.getReassigns();
+        for (int i = 1000; i < 2000; i++) {
+            cache.put(String.valueOf(i), i).get();
+        }
+        Assert.assertTrue(cache.getReassigns() > reassigns);
+        Assert.assertEquals(1999, (int) cache.get("1999").get().getResult());
+        Assert.assertNull(cache.get("large0").get());
+    }
+
+    @Test
+    public void testCapacity() throws ExecutionException, InterruptedException {
+        OffHeapCache<String, Integer> cache = build(100, -1, 1024 * 1024, 64 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(String.valueOf(i), i).get();
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testLarge() throws ExecutionException, InterruptedException {
+        OffHeapCache<String, byte[]> cache = build(-1, -1, 8 * 1024, 4 * 1024);
+        cache.put("a", new byte[10]).get();
+        Assert.assertNotNull(cache.get("a").get());
+        //超过页大小不缓存，并删除旧值
+        cache.put("a", new byte[8 * 1024]).get();
+        Assert.assertNull(cache.get("a").get());
+    }
+
+    @Test
+    public void testExpire() throws ExecutionException, InterruptedException {
+        OffHeapCache<String, String> cache = build(-1, 200, 1024 * 1024, 64 * 1024);
+        cache.put("a", "a").get();
+        Assert.assertEquals("a", cache.get("a").get().getResult());
+        Thread.sleep(300);
+        Assert.assertNull(cache.get("a").get());
+        Assert.assertEquals(0, cache.size());
+    }
+}
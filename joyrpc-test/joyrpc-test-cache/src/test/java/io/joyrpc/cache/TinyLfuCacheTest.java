@@ -0,0 +1,145 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cache.map.TinyLfuCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.CACHE;
+
+/**
+ * W-TinyLFU缓存测试
+ */
+public class TinyLfuCacheTest {
+
+    @Test
+    public void testFactory() {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder().capacity(10).build();
+        Assert.assertTrue(CACHE.get("map").build("bounded", config) instanceof TinyLfuCache);
+    }
+
+    @Test
+    public void testCapacity() throws ExecutionException, InterruptedException {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>("capacity", CacheConfig.<Integer, Integer>builder().capacity(100).build());
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i).get();
+        }
+        cache.cleanUp();
+        Assert.assertEquals(100, cache.size());
+        Assert.assertEquals(100, cache.getWeight());
+        Assert.assertEquals(900, cache.getEvictions());
+    }
+
+    @Test
+    public void testFrequency() throws ExecutionException, InterruptedException {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>("frequency", CacheConfig.<Integer, Integer>builder().capacity(100).build());
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i).get();
+        }
+        //频繁访问热点数据
+        for (int j = 0; j < 10; j++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get(i).get();
+            }
+            cache.cleanUp();
+        }
+        //一次性扫描的数据不会把热点数据挤出去
+        for (int i = 1000; i < 2000; i++) {
+            cache.put(i, i).get();
+        }
+        cache.cleanUp();
+        for (int i = 0; i < 50; i++) {
+            Assert.assertNotNull(cache.get(i).get());
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testWeigher() throws ExecutionException, InterruptedException {
+        CacheConfig<Integer, String> config = CacheConfig.<Integer, String>builder().capacity(100).weigher((k, v) -> v.length()).build();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>("weigher", config);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "0123456789").get();
+        }
+        cache.cleanUp();
+        Assert.assertEquals(10, cache.size());
+        Assert.assertTrue(cache.getWeight() <= 100);
+        //替换值的时候重新计算权重
+        cache.put(99, "0").get();
+        cache.cleanUp();
+        Assert.assertTrue(cache.getWeight() <= 100);
+        Assert.assertEquals("0", cache.get(99).get().getResult());
+    }
+
+    @Test
+    public void testExpire() throws ExecutionException, InterruptedException {
+        CacheConfig<Integer, Integer> config = CacheConfig.<Integer, Integer>builder().capacity(100).expireAfterWrite(200).build();
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>("expire", config);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i).get();
+        }
+        Thread.sleep(300);
+        Assert.assertNull(cache.get(0).get());
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(10, cache.getExpirations());
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>("concurrent", CacheConfig.<Integer, Integer>builder().capacity(500).build());
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 2000;
+                        if (i % 3 == 0) {
+                            cache.put(key, key);
+                        } else if (i % 97 == 0) {
+                            cache.remove(key);
+                        } else {
+                            cache.get(key);
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() <= 500);
+        Assert.assertEquals(cache.size(), cache.getWeight());
+    }
+}
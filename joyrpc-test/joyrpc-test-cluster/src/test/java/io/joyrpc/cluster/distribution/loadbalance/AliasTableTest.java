@@ -0,0 +1,80 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Weighter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AliasTableTest {
+
+    @Test
+    public void testSelect() {
+        List<Weight> weights = Arrays.asList(new Weight(0, 100), new Weight(1, 300), new Weight(2, 600), new Weight(3, 0));
+        AliasTable<Weight> table = new AliasTable<>(weights);
+        int[] counts = new int[weights.size()];
+        int total = 100000;
+        for (int i = 0; i < total; i++) {
+            counts[table.select().index]++;
+        }
+        Assert.assertEquals(0, counts[3]);
+        Assert.assertEquals(0.1, (double) counts[0] / total, 0.01);
+        Assert.assertEquals(0.3, (double) counts[1] / total, 0.01);
+        Assert.assertEquals(0.6, (double) counts[2] / total, 0.01);
+    }
+
+    @Test
+    public void testZeroWeight() {
+        List<Weight> weights = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            weights.add(new Weight(i, 0));
+        }
+        AliasTable<Weight> table = new AliasTable<>(weights);
+        int[] counts = new int[weights.size()];
+        for (int i = 0; i < 10000; i++) {
+            counts[table.select().index]++;
+        }
+        for (int count : counts) {
+            Assert.assertTrue(count > 0);
+        }
+        Assert.assertNull(new AliasTable<Weight>(Collections.emptyList()).select());
+    }
+
+    protected static class Weight implements Weighter {
+        protected int index;
+        protected int weight;
+
+        public Weight(int index, int weight) {
+            this.index = index;
+            this.weight = weight;
+        }
+
+        @Override
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
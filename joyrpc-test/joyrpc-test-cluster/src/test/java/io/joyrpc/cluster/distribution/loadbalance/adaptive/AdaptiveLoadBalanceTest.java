@@ -0,0 +1,173 @@
+package io.joyrpc.cluster.distribution.loadbalance.adaptive;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.discovery.registry.memory.MemoryRegistry;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptiveLoadBalance.RankTable;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.judge.Tp99LimitJudge;
+import io.joyrpc.config.InterfaceOption.ConsumerMethodOption;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.Dashboard.DashboardType;
+import io.joyrpc.metric.DashboardFactory;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.mc.McDashboardFactory;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static io.joyrpc.Plugin.ENDPOINT_FACTORY;
+import static io.joyrpc.Plugin.JUDGE;
+
+public class AdaptiveLoadBalanceTest {
+
+    protected static final URL SERVICE_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+
+    protected Cluster cluster(final List<Node> nodes, final DashboardFactory dashboardFactory) {
+        return new Cluster("test", SERVICE_URL, new MemoryRegistry(SERVICE_URL), null, null, null,
+                dashboardFactory, Collections.emptyList(), null) {
+            @Override
+            public List<Node> getNodes() {
+                return nodes;
+            }
+        };
+    }
+
+    protected List<Node> build(final DashboardFactory dashboardFactory, final int... weights) {
+        List<Node> nodes = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            String host = "10.0.0." + (i + 1);
+            nodes.add(new Node("test", SERVICE_URL, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), weights[i], ShardState.CONNECTED),
+                    ENDPOINT_FACTORY.get(), null, null, dashboardFactory.create(SERVICE_URL, DashboardType.Node), null));
+        }
+        return nodes;
+    }
+
+    protected RequestMessage<Invocation> request(final AdaptiveLoadBalance loadBalance, final Cluster cluster) {
+        Invocation invocation = new Invocation("io.joyrpc.DemoService", "", "sayHello");
+        RequestMessage<Invocation> request = RequestMessage.build(invocation);
+        AdaptiveConfig config = new AdaptiveConfig();
+        config.merge(loadBalance.score(cluster, invocation.getMethodName(), config));
+        List<Judge> judges = new LinkedList<>();
+        JUDGE.extensions().forEach(judges::add);
+        AdaptivePolicy policy = new AdaptivePolicy(config, judges);
+        request.setOption((ConsumerMethodOption) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ConsumerMethodOption.class},
+                (proxy, method, args) -> "getAdaptivePolicy".equals(method.getName()) ? policy : null));
+        return request;
+    }
+
+    protected AdaptiveLoadBalance loadBalance() {
+        AdaptiveLoadBalance loadBalance = new AdaptiveLoadBalance();
+        loadBalance.setUrl(SERVICE_URL);
+        loadBalance.setup();
+        return loadBalance;
+    }
+
+    @Test
+    public void testRankTable() {
+        DashboardFactory dashboardFactory = new McDashboardFactory();
+        List<Node> nodes = build(dashboardFactory, 100, 100, 100, 100);
+        Cluster cluster = cluster(nodes, dashboardFactory);
+        Candidate candidate = new Candidate(cluster, null, nodes, nodes.size());
+        AdaptiveLoadBalance loadBalance = loadBalance();
+        RequestMessage<Invocation> request = request(loadBalance, cluster);
+        Set<Node> selected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            Node node = loadBalance.select(candidate, request);
+            Assert.assertNotNull(node);
+            selected.add(node);
+        }
+        Assert.assertEquals(nodes.size(), selected.size());
+        //集群全量节点的评分被缓存，随机权重选举采用别名表
+        RankTable table = loadBalance.tables.get("sayHello");
+        Assert.assertNotNull(table);
+        Assert.assertSame(nodes, table.candidates);
+        Assert.assertEquals(nodes.size(), table.ranks.size());
+        Assert.assertEquals(nodes.size(), table.bestRanks.size());
+        Assert.assertNotNull(table.aliasTable);
+        for (NodeRank rank : table.ranks) {
+            Assert.assertNotNull(rank.getRank());
+        }
+    }
+
+    @Test
+    public void testTemporaryCandidates() {
+        DashboardFactory dashboardFactory = new McDashboardFactory();
+        List<Node> nodes = build(dashboardFactory, 100, 100, 100);
+        Cluster cluster = cluster(nodes, dashboardFactory);
+        //路由产生的临时节点列表实时评分，不缓存
+        List<Node> routes = new ArrayList<>(nodes.subList(0, 2));
+        Candidate candidate = new Candidate(cluster, null, routes, routes.size());
+        AdaptiveLoadBalance loadBalance = loadBalance();
+        RequestMessage<Invocation> request = request(loadBalance, cluster);
+        Set<Node> selected = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            selected.add(loadBalance.select(candidate, request));
+        }
+        Assert.assertEquals(new HashSet<>(routes), selected);
+        Assert.assertNull(loadBalance.tables.get("sayHello"));
+    }
+
+    @Test
+    public void testSubMillisecond() {
+        DashboardFactory dashboardFactory = new McDashboardFactory();
+        List<Node> nodes = build(dashboardFactory, 100, 100);
+        Cluster cluster = cluster(nodes, dashboardFactory);
+        //亚毫秒的调用，毫秒截断后都是0
+        record(cluster.getDashboard().getMethod("sayHello"), 100);
+        record(nodes.get(0).getDashboard().getMethod("sayHello"), 100);
+        record(nodes.get(1).getDashboard().getMethod("sayHello"), 900);
+        AdaptiveLoadBalance loadBalance = loadBalance();
+        AdaptiveConfig config = new AdaptiveConfig();
+        config.merge(loadBalance.score(cluster, "sayHello", config));
+        Assert.assertEquals(0.2, config.getTpScore().getFair(), 0.02);
+        AdaptivePolicy policy = new AdaptivePolicy(config, Collections.emptyList());
+        Tp99LimitJudge judge = new Tp99LimitJudge();
+        Function<Dashboard, TPWindow> function = d -> d.getMethod("sayHello");
+        Assert.assertEquals(Rank.Good, judge.score(new NodeMetric(nodes.get(0), cluster, function,
+                AdaptiveLoadBalance.TP90_FUNCTION), policy));
+        Assert.assertEquals(Rank.Disabled, judge.score(new NodeMetric(nodes.get(1), cluster, function,
+                AdaptiveLoadBalance.TP90_FUNCTION), policy));
+    }
+
+    protected void record(final TPWindow window, final long micros) {
+        for (int i = 0; i < 100; i++) {
+            window.success(micros, TimeUnit.MICROSECONDS, 1, 0);
+        }
+        window.setLastSnapshotTime(0);
+        window.snapshot();
+    }
+
+}
@@ -0,0 +1,160 @@
+package io.joyrpc.cluster.distribution.loadbalance.consistenthash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class ConsistentHashLoadBalanceTest {
+
+    protected static final URL SERVICE_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+
+    protected List<Node> build(int size) {
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String host = "10.0.0." + (i + 1);
+            nodes.add(new Node("test", SERVICE_URL, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), 100, ShardState.CONNECTED)));
+        }
+        return nodes;
+    }
+
+    protected RequestMessage<Invocation> request(Object key) {
+        Invocation invocation = new Invocation("io.joyrpc.DemoService", "", "sayHello");
+        invocation.setArgs(new Object[]{key});
+        return RequestMessage.build(invocation);
+    }
+
+    protected ConsistentHashLoadBalance create() {
+        ConsistentHashLoadBalance loadBalance = new ConsistentHashLoadBalance();
+        loadBalance.setUrl(SERVICE_URL);
+        loadBalance.setup();
+        return loadBalance;
+    }
+
+    @Test
+    public void testSelect() {
+        List<Node> nodes = build(10);
+        Candidate candidate = new Candidate(null, null, nodes, nodes.size());
+        ConsistentHashLoadBalance loadBalance = create();
+        Map<Node, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            RequestMessage<Invocation> request = request("user-" + i);
+            Node node = loadBalance.select(candidate, request);
+            Assert.assertSame(node, loadBalance.select(candidate, request));
+            counts.merge(node, 1, Integer::sum);
+        }
+        Assert.assertEquals(nodes.size(), counts.size());
+        for (Integer count : counts.values()) {
+            Assert.assertTrue(count > 500 && count < 1500);
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        List<Node> nodes = build(10);
+        ConsistentHashLoadBalance loadBalance = create();
+        Candidate candidate = new Candidate(null, null, nodes, nodes.size());
+        Map<Integer, Node> before = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            before.put(i, loadBalance.select(candidate, request(i)));
+        }
+        Node removed = nodes.get(3);
+        List<Node> remains = new ArrayList<>(nodes);
+        remains.remove(removed);
+        candidate = new Candidate(null, null, remains, remains.size());
+        for (int i = 0; i < 10000; i++) {
+            Node node = loadBalance.select(candidate, request(i));
+            Assert.assertNotSame(removed, node);
+            if (before.get(i) != removed) {
+                Assert.assertSame(before.get(i), node);
+            }
+        }
+    }
+
+    @Test
+    public void testSubset() {
+        List<Node> nodes = build(5);
+        HashRing ring = HashRing.build(null, nodes, 160);
+        Assert.assertEquals(5 * 160, ring.hashes.length);
+        List<Node> filter = Collections.singletonList(nodes.get(2));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(nodes.get(2), ring.select(HashRing.hash(i), filter, Long.MAX_VALUE));
+        }
+        //增量重建后和全量构建结果一致
+        List<Node> remains = nodes.subList(1, 5);
+        HashRing incremental = HashRing.build(ring, remains, 160);
+        HashRing full = HashRing.build(null, remains, 160);
+        Assert.assertArrayEquals(full.hashes, incremental.hashes);
+        Assert.assertArrayEquals(full.owners, incremental.owners);
+    }
+
+    @Test
+    public void testFilter() {
+        List<Node> nodes = build(10);
+        HashRing ring = HashRing.build(null, nodes, 160);
+        for (int i = 0; i < ring.owners.length; i++) {
+            Assert.assertSame(ring.owners[i], ring.distinct[ring.ordinals[i]]);
+        }
+        //不在环上的节点被忽略
+        List<Node> filter = Arrays.asList(nodes.get(1), nodes.get(4), nodes.get(7), build(11).get(10));
+        for (int i = 0; i < 1000; i++) {
+            long hash = HashRing.hash("user-" + i);
+            Node expect = null;
+            int pos = Arrays.binarySearch(ring.hashes, hash);
+            pos = pos < 0 ? -pos - 1 : pos;
+            for (int j = 0; j < ring.hashes.length && expect == null; j++) {
+                Node node = ring.owners[(pos + j) % ring.hashes.length];
+                if (filter.contains(node)) {
+                    expect = node;
+                }
+            }
+            Assert.assertSame(expect, ring.select(hash, filter, Long.MAX_VALUE));
+        }
+        //按照候选列表的引用缓存标识数组
+        boolean[] flags = ring.getFlags(filter);
+        Assert.assertSame(flags, ring.getFlags(filter));
+        Assert.assertEquals(3, count(flags));
+        List<Node> other = new ArrayList<>(filter.subList(0, 2));
+        Assert.assertNotSame(flags, ring.getFlags(other));
+        Assert.assertEquals(2, count(ring.getFlags(other)));
+    }
+
+    protected int count(final boolean[] flags) {
+        int result = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
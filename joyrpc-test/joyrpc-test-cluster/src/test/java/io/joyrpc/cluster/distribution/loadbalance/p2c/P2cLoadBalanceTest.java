@@ -0,0 +1,80 @@
+package io.joyrpc.cluster.distribution.loadbalance.p2c;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class P2cLoadBalanceTest {
+
+    protected static final URL SERVICE_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+
+    protected List<Node> build(int... weights) {
+        List<Node> nodes = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            String host = "10.0.0." + (i + 1);
+            nodes.add(new Node("test", SERVICE_URL, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), weights[i], ShardState.CONNECTED)));
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testSelect() {
+        List<Node> nodes = build(100, 100, 100, 100, 100, 100, 100, 100, 100, 100);
+        Candidate candidate = new Candidate(null, null, nodes, nodes.size());
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.DemoService", "", "sayHello"));
+        P2cLoadBalance loadBalance = new P2cLoadBalance();
+        Set<Node> selected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            selected.add(loadBalance.select(candidate, request));
+        }
+        Assert.assertEquals(nodes.size(), selected.size());
+    }
+
+    @Test
+    public void testSmall() {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.DemoService", "", "sayHello"));
+        P2cLoadBalance loadBalance = new P2cLoadBalance();
+        Assert.assertNull(loadBalance.select(new Candidate(null, null, new ArrayList<>(), 0), request));
+        List<Node> nodes = build(100);
+        Assert.assertSame(nodes.get(0), loadBalance.select(new Candidate(null, null, nodes, 1), request));
+        nodes = build(100, 100);
+        Set<Node> selected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(loadBalance.select(new Candidate(null, null, nodes, 2), request));
+        }
+        Assert.assertEquals(2, selected.size());
+    }
+}
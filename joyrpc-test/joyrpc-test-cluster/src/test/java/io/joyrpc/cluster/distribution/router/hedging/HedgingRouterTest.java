@@ -0,0 +1,236 @@
+package io.joyrpc.cluster.distribution.router.hedging;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.Result;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.loadbalance.randomweight.RandomWeightLoadBalance;
+import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.config.InterfaceOption.Concurrency;
+import io.joyrpc.config.InterfaceOption.MethodOption;
+import io.joyrpc.exception.HedgeCancellationException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.filter.consumer.ConcurrencyFilter;
+import io.joyrpc.metric.Dashboard.DashboardType;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.mc.McDashboard;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.Client;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.util.SystemClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgingRouterTest {
+
+    protected List<Node> nodes = build(3);
+
+    protected List<Node> calls = new CopyOnWriteArrayList<>();
+
+    protected Map<Node, CompletableFuture<Result>> futures = new ConcurrentHashMap<>();
+
+    protected List<Node> build(int size) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String host = "10.0.0." + (i + 1);
+            nodes.add(new Node("test", url, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), 100, ShardState.CONNECTED)));
+        }
+        return nodes;
+    }
+
+    /**
+     * 构建节点，客户端的通道持有真实的Future管理器
+     */
+    protected List<Node> build(final Map<Node, FutureManager<Message>> managers) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+        List<Node> nodes = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++) {
+            String host = "10.0.1." + (i + 1);
+            FutureManager<Message> manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+            Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class},
+                    (proxy, method, args) -> "getFutureManager".equals(method.getName()) ? manager : null);
+            Client mock = (Client) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Client.class},
+                    (proxy, method, args) -> "getChannel".equals(method.getName()) ? channel : null);
+            Node node = new Node("test", url, new Shard.DefaultShard(host, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://" + host + ":22000"), 100, ShardState.CONNECTED)) {
+                @Override
+                public Client getClient() {
+                    return mock;
+                }
+            };
+            managers.put(node, manager);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    protected HedgingRouter create(final String parameters) {
+        HedgingRouter router = new HedgingRouter();
+        router.setUrl(URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?" + parameters));
+        router.setLoadBalance(new RandomWeightLoadBalance());
+        router.setOperation((node, last, request) -> {
+            calls.add(node);
+            return futures.computeIfAbsent(node, n -> new CompletableFuture<>());
+        });
+        router.setup();
+        return router;
+    }
+
+    protected CompletableFuture<Result> route(final HedgingRouter router) {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.DemoService", "", "sayHello"));
+        request.setTimeout(5000);
+        request.setCreateTime(SystemClock.now());
+        return router.route(request, new Candidate(null, null, nodes, nodes.size()));
+    }
+
+    protected void await(final int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (calls.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testHedge() throws Exception {
+        HedgingRouter router = create("hedge.delay=20&hedge.budget=1");
+        CompletableFuture<Result> future = route(router);
+        Assert.assertEquals(1, calls.size());
+        //首次调用没有应答，对冲请求发送到另一个节点
+        await(2);
+        Assert.assertEquals(2, calls.size());
+        Assert.assertNotSame(calls.get(0), calls.get(1));
+        Assert.assertEquals(1, router.getHedges());
+        futures.get(calls.get(1)).complete(new Result(null, "backup"));
+        Assert.assertEquals("backup", future.get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertEquals(1, router.getWins());
+        //首次调用后面的结果被忽略
+        futures.get(calls.get(0)).complete(new Result(null, "primary"));
+        Assert.assertEquals("backup", future.get().getValue());
+        Assert.assertEquals(1, router.getWins());
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        HedgingRouter router = create("hedge.delay=20&hedge.budget=0");
+        CompletableFuture<Result> future = route(router);
+        Thread.sleep(100);
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(0, router.getHedges());
+        futures.get(calls.get(0)).complete(new Result(null, "primary"));
+        Assert.assertEquals("primary", future.get(1, TimeUnit.SECONDS).getValue());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        HedgingRouter router = create("hedge.delay=100&hedge.budget=1");
+        CompletableFuture<Result> future = route(router);
+        futures.get(calls.get(0)).complete(new Result(null, new IllegalStateException("error")));
+        Assert.assertTrue(future.get(1, TimeUnit.SECONDS).isException());
+        //失败不触发对冲，由重试策略处理
+        Thread.sleep(200);
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(0, router.getHedges());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Map<Node, FutureManager<Message>> managers = new ConcurrentHashMap<>();
+        List<Node> nodes = build(managers);
+        Concurrency concurrency = new Concurrency(10);
+        ConcurrencyFilter filter = new ConcurrencyFilter();
+        List<RequestMessage<Invocation>> requests = new CopyOnWriteArrayList<>();
+        List<Integer> msgIds = new CopyOnWriteArrayList<>();
+        List<Throwable> metrics = new CopyOnWriteArrayList<>();
+        HedgingRouter router = new HedgingRouter();
+        router.setUrl(URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?hedge.delay=20&hedge.budget=1"));
+        router.setLoadBalance(new RandomWeightLoadBalance());
+        //每次调用经过并发过滤器，向节点的Future管理器注册，完成的时候发布指标
+        router.setOperation((node, last, request) -> filter.invoke(r -> {
+            FutureManager<Message> manager = node.getClient().getChannel().getFutureManager();
+            r.setMsgId(manager.generateId());
+            requests.add(r);
+            msgIds.add(r.getMsgId());
+            calls.add(node);
+            return manager.create(r.getMsgId(), 5000).whenComplete((m, t) -> metrics.add(t == null ? new Throwable() : t))
+                    .handle((m, t) -> t != null ? new Result(r.getContext(), t) : new Result(r.getContext(), "ok"));
+        }, request));
+        router.setup();
+
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.DemoService", "", "sayHello"));
+        request.setTimeout(5000);
+        request.setCreateTime(SystemClock.now());
+        request.setOption((MethodOption) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{MethodOption.class},
+                (proxy, method, args) -> "getConcurrency".equals(method.getName()) ? concurrency :
+                        (method.getReturnType() == boolean.class ? Boolean.FALSE : null)));
+        CompletableFuture<Result> future = router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        await(2);
+        Assert.assertEquals(2, calls.size());
+        Assert.assertEquals(2, concurrency.getActives());
+        //对冲请求发送的是副本，首次调用的消息ID没有被覆盖
+        Assert.assertSame(request, requests.get(0));
+        Assert.assertNotSame(request, requests.get(1));
+        Assert.assertNotSame(request.getHeader(), requests.get(1).getHeader());
+        Assert.assertSame(request.getContext(), requests.get(1).getContext());
+        Assert.assertEquals(msgIds.get(0).intValue(), request.getMsgId());
+        FutureManager<Message> primary = managers.get(calls.get(0));
+        FutureManager<Message> backup = managers.get(calls.get(1));
+        Assert.assertEquals(1, primary.size());
+        //对冲请求应答
+        backup.remove(msgIds.get(1)).complete(null);
+        Assert.assertEquals("ok", future.get(1, TimeUnit.SECONDS).getValue());
+        Assert.assertEquals(1, router.getWins());
+        //首次调用被放弃，从Future管理器中移除并异常结束，过滤器和指标的回调都执行了
+        Assert.assertEquals(0, primary.size());
+        Assert.assertNull(primary.get(msgIds.get(0)));
+        Assert.assertEquals(0, concurrency.getActives());
+        Assert.assertEquals(2, metrics.size());
+        Throwable cancelled = metrics.stream().filter(t -> t instanceof HedgeCancellationException).findFirst().orElse(null);
+        Assert.assertNotNull(cancelled);
+        //放弃的调用不计入节点的失败
+        McDashboard dashboard = new McDashboard(URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService"), DashboardType.Node, null);
+        long now = SystemClock.now();
+        dashboard.handle(new MetricEvent(null, null, null, null, null, request, null, cancelled, 0, now, now));
+        dashboard.handle(new MetricEvent(null, null, null, null, null, request, null,
+                new CompletionException(cancelled), 0, now, now));
+        dashboard.handle(new MetricEvent(null, null, null, null, null, request, null,
+                new IllegalStateException("error"), 0, now, now));
+        TPWindow window = dashboard.getMethod("sayHello");
+        window.setLastSnapshotTime(0);
+        window.snapshot();
+        Assert.assertEquals(1, window.getSnapshot().getSnapshot().getFailures());
+    }
+}
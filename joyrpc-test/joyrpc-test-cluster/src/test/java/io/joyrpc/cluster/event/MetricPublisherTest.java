@@ -0,0 +1,179 @@
+package io.joyrpc.cluster.event;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.cluster.MetricHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+public class MetricPublisherTest {
+
+    @Test
+    public void testPublish() throws InterruptedException {
+        MetricPublisher publisher = new MetricPublisher("test.publish", 1024);
+        AtomicLong handled = new AtomicLong();
+        AtomicLong elapse = new AtomicLong();
+        publisher.addHandler(e -> {
+            handled.incrementAndGet();
+            elapse.addAndGet(e.getEndTime() - e.getStartTime());
+        });
+        publisher.start();
+        int producers = 4;
+        int count = 20000;
+        CountDownLatch latch = new CountDownLatch(producers);
+        for (int i = 0; i < producers; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < count; j++) {
+                    while (!publisher.offer(this, null, null, null, null, null, null, null, 1, 1, 2, 1000000)) {
+                        Thread.yield();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        long total = (long) producers * count;
+        waitFor(() -> handled.get() == total);
+        Assert.assertEquals(total, handled.get());
+        Assert.assertEquals(total, elapse.get());
+        Assert.assertEquals(0, publisher.getLag());
+        publisher.close();
+    }
+
+    @Test
+    public void testDrop() throws InterruptedException {
+        MetricPublisher publisher = new MetricPublisher("test.drop", 8);
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicLong handled = new AtomicLong();
+        publisher.addHandler(e -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+            handled.incrementAndGet();
+        });
+        publisher.start();
+        int total = 100;
+        int success = 0;
+        for (int i = 0; i < total; i++) {
+            if (publisher.offer(this, null, null, null, null, null, null, null, 1, 1, 2, 1000000)) {
+                success++;
+            }
+        }
+        Assert.assertTrue(publisher.getDrops() > 0);
+        Assert.assertEquals(total, success + publisher.getDrops());
+        Assert.assertTrue(publisher.getLag() > 0);
+        blocker.countDown();
+        final int expected = success;
+        waitFor(() -> handled.get() == expected);
+        Assert.assertEquals(expected, handled.get());
+        Assert.assertTrue(publisher.getMaxLag() > 0);
+        publisher.close();
+        //关闭后不再接收
+        Assert.assertFalse(publisher.offer(this, null, null, null, null, null, null, null, 1, 1, 2, 1000000));
+    }
+
+    @Test
+    public void testReuse() throws InterruptedException {
+        MetricPublisher publisher = new MetricPublisher("test.reuse", 2);
+        List<MetricEvent> events = new ArrayList<>();
+        publisher.addHandler(e -> {
+            Assert.assertSame(MetricPublisherTest.this, e.getSource());
+            synchronized (events) {
+                events.add(e);
+            }
+        });
+        publisher.start();
+        for (int i = 0; i < 10; i++) {
+            while (!publisher.offer(this, null, null, "test", null, null, null, null, 1, 1, 2, 1000000)) {
+                Thread.yield();
+            }
+        }
+        waitFor(() -> {
+            synchronized (events) {
+                return events.size() == 10;
+            }
+        });
+        synchronized (events) {
+            Assert.assertEquals(10, events.size());
+            //事件槽位复用，处理完后清理引用
+            Assert.assertSame(events.get(0), events.get(2));
+            Assert.assertNull(events.get(0).getSource());
+            Assert.assertNull(events.get(0).getClusterName());
+        }
+        publisher.close();
+    }
+
+    @Test
+    public void testRetain() throws InterruptedException {
+        MetricPublisher publisher = new MetricPublisher("test.retain", 2);
+        List<MetricEvent> events = new ArrayList<>();
+        publisher.addHandler(new MetricHandler() {
+            @Override
+            public void handle(final MetricEvent event) {
+                synchronized (events) {
+                    events.add(event);
+                }
+            }
+
+            @Override
+            public boolean retain() {
+                return true;
+            }
+        });
+        publisher.start();
+        for (int i = 0; i < 10; i++) {
+            while (!publisher.offer(this, null, null, "test" + i, null, null, null, null, 1, 1, 2, 1000000)) {
+                Thread.yield();
+            }
+        }
+        waitFor(() -> {
+            synchronized (events) {
+                return events.size() == 10;
+            }
+        });
+        synchronized (events) {
+            Assert.assertEquals(10, events.size());
+            //持有事件的处理器收到副本，槽位清理不影响副本
+            for (int i = 0; i < 10; i++) {
+                Assert.assertSame(MetricPublisherTest.this, events.get(i).getSource());
+                Assert.assertEquals("test" + i, events.get(i).getClusterName());
+                Assert.assertEquals(1000000, events.get(i).getElapsedNanos());
+            }
+        }
+        publisher.close();
+    }
+
+    protected void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.joyrpc.metric.mc;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class McTPWindowTest {
+
+    @Test
+    public void testMicros() {
+        McTPWindow window = new McTPWindow(1000, Clock.MILLI);
+        for (int i = 0; i < 990; i++) {
+            window.success(200, TimeUnit.MICROSECONDS, 1, 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            window.success(900_000, TimeUnit.NANOSECONDS, 1, 0);
+        }
+        TPSnapshot snapshot = snapshot(window);
+        Assert.assertEquals(1000, snapshot.getSuccesses());
+        Assert.assertEquals(200, snapshot.getTp50Micros(), 200 / 32.0);
+        Assert.assertEquals(200, snapshot.getTp99Micros(), 200 / 32.0);
+        Assert.assertEquals(900, snapshot.getTp999Micros(), 900 / 32.0);
+        Assert.assertEquals(900, snapshot.getMaxMicros(), 900 / 32.0);
+        Assert.assertEquals(200, snapshot.getMinMicros(), 200 / 32.0);
+        Assert.assertEquals(0, snapshot.getTp99());
+    }
+
+    @Test
+    public void testTp95() {
+        McTPWindow window = new McTPWindow(1000, Clock.MILLI);
+        for (int i = 0; i < 96; i++) {
+            window.success(100, TimeUnit.MICROSECONDS, 1, 0);
+        }
+        for (int i = 0; i < 4; i++) {
+            window.success(1000, TimeUnit.MICROSECONDS, 1, 0);
+        }
+        TPSnapshot snapshot = snapshot(window);
+        //按分桶计算，不是TP90和TP99的中值
+        Assert.assertEquals(100, snapshot.getTp95Micros(), 100 / 32.0);
+        Assert.assertEquals(1000, snapshot.getTp99Micros(), 1000 / 32.0);
+    }
+
+    @Test
+    public void testPrecision() {
+        McTPWindow.Histogram histogram = new McTPWindow.Histogram(7);
+        for (long value = 1; value < (1L << 30); value = value * 3 + 1) {
+            histogram.reset();
+            histogram.success(value, 1, 0);
+            long tp = histogram.snapshot().getTp50Micros();
+            Assert.assertTrue(tp >= value);
+            Assert.assertTrue(tp - value <= value / 128);
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        McTPWindow window = new McTPWindow(1000, Clock.MILLI);
+        McTPWindow.Histogram first = window.histogram;
+        McTPWindow.Histogram second = window.last;
+        window.success(5, 1, 0);
+        Assert.assertEquals(1, snapshot(window).getSuccesses());
+        Assert.assertSame(second, window.histogram);
+        Assert.assertSame(first, window.last);
+        window.success(10, 1, 0);
+        window.success(10, 1, 0);
+        TPSnapshot snapshot = snapshot(window);
+        Assert.assertEquals(2, snapshot.getSuccesses());
+        Assert.assertEquals(10, snapshot.getTp50());
+        Assert.assertSame(first, window.histogram);
+        //没有请求的窗口
+        Assert.assertEquals(0, snapshot(window).getRequests());
+    }
+
+    protected TPSnapshot snapshot(final McTPWindow window) {
+        window.setLastSnapshotTime(0);
+        window.snapshot();
+        return window.getSnapshot().getSnapshot();
+    }
+}
@@ -0,0 +1,139 @@
+package io.joyrpc.codec.compression;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+
+public class AdaptiveCompressionPolicyTest {
+
+    protected static final List<String> COMPRESSIONS = Arrays.asList("zlib", "lz4", "snappy");
+
+    protected static byte[] text(final Random random, final int size) {
+        byte[] result = new byte[size];
+        String words = "joyrpc adaptive compression policy method window ";
+        for (int i = 0; i < size; i++) {
+            result[i] = (byte) (random.nextInt(10) == 0 ? random.nextInt(26) + 'a' : words.charAt(i % words.length()));
+        }
+        return result;
+    }
+
+    protected static byte[] encode(final AdaptiveCompressionPolicy policy, final byte[] source,
+                                   final Compression[] selected) throws IOException {
+        ChannelBuffer buffer = new NettyChannelBuffer(ByteBufAllocator.DEFAULT.buffer(source.length + 128));
+        AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, COMPRESSION.get("zlib"), 256, null,
+                policy.getAdvisor("io.joyrpc.DemoService", "hello", COMPRESSIONS));
+        acos.write(source, 0, 100);
+        acos.write(source, 100, source.length - 100);
+        acos.finish();
+        acos.flush();
+        selected[0] = acos.getCompression();
+        byte[] result = new byte[buffer.readableBytes()];
+        buffer.readBytes(result);
+        buffer.release();
+        return result;
+    }
+
+    protected static byte[] decode(final Compression compression, final byte[] data) throws IOException {
+        if (compression == null) {
+            return data;
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream is = compression.decompress(new ByteArrayInputStream(data))) {
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                bos.write(buf, 0, n);
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testEntropy() {
+        Assert.assertEquals(0, AdaptiveCompressionPolicy.entropy(new byte[1024], 0, 1024), 0.0001);
+        byte[] data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Assert.assertEquals(8, AdaptiveCompressionPolicy.entropy(data, 0, data.length), 0.0001);
+    }
+
+    @Test
+    public void testIncompressible() throws IOException {
+        AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy(true, 1, 7.5);
+        byte[] source = new byte[4096];
+        new Random(0).nextBytes(source);
+        Compression[] selected = new Compression[1];
+        byte[] target = encode(policy, source, selected);
+        Assert.assertNull(selected[0]);
+        Assert.assertArrayEquals(source, target);
+        TPWindow window = policy.getWindow("io.joyrpc.DemoService", "hello", AdaptiveCompressionPolicy.NONE);
+        Assert.assertNotNull(window);
+        Assert.assertTrue(window.hasRequest());
+    }
+
+    @Test
+    public void testLearning() throws IOException {
+        Random random = new Random(1);
+        //低带宽，压缩总是划算
+        AdaptiveCompressionPolicy slow = new AdaptiveCompressionPolicy(true, 1, 7.5);
+        //极高带宽，压缩的CPU开销高于节省的传输时间
+        AdaptiveCompressionPolicy fast = new AdaptiveCompressionPolicy(true, Integer.MAX_VALUE, 7.5);
+        Compression[] selected = new Compression[1];
+        int slowCompressed = 0;
+        int fastCompressed = 0;
+        for (int i = 0; i < 100; i++) {
+            byte[] source = text(random, 4096);
+            byte[] target = encode(slow, source, selected);
+            Assert.assertArrayEquals(source, decode(selected[0], target));
+            if (i >= 50 && selected[0] != null) {
+                slowCompressed++;
+            }
+            target = encode(fast, source, selected);
+            Assert.assertArrayEquals(source, decode(selected[0], target));
+            if (i >= 50 && selected[0] != null) {
+                fastCompressed++;
+            }
+        }
+        Assert.assertEquals(50, slowCompressed);
+        Assert.assertEquals(0, fastCompressed);
+        for (String name : COMPRESSIONS) {
+            Assert.assertTrue(slow.getWindow("io.joyrpc.DemoService", "hello", name).hasRequest());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.joyrpc.codec.compression.zlib;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.Finishable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+
+public class ZlibCompressionTest {
+
+    protected static byte[] sample(final Random random) {
+        return String.format("{\"code\":%d,\"message\":\"success\",\"data\":{\"orderId\":%d,\"userName\":\"user%d\"," +
+                        "\"address\":\"Beijing Chaoyang District No.%d\",\"status\":\"PAID\",\"createTime\":%d}}",
+                random.nextInt(10), random.nextLong(), random.nextInt(), random.nextInt(1000),
+                System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected static byte[] compress(final Compression compression, final byte[] source, final byte[] dictionary) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        OutputStream os = compression.compress(bos, dictionary);
+        os.write(source);
+        ((Finishable) os).finish();
+        os.flush();
+        return bos.toByteArray();
+    }
+
+    protected static byte[] decompress(final InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream in = is) {
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                bos.write(buf, 0, n);
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(0);
+        for (Compression compression : new Compression[]{COMPRESSION.get("zlib"), new DeflateCompression(), COMPRESSION.get("gzip")}) {
+            String type = compression.getTypeName();
+            //多次执行，验证池化后的压缩器重置正确
+            for (int i = 0; i < 20; i++) {
+                byte[] source = new byte[random.nextInt(8192) + 1];
+                for (int j = 0; j < source.length; j++) {
+                    source[j] = (byte) random.nextInt(16);
+                }
+                byte[] target = decompress(compression.decompress(
+                        new ByteArrayInputStream(compress(compression, source, null))));
+                Assert.assertArrayEquals(type, source, target);
+            }
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        Compression gzip = COMPRESSION.get("gzip");
+        byte[] source = sample(new Random(1));
+        //和JDK的实现互通
+        Assert.assertArrayEquals(source, decompress(new GZIPInputStream(new ByteArrayInputStream(compress(gzip, source, null)))));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(source);
+        }
+        Assert.assertArrayEquals(source, decompress(gzip.decompress(new ByteArrayInputStream(bos.toByteArray()))));
+    }
+
+    @Test
+    public void testConflict() {
+        byte[] data = "conflict dictionary of adler32".getBytes(StandardCharsets.UTF_8);
+        //前三个字节分别+1、-2、+1，Adler32的两个累加和都不变
+        byte[] other = data.clone();
+        other[0] += 1;
+        other[1] -= 2;
+        other[2] += 1;
+        Assert.assertEquals(ZlibDictionary.getId(data), ZlibDictionary.getId(other));
+        Assert.assertFalse(Arrays.equals(data, other));
+        ZlibDictionary dictionary = ZlibDictionary.register(data);
+        Assert.assertNotNull(dictionary);
+        //标识冲突的不同字典被拒绝，已注册的字典不变
+        Assert.assertNull(ZlibDictionary.register(other));
+        Assert.assertSame(dictionary, ZlibDictionary.get(dictionary.getId()));
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        Random random = new Random(2);
+        AtomicReference<byte[]> result = new AtomicReference<>();
+        DictionaryTrainer trainer = new DictionaryTrainer("test", 64, 1024, 4096, result::set);
+        while (trainer.isSampling()) {
+            byte[] sample = sample(random);
+            trainer.sample(sample, 0, sample.length);
+        }
+        byte[] data = trainer.train();
+        Assert.assertNotNull(data);
+        Assert.assertTrue(data.length > 0 && data.length <= 4096);
+        ZlibDictionary dictionary = ZlibDictionary.register(data);
+        Assert.assertSame(dictionary, ZlibDictionary.get(dictionary.getId()));
+        //相同的字典重复注册返回已有的字典
+        Assert.assertSame(dictionary, ZlibDictionary.register(data.clone()));
+
+        for (Compression compression : new Compression[]{COMPRESSION.get("zlib"), new DeflateCompression()}) {
+            String type = compression.getTypeName();
+            Assert.assertTrue(compression.isDictionary());
+            byte[] source = sample(random);
+            byte[] plain = compress(compression, source, null);
+            byte[] compressed = compress(compression, source, dictionary.getData());
+            //字典能明显提升小数据的压缩率
+            Assert.assertTrue(type, compressed.length < plain.length);
+            //解压的时候根据Adler32标识从注册表中查找字典
+            Assert.assertArrayEquals(type, source, decompress(compression.decompress(new ByteArrayInputStream(compressed))));
+        }
+    }
+}
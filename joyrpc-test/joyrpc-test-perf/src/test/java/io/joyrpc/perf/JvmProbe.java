@@ -0,0 +1,111 @@
+package io.joyrpc.perf;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * JVM资源采样，两次采样的差值就是压测期间的内存分配和GC开销
+ */
+public class JvmProbe {
+
+    /**
+     * 采样时间，单位纳秒
+     */
+    protected final long time;
+    /**
+     * 存活线程累计分配的字节数，不支持则为-1
+     */
+    protected final long allocated;
+    /**
+     * GC次数
+     */
+    protected final long gcCount;
+    /**
+     * GC时间，单位毫秒
+     */
+    protected final long gcTime;
+
+    public JvmProbe(long time, long allocated, long gcCount, long gcTime) {
+        this.time = time;
+        this.allocated = allocated;
+        this.gcCount = gcCount;
+        this.gcTime = gcTime;
+    }
+
+    /**
+     * 采样
+     *
+     * @return 采样结果
+     */
+    public static JvmProbe sample() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return new JvmProbe(System.nanoTime(), allocated(), count, time);
+    }
+
+    /**
+     * 统计存活线程累计分配的字节数，压测期间退出的线程会被漏掉
+     *
+     * @return 字节数
+     */
+    protected static long allocated() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+        if (!sun.isThreadAllocatedMemorySupported() || !sun.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long result = 0;
+        for (long bytes : sun.getThreadAllocatedBytes(sun.getAllThreadIds())) {
+            if (bytes > 0) {
+                result += bytes;
+            }
+        }
+        return result;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getAllocated() {
+        return allocated;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTime() {
+        return gcTime;
+    }
+}
@@ -0,0 +1,322 @@
+package io.joyrpc.perf;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.RegistryConfig;
+import io.joyrpc.config.ServerConfig;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.mc.McTPSnapshot;
+import io.joyrpc.metric.mc.McTPWindow;
+import io.joyrpc.perf.service.AsyncPerfService;
+import io.joyrpc.perf.service.PerfService;
+import io.joyrpc.perf.service.PerfServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.joyrpc.constants.Constants.CHANNEL_MANAGER_FACTORY_OPTION;
+import static io.joyrpc.constants.Constants.IN_JVM_OPTION;
+
+/**
+ * 本机开环压测，进程内启动一个服务提供者和多个消费者，按照固定的QPS发送请求。<br/>
+ * 延迟从计划发送时间开始计算，服务端变慢时排队的时间也会计入，避免协调遗漏。参数通过URL传入，例如<br/>
+ * perf://127.0.0.1:22900?qps=20000&amp;duration=30000&amp;size=1024&amp;serialization=protostuff&amp;compress=lz4
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    protected static final String ALIAS = "perf";
+    /**
+     * 剩余等待时间小于该值的时候自旋，避免park的唤醒误差
+     */
+    protected static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /**
+     * 直方图有效二进制位数，相对误差小于1%
+     */
+    protected static final int PRECISION = 7;
+
+    /**
+     * 目标QPS
+     */
+    protected final int qps;
+    /**
+     * 消费者数量
+     */
+    protected final int consumers;
+    /**
+     * 发送线程数量
+     */
+    protected final int senders;
+    /**
+     * 预热时间，单位毫秒
+     */
+    protected final long warmup;
+    /**
+     * 压测时间，单位毫秒
+     */
+    protected final long duration;
+    /**
+     * 最大未完成请求数，超过则放弃发送并计数
+     */
+    protected final int maxPending;
+    /**
+     * 调用超时时间，单位毫秒
+     */
+    protected final int timeout;
+    /**
+     * 参数
+     */
+    protected final URL url;
+    /**
+     * 请求数据
+     */
+    protected final byte[] payload;
+
+    protected ProviderConfig<PerfService> providerConfig;
+
+    protected List<ConsumerConfig<AsyncPerfService>> consumerConfigs;
+
+    protected AsyncPerfService[] services;
+
+    /**
+     * 当前未完成的请求数
+     */
+    protected final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param url 参数
+     */
+    public LoadGenerator(final URL url) {
+        this.url = url;
+        this.qps = url.getPositive("qps", 10000);
+        this.consumers = url.getPositive("consumers", 4);
+        this.senders = Math.min(url.getPositive("senders", 4), qps);
+        this.warmup = url.getLong("warmup", 5000L);
+        this.duration = url.getPositive("duration", 30000L);
+        this.maxPending = url.getPositive("maxPending", 10000);
+        this.timeout = url.getPositive("timeout", 5000);
+        this.payload = payload(url.getPositive("size", 1024));
+    }
+
+    /**
+     * 生成可压缩的请求数据
+     *
+     * @param size 大小
+     * @return 数据
+     */
+    protected static byte[] payload(final int size) {
+        String words = "joyrpc open loop load generator ";
+        byte[] result = new byte[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (byte) words.charAt(i % words.length());
+        }
+        return result;
+    }
+
+    /**
+     * 启动服务提供者和消费者
+     *
+     * @throws Exception 启动异常
+     */
+    public void start() throws Exception {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setPort(url.getPort() <= 0 ? 22900 : url.getPort());
+        serverConfig.setThreadPool(url.getString("threadPool"));
+        serverConfig.setMaxThreads(url.getInteger("maxThreads"));
+        providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setInterfaceClazz(PerfService.class.getName());
+        providerConfig.setRef(new PerfServiceImpl());
+        providerConfig.setAlias(ALIAS);
+        providerConfig.setRegistry(new RegistryConfig("memory"));
+        providerConfig.exportAndOpen().get();
+
+        consumerConfigs = new ArrayList<>(consumers);
+        services = new AsyncPerfService[consumers];
+        for (int i = 0; i < consumers; i++) {
+            ConsumerConfig<AsyncPerfService> config = new ConsumerConfig<>();
+            config.setInterfaceClazz(AsyncPerfService.class.getName());
+            config.setAlias(ALIAS);
+            config.setUrl("joy://127.0.0.1:" + serverConfig.getPort());
+            config.setSerialization(url.getString("serialization"));
+            config.setCompress(url.getString("compress"));
+            config.setTimeout(timeout);
+            //不走本地调用，每个消费者独立的连接
+            config.setParameter(IN_JVM_OPTION.getName(), "false");
+            config.setParameter(CHANNEL_MANAGER_FACTORY_OPTION.getName(), url.getString(CHANNEL_MANAGER_FACTORY_OPTION.getName(), "unshared"));
+            services[i] = config.refer().get();
+            consumerConfigs.add(config);
+        }
+    }
+
+    /**
+     * 预热后压测
+     *
+     * @return 压测报告
+     * @throws InterruptedException 中断异常
+     */
+    public PerfReport run() throws InterruptedException {
+        if (warmup > 0) {
+            logger.info("warmup " + run(warmup));
+        }
+        return run(duration);
+    }
+
+    /**
+     * 按照目标QPS压测指定时间
+     *
+     * @param millis 时间，单位毫秒
+     * @return 压测报告
+     * @throws InterruptedException 中断异常
+     */
+    protected PerfReport run(final long millis) throws InterruptedException {
+        McTPWindow window = new McTPWindow(millis, Clock.MILLI, PRECISION);
+        McTPWindow latency = new McTPWindow(millis, Clock.MILLI, PRECISION);
+        LongAdder dropped = new LongAdder();
+        JvmProbe begin = JvmProbe.sample();
+        //每个发送线程均分QPS，计划发送时间错开
+        long interval = TimeUnit.SECONDS.toNanos(1) * senders / qps;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1);
+        long end = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        Thread[] threads = new Thread[senders];
+        for (int i = 0; i < senders; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                long first = start + interval * index / senders;
+                long count = 0;
+                long intended;
+                while ((intended = first + interval * count) - end < 0) {
+                    await(intended);
+                    send(services[(int) (count++ % services.length)], intended, window, latency, dropped);
+                }
+            }, "perf-sender-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //等待未完成的请求
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout + 1000);
+        while (pending.get() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+        JvmProbe stop = JvmProbe.sample();
+        //强制汇总整个窗口
+        window.setLastSnapshotTime(0);
+        window.snapshot();
+        latency.setLastSnapshotTime(0);
+        latency.snapshot();
+        return new PerfReport(qps, millis, (McTPSnapshot) window.getSnapshot().getSnapshot(),
+                (McTPSnapshot) latency.getSnapshot().getSnapshot(), dropped.sum(), begin, stop);
+    }
+
+    /**
+     * 等待到指定时间
+     *
+     * @param time 时间，单位纳秒
+     */
+    protected static void await(final long time) {
+        long remain;
+        while ((remain = time - System.nanoTime()) > 0) {
+            if (remain > SPIN_NANOS) {
+                LockSupport.parkNanos(remain - SPIN_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * 发送请求。每个计划的请求都计入延迟统计，失败的按实际等待时间，放弃发送的至少按超时时间，避免协调遗漏
+     *
+     * @param service  服务
+     * @param intended 计划发送时间，单位纳秒
+     * @param window   调用结果统计
+     * @param latency  延迟统计
+     * @param dropped  放弃的请求数
+     */
+    protected void send(final AsyncPerfService service, final long intended, final McTPWindow window,
+                        final McTPWindow latency, final LongAdder dropped) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            dropped.increment();
+            latency.success(Math.max(System.nanoTime() - intended, TimeUnit.MILLISECONDS.toNanos(timeout)),
+                    TimeUnit.NANOSECONDS, 1, 0);
+            return;
+        }
+        try {
+            service.echo(payload).whenComplete((v, t) -> {
+                pending.decrementAndGet();
+                long elapsed = System.nanoTime() - intended;
+                latency.success(elapsed, TimeUnit.NANOSECONDS, 1, 0);
+                if (t == null) {
+                    window.success(elapsed, TimeUnit.NANOSECONDS, 1, payload.length);
+                } else {
+                    window.failure();
+                }
+            });
+        } catch (Throwable e) {
+            pending.decrementAndGet();
+            latency.success(Math.max(System.nanoTime() - intended, TimeUnit.MILLISECONDS.toNanos(timeout)),
+                    TimeUnit.NANOSECONDS, 1, 0);
+            window.failure();
+        }
+    }
+
+    /**
+     * 关闭
+     */
+    public void close() {
+        if (consumerConfigs != null) {
+            consumerConfigs.forEach(o -> o.unrefer().join());
+        }
+        if (providerConfig != null) {
+            providerConfig.unexport().join();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        URL url = URL.valueOf(args.length > 0 ? args[0] : "perf://127.0.0.1:22900?qps=10000&duration=30000");
+        LoadGenerator generator = new LoadGenerator(url);
+        try {
+            generator.start();
+            logger.info("result " + generator.run());
+        } finally {
+            generator.close();
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,80 @@
+package io.joyrpc.perf;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPSnapshot;
+import io.joyrpc.metric.mc.McTPWindow;
+import io.joyrpc.perf.service.AsyncPerfService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testRun() throws Exception {
+        LoadGenerator generator = new LoadGenerator(URL.valueOf(
+                "perf://127.0.0.1:22901?qps=1000&duration=2000&warmup=500&consumers=2&senders=2&size=256"));
+        try {
+            generator.start();
+            PerfReport report = generator.run();
+            Assert.assertEquals(0, report.getSnapshot().getFailures());
+            Assert.assertEquals(0, report.getDropped());
+            //开环按计划发送，请求数只取决于QPS和时间
+            Assert.assertEquals(2000, report.getSnapshot().getRequests());
+            Assert.assertTrue(report.getThroughput() > 900);
+            Assert.assertEquals(2000, report.getLatency().getSuccesses());
+            Assert.assertTrue(report.getLatency().getTp50Micros() > 0);
+            Assert.assertTrue(report.getLatency().getTp999Micros() >= report.getLatency().getTp99Micros());
+            Assert.assertTrue(report.getLatency().getTp99Micros() >= report.getLatency().getTp50Micros());
+        } finally {
+            generator.close();
+        }
+    }
+
+    @Test
+    public void testDropped() {
+        LoadGenerator generator = new LoadGenerator(URL.valueOf("perf://127.0.0.1:22902?maxPending=1&timeout=100"));
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        AsyncPerfService service = data -> future;
+        McTPWindow window = new McTPWindow(1000, Clock.MILLI);
+        McTPWindow latency = new McTPWindow(1000, Clock.MILLI);
+        LongAdder dropped = new LongAdder();
+        long intended = System.nanoTime();
+        generator.send(service, intended, window, latency, dropped);
+        //超过最大未完成请求数，放弃发送，但是按超时时间计入延迟
+        generator.send(service, intended, window, latency, dropped);
+        Assert.assertEquals(1, dropped.sum());
+        future.complete(new byte[0]);
+        latency.setLastSnapshotTime(0);
+        latency.snapshot();
+        TPSnapshot snapshot = latency.getSnapshot().getSnapshot();
+        Assert.assertEquals(2, snapshot.getSuccesses());
+        Assert.assertTrue(snapshot.getMaxMicros() >= 100_000 * 31 / 32);
+        Assert.assertTrue(snapshot.getMinMicros() < 100_000);
+    }
+}
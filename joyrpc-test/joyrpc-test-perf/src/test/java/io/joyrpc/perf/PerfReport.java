@@ -0,0 +1,143 @@
+package io.joyrpc.perf;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.metric.mc.McTPSnapshot;
+
+/**
+ * 压测报告，延迟从计划发送时间开始计算，已经修正了协调遗漏
+ */
+public class PerfReport {
+
+    /**
+     * 目标QPS
+     */
+    protected final int qps;
+    /**
+     * 压测时间，单位毫秒
+     */
+    protected final long duration;
+    /**
+     * 调用结果统计
+     */
+    protected final McTPSnapshot snapshot;
+    /**
+     * 延迟统计，单位微秒，包括失败和放弃发送的请求
+     */
+    protected final McTPSnapshot latency;
+    /**
+     * 超过最大未完成请求数而放弃发送的请求数
+     */
+    protected final long dropped;
+    /**
+     * 压测开始的JVM采样
+     */
+    protected final JvmProbe begin;
+    /**
+     * 压测结束的JVM采样
+     */
+    protected final JvmProbe end;
+
+    public PerfReport(int qps, long duration, McTPSnapshot snapshot, McTPSnapshot latency, long dropped,
+                      JvmProbe begin, JvmProbe end) {
+        this.qps = qps;
+        this.duration = duration;
+        this.snapshot = snapshot;
+        this.latency = latency;
+        this.dropped = dropped;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    public int getQps() {
+        return qps;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public McTPSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public McTPSnapshot getLatency() {
+        return latency;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * 实际吞吐量
+     *
+     * @return 每秒成功的请求数
+     */
+    public double getThroughput() {
+        return duration <= 0 ? 0 : snapshot.getSuccesses() * 1000.0 / duration;
+    }
+
+    /**
+     * 内存分配速率
+     *
+     * @return 每秒分配的MB，不支持统计返回-1
+     */
+    public double getAllocationRate() {
+        long nanos = end.getTime() - begin.getTime();
+        if (begin.getAllocated() < 0 || end.getAllocated() < 0 || nanos <= 0) {
+            return -1;
+        }
+        return Math.max(0, end.getAllocated() - begin.getAllocated()) / 1024.0 / 1024.0 * 1e9 / nanos;
+    }
+
+    /**
+     * 每个成功请求分配的字节数
+     *
+     * @return 字节数，不支持统计返回-1
+     */
+    public long getAllocationPerRequest() {
+        long successes = snapshot.getSuccesses();
+        if (begin.getAllocated() < 0 || end.getAllocated() < 0 || successes <= 0) {
+            return -1;
+        }
+        return Math.max(0, end.getAllocated() - begin.getAllocated()) / successes;
+    }
+
+    public long getGcCount() {
+        return end.getGcCount() - begin.getGcCount();
+    }
+
+    public long getGcTime() {
+        return end.getGcTime() - begin.getGcTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("qps=%d, duration=%dms, requests=%d, successes=%d, failures=%d, dropped=%d, throughput=%.1f/s, "
+                        + "p50=%dus, p99=%dus, p999=%dus, max=%dus, alloc=%.1fMB/s, alloc/op=%dB, gc=%d, gcTime=%dms",
+                qps, duration, snapshot.getRequests() + dropped, snapshot.getSuccesses(), snapshot.getFailures(), dropped,
+                getThroughput(), latency.getTp50Micros(), latency.getTp99Micros(), latency.getTp999Micros(),
+                latency.getMaxMicros(), getAllocationRate(), getAllocationPerRequest(), getGcCount(), getGcTime());
+    }
+}
@@ -0,0 +1,42 @@
+package io.joyrpc.perf.service;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.annotation.Alias;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测服务的异步调用接口，开环压测不能阻塞发送线程
+ */
+@Alias("io.joyrpc.perf.service.PerfService")
+public interface AsyncPerfService {
+
+    /**
+     * 回显
+     *
+     * @param data 数据
+     * @return 数据
+     */
+    CompletableFuture<byte[]> echo(byte[] data);
+}
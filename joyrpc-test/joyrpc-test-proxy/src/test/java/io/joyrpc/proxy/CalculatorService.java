@@ -0,0 +1,77 @@
+package io.joyrpc.proxy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * 覆盖基本类型、数组、无返回值、静态方法和异常的测试接口
+ */
+public interface CalculatorService {
+
+    int add(int a, long b);
+
+    double[] scale(double[] values, float factor);
+
+    void reset();
+
+    boolean check(char c, byte b, short s);
+
+    String fail(String message) throws Exception;
+
+    static String echo(String value) {
+        return value;
+    }
+
+    class CalculatorServiceImpl implements CalculatorService {
+
+        protected int resets;
+
+        @Override
+        public int add(final int a, final long b) {
+            return (int) (a + b);
+        }
+
+        @Override
+        public double[] scale(final double[] values, final float factor) {
+            double[] result = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i] * factor;
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+
+        @Override
+        public boolean check(final char c, final byte b, final short s) {
+            return c == b && b == s;
+        }
+
+        @Override
+        public String fail(final String message) throws Exception {
+            throw new Exception(message);
+        }
+    }
+
+}
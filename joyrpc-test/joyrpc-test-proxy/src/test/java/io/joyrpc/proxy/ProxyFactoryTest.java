@@ -27,6 +27,7 @@ import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 
@@ -91,6 +92,37 @@ public class ProxyFactoryTest {
         }
     }
 
+    @Test
+    public void testMethodCaller() throws Exception {
+        CalculatorService.CalculatorServiceImpl ref = new CalculatorService.CalculatorServiceImpl();
+        List<String> types = Plugin.METHOD_CALLER_FACTORY.names();
+        Assert.assertTrue(types.contains("bytebuddy"));
+        Assert.assertTrue(types.contains("javassist"));
+        Assert.assertTrue(types.contains("javac"));
+        for (String type : types) {
+            MethodCallerFactory factory = Plugin.METHOD_CALLER_FACTORY.get(type);
+            Class<?> clz = CalculatorService.class;
+            MethodCaller caller = factory.generate(clz, clz.getMethod("add", int.class, long.class), ref);
+            Assert.assertEquals(3, caller.invoke(new Object[]{1, 2L}));
+            caller = factory.generate(clz, clz.getMethod("scale", double[].class, float.class), ref);
+            Assert.assertArrayEquals(new double[]{2, 4}, (double[]) caller.invoke(new Object[]{new double[]{1, 2}, 2f}), 0);
+            caller = factory.generate(clz, clz.getMethod("reset"), ref);
+            Assert.assertNull(caller.invoke(new Object[0]));
+            caller = factory.generate(clz, clz.getMethod("check", char.class, byte.class, short.class), ref);
+            Assert.assertEquals(Boolean.TRUE, caller.invoke(new Object[]{(char) 1, (byte) 1, (short) 1}));
+            caller = factory.generate(clz, clz.getMethod("echo", String.class), ref);
+            Assert.assertEquals("echo", caller.invoke(new Object[]{"echo"}));
+            caller = factory.generate(clz, clz.getMethod("fail", String.class), ref);
+            try {
+                caller.invoke(new Object[]{"error"});
+                Assert.fail(type);
+            } catch (InvocationTargetException e) {
+                Assert.assertEquals("error", e.getTargetException().getMessage());
+            }
+        }
+        Assert.assertEquals(types.size() * 2, ref.resets + types.size());
+    }
+
     /**
      * The type Mock proxy invoker.
      */
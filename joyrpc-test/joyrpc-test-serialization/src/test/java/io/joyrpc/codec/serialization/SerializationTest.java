@@ -26,8 +26,12 @@ import io.joyrpc.cluster.discovery.backup.BackupShard;
 import io.joyrpc.codec.serialization.model.*;
 import io.joyrpc.codec.serialization.model.ArrayObject.Foo;
 import io.joyrpc.exception.MethodOverloadException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.util.ClassUtils;
 import io.joyrpc.util.GrpcType;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -170,6 +174,44 @@ public class SerializationTest {
         serializeAndDeserialize("protobuf", wrap);
     }
 
+    @Test
+    public void testBufferSerializer() {
+        StringBuilder builder = new StringBuilder(4096);
+        for (int i = 0; i < 400; i++) {
+            builder.append("joyrpc-").append(i);
+        }
+        //超过初始可写区域，验证扩容重写
+        Apple large = new Apple(1000, builder.toString(), (byte) 1, true, new byte[2048]);
+        Apple small = new Apple(1000, "appale", (byte) 1, true, new byte[]{1, 2});
+        //非Codec对象走Schema，覆盖多字节字符
+        Foo foo = new Foo("京东" + builder, 1);
+        for (String type : new String[]{"kryo", "protostuff"}) {
+            Serializer serializer = SERIALIZATION.get(type).getSerializer();
+            Assert.assertTrue(type, serializer instanceof BufferSerializer);
+            BufferSerializer bs = (BufferSerializer) serializer;
+            for (Object object : new Object[]{small, large, foo}) {
+                ChannelBuffer[] buffers = new ChannelBuffer[]{
+                        new NettyChannelBuffer(ByteBufAllocator.DEFAULT.directBuffer(16)),
+                        new NettyChannelBuffer(Unpooled.buffer(16))};
+                for (ChannelBuffer buffer : buffers) {
+                    buffer.writeInt(0);
+                    bs.serialize(buffer, object);
+                    buffer.readInt();
+                    //和流的格式兼容
+                    UnsafeByteArrayOutputStream baos = new UnsafeByteArrayOutputStream(1024);
+                    serializer.serialize(baos, object);
+                    byte[] bytes = new byte[buffer.readableBytes()];
+                    buffer.getBytes(buffer.readerIndex(), bytes);
+                    Assert.assertArrayEquals(type, baos.toByteArray(), bytes);
+                    Assert.assertEquals(type, object, serializer.deserialize(new UnsafeByteArrayInputStream(baos.toByteArray()), object.getClass()));
+                    Assert.assertEquals(type, object, bs.deserialize(buffer, object.getClass()));
+                    Assert.assertEquals(type, 0, buffer.readableBytes());
+                    buffer.release();
+                }
+            }
+        }
+    }
+
     @Test
     public void testLinkedHashMap() {
         MapObj obj = new MapObj();
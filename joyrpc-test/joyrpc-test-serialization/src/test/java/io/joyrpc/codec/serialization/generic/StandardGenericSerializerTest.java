@@ -0,0 +1,181 @@
+package io.joyrpc.codec.serialization.generic;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.serialization.model.AddressBook;
+import io.joyrpc.codec.serialization.model.Person;
+import io.joyrpc.codec.serialization.model.PhoneNumber;
+import io.joyrpc.codec.serialization.model.PhoneType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class StandardGenericSerializerTest {
+
+    protected StandardGenericSerializer serializer = new StandardGenericSerializer();
+
+    @Test
+    public void testAcyclic() {
+        Assert.assertTrue(serializer.getConverter(Point.class).isAcyclic());
+        Assert.assertTrue(serializer.getConverter(Line.class).isAcyclic());
+        //非final的属性类型在运行时可能是子类
+        Assert.assertFalse(serializer.getConverter(Person.class).isAcyclic());
+        Assert.assertFalse(serializer.getConverter(Node.class).isAcyclic());
+        Assert.assertFalse(serializer.getConverter(Chain.class).isAcyclic());
+    }
+
+    @Test
+    public void testPojo() throws Exception {
+        AddressBook book = new AddressBook(
+                new Person("Tom", 1, "tom@joyrpc.io", new PhoneNumber("123", PhoneType.MOBILE)),
+                new Person("Jerry", 2, "jerry@joyrpc.io"));
+        Object normalized = serializer.normalize(book);
+        Assert.assertTrue(normalized instanceof Map);
+        Assert.assertEquals(AddressBook.class.getName(), ((Map) normalized).get(StandardGenericSerializer.CLASS));
+        Object realized = serializer.realize(normalized, AddressBook.class, AddressBook.class, new IdentityHashMap<>());
+        Assert.assertEquals(book, realized);
+    }
+
+    @Test
+    public void testAcyclicPojo() throws Exception {
+        Point point = new Point(1, 2);
+        Line line = new Line(point, point);
+        line.label = "line";
+        Map<String, Object> normalized = (Map<String, Object>) serializer.normalize(line);
+        Assert.assertEquals("line", normalized.get("label"));
+        Assert.assertEquals(((Map) normalized.get("from")).get("x"), 1);
+        //公共字段为空不输出
+        line.label = null;
+        Assert.assertFalse(((Map) serializer.normalize(line)).containsKey("label"));
+        normalized.put("to", normalized.get("from"));
+        Line realized = (Line) serializer.realize(normalized, Line.class, Line.class, new IdentityHashMap<>());
+        Assert.assertEquals("line", realized.label);
+        Assert.assertEquals(2, realized.getTo().getY());
+        Assert.assertEquals(realized.getFrom().getX(), realized.getTo().getX());
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        Node node = new Node();
+        node.setName("self");
+        node.setNext(node);
+        Map<String, Object> normalized = (Map<String, Object>) serializer.normalize(node);
+        Assert.assertSame(normalized, normalized.get("next"));
+        Node realized = (Node) serializer.realize(normalized, Node.class, Node.class, new IdentityHashMap<>());
+        Assert.assertEquals("self", realized.getName());
+        Assert.assertSame(realized, realized.getNext());
+    }
+
+    public static final class Point {
+        private int x;
+        private int y;
+
+        public Point() {
+        }
+
+        public Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public void setX(int x) {
+            this.x = x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public void setY(int y) {
+            this.y = y;
+        }
+    }
+
+    public static class Line {
+        private Point from;
+        private Point to;
+        public String label;
+
+        public Line() {
+        }
+
+        public Line(Point from, Point to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public Point getFrom() {
+            return from;
+        }
+
+        public void setFrom(Point from) {
+            this.from = from;
+        }
+
+        public Point getTo() {
+            return to;
+        }
+
+        public void setTo(Point to) {
+            this.to = to;
+        }
+    }
+
+    public static class Node {
+        private String name;
+        private Node next;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Node getNext() {
+            return next;
+        }
+
+        public void setNext(Node next) {
+            this.next = next;
+        }
+    }
+
+    public static final class Chain {
+        private Chain next;
+
+        public Chain getNext() {
+            return next;
+        }
+
+        public void setNext(Chain next) {
+            this.next = next;
+        }
+    }
+}
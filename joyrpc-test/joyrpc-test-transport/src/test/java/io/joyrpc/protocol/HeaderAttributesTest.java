@@ -0,0 +1,117 @@
+package io.joyrpc.protocol;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.protocol.joy.codec.JoyCodec;
+import io.joyrpc.protocol.message.HeaderAttributes;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.session.StringTable;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class HeaderAttributesTest {
+
+    @Test
+    public void testMap() {
+        HeaderAttributes attributes = new HeaderAttributes(2);
+        Map<Byte, Object> expected = new HashMap<>();
+        for (byte i = 0; i < 10; i++) {
+            attributes.put(i, "value" + i);
+            expected.put(i, "value" + i);
+        }
+        Assert.assertEquals(expected, attributes);
+        Assert.assertEquals("value3", attributes.get((byte) 3));
+        Assert.assertEquals("value3", attributes.remove((Object) (byte) 3));
+        Assert.assertNull(attributes.get((byte) 3));
+        Assert.assertEquals(9, attributes.size());
+        attributes.put((byte) 4, 4);
+        Assert.assertEquals(4, attributes.get((Object) (byte) 4));
+        attributes.put((byte) 5, null);
+        Assert.assertFalse(attributes.containsKey((byte) 5));
+        Iterator<Map.Entry<Byte, Object>> iterator = attributes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Assert.assertEquals(3, attributes.size());
+        Assert.assertEquals("value9", attributes.get((byte) 9));
+    }
+
+    @Test
+    public void testCopy() {
+        HeaderAttributes attributes = new HeaderAttributes(2);
+        attributes.put((byte) 1, "one");
+        attributes.put((byte) 2, 2);
+        HeaderAttributes copy = attributes.copy();
+        Assert.assertEquals(attributes, copy);
+        copy.put((byte) 3, "three");
+        copy.remove((byte) 1);
+        Assert.assertEquals(2, attributes.size());
+        Assert.assertEquals("one", attributes.get((byte) 1));
+        Assert.assertNull(attributes.get((byte) 3));
+        Map<Byte, Object> map = new HashMap<>();
+        map.put((byte) 1, "one");
+        Assert.assertEquals(map, HeaderAttributes.copy(map));
+        Assert.assertNull(HeaderAttributes.copy(null));
+    }
+
+    @Test
+    public void testStringTable() {
+        JoyCodec codec = new JoyCodec(null);
+        StringTable encoder = new StringTable();
+        StringTable decoder = new StringTable();
+        HeaderAttributes attributes = new HeaderAttributes();
+        attributes.put((byte) 1, "io.joyrpc.service.DemoService");
+        attributes.put((byte) 2, 100);
+        attributes.put((byte) 3, (byte) 1);
+        attributes.put((byte) 4, (short) 2);
+        int[] sizes = new int[3];
+        for (int i = 0; i < sizes.length; i++) {
+            ChannelBuffer buffer = new NettyChannelBuffer(ByteBufAllocator.DEFAULT.buffer(128));
+            codec.encodeAttributes(buffer, attributes, encoder);
+            encoder.commit();
+            sizes[i] = buffer.readableBytes();
+            Map<Byte, Object> result = codec.decodeAttributes(buffer, decoder);
+            Assert.assertEquals(attributes, result);
+            buffer.release();
+        }
+        //第一次明文，第二次定义字典，第三次引用字典
+        Assert.assertEquals(sizes[0] + 2, sizes[1]);
+        Assert.assertTrue(sizes[2] < sizes[0]);
+
+        //编码失败回滚后重新定义
+        attributes.put((byte) 1, "io.joyrpc.service.OtherService");
+        ChannelBuffer buffer = new NettyChannelBuffer(ByteBufAllocator.DEFAULT.buffer(128));
+        codec.encodeAttributes(buffer, attributes, encoder);
+        codec.encodeAttributes(buffer, attributes, encoder);
+        encoder.rollback();
+        Assert.assertEquals(-1, encoder.index("io.joyrpc.service.OtherService"));
+        buffer.release();
+    }
+}
@@ -0,0 +1,204 @@
+package io.joyrpc.protocol.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.*;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.util.SystemClock;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BizReqHandlerTest {
+
+    /**
+     * 构造延迟解码的请求，返回的缓冲区只被请求的切片引用
+     */
+    protected ByteBuf lazy(final RequestMessage<Invocation> request, final AtomicReference<Thread> decoder) {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeBytes("io.joyrpc.Demo".getBytes());
+        ChannelBuffer slice = new NettyChannelBuffer(frame).readRetainedSlice(frame.readableBytes());
+        //解码器释放整个帧，只剩下切片的引用
+        frame.release();
+        request.setLazyPayload(slice, buffer -> {
+            decoder.set(Thread.currentThread());
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            Invocation invocation = new Invocation();
+            invocation.setClassName(new String(bytes));
+            return invocation;
+        });
+        return frame;
+    }
+
+    protected RequestMessage<Invocation> request(final int timeout) {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType(), 1);
+        header.setTimeout(timeout);
+        RequestMessage<Invocation> request = new RequestMessage<>(header);
+        request.setReceiveTime(SystemClock.now());
+        return request;
+    }
+
+    /**
+     * 模拟通道
+     */
+    protected Channel channel(final boolean writable, final AtomicInteger sends) {
+        return (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isWritable":
+                    return writable;
+                case "send":
+                    sends.incrementAndGet();
+                    return null;
+                case "toString":
+                    return "mock";
+                default:
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+            }
+        });
+    }
+
+    protected ChannelContext context(final Channel channel) {
+        return new ChannelContext() {
+            @Override
+            public Channel getChannel() {
+                return channel;
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public boolean isEnd() {
+                return false;
+            }
+        };
+    }
+
+    protected ChainChannelHandler chain(final BizReqHandler handler, final ThreadPoolExecutor executor) {
+        return new ChainChannelHandler(new ChannelHandlerChain(new ChannelHandler() {
+            @Override
+            public Object received(final ChannelContext context, final Object message) {
+                handler.handle(context, (RequestMessage<?>) message);
+                return null;
+            }
+        }), executor);
+    }
+
+    @Test
+    public void testDecodeOnBizThread() throws InterruptedException {
+        AtomicReference<Thread> decoder = new AtomicReference<>();
+        AtomicInteger sends = new AtomicInteger();
+        RequestMessage<Invocation> request = request(5000);
+        ByteBuf frame = lazy(request, decoder);
+        Assert.assertTrue(request.isLazy());
+        Assert.assertEquals(1, frame.refCnt());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "biz"));
+        try {
+            chain(new BizReqHandler(), executor).received(context(channel(true, sends)), request);
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertNotNull(decoder.get());
+        Assert.assertEquals("biz", decoder.get().getName());
+        Assert.assertFalse(request.isLazy());
+        Assert.assertEquals("io.joyrpc.Demo", request.getPayLoad().getClassName());
+        //没有注册服务，应答异常
+        Assert.assertEquals(1, sends.get());
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void testDiscardOnTimeout() {
+        AtomicReference<Thread> decoder = new AtomicReference<>();
+        AtomicInteger sends = new AtomicInteger();
+        RequestMessage<Invocation> request = request(100);
+        request.setReceiveTime(SystemClock.now() - 1000);
+        ByteBuf frame = lazy(request, decoder);
+        new BizReqHandler().handle(context(channel(true, sends)), request);
+        Assert.assertNull(decoder.get());
+        Assert.assertNull(request.getPayLoad());
+        Assert.assertEquals(0, sends.get());
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void testDiscardOnUnwritable() {
+        AtomicReference<Thread> decoder = new AtomicReference<>();
+        AtomicInteger sends = new AtomicInteger();
+        RequestMessage<Invocation> request = request(5000);
+        ByteBuf frame = lazy(request, decoder);
+        new BizReqHandler().handle(context(channel(false, sends)), request);
+        Assert.assertNull(decoder.get());
+        Assert.assertNull(request.getPayLoad());
+        Assert.assertEquals(0, sends.get());
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void testDiscardOnRejection() throws InterruptedException {
+        AtomicReference<Thread> decoder = new AtomicReference<>();
+        AtomicInteger sends = new AtomicInteger();
+        RequestMessage<Invocation> request = request(5000);
+        ByteBuf frame = lazy(request, decoder);
+        //线程和队列都被占满
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        try {
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            try {
+                chain(new BizReqHandler(), executor).received(context(channel(true, sends)), request);
+                Assert.fail();
+            } catch (RejectedExecutionException ignored) {
+            }
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        Assert.assertNull(decoder.get());
+        Assert.assertFalse(request.isLazy());
+        Assert.assertEquals(0, sends.get());
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+}
@@ -0,0 +1,160 @@
+package io.joyrpc.protocol.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.codec.compression.zlib.DictionaryTrainer;
+import io.joyrpc.codec.compression.zlib.ZlibDictionary;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.handler.NegotiationReqHandler.ProviderSession;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.ChannelContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.constants.Constants.*;
+
+public class HeartbeatReqHandlerTest {
+
+    /**
+     * 模拟通道，记录发送的应答
+     */
+    protected ChannelContext context(final AtomicReference<ResponseMessage<?>> sent) {
+        Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class},
+                (proxy, method, args) -> {
+                    if ("send".equals(method.getName())) {
+                        sent.set((ResponseMessage<?>) args[0]);
+                    }
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                });
+        return new ChannelContext() {
+            @Override
+            public Channel getChannel() {
+                return channel;
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public boolean isEnd() {
+                return false;
+            }
+        };
+    }
+
+    protected ProviderSession session(final String name, final boolean dictionary) {
+        ProviderSession session = new ProviderSession(1, 60000);
+        session.setCompression(COMPRESSION.get("zlib"));
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(CONFIG_KEY_INTERFACE, name);
+        if (dictionary) {
+            attributes.put(COMPRESS_DICTIONARY_OPTION.getName(), Boolean.TRUE.toString());
+        }
+        session.putAll(attributes);
+        return session;
+    }
+
+    protected RequestMessage<?> heartbeat(final ProviderSession session, final Integer dictionary) {
+        RequestMessage<?> result = new RequestMessage<>(new MessageHeader(MsgType.HbReq.getType()));
+        result.setSession(session);
+        if (dictionary != null) {
+            result.getHeader().addAttribute(HEAD_COMPRESS_DICTIONARY_ID, dictionary);
+        }
+        return result;
+    }
+
+    /**
+     * 训练接口的字典
+     */
+    protected ZlibDictionary train(final String name) throws InterruptedException {
+        Random random = new Random(0);
+        DictionaryTrainer trainer = ZlibDictionary.getTrainer(name);
+        while (trainer.isSampling()) {
+            byte[] sample = String.format("{\"code\":%d,\"message\":\"success\",\"data\":{\"orderId\":%d,\"status\":\"PAID\"}}",
+                    random.nextInt(10), random.nextLong()).getBytes(StandardCharsets.UTF_8);
+            trainer.sample(sample, 0, sample.length);
+        }
+        ZlibDictionary result;
+        long timeout = System.currentTimeMillis() + 5000;
+        while ((result = ZlibDictionary.getTrained(name)) == null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(result);
+        return result;
+    }
+
+    @Test
+    public void testDictionary() throws InterruptedException {
+        String name = "io.joyrpc.HeartbeatDictionaryService";
+        ZlibDictionary dictionary = train(name);
+        ProviderSession session = session(name, true);
+        HeartbeatReqHandler handler = new HeartbeatReqHandler();
+        AtomicReference<ResponseMessage<?>> sent = new AtomicReference<>();
+        //协商之后训练好的字典，通过心跳下发给已经建立的会话
+        handler.handle(context(sent), heartbeat(session, null));
+        Object data = sent.get().getHeader().getAttribute(HEAD_COMPRESS_DICTIONARY);
+        Assert.assertNotNull(data);
+        Assert.assertArrayEquals(dictionary.getData(), Base64.getDecoder().decode((String) data));
+        //客户端还没有确认，服务端不能使用字典
+        Assert.assertNull(session.getDictionary());
+        //客户端确认后开始使用字典，不再下发
+        handler.handle(context(sent), heartbeat(session, dictionary.getId()));
+        Assert.assertSame(dictionary.getData(), session.getDictionary());
+        Assert.assertNull(sent.get().getHeader().getAttribute(HEAD_COMPRESS_DICTIONARY));
+    }
+
+    @Test
+    public void testWrongAck() throws InterruptedException {
+        String name = "io.joyrpc.HeartbeatWrongAckService";
+        ZlibDictionary dictionary = train(name);
+        ProviderSession session = session(name, true);
+        AtomicReference<ResponseMessage<?>> sent = new AtomicReference<>();
+        new HeartbeatReqHandler().handle(context(sent), heartbeat(session, dictionary.getId() + 1));
+        Assert.assertNull(session.getDictionary());
+        Assert.assertNotNull(sent.get().getHeader().getAttribute(HEAD_COMPRESS_DICTIONARY));
+    }
+
+    @Test
+    public void testDisabled() throws InterruptedException {
+        String name = "io.joyrpc.HeartbeatDisabledService";
+        train(name);
+        ProviderSession session = session(name, false);
+        AtomicReference<ResponseMessage<?>> sent = new AtomicReference<>();
+        new HeartbeatReqHandler().handle(context(sent), heartbeat(session, null));
+        Assert.assertNull(sent.get().getHeader().getAttribute(HEAD_COMPRESS_DICTIONARY));
+        Assert.assertNull(session.getDictionary());
+    }
+
+}
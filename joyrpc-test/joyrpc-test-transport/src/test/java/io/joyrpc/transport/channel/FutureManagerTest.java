@@ -0,0 +1,162 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FutureManagerTest {
+
+    @Test
+    public void testCreateAndRemove() {
+        AtomicInteger ids = new AtomicInteger();
+        FutureManager<Object> manager = new FutureManager<>(null, ids::incrementAndGet);
+        int id = manager.generateId();
+        EnhanceCompletableFuture<Object> future = manager.create(id, 5000);
+        Assert.assertSame(future, manager.create(id, 5000));
+        //与第一个ID在同一个槽上
+        int conflict = conflict(manager, id);
+        EnhanceCompletableFuture<Object> other = manager.create(conflict, 5000);
+        Assert.assertNotSame(future, other);
+        Assert.assertEquals(2, manager.size());
+        Assert.assertSame(future, manager.get(id));
+        Assert.assertSame(other, manager.get(conflict));
+        Assert.assertSame(future, manager.remove(id));
+        Assert.assertNull(manager.remove(id));
+        Assert.assertSame(other, manager.remove(conflict));
+        Assert.assertTrue(manager.isEmpty());
+    }
+
+    /**
+     * 查找起始槽相同的消息ID
+     */
+    protected int conflict(final FutureManager<Object> manager, final int id) {
+        FutureManager.Segment<Object> segment = manager.futures.segment(id);
+        int result = id + 1;
+        while (manager.futures.segment(result) != segment || segment.hash(result) != segment.hash(id)) {
+            result++;
+        }
+        return result;
+    }
+
+    @Test
+    public void testDuplicate() {
+        FutureManager<Object> manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        int id = 1;
+        EnhanceCompletableFuture<Object> first = manager.create(id, 5000);
+        int conflict = conflict(manager, id);
+        EnhanceCompletableFuture<Object> second = manager.create(conflict, 5000);
+        //起始槽空出来以后，冲突的ID仍然能找到
+        Assert.assertSame(first, manager.remove(id));
+        Assert.assertSame(second, manager.create(conflict, 5000));
+        Assert.assertSame(second, manager.get(conflict));
+        Assert.assertEquals(1, manager.size());
+        Assert.assertSame(second, manager.remove(conflict));
+        Assert.assertTrue(manager.isEmpty());
+    }
+
+    @Test
+    public void testResize() {
+        FutureManager<Object> manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        int count = 200000;
+        EnhanceCompletableFuture<Object>[] futures = new EnhanceCompletableFuture[count];
+        for (int i = 0; i < count; i++) {
+            futures[i] = manager.create(manager.generateId(), 60000);
+        }
+        Assert.assertEquals(count, manager.size());
+        for (FutureManager.Segment<Object> segment : manager.futures.segments) {
+            Assert.assertTrue(segment.capacity() >= segment.size.get() * 2);
+        }
+        for (int i = 0; i < count; i += 2) {
+            Assert.assertSame(futures[i], manager.remove(futures[i].getMessageId()));
+        }
+        for (int i = 1; i < count; i += 2) {
+            Assert.assertSame(futures[i], manager.get(futures[i].getMessageId()));
+            Assert.assertSame(futures[i], manager.remove(futures[i].getMessageId()));
+        }
+        Assert.assertTrue(manager.isEmpty());
+        //删除不加锁，下次添加的时候缩容
+        for (int i = 0; i < FutureManager.FutureTable.SEGMENTS; i++) {
+            manager.create(manager.generateId(), 60000);
+        }
+        for (FutureManager.Segment<Object> segment : manager.futures.segments) {
+            Assert.assertEquals(64, segment.capacity());
+        }
+    }
+
+    @Test
+    public void testConcurrentRemove() throws InterruptedException {
+        FutureManager<Object> manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        int count = 100000;
+        BlockingQueue<EnhanceCompletableFuture<Object>> queue = new LinkedBlockingQueue<>();
+        AtomicInteger removed = new AtomicInteger();
+        //应答线程并发删除，发送线程同时添加触发扩缩容
+        Thread[] responders = new Thread[4];
+        for (int i = 0; i < responders.length; i++) {
+            responders[i] = new Thread(() -> {
+                EnhanceCompletableFuture<Object> future;
+                try {
+                    while ((future = queue.poll(1, TimeUnit.SECONDS)) != null) {
+                        if (manager.remove(future.getMessageId()) == future) {
+                            removed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            responders[i].start();
+        }
+        for (int i = 0; i < count; i++) {
+            queue.add(manager.create(manager.generateId(), 60000));
+        }
+        for (Thread responder : responders) {
+            responder.join();
+        }
+        Assert.assertEquals(count, removed.get());
+        Assert.assertTrue(manager.isEmpty());
+        for (FutureManager.Segment<Object> segment : manager.futures.segments) {
+            Assert.assertEquals(0, segment.size.get());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        FutureManager<Object> manager = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        EnhanceCompletableFuture<Object> future = manager.create(manager.generateId(), 10);
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            Assert.fail();
+        }
+        Assert.assertTrue(manager.isEmpty());
+    }
+}
@@ -0,0 +1,196 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.event.AsyncResult;
+import io.joyrpc.exception.ConnectionException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.transport.ClientTransport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StripedChannelManagerTest {
+
+    protected static final URL URL_STRIPED = URL.valueOf("joyrpc://10.0.0.1:22000?stripeConnections=4&stripePendings=8&stripeThreshold=8");
+
+    /**
+     * 模拟客户端
+     */
+    protected ClientTransport transport(final String channelName) {
+        return (ClientTransport) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ClientTransport.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUrl":
+                            return URL_STRIPED;
+                        case "getChannelName":
+                            return channelName;
+                        default:
+                            return method.getReturnType() == boolean.class ? Boolean.FALSE :
+                                    (method.getReturnType() == int.class ? 0 : null);
+                    }
+                });
+    }
+
+    /**
+     * 模拟已经建立的连接
+     */
+    protected void open(final StripedChannelManager manager, final String name, final int transports, final int pendings) {
+        FutureManager<Object> futures = new FutureManager<>(null, new AtomicInteger()::incrementAndGet);
+        for (int i = 0; i < pendings; i++) {
+            futures.create(futures.generateId(), 60000);
+        }
+        Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class},
+                (proxy, method, args) -> "getFutureManager".equals(method.getName()) ? futures : null);
+        AbstractChannelManager.PoolChannel pool = new AbstractChannelManager.PoolChannel(transport(name), null, null);
+        pool.channel = channel;
+        for (int i = 0; i < transports; i++) {
+            pool.addRef();
+        }
+        manager.channels.put(name, pool);
+        //连接完成，释放预留
+        for (int i = 0; i < transports; i++) {
+            manager.names.get(name).release();
+        }
+    }
+
+    protected Map<String, Integer> count(final List<String> keys) {
+        Map<String, Integer> result = new HashMap<>();
+        keys.forEach(o -> result.merge(o, 1, Integer::sum));
+        return result;
+    }
+
+    @Test
+    public void testSpread() {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(manager.getChannelKey(transport(null)));
+        }
+        //启动的时候没有在途请求，依次分配到各个连接
+        Assert.assertEquals(4, new HashSet<>(keys).size());
+        for (int i = 0; i < 4; i++) {
+            keys.add(manager.getChannelKey(transport(null)));
+        }
+        for (Integer count : count(keys).values()) {
+            Assert.assertEquals(2, count.intValue());
+        }
+    }
+
+    @Test
+    public void testLeastLoad() {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED);
+        String prefix = manager.getChannelKey(transport(null));
+        prefix = prefix.substring(0, prefix.lastIndexOf('-') + 1);
+        for (int i = 1; i < 4; i++) {
+            manager.getChannelKey(transport(null));
+        }
+        //每个连接一个客户端，第3个连接上的在途请求数很多
+        for (int i = 0; i < 4; i++) {
+            open(manager, prefix + i, 1, i == 2 ? 100 : 0);
+        }
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            keys.add(manager.getChannelKey(transport(null)));
+        }
+        Assert.assertFalse(keys.contains(prefix + 2));
+        Map<String, Integer> counts = count(keys);
+        Assert.assertEquals(2, counts.get(prefix + 0).intValue());
+        Assert.assertEquals(2, counts.get(prefix + 1).intValue());
+        Assert.assertEquals(2, counts.get(prefix + 3).intValue());
+        //连接关闭后没有负载，优先被使用
+        manager.channels.remove(prefix + 1);
+        manager.names.get(prefix + 1).release();
+        manager.names.get(prefix + 1).release();
+        Assert.assertEquals(prefix + 1, manager.getChannelKey(transport(null)));
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED.add("stripeThreshold", "100"));
+        String first = manager.getChannelKey(transport(null));
+        String prefix = first.substring(0, first.lastIndexOf('-') + 1);
+        Assert.assertEquals(prefix + 0, first);
+        open(manager, first, 1, 0);
+        //负载没有达到阈值，共享已有的连接
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(first, manager.getChannelKey(transport(null)));
+        }
+        //5个客户端连接完成，在途请求增加后达到阈值，新建连接
+        open(manager, first, 5, 100);
+        Assert.assertEquals(prefix + 1, manager.getChannelKey(transport(null)));
+        //新连接关闭后，负载下降，新的客户端回到已有的连接
+        manager.names.get(prefix + 1).release();
+        open(manager, first, 5, 0);
+        Assert.assertEquals(first, manager.getChannelKey(transport(null)));
+    }
+
+    @Test
+    public void testRelease() throws InterruptedException {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED);
+        String key = manager.getChannelKey(transport(null));
+        CountDownLatch latch = new CountDownLatch(1);
+        //连接失败释放预留，下次还是分配到该连接
+        manager.getChannel(transport(key), r -> latch.countDown(),
+                c -> c.accept(new AsyncResult<>(new ConnectionException("refused"))));
+        latch.await();
+        Assert.assertEquals(key, manager.getChannelKey(transport(null)));
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED);
+        Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    counts.computeIfAbsent(manager.getChannelKey(transport(null)), o -> new AtomicInteger()).incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(4, counts.size());
+        for (AtomicInteger count : counts.values()) {
+            Assert.assertEquals(200, count.get());
+        }
+    }
+
+    @Test
+    public void testRoundRobin() {
+        StripedChannelManager manager = new StripedChannelManager(URL_STRIPED.add("stripePolicy", "roundRobin"));
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            keys.add(manager.getChannelKey(transport(null)));
+        }
+        Assert.assertEquals(4, keys.size());
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.joyrpc.transport.netty4.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.transport.channel.SendResult;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class NettyChannelTest {
+
+    @Test
+    public void testFlushConsolidation() {
+        EmbeddedChannel embedded = new EmbeddedChannel();
+        NettyChannel channel = new NettyChannel(embedded, false, 4, 0);
+        for (int i = 0; i < 10; i++) {
+            channel.send("message" + i);
+        }
+        //还没有执行事件循环任务
+        Assert.assertNull(embedded.readOutbound());
+        embedded.runPendingTasks();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("message" + i, embedded.readOutbound());
+        }
+        Assert.assertEquals(10, channel.getWrites());
+        Assert.assertEquals(3, channel.getFlushes());
+        embedded.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testMaxPending() {
+        EmbeddedChannel embedded = new EmbeddedChannel();
+        NettyChannel channel = new NettyChannel(embedded, false, 4, 0, 8) {
+            //EmbeddedChannel的地址不是InetSocketAddress
+            @Override
+            public InetSocketAddress getLocalAddress() {
+                return null;
+            }
+
+            @Override
+            public InetSocketAddress getRemoteAddress() {
+                return null;
+            }
+        };
+        for (int i = 0; i < 8; i++) {
+            channel.send("message" + i);
+        }
+        //排队消息达到上限，返回过载异常
+        Assert.assertFalse(channel.isWritable());
+        AtomicReference<SendResult> result = new AtomicReference<>();
+        channel.send("message8", result::set);
+        Assert.assertFalse(result.get().isSuccess());
+        Assert.assertTrue(result.get().getThrowable() instanceof OverloadException);
+        embedded.runPendingTasks();
+        Assert.assertTrue(channel.isWritable());
+        Assert.assertEquals(8, channel.getWrites());
+        embedded.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDrainYield() {
+        EmbeddedChannel embedded = new EmbeddedChannel();
+        NettyChannel channel = new NettyChannel(embedded, false, 4, 0);
+        //EmbeddedChannel写入时会执行排队的任务，这里先阻止提交，直接执行一次
+        channel.batcher.scheduled.set(true);
+        for (int i = 0; i < 10; i++) {
+            channel.send("message" + i);
+        }
+        channel.batcher.run();
+        //每次只写入一批，剩余的重新提交到事件循环
+        Assert.assertEquals(4, channel.getWrites());
+        Assert.assertEquals(6, channel.batcher.queue.size());
+        Assert.assertTrue(channel.batcher.scheduled.get());
+        embedded.runPendingTasks();
+        Assert.assertEquals(10, channel.getWrites());
+        embedded.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testWriteAndFlush() {
+        EmbeddedChannel embedded = new EmbeddedChannel();
+        NettyChannel channel = new NettyChannel(embedded, false);
+        channel.send("message");
+        Assert.assertEquals("message", embedded.readOutbound());
+        Assert.assertEquals(0, channel.getFlushes());
+        embedded.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,79 @@
+package io.joyrpc.config;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.config.InterfaceOption.Concurrency;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConcurrencyTest {
+
+    @Test
+    public void testDispatch() {
+        Concurrency concurrency = new Concurrency(1, 2);
+        List<Integer> admits = new ArrayList<>();
+        Assert.assertTrue(concurrency.tryAdd());
+        Assert.assertFalse(concurrency.tryAdd());
+        Assert.assertTrue(concurrency.offer(() -> admits.add(1)));
+        Assert.assertTrue(concurrency.offer(() -> admits.add(2)));
+        //队列已满
+        Assert.assertFalse(concurrency.offer(() -> admits.add(3)));
+        Assert.assertEquals(2, concurrency.getWaitings());
+        Assert.assertTrue(admits.isEmpty());
+        //释放后按照顺序派发
+        concurrency.decrement();
+        concurrency.dispatch();
+        Assert.assertEquals(1, admits.size());
+        Assert.assertEquals(1, admits.get(0).intValue());
+        Assert.assertEquals(1, concurrency.getActives());
+        concurrency.decrement();
+        concurrency.dispatch();
+        Assert.assertEquals(2, admits.get(1).intValue());
+        Assert.assertEquals(0, concurrency.getWaitings());
+    }
+
+    @Test
+    public void testExpired() {
+        Concurrency concurrency = new Concurrency(1, 2);
+        Assert.assertTrue(concurrency.tryAdd());
+        Concurrency.Waiter expired = () -> false;
+        Assert.assertTrue(concurrency.offer(expired));
+        Assert.assertTrue(concurrency.remove(expired));
+        Assert.assertEquals(0, concurrency.getWaitings());
+        Assert.assertTrue(concurrency.offer(expired));
+        //超时的等待者不占用并发数
+        concurrency.decrement();
+        concurrency.dispatch();
+        Assert.assertEquals(0, concurrency.getActives());
+        Assert.assertEquals(0, concurrency.getWaitings());
+    }
+
+    @Test
+    public void testSync() {
+        Concurrency concurrency = new Concurrency(1);
+        Assert.assertEquals(0, concurrency.getQueues());
+        Assert.assertFalse(concurrency.offer(() -> true));
+    }
+}
@@ -0,0 +1,154 @@
+package io.joyrpc.filter.consumer;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.Invoker;
+import io.joyrpc.Result;
+import io.joyrpc.config.InterfaceOption.Concurrency;
+import io.joyrpc.config.InterfaceOption.MethodOption;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.thread.NamedThreadFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class ConcurrencyFilterTest {
+
+    /**
+     * 模拟异步方法配置
+     */
+    protected MethodOption option(final Concurrency concurrency) {
+        return (MethodOption) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{MethodOption.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConcurrency":
+                    return concurrency;
+                case "isAsync":
+                    return true;
+                default:
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE :
+                            (method.getReturnType() == int.class ? 0 : null);
+            }
+        });
+    }
+
+    protected RequestMessage<Invocation> request(final MethodOption option) {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType());
+        header.setTimeout(60000);
+        Invocation invocation = new Invocation();
+        invocation.setClassName("io.joyrpc.Demo");
+        invocation.setMethodName("hello");
+        RequestMessage<Invocation> request = new RequestMessage<>(header, invocation);
+        request.setOption(option);
+        return request;
+    }
+
+    @Test
+    public void testSyncFailedWaiters() throws InterruptedException, ExecutionException, TimeoutException {
+        //在当前业务线程完成，等待者在当前线程中循环派发，不会递归
+        Set<String> threads = dispatch(first -> first.complete(new Result(null, "ok")));
+        Assert.assertEquals(1, threads.size());
+        Assert.assertTrue(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testIoThreadDispatch() throws InterruptedException, ExecutionException, TimeoutException {
+        //在IO线程中完成，等待者切换到派发线程池
+        AtomicReference<String> io = new AtomicReference<>();
+        Set<String> threads = dispatch(first -> {
+            Thread thread = new NamedThreadFactory("test-io", true, true).newThread(() -> first.complete(new Result(null, "ok")));
+            io.set(thread.getName());
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Assert.assertFalse(threads.isEmpty());
+        for (String thread : threads) {
+            Assert.assertTrue(thread, thread.startsWith("concurrency-dispatcher"));
+        }
+        Assert.assertFalse(threads.contains(io.get()));
+    }
+
+    /**
+     * 第一个调用占住并发数，后续的调用都同步失败，完成第一个调用后派发所有等待者
+     *
+     * @param completer 完成第一个调用
+     * @return 派发等待者的线程名称
+     */
+    protected Set<String> dispatch(final Consumer<CompletableFuture<Result>> completer)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        int count = 20000;
+        Concurrency concurrency = new Concurrency(1, count);
+        MethodOption option = option(concurrency);
+        ConcurrencyFilter filter = new ConcurrencyFilter();
+        CompletableFuture<Result> first = new CompletableFuture<>();
+        AtomicInteger invokes = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Invoker invoker = request -> {
+            threads.add(Thread.currentThread().getName());
+            int invoke = invokes.getAndIncrement();
+            if (invoke == 0) {
+                return first;
+            } else if (invoke % 2 == 0) {
+                throw new IllegalStateException("channel is inactive.");
+            }
+            CompletableFuture<Result> result = new CompletableFuture<>();
+            result.completeExceptionally(new IllegalStateException("channel is inactive."));
+            return result;
+        };
+        CompletableFuture<Result> future = filter.invoke(invoker, request(option));
+        List<CompletableFuture<Result>> waiters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            waiters.add(filter.invoke(invoker, request(option)));
+        }
+        Assert.assertEquals(1, invokes.get());
+        Assert.assertEquals(count, concurrency.getWaitings());
+        threads.clear();
+        completer.accept(first);
+        Assert.assertEquals("ok", future.get().getValue());
+        CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).handle((r, e) -> null).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<Result> waiter : waiters) {
+            Assert.assertTrue(waiter.isCompletedExceptionally());
+        }
+        Assert.assertEquals(count + 1, invokes.get());
+        Assert.assertEquals(0, concurrency.getWaitings());
+        Assert.assertEquals(0, concurrency.getActives());
+        return threads;
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.joyrpc.thread;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.OverloadException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+public class BulkheadTest {
+
+    @Test
+    public void testRejectAndBorrow() throws InterruptedException {
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 0, false);
+        bulkhead.execute(() -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, null);
+        started.await();
+        //隔离舱满了，不能借用
+        try {
+            bulkhead.execute(() -> {
+            }, null);
+            Assert.fail();
+        } catch (OverloadException e) {
+            Assert.assertEquals(1, bulkhead.getRejects());
+        }
+
+        //可以借用共享线程池的空闲线程
+        ThreadPoolExecutor shared = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        Bulkhead borrower = new Bulkhead("borrower", 1, 1, 0, true);
+        CountDownLatch started2 = new CountDownLatch(1);
+        borrower.execute(() -> {
+            started2.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, shared);
+        started2.await();
+        CountDownLatch borrowed = new CountDownLatch(1);
+        borrower.execute(borrowed::countDown, shared);
+        Assert.assertTrue(borrowed.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, borrower.getBorrows());
+        Assert.assertEquals(0, borrower.getRejects());
+
+        block.countDown();
+        bulkhead.close();
+        borrower.close();
+        shared.shutdown();
+    }
+}
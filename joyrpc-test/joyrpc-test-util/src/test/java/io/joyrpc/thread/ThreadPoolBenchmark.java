@@ -0,0 +1,104 @@
+package io.joyrpc.thread;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.extension.URL;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.THREAD_POOL;
+
+/**
+ * 业务线程池的派发性能对比，同步服务在业务线程中执行，异步服务的业务线程只负责发起调用
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ThreadPoolBenchmark {
+
+    @Param({"adaptive", "virtual", "direct"})
+    protected String type;
+
+    protected ThreadPoolExecutor executor;
+
+    @Setup
+    public void setup() {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000?thread.maxSize=200&queues=1024");
+        executor = THREAD_POOL.get(type).get(url, new NamedThreadFactory("benchmark", true));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 同步服务，模拟少量计算
+     */
+    @Benchmark
+    public Object sync() throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        executor.execute(() -> future.complete(compute()));
+        return future.get();
+    }
+
+    /**
+     * 异步服务，直接执行模式下在调用线程中发起
+     */
+    @Benchmark
+    public Object async() throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Runnable runnable = () -> CompletableFuture.supplyAsync(this::compute).whenComplete((v, t) -> future.complete(v));
+        if (executor instanceof InlineExecutor) {
+            runnable.run();
+        } else {
+            executor.execute(runnable);
+        }
+        return future.get();
+    }
+
+    protected Object compute() {
+        long result = 0;
+        for (int i = 0; i < 100; i++) {
+            result += i * 31;
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ThreadPoolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
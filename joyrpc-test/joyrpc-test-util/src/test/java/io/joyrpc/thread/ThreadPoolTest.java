@@ -0,0 +1,121 @@
+package io.joyrpc.thread;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.thread.virtual.VirtualThreadPool;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.THREAD_POOL;
+
+public class ThreadPoolTest {
+
+    @Test
+    public void testVirtual() throws InterruptedException {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000");
+        ThreadPoolExecutor executor = THREAD_POOL.get("virtual").get(url, new NamedThreadFactory("test", true));
+        Assert.assertNotNull(executor);
+        CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(latch::countDown);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        if (VirtualThreadPool.isSupported()) {
+            //虚拟线程没有核心线程
+            Assert.assertEquals(0, executor.getCorePoolSize());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testVirtualThread() throws Exception {
+        //需要JDK21及以上版本运行
+        Assume.assumeTrue(VirtualThreadPool.isSupported());
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        //并发创建多个线程池，线程名称前缀互不影响
+        int size = 8;
+        List<CompletableFuture<ThreadPoolExecutor>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            URL url = URL.valueOf("joyrpc://127.0.0.1:" + (22100 + i));
+            futures.add(CompletableFuture.supplyAsync(() -> THREAD_POOL.get("virtual").get(url, new NamedThreadFactory("test", true))));
+        }
+        for (int i = 0; i < size; i++) {
+            ThreadPoolExecutor executor = futures.get(i).get();
+            CompletableFuture<Thread> thread = new CompletableFuture<>();
+            executor.execute(() -> thread.complete(Thread.currentThread()));
+            Thread current = thread.get(5, TimeUnit.SECONDS);
+            Assert.assertTrue((Boolean) isVirtual.invoke(current));
+            Assert.assertTrue(current.getName().startsWith("RPC-VT-" + (22100 + i) + "-"));
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualMaxSize() throws Exception {
+        Assume.assumeTrue(VirtualThreadPool.isSupported());
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000?thread.maxSize=1");
+        ThreadPoolExecutor executor = THREAD_POOL.get("virtual").get(url, new NamedThreadFactory("test", true));
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, executor.getActiveCount());
+        try {
+            executor.execute(() -> {
+            });
+            Assert.fail();
+        } catch (OverloadException ignored) {
+        }
+        latch.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDirect() throws InterruptedException {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000");
+        ThreadPoolExecutor executor = THREAD_POOL.get("direct").get(url, new NamedThreadFactory("test", true));
+        Assert.assertTrue(executor instanceof InlineExecutor);
+        //非请求消息还是提交到线程池
+        Assert.assertFalse(((InlineExecutor) executor).inline("hello"));
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求超时场景下时间轮与Timer的添加、放弃性能对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class TimeoutWheelBenchmark {
+
+    protected Timer timer;
+
+    protected TimeoutWheel.Driver driver;
+
+    protected TimeoutWheel<TimeoutWheelTest.MyTask> wheel;
+
+    @Setup
+    public void setup() {
+        timer = new Timer("benchmark", 200, 300, 4);
+        driver = new TimeoutWheel.Driver("benchmark", TimeUnit.MILLISECONDS.toNanos(1), 512, 4);
+        wheel = driver.create(o -> {
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        driver.close();
+    }
+
+    @Benchmark
+    public boolean timer() {
+        Timer.Timeout timeout = timer.add("benchmark", SystemClock.now() + 5000, () -> {
+        });
+        return timeout.cancel();
+    }
+
+    @Benchmark
+    public boolean wheel() {
+        TimeoutWheelTest.MyTask task = new TimeoutWheelTest.MyTask(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5000));
+        wheel.add(task);
+        return wheel.remove(task);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TimeoutWheelBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
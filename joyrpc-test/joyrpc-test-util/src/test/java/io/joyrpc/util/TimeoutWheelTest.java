@@ -0,0 +1,103 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimeoutWheelTest {
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        TimeoutWheel.Driver driver = new TimeoutWheel.Driver("test", TimeUnit.MICROSECONDS.toNanos(500), 64, 1);
+        CountDownLatch latch = new CountDownLatch(3);
+        TimeoutWheel<MyTask> wheel = driver.create(o -> {
+            o.expired = System.nanoTime();
+            latch.countDown();
+        });
+        long now = System.nanoTime();
+        MyTask[] tasks = new MyTask[]{
+                new MyTask(now + TimeUnit.MILLISECONDS.toNanos(2)),
+                new MyTask(now + TimeUnit.MILLISECONDS.toNanos(20)),
+                //超过一圈
+                new MyTask(now + TimeUnit.MILLISECONDS.toNanos(50))};
+        for (MyTask task : tasks) {
+            Assert.assertTrue(wheel.add(task));
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        for (MyTask task : tasks) {
+            Assert.assertTrue(task.expired >= task.deadline);
+        }
+        Assert.assertEquals(0, wheel.size());
+        driver.close();
+    }
+
+    @Test
+    public void testRemove() throws InterruptedException {
+        TimeoutWheel.Driver driver = new TimeoutWheel.Driver("test", TimeUnit.MICROSECONDS.toNanos(500), 64, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        TimeoutWheel<MyTask> wheel = driver.create(o -> latch.countDown());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+        MyTask[] tasks = new MyTask[100];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new MyTask(deadline);
+            Assert.assertTrue(wheel.add(tasks[i]));
+        }
+        for (MyTask task : tasks) {
+            Assert.assertTrue(wheel.remove(task));
+            Assert.assertFalse(wheel.remove(task));
+        }
+        Assert.assertEquals(0, wheel.size());
+        Assert.assertFalse(latch.await(50, TimeUnit.MILLISECONDS));
+        //已经过期的任务
+        Assert.assertFalse(wheel.add(new MyTask(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10))));
+        driver.close();
+    }
+
+    protected static class MyTask implements TimeoutWheel.Timeoutable {
+        protected long deadline;
+        protected int slot = -1;
+        protected volatile long expired;
+
+        public MyTask(long deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDeadline() {
+            return deadline;
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+    }
+}